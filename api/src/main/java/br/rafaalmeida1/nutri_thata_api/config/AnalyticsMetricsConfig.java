@@ -0,0 +1,62 @@
+package br.rafaalmeida1.nutri_thata_api.config;
+
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsIngestionQueue;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsTrafficFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Contadores da ingestão e do filtro de tráfego de analytics como métricas do Actuator
+ * ({@code /actuator/metrics/nutri.analytics.*}). São do processo inteiro, somando todos os
+ * profissionais, por isso ficam com a operação e não na API de analytics.
+ */
+@Configuration
+public class AnalyticsMetricsConfig {
+
+    @Bean
+    public MeterBinder analyticsIngestionMetrics(AnalyticsIngestionQueue queue) {
+        return registry -> {
+            Gauge.builder("nutri.analytics.ingestion.queue.size", queue, q -> q.getStats().getQueueSize())
+                    .description("Eventos aguardando gravação")
+                    .register(registry);
+            Gauge.builder("nutri.analytics.ingestion.queue.capacity", queue, q -> q.getStats().getQueueCapacity())
+                    .register(registry);
+            ingestionCounter(registry, queue, "enqueued", q -> q.getStats().getEnqueued());
+            ingestionCounter(registry, queue, "dropped", q -> q.getStats().getDropped());
+            ingestionCounter(registry, queue, "written", q -> q.getStats().getWritten());
+            ingestionCounter(registry, queue, "failed", q -> q.getStats().getFailed());
+            FunctionCounter.builder("nutri.analytics.ingestion.batches", queue, q -> q.getStats().getBatches())
+                    .description("Lotes gravados, com ou sem erro")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder analyticsTrafficFilterMetrics(AnalyticsTrafficFilter filter) {
+        return registry -> {
+            filterCounter(registry, filter, "accepted", f -> f.getStats().getAccepted());
+            filterCounter(registry, filter, "bot", f -> f.getStats().getSuppressedBots());
+            filterCounter(registry, filter, "duplicate", f -> f.getStats().getSuppressedDuplicates());
+        };
+    }
+
+    private static void ingestionCounter(MeterRegistry registry, AnalyticsIngestionQueue queue,
+                                         String outcome, ToDoubleFunction<AnalyticsIngestionQueue> count) {
+        FunctionCounter.builder("nutri.analytics.ingestion.events", queue, count)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static void filterCounter(MeterRegistry registry, AnalyticsTrafficFilter filter,
+                                      String outcome, ToDoubleFunction<AnalyticsTrafficFilter> count) {
+        FunctionCounter.builder("nutri.analytics.filter.events", filter, count)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
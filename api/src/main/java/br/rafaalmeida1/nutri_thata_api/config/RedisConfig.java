@@ -1,5 +1,6 @@
 package br.rafaalmeida1.nutri_thata_api.config;
 
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsBucketCache;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
@@ -60,6 +61,9 @@ public class RedisConfig {
     @Value("${spring.cache.redis.key-prefix}")
     private String cacheKeyPrefix;
 
+    @Value("${nutri.analytics.cache.closed-bucket-ttl-hours:720}")
+    private long analyticsBucketTtlHours;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
@@ -122,6 +126,15 @@ public class RedisConfig {
                 .disableCachingNullValues()
                 .prefixCacheNameWith(cacheKeyPrefix));
 
+        // Cache para meses fechados de analytics - dados definitivos, TTL longo
+        cacheConfigurations.put(AnalyticsBucketCache.CACHE_NAME,
+            RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofHours(analyticsBucketTtlHours))
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
+                .disableCachingNullValues()
+                .prefixCacheNameWith(cacheKeyPrefix));
+
         return RedisCacheManager.builder(connectionFactory)
             .cacheDefaults(cacheConfiguration)
             .withInitialCacheConfigurations(cacheConfigurations)
@@ -0,0 +1,42 @@
+package br.rafaalmeida1.nutri_thata_api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+@Slf4j
+public class SchedulingConfig {
+
+    public static final String ANALYTICS_MAINTENANCE_SCHEDULER = "analyticsMaintenanceScheduler";
+
+    /**
+     * Agendador padrão dos jobs curtos (flushes, recargas de índices, tick do SSE). Com uma
+     * thread só, um job lento atrasaria todos os outros.
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${nutri.scheduling.pool-size:4}") int poolSize) {
+        return scheduler(poolSize, "Scheduler-");
+    }
+
+    /**
+     * Jobs longos de manutenção de analytics (rollups, backfill, partições), numa thread
+     * própria: rodam em série entre si e não ocupam o agendador padrão.
+     */
+    @Bean(name = ANALYTICS_MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler analyticsMaintenanceScheduler() {
+        return scheduler(1, "Analytics-Maintenance-");
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(int poolSize, String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setErrorHandler(e -> log.error("Erro em tarefa agendada", e));
+        return scheduler;
+    }
+}
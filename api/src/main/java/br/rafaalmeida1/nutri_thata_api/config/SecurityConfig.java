@@ -2,6 +2,7 @@ package br.rafaalmeida1.nutri_thata_api.config;
 
 import br.rafaalmeida1.nutri_thata_api.security.JwtAuthenticationEntryPoint;
 import br.rafaalmeida1.nutri_thata_api.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -72,6 +73,9 @@ public class SecurityConfig {
             .exceptionHandling(exception -> 
                 exception.authenticationEntryPoint(jwtAuthenticationEntryPoint))
             .authorizeHttpRequests(authz -> authz
+                // Respostas assíncronas (exportações em streaming) já foram autorizadas na requisição original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
                 // Public endpoints
                 .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
                 .requestMatchers(HttpMethod.GET, "/invites/{token}").permitAll()
@@ -86,6 +90,7 @@ public class SecurityConfig {
                 .requestMatchers("/professionals/**").hasRole("PROFESSIONAL")
                 .requestMatchers(HttpMethod.POST, "/modules").hasRole("PROFESSIONAL")
                 .requestMatchers(HttpMethod.PATCH, "/modules/*").hasRole("PROFESSIONAL")
+                .requestMatchers(HttpMethod.PATCH, "/modules/*/move").hasRole("PROFESSIONAL")
                 .requestMatchers(HttpMethod.DELETE, "/modules/*").hasRole("PROFESSIONAL")
                 
                 // Dashboard endpoints - authenticated users
@@ -2,6 +2,8 @@ package br.rafaalmeida1.nutri_thata_api.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,6 +13,25 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${UPLOAD_DIRECTORY}")
     private String uploadDirectory;
 
+    @Value("${nutri.web.async.timeout-ms:1800000}")
+    private long asyncTimeoutMs;
+
+    @Value("${nutri.web.async.max-threads:8}")
+    private int asyncMaxThreads;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Respostas em streaming (exportações) rodam neste pool, limitado, e podem levar vários minutos
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(asyncMaxThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("Mvc-Async-");
+        executor.initialize();
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Configurar recursos estáticos apenas para paths específicos
@@ -4,12 +4,21 @@ import br.rafaalmeida1.nutri_thata_api.dto.response.ApiResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.LinkAnalyticsResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.PageAnalyticsResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.AnalyticsExportDataset;
+import br.rafaalmeida1.nutri_thata_api.enums.AnalyticsExportFormat;
 import br.rafaalmeida1.nutri_thata_api.service.AnalyticsService;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsExportService;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.LiveAnalyticsBroadcaster;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 
@@ -19,11 +28,14 @@ import java.time.LocalDateTime;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AnalyticsExportService analyticsExportService;
+    private final LiveAnalyticsBroadcaster liveAnalyticsBroadcaster;
 
     @GetMapping("/page")
     public ResponseEntity<ApiResponse<PageAnalyticsResponse>> getPageAnalytics(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean exactUniques,
             @AuthenticationPrincipal User user) {
         
         // Se não especificado, usar últimos 30 dias
@@ -34,7 +46,7 @@ public class AnalyticsController {
             endDate = LocalDateTime.now();
         }
         
-        PageAnalyticsResponse analytics = analyticsService.getPageAnalytics(user, startDate, endDate);
+        PageAnalyticsResponse analytics = analyticsService.getPageAnalytics(user, startDate, endDate, exactUniques);
         return ResponseEntity.ok(ApiResponse.success("Estatísticas de página", analytics));
     }
 
@@ -43,6 +55,7 @@ public class AnalyticsController {
             @PathVariable Long linkId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean exactUniques,
             @AuthenticationPrincipal User user) {
         
         // Se não especificado, usar últimos 30 dias
@@ -53,7 +66,39 @@ public class AnalyticsController {
             endDate = LocalDateTime.now();
         }
         
-        LinkAnalyticsResponse analytics = analyticsService.getLinkAnalytics(linkId, user, startDate, endDate);
+        LinkAnalyticsResponse analytics = analyticsService.getLinkAnalytics(linkId, user, startDate, endDate, exactUniques);
         return ResponseEntity.ok(ApiResponse.success("Estatísticas de link", analytics));
     }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAnalytics(
+            @RequestParam(defaultValue = "PAGE_VIEWS") AnalyticsExportDataset dataset,
+            @RequestParam(defaultValue = "CSV") AnalyticsExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal User user) {
+        
+        // Se não especificado, usar últimos 30 dias
+        if (startDate == null) {
+            startDate = LocalDateTime.now().minusDays(30);
+        }
+        if (endDate == null) {
+            endDate = LocalDateTime.now();
+        }
+        
+        StreamingResponseBody body = analyticsExportService.export(user, dataset, format, startDate, endDate, gzip);
+        String fileName = dataset.name().toLowerCase().replace('_', '-') + "-" + startDate.toLocalDate() + "-"
+            + endDate.toLocalDate() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        
+        return ResponseEntity.ok()
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+            .body(body);
+    }
+
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveAnalytics(@AuthenticationPrincipal User user) {
+        return liveAnalyticsBroadcaster.subscribe(user);
+    }
 }
@@ -3,7 +3,7 @@ package br.rafaalmeida1.nutri_thata_api.controller;
 import br.rafaalmeida1.nutri_thata_api.dto.response.ApiResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.dashboard.DashboardStatsResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.dashboard.ProfessionalInfoResponse;
-import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleSummaryResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
 import br.rafaalmeida1.nutri_thata_api.service.DashboardService;
 import lombok.RequiredArgsConstructor;
@@ -49,10 +49,10 @@ public class DashboardController {
     }
 
     @GetMapping("/modules")
-    public ResponseEntity<ApiResponse<List<ModuleResponse>>> getDashboardModules(
+    public ResponseEntity<ApiResponse<List<ModuleSummaryResponse>>> getDashboardModules(
             @AuthenticationPrincipal User user) {
         try {
-            List<ModuleResponse> modules = dashboardService.getModulesForDashboard(user);
+            List<ModuleSummaryResponse> modules = dashboardService.getModulesForDashboard(user);
             return ResponseEntity.ok(ApiResponse.success("Módulos carregados com sucesso", modules));
         } catch (Exception e) {
             log.error("Erro ao carregar módulos do dashboard: {}", e.getMessage(), e);
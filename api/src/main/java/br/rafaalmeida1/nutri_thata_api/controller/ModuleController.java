@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.UUID;
 import br.rafaalmeida1.nutri_thata_api.dto.request.module.ModuleReorderRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.module.MoveModuleRequest;
 
 @RestController
 @RequestMapping("/modules")
@@ -30,13 +31,13 @@ public class ModuleController {
     private final ModuleService moduleService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<ModuleResponse>>> getModules(
+    public ResponseEntity<ApiResponse<Page<ModuleSummaryResponse>>> getModules(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String search,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
             @AuthenticationPrincipal User user) {
         
-        Page<ModuleResponse> modules = moduleService.getModules(user, pageable);
+        Page<ModuleSummaryResponse> modules = moduleService.getModules(user, pageable);
         return ResponseEntity.ok(ApiResponse.success("Lista de módulos", modules));
     }
 
@@ -83,6 +84,16 @@ public class ModuleController {
         return ResponseEntity.ok(ApiResponse.success("Módulo excluído com sucesso", null));
     }
 
+    @PatchMapping("/{id}/move")
+    public ResponseEntity<ApiResponse<Integer>> moveModule(
+            @PathVariable String id,
+            @RequestBody MoveModuleRequest request,
+            @AuthenticationPrincipal User user) {
+        
+        int orderIndex = moduleService.moveModule(id, user, request);
+        return ResponseEntity.ok(ApiResponse.success("Módulo movido com sucesso", orderIndex));
+    }
+
     @PatchMapping("/reorder")
     public ResponseEntity<ApiResponse<List<ModuleResponse>>> reorderModules(
             @RequestBody List<ModuleReorderRequest> reorderRequests,
@@ -25,14 +25,15 @@ public class PublicLinksController {
             @AuthenticationPrincipal User user,
             HttpServletRequest request) {
         
-        // Trackear visualização da página
+        PublicLinksResponse response = linkService.getPublicLinks(professionalId);
+        
+        // Trackear visualização da página (apenas enfileira, a gravação é assíncrona)
         String ipAddress = getClientIpAddress(request);
         String userAgent = request.getHeader("User-Agent");
         String referer = request.getHeader("Referer");
         
         analyticsService.trackPageView(professionalId, ipAddress, userAgent, referer, user, null);
         
-        PublicLinksResponse response = linkService.getPublicLinks(professionalId);
         return ResponseEntity.ok(ApiResponse.success("Links encontrados", response));
     }
 
@@ -42,7 +43,7 @@ public class PublicLinksController {
             @AuthenticationPrincipal User user,
             HttpServletRequest request) {
         
-        // Trackear clique no link
+        // Trackear clique no link (apenas enfileira, a gravação é assíncrona)
         String ipAddress = getClientIpAddress(request);
         String userAgent = request.getHeader("User-Agent");
         String referer = request.getHeader("Referer");
@@ -58,7 +59,7 @@ public class PublicLinksController {
             return request.getRemoteAddr();
         } else {
             // X-Forwarded-For can contain a chain of IP addresses
-            return xForwardedForHeader.split(",")[0];
+            return xForwardedForHeader.split(",")[0].trim();
         }
     }
 }
@@ -1,10 +1,12 @@
 package br.rafaalmeida1.nutri_thata_api.controller;
 
+import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackActivityBatchRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackActivityRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackModuleViewRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackModuleCompletionRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.EndSessionRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.response.ApiResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.TrackActivityBatchResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
 import br.rafaalmeida1.nutri_thata_api.service.UserActivityTrackingService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -102,6 +104,27 @@ public class UserActivityController {
         }
     }
 
+    @PostMapping("/track/batch")
+    public ResponseEntity<ApiResponse<TrackActivityBatchResponse>> trackBatch(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody TrackActivityBatchRequest request,
+            HttpServletRequest httpRequest) {
+        
+        // Sem catch genérico: eventos inválidos voltam no próprio resultado, e uma falha do
+        // servidor precisa chegar ao cliente como 500 para que ele reenvie o lote depois
+        String userAgent = httpRequest.getHeader("User-Agent");
+        String ipAddress = getClientIpAddress(httpRequest);
+        
+        TrackActivityBatchResponse response = userActivityTrackingService.trackBatch(
+            user,
+            request.getEvents(),
+            userAgent,
+            ipAddress
+        );
+        
+        return ResponseEntity.ok(ApiResponse.success("Lote de atividades rastreado com sucesso", response));
+    }
+
     @PostMapping("/session/start")
     public ResponseEntity<ApiResponse<String>> startSession(
             @AuthenticationPrincipal User user,
@@ -3,9 +3,11 @@ package br.rafaalmeida1.nutri_thata_api.controller;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.ChangePasswordRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.UpdateUserRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.response.ApiResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.PatientRosterResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserStatsResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.PatientRosterSort;
 import br.rafaalmeida1.nutri_thata_api.enums.Role;
 import br.rafaalmeida1.nutri_thata_api.service.UserService;
 import br.rafaalmeida1.nutri_thata_api.repositories.UserRepository;
@@ -99,6 +101,33 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success("Lista de pacientes com estatísticas", patients));
     }
 
+    @GetMapping("/patients/roster")
+    public ResponseEntity<ApiResponse<PatientRosterResponse>> getPatientRoster(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "LAST_ACTIVITY") PatientRosterSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (!user.getRole().equals(Role.PROFESSIONAL)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Acesso negado"));
+        }
+
+        PatientRosterResponse roster = userService.getPatientRoster(sort, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success("Lista de pacientes", roster));
+    }
+
+    @GetMapping("/patients/search")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> searchPatients(
+            @AuthenticationPrincipal User user,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!user.getRole().equals(Role.PROFESSIONAL)) {
+            return ResponseEntity.status(403).body(ApiResponse.error("Acesso negado"));
+        }
+
+        List<UserResponse> patients = userService.searchPatients(query, limit);
+        return ResponseEntity.ok(ApiResponse.success("Pacientes encontrados", patients));
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<UserStatsResponse>> getUserStats(@AuthenticationPrincipal User user) {
         UserStatsResponse stats = userService.getUserStats(user.getId());
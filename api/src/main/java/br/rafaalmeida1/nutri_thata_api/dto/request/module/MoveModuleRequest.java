@@ -0,0 +1,17 @@
+package br.rafaalmeida1.nutri_thata_api.dto.request.module;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveModuleRequest {
+    private UUID previousModuleId; // null: logo antes de nextModuleId
+    private UUID nextModuleId; // null: logo depois de previousModuleId
+}
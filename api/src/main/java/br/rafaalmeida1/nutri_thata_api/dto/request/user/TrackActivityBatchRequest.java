@@ -0,0 +1,44 @@
+package br.rafaalmeida1.nutri_thata_api.dto.request.user;
+
+import br.rafaalmeida1.nutri_thata_api.enums.ActivityEventType;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackActivityBatchRequest {
+
+    public static final int MAX_EVENTS = 200;
+
+    // Os eventos são validados um a um pelo serviço, para que um evento inválido não descarte o lote
+    @NotEmpty(message = "Lista de eventos é obrigatória")
+    @Size(max = MAX_EVENTS, message = "Máximo de " + MAX_EVENTS + " eventos por lote")
+    private List<TrackActivityEvent> events;
+
+    /**
+     * Evento de qualquer tipo; os campos obrigatórios são os do endpoint individual
+     * correspondente ao {@code type}.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrackActivityEvent {
+        private ActivityEventType type;
+        private String pagePath;
+        private Long moduleId;
+        private String moduleTitle;
+        private String category;
+        private Long timeSpent; // em segundos
+        private Integer completionPercentage;
+        private String sessionId;
+    }
+}
@@ -12,6 +12,7 @@ public class LinkAnalyticsResponse {
     private String linkTitle;
     private Long totalClicks;
     private Long uniqueClicks;
+    private Long uniqueClicksInRange;
     private List<ClicksByDateResponse> clicksByDate;
     private Map<String, Long> clicksByCountry;
     private Map<String, Long> clicksByDevice;
@@ -0,0 +1,23 @@
+package br.rafaalmeida1.nutri_thata_api.dto.response.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LiveAnalyticsResponse {
+    private Long epochSecond; // último segundo completo (epoch, em segundos)
+    private Long viewsLastSecond;
+    private Long clicksLastSecond;
+    private Long viewsLastMinute; // soma dos últimos 60 segundos
+    private Long clicksLastMinute;
+    private Long viewsLastHour; // soma dos últimos 60 minutos
+    private Long clicksLastHour;
+    // Séries completas, da mais antiga para a mais nova; enviadas apenas no evento inicial
+    private List<Long> viewsPerSecond;
+    private List<Long> clicksPerSecond;
+    private List<Long> viewsPerMinute;
+    private List<Long> clicksPerMinute;
+}
@@ -11,6 +11,9 @@ public class PageAnalyticsResponse {
     private Long professionalId;
     private Long totalViews;
     private Long uniqueViews;
+    private Long uniqueViewsInRange;
+    private Boolean uniqueCountsEstimated; // true quando as contagens de únicos vêm de HyperLogLog
+    private Double uniqueCountStandardError; // erro padrão relativo das estimativas (~0,016)
     private Long totalClicks;
     private Double averageSessionDuration;
     private List<ViewsByDateResponse> viewsByDate;
@@ -18,6 +21,9 @@ public class PageAnalyticsResponse {
     private Map<String, Long> viewsByDevice;
     private Map<String, Long> viewsByBrowser;
     private List<LinkAnalyticsResponse> topLinks;
+    private List<TrendingLinkResponse> trendingLinksLastHour;
+    private List<TrendingLinkResponse> trendingLinksLastDay;
+    private List<TrendingLinkResponse> trendingLinksLastWeek;
     private List<UserClickResponse> authenticatedUsers;
     private LocalDateTime lastViewAt;
 }
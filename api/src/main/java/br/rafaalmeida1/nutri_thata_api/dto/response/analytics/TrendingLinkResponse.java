@@ -0,0 +1,11 @@
+package br.rafaalmeida1.nutri_thata_api.dto.response.analytics;
+
+import lombok.Data;
+
+@Data
+public class TrendingLinkResponse {
+    private Long linkId;
+    private String linkTitle;
+    private Long clicks; // limite superior, vindo do resumo Space-Saving
+    private Long maxOverestimate; // quanto de clicks pode ser superestimado (0 = exato)
+}
@@ -1,5 +1,6 @@
 package br.rafaalmeida1.nutri_thata_api.dto.response.module;
 
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,8 @@ public class ModuleSummaryResponse {
     private String description;
     private String coverImage;
     private String category;
+    private Integer orderIndex;
+    private ContentVisibility visibility;
     private Integer contentCount;
     private CreatedByInfo createdBy;
     private LocalDateTime createdAt;
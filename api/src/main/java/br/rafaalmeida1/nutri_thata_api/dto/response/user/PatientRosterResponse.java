@@ -0,0 +1,17 @@
+package br.rafaalmeida1.nutri_thata_api.dto.response.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientRosterResponse {
+    private List<UserResponse> patients;
+    private String nextCursor; // null na última página
+}
@@ -0,0 +1,29 @@
+package br.rafaalmeida1.nutri_thata_api.dto.response.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackActivityBatchResponse {
+
+    private Integer accepted;
+    private Integer rejected;
+    private List<EventResult> results; // na mesma ordem dos eventos enviados
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EventResult {
+        private Integer index;
+        private Boolean accepted;
+        private String error;
+    }
+}
@@ -0,0 +1,32 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Marca d'água dos jobs de agregação: último dia fechado já consolidado.
+ */
+@Entity
+@Table(name = "analytics_rollup_state")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRollupState {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "last_rolled_date", nullable = false)
+    private LocalDate lastRolledDate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
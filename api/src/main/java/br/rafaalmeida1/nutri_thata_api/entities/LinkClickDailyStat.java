@@ -0,0 +1,50 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Agregado diário mantido pelo AnalyticsRollupService. Dimensões nulas são gravadas como ''.
+ */
+@Entity
+@Table(name = "link_click_daily_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"professional_link_id", "stat_date", "country", "device_type", "browser", "operating_system"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkClickDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "professional_link_id", nullable = false)
+    private Long professionalLinkId;
+
+    @Column(name = "professional_profile_id", nullable = false)
+    private Long professionalProfileId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false, length = 100)
+    private String country;
+
+    @Column(name = "device_type", nullable = false, length = 50)
+    private String deviceType;
+
+    @Column(nullable = false, length = 50)
+    private String browser;
+
+    @Column(name = "operating_system", nullable = false, length = 50)
+    private String operatingSystem;
+
+    @Column(nullable = false)
+    private Long clicks;
+}
@@ -0,0 +1,41 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totais diários de cliques por link, mantidos pelo AnalyticsRollupService.
+ */
+@Entity
+@Table(name = "link_click_daily_totals",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"professional_link_id", "stat_date"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkClickDailyTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "professional_link_id", nullable = false)
+    private Long professionalLinkId;
+
+    @Column(name = "professional_profile_id", nullable = false)
+    private Long professionalProfileId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Long clicks;
+
+    @Column(name = "unique_visitors", nullable = false)
+    private Long uniqueVisitors;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,6 +18,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "modules")
+@NamedEntityGraph(name = Module.LIST_GRAPH, attributeNodes = @NamedAttributeNode("createdBy"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -24,6 +26,9 @@ import java.util.UUID;
 @EntityListeners(AuditingEntityListener.class)
 public class Module {
 
+    // Listagens: o autor vem no mesmo SELECT; blocos e pacientes liberados, em lote (@BatchSize)
+    public static final String LIST_GRAPH = "Module.list";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -54,6 +59,7 @@ public class Module {
 
     @OneToMany(mappedBy = "module", cascade = CascadeType.ALL)
     @OrderBy("orderIndex ASC")
+    @BatchSize(size = 256)
     private List<ContentBlock> content;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -68,6 +74,7 @@ public class Module {
     
     // Pacientes específicos que podem ver este módulo (quando visibility = SPECIFIC)
     @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 256)
     @JoinTable(
         name = "module_patient_access",
         joinColumns = @JoinColumn(name = "module_id"),
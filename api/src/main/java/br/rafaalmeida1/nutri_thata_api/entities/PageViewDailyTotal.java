@@ -0,0 +1,44 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totais diários de visualizações por perfil, mantidos pelo AnalyticsRollupService.
+ */
+@Entity
+@Table(name = "page_view_daily_totals",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"professional_profile_id", "stat_date"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageViewDailyTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "professional_profile_id", nullable = false)
+    private Long professionalProfileId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Long views;
+
+    @Column(name = "unique_visitors", nullable = false)
+    private Long uniqueVisitors;
+
+    @Column(name = "session_duration_sum", nullable = false)
+    private Long sessionDurationSum; // em segundos
+
+    @Column(name = "session_duration_count", nullable = false)
+    private Long sessionDurationCount;
+}
@@ -0,0 +1,38 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Visualizações de módulos e tempo de um paciente por dia, mantidos pelo PatientStatsService.
+ */
+@Entity
+@Table(name = "patient_daily_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "stat_date"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientDailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "modules_viewed", nullable = false)
+    private Long modulesViewed;
+
+    @Column(name = "time_spent", nullable = false)
+    private Long timeSpent; // em segundos
+}
@@ -0,0 +1,54 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totais de atividade de um paciente, mantidos pelo PatientStatsService a cada evento rastreado.
+ */
+@Entity
+@Table(name = "patient_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "modules_viewed", nullable = false)
+    private Long modulesViewed;
+
+    @Column(name = "modules_completed", nullable = false)
+    private Long modulesCompleted;
+
+    @Column(name = "time_spent", nullable = false)
+    private Long timeSpent; // em segundos
+
+    @Column(name = "sessions_ended", nullable = false)
+    private Long sessionsEnded;
+
+    @Column(name = "session_time", nullable = false)
+    private Long sessionTime; // em segundos
+
+    // Coluna gerada pelo banco a partir dos módulos vistos e concluídos
+    @Column(name = "progress_percentage", insertable = false, updatable = false)
+    private Integer progressPercentage;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
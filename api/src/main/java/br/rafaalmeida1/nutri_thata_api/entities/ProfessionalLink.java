@@ -58,7 +58,8 @@ public class ProfessionalLink {
     @Builder.Default
     private Boolean isActive = true;
 
-    @Column(name = "click_count", nullable = false)
+    // Atualizado apenas pelo LinkClickCounterStore (UPDATE atômico), nunca pelo save() da entidade
+    @Column(name = "click_count", nullable = false, updatable = false)
     @Builder.Default
     private Long clickCount = 0L;
 
@@ -0,0 +1,66 @@
+package br.rafaalmeida1.nutri_thata_api.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progresso agregado de um usuário em um módulo. Atualizado apenas pelo upsert de
+ * {@link br.rafaalmeida1.nutri_thata_api.repository.UserModuleProgressRepository};
+ * o histórico de cada visualização continua em {@link ModuleView}.
+ */
+@Entity
+@Table(name = "user_module_progress",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "module_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserModuleProgress {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "module_id", nullable = false)
+    private Long moduleId;
+
+    @Column(name = "module_title", nullable = false)
+    private String moduleTitle;
+
+    @Column(name = "category", length = 100)
+    private String category;
+
+    @Column(name = "views", nullable = false)
+    @Builder.Default
+    private Integer views = 0;
+
+    @Column(name = "total_time_spent", nullable = false)
+    @Builder.Default
+    private Long totalTimeSpent = 0L; // em segundos
+
+    @Column(name = "is_completed", nullable = false)
+    @Builder.Default
+    private Boolean isCompleted = false;
+
+    @Column(name = "completion_percentage", nullable = false)
+    @Builder.Default
+    private Integer completionPercentage = 0;
+
+    @Column(name = "first_viewed_at", nullable = false)
+    private LocalDateTime firstViewedAt;
+
+    @Column(name = "last_viewed_at", nullable = false)
+    private LocalDateTime lastViewedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -53,6 +53,9 @@ public class UserSession {
     @Builder.Default
     private Integer modulesCompleted = 0;
 
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
     @Column(name = "ip_address", length = 45)
     private String ipAddress;
 
@@ -0,0 +1,7 @@
+package br.rafaalmeida1.nutri_thata_api.enums;
+
+public enum ActivityEventType {
+    PAGE_VIEW,
+    MODULE_VIEW,
+    MODULE_COMPLETION
+}
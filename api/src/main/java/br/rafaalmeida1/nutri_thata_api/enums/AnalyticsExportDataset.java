@@ -0,0 +1,6 @@
+package br.rafaalmeida1.nutri_thata_api.enums;
+
+public enum AnalyticsExportDataset {
+    PAGE_VIEWS,
+    LINK_CLICKS
+}
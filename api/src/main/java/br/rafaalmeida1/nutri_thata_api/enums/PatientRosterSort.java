@@ -0,0 +1,6 @@
+package br.rafaalmeida1.nutri_thata_api.enums;
+
+public enum PatientRosterSort {
+    LAST_ACTIVITY,
+    PROGRESS
+}
@@ -5,6 +5,7 @@ import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleSummaryResponse
 import br.rafaalmeida1.nutri_thata_api.entities.ContentBlock;
 import br.rafaalmeida1.nutri_thata_api.entities.Module;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.repositories.ModuleSummaryView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -27,6 +28,10 @@ public interface ModuleMapper {
     @Mapping(expression = "java(module.getContent() != null ? module.getContent().size() : 0)", target = "contentCount")
     ModuleSummaryResponse toModuleSummaryResponse(Module module);
 
+    @Mapping(source = "createdById", target = "createdBy.id")
+    @Mapping(source = "createdByName", target = "createdBy.name")
+    ModuleSummaryResponse toModuleSummaryResponse(ModuleSummaryView module);
+
     @Mapping(source = "orderIndex", target = "order")
     ModuleResponse.ContentBlockResponse toContentBlockResponse(ContentBlock contentBlock);
 
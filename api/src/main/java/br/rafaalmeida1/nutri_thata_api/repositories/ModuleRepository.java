@@ -4,29 +4,108 @@ import br.rafaalmeida1.nutri_thata_api.entities.Module;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
 import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ModuleRepository extends JpaRepository<Module, UUID> {
 
+    String SUMMARY_SELECT = "SELECT m.id AS id, m.title AS title, m.description AS description, " +
+            "m.coverImage AS coverImage, m.category AS category, m.orderIndex AS orderIndex, " +
+            "m.visibility AS visibility, m.createdAt AS createdAt, u.id AS createdById, u.name AS createdByName, " +
+            "(SELECT COUNT(b) FROM ContentBlock b WHERE b.module = m) AS contentCount " +
+            "FROM Module m JOIN m.createdBy u ";
+
+    // O PostgreSQL aceita no máximo 32767 parâmetros por comando: listas de ids maiores vão em lotes
+    int MAX_IN_PARAMETERS = 10_000;
+
     Page<Module> findByCategory(String category, Pageable pageable);
 
     Page<Module> findByCreatedBy(User createdBy, Pageable pageable);
 
-    // Query para módulos visíveis por paciente (GENERAL + SPECIFIC para ele)
-    @Query("SELECT m FROM Module m WHERE " +
-           "m.visibility = 'GENERAL' OR " +
-           "(m.visibility = 'SPECIFIC' AND :patient MEMBER OF m.allowedPatients) " +
-           "ORDER BY m.orderIndex ASC")
-    Page<Module> findVisibleToPatient(@Param("patient") User patient, Pageable pageable);
-    
+    // Módulos visíveis ao paciente, com os ids resolvidos pelo ModuleVisibilityIndex
+    @EntityGraph(Module.LIST_GRAPH)
+    List<Module> findByIdInOrderByOrderIndexAsc(Collection<UUID> ids);
+
+    @Query(SUMMARY_SELECT + "WHERE m.id IN :ids ORDER BY m.orderIndex ASC")
+    List<ModuleSummaryView> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(SUMMARY_SELECT + "WHERE m.id IN :ids ORDER BY m.orderIndex ASC")
+    List<ModuleSummaryView> findSummariesByIdIn(@Param("ids") Collection<UUID> ids, Pageable pageable);
+
+    @Query("SELECT m.id, m.orderIndex FROM Module m WHERE m.id IN :ids")
+    List<Object[]> findOrderKeysByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * {@link #findByIdInOrderByOrderIndexAsc} em lotes de até {@code chunkSize} ids.
+     */
+    default List<Module> findByIdInOrdered(List<UUID> ids, int chunkSize) {
+        if (ids.size() <= chunkSize) {
+            return ids.isEmpty() ? List.of() : findByIdInOrderByOrderIndexAsc(ids);
+        }
+        List<Module> modules = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            modules.addAll(findByIdInOrderByOrderIndexAsc(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        modules.sort(Comparator.comparing(Module::getOrderIndex));
+        return modules;
+    }
+
+    /**
+     * {@link #findSummariesByIdIn(Collection)} em lotes de até {@code chunkSize} ids.
+     */
+    default List<ModuleSummaryView> findSummariesByIdInOrdered(List<UUID> ids, int chunkSize) {
+        if (ids.size() <= chunkSize) {
+            return ids.isEmpty() ? List.of() : findSummariesByIdIn(ids);
+        }
+        List<ModuleSummaryView> summaries = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            summaries.addAll(findSummariesByIdIn(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        summaries.sort(Comparator.comparing(ModuleSummaryView::getOrderIndex));
+        return summaries;
+    }
+
+    /**
+     * Página dos resumos dos módulos informados, na ordem dos módulos. Acima de
+     * {@code chunkSize} ids, ordena em memória só id e chave de ordenação, lidos em lotes,
+     * e busca os resumos apenas da página.
+     */
+    default Page<ModuleSummaryView> findSummariesByIdInOrdered(List<UUID> ids, Pageable pageable, int chunkSize) {
+        if (ids.size() <= chunkSize) {
+            List<ModuleSummaryView> content = ids.isEmpty() ? List.of() : findSummariesByIdIn(ids, pageable);
+            return new PageImpl<>(content, pageable, ids.size());
+        }
+        List<Object[]> keys = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            keys.addAll(findOrderKeysByIdIn(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        keys.sort(Comparator.comparing(key -> (Integer) key[1]));
+        int from = (int) Math.min(pageable.getOffset(), keys.size());
+        int to = Math.min(from + pageable.getPageSize(), keys.size());
+        List<UUID> pageIds = keys.subList(from, to).stream().map(key -> (UUID) key[0]).toList();
+        return new PageImpl<>(findSummariesByIdInOrdered(pageIds, chunkSize), pageable, keys.size());
+    }
+
+    @Query(value = SUMMARY_SELECT + "WHERE m.createdBy = :createdBy ORDER BY m.orderIndex ASC",
+           countQuery = "SELECT COUNT(m) FROM Module m WHERE m.createdBy = :createdBy")
+    Page<ModuleSummaryView> findSummariesByCreatedBy(@Param("createdBy") User createdBy, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE m.createdBy = :createdBy ORDER BY m.orderIndex ASC")
+    List<ModuleSummaryView> findSummariesByCreatedBy(@Param("createdBy") User createdBy);
+
     // Query para módulos por categoria visíveis ao paciente
     @Query("SELECT m FROM Module m WHERE " +
            "m.category = :category AND " +
@@ -43,32 +122,22 @@ public interface ModuleRepository extends JpaRepository<Module, UUID> {
     // Métodos adicionados para suportar o ModuleService
     Page<Module> findByCreatedByOrderByCreatedAtDesc(User createdBy, Pageable pageable);
 
+    @EntityGraph(Module.LIST_GRAPH)
     Page<Module> findByCreatedByOrderByOrderIndexAsc(User createdBy, Pageable pageable);
 
-    @Query("SELECT m FROM Module m WHERE " +
-           "m.visibility = 'GENERAL' OR " +
-           "(m.visibility = 'SPECIFIC' AND EXISTS (SELECT 1 FROM m.allowedPatients p WHERE p.id = :userId)) " +
-           "ORDER BY m.orderIndex ASC")
-    Page<Module> findVisibleModulesForUser(@Param("userId") Long userId, Pageable pageable);
-
     @Query("SELECT DISTINCT m.category FROM Module m WHERE m.createdBy = :createdBy ORDER BY m.category")
     List<String> findDistinctCategoriesByCreatedBy(@Param("createdBy") User createdBy);
 
-    @Query("SELECT DISTINCT m.category FROM Module m WHERE " +
-           "m.visibility = 'GENERAL' OR " +
-           "(m.visibility = 'SPECIFIC' AND EXISTS (SELECT 1 FROM m.allowedPatients p WHERE p.id = :userId))")
-    List<String> findDistinctCategoriesForUser(@Param("userId") Long userId);
-
     // Métodos para cache (sem paginação)
+    @EntityGraph(Module.LIST_GRAPH)
     List<Module> findByCreatedBy(User createdBy);
 
-    List<Module> findByCreatedByOrderByOrderIndexAsc(User createdBy);
+    @Query("SELECT MAX(m.orderIndex) FROM Module m WHERE m.createdBy = :createdBy")
+    Integer findMaxOrderIndexByCreatedBy(@Param("createdBy") User createdBy);
 
-    @Query("SELECT m FROM Module m WHERE " +
-           "m.visibility = 'GENERAL' OR " +
-           "(m.visibility = 'SPECIFIC' AND :patient MEMBER OF m.allowedPatients) " +
-           "ORDER BY m.orderIndex ASC")
-    List<Module> findVisibleToPatient(@Param("patient") User patient);
+    @Modifying
+    @Query("UPDATE Module m SET m.orderIndex = :orderIndex WHERE m.id = :id")
+    int updateOrderIndex(@Param("id") UUID id, @Param("orderIndex") int orderIndex);
 
     // Métodos para dashboard
     long countByCreatedBy(User createdBy);
@@ -78,9 +147,6 @@ public interface ModuleRepository extends JpaRepository<Module, UUID> {
     @Query("SELECT SUM(m.viewCount) FROM Module m WHERE m.createdBy = :createdBy")
     Long sumViewCountByCreatedBy(@Param("createdBy") User createdBy);
     
-    @Query("SELECT COUNT(m) FROM Module m WHERE m.visibility = 'GENERAL' OR (m.visibility = 'SPECIFIC' AND EXISTS (SELECT 1 FROM m.allowedPatients p WHERE p.id = :patientId))")
-    long countVisibleToPatient(@Param("patientId") Long patientId);
-    
     // TODO: Implementar quando as entidades ModuleView e ModuleCompletion estiverem disponíveis
     // long countViewedByPatient(@Param("patientId") Long patientId);
     // long countCompletedByPatient(@Param("patientId") Long patientId);
@@ -0,0 +1,35 @@
+package br.rafaalmeida1.nutri_thata_api.repositories;
+
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projeção das listagens de módulos: as colunas do card, o autor e o número de blocos,
+ * lidos num único SELECT, sem carregar entidades nem o texto dos blocos.
+ */
+public interface ModuleSummaryView {
+
+    UUID getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    String getCoverImage();
+
+    String getCategory();
+
+    Integer getOrderIndex();
+
+    ContentVisibility getVisibility();
+
+    LocalDateTime getCreatedAt();
+
+    Long getCreatedById();
+
+    String getCreatedByName();
+
+    Long getContentCount();
+}
@@ -0,0 +1,9 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.AnalyticsRollupState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsRollupStateRepository extends JpaRepository<AnalyticsRollupState, String> {
+}
@@ -0,0 +1,20 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.LinkClickDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LinkClickDailyStatRepository extends JpaRepository<LinkClickDailyStat, Long> {
+
+    @Query("SELECT s.professionalLinkId, s.country, s.deviceType, s.browser, SUM(s.clicks) FROM LinkClickDailyStat s " +
+           "WHERE s.professionalLinkId IN :linkIds AND s.statDate <= :upTo " +
+           "GROUP BY s.professionalLinkId, s.country, s.deviceType, s.browser")
+    List<Object[]> sumClicksByDimensionsForLinks(@Param("linkIds") Collection<Long> linkIds, @Param("upTo") LocalDate upTo);
+}
@@ -0,0 +1,30 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.LinkClickDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LinkClickDailyTotalRepository extends JpaRepository<LinkClickDailyTotal, Long> {
+
+    @Query("SELECT COALESCE(SUM(t.clicks), 0) FROM LinkClickDailyTotal t WHERE t.professionalProfileId = :profileId AND t.statDate <= :upTo")
+    Long sumClicksByProfile(@Param("profileId") Long profileId, @Param("upTo") LocalDate upTo);
+
+    @Query("SELECT t.professionalLinkId, COALESCE(SUM(t.clicks), 0) FROM LinkClickDailyTotal t " +
+           "WHERE t.professionalLinkId IN :linkIds AND t.statDate <= :upTo GROUP BY t.professionalLinkId")
+    List<Object[]> sumClicksByLinks(@Param("linkIds") Collection<Long> linkIds, @Param("upTo") LocalDate upTo);
+
+    List<LinkClickDailyTotal> findByProfessionalProfileIdAndStatDateBetweenOrderByStatDateAsc(Long professionalProfileId,
+                                                                                           LocalDate startDate,
+                                                                                           LocalDate endDate);
+
+    List<LinkClickDailyTotal> findByProfessionalLinkIdInAndStatDateBetweenOrderByStatDateAsc(Collection<Long> professionalLinkIds,
+                                                                                           LocalDate startDate,
+                                                                                           LocalDate endDate);
+}
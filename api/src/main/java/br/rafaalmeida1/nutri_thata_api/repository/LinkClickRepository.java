@@ -4,12 +4,14 @@ import br.rafaalmeida1.nutri_thata_api.entities.LinkClick;
 import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalLink;
 import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -57,4 +59,53 @@ public interface LinkClickRepository extends JpaRepository<LinkClick, Long> {
 
     @Query("SELECT lc.browser, COUNT(lc) FROM LinkClick lc WHERE lc.professionalLink = :link GROUP BY lc.browser ORDER BY COUNT(lc) DESC")
     List<Object[]> findClicksByBrowserForLink(@Param("link") ProfessionalLink professionalLink);
+
+    // Parcial ainda não consolidado nas tabelas de rollup (a partir do dia seguinte à marca d'água)
+    @Query("SELECT COUNT(lc) FROM LinkClick lc WHERE lc.professionalLink.professionalProfile = :profile AND lc.clickedAt >= :since")
+    Long countByProfessionalProfileSince(@Param("profile") ProfessionalProfile professionalProfile,
+                                         @Param("since") LocalDateTime since);
+
+    // Consultas em lote por link/usuário, para que o dashboard use um número fixo de consultas
+    @Query("SELECT lc.professionalLink.id, COUNT(lc) FROM LinkClick lc " +
+           "WHERE lc.professionalLink.id IN :linkIds AND lc.clickedAt >= :since GROUP BY lc.professionalLink.id")
+    List<Object[]> countByLinksSince(@Param("linkIds") Collection<Long> linkIds,
+                                     @Param("since") LocalDateTime since);
+
+    @Query("SELECT lc.professionalLink.id, CAST(lc.clickedAt AS date), COUNT(lc), COUNT(DISTINCT lc.ipAddress) FROM LinkClick lc " +
+           "WHERE lc.professionalLink.id IN :linkIds AND lc.clickedAt BETWEEN :startDate AND :endDate " +
+           "GROUP BY lc.professionalLink.id, CAST(lc.clickedAt AS date)")
+    List<Object[]> findClicksByDateForLinks(@Param("linkIds") Collection<Long> linkIds,
+                                            @Param("startDate") LocalDateTime startDate,
+                                            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT lc.professionalLink.id, lc.country, lc.deviceType, lc.browser, COUNT(lc) FROM LinkClick lc " +
+           "WHERE lc.professionalLink.id IN :linkIds AND lc.clickedAt >= :since " +
+           "GROUP BY lc.professionalLink.id, lc.country, lc.deviceType, lc.browser")
+    List<Object[]> countClicksByDimensionsForLinksSince(@Param("linkIds") Collection<Long> linkIds,
+                                                        @Param("since") LocalDateTime since);
+
+    @Query("SELECT lc.professionalLink.id, COUNT(DISTINCT lc.ipAddress) FROM LinkClick lc " +
+           "WHERE lc.professionalLink.id IN :linkIds AND lc.clickedAt BETWEEN :startDate AND :endDate " +
+           "GROUP BY lc.professionalLink.id")
+    List<Object[]> countUniqueClicksByLinksBetween(@Param("linkIds") Collection<Long> linkIds,
+                                                   @Param("startDate") LocalDateTime startDate,
+                                                   @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT lc.user.id, COUNT(lc) FROM LinkClick lc " +
+           "WHERE lc.professionalLink.professionalProfile = :profile AND lc.user.id IN :userIds GROUP BY lc.user.id")
+    List<Object[]> countByUsersAndProfessionalProfile(@Param("userIds") Collection<Long> userIds,
+                                                      @Param("profile") ProfessionalProfile professionalProfile);
+
+    // Página da exportação bruta, paginada por chave (clickedAt, id) a partir do último registro lido
+    @Query("SELECT lc.id, lc.clickedAt, l.id, l.title, u.id, lc.ipAddress, lc.userAgent, lc.referer, lc.country, lc.city, " +
+           "lc.deviceType, lc.browser, lc.operatingSystem " +
+           "FROM LinkClick lc JOIN lc.professionalLink l LEFT JOIN lc.user u " +
+           "WHERE l.professionalProfile = :profile AND lc.clickedAt <= :endDate " +
+           "AND (lc.clickedAt > :afterClickedAt OR (lc.clickedAt = :afterClickedAt AND lc.id > :afterId)) " +
+           "ORDER BY lc.clickedAt, lc.id")
+    List<Object[]> findExportPage(@Param("profile") ProfessionalProfile professionalProfile,
+                                  @Param("afterClickedAt") LocalDateTime afterClickedAt,
+                                  @Param("afterId") Long afterId,
+                                  @Param("endDate") LocalDateTime endDate,
+                                  Pageable pageable);
 }
@@ -15,15 +15,9 @@ public interface ModuleViewRepository extends JpaRepository<ModuleView, Long> {
 
     List<ModuleView> findByUserOrderByViewedAtDesc(User user);
 
-    @Query("SELECT mv FROM ModuleView mv WHERE mv.user = :user AND mv.moduleId = :moduleId")
-    List<ModuleView> findByUserAndModuleId(@Param("user") User user, @Param("moduleId") Long moduleId);
-
     @Query("SELECT COUNT(mv) FROM ModuleView mv WHERE mv.user = :user")
     Long countByUser(@Param("user") User user);
 
-    @Query("SELECT COUNT(mv) FROM ModuleView mv WHERE mv.user = :user AND mv.isCompleted = true")
-    Long countCompletedByUser(@Param("user") User user);
-
     @Query("SELECT SUM(mv.timeSpent) FROM ModuleView mv WHERE mv.user = :user")
     Long sumTimeSpentByUser(@Param("user") User user);
 
@@ -0,0 +1,19 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.PageViewDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PageViewDailyStatRepository extends JpaRepository<PageViewDailyStat, Long> {
+
+    @Query("SELECT s.country, s.deviceType, s.browser, SUM(s.views) FROM PageViewDailyStat s " +
+           "WHERE s.professionalProfileId = :profileId AND s.statDate <= :upTo " +
+           "GROUP BY s.country, s.deviceType, s.browser")
+    List<Object[]> sumViewsByDimensions(@Param("profileId") Long profileId, @Param("upTo") LocalDate upTo);
+}
@@ -0,0 +1,22 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.PageViewDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PageViewDailyTotalRepository extends JpaRepository<PageViewDailyTotal, Long> {
+
+    @Query("SELECT COALESCE(SUM(t.views), 0), COALESCE(SUM(t.sessionDurationSum), 0), COALESCE(SUM(t.sessionDurationCount), 0) " +
+           "FROM PageViewDailyTotal t WHERE t.professionalProfileId = :profileId AND t.statDate <= :upTo")
+    List<Object[]> sumTotalsByProfile(@Param("profileId") Long profileId, @Param("upTo") LocalDate upTo);
+
+    List<PageViewDailyTotal> findByProfessionalProfileIdAndStatDateBetweenOrderByStatDateAsc(Long professionalProfileId,
+                                                                                           LocalDate startDate,
+                                                                                           LocalDate endDate);
+}
@@ -3,6 +3,7 @@ package br.rafaalmeida1.nutri_thata_api.repository;
 import br.rafaalmeida1.nutri_thata_api.entities.PageView;
 import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -53,4 +54,33 @@ public interface PageViewRepository extends JpaRepository<PageView, Long> {
            "FROM PageView pv WHERE pv.professionalProfile = :profile AND pv.user IS NOT NULL " +
            "GROUP BY pv.user.id, pv.user.name, pv.user.email ORDER BY totalViews DESC")
     List<Object[]> findAuthenticatedUsersByProfile(@Param("profile") ProfessionalProfile professionalProfile);
+
+    // Parcial ainda não consolidado nas tabelas de rollup (a partir do dia seguinte à marca d'água)
+    @Query("SELECT COUNT(pv), COALESCE(SUM(pv.sessionDuration), 0), COUNT(pv.sessionDuration) " +
+           "FROM PageView pv WHERE pv.professionalProfile = :profile AND pv.viewedAt >= :since")
+    List<Object[]> sumTotalsSince(@Param("profile") ProfessionalProfile professionalProfile,
+                                  @Param("since") LocalDateTime since);
+
+    @Query("SELECT pv.country, pv.deviceType, pv.browser, COUNT(pv) FROM PageView pv " +
+           "WHERE pv.professionalProfile = :profile AND pv.viewedAt >= :since " +
+           "GROUP BY pv.country, pv.deviceType, pv.browser")
+    List<Object[]> countViewsByDimensionsSince(@Param("profile") ProfessionalProfile professionalProfile,
+                                               @Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(DISTINCT pv.ipAddress) FROM PageView pv WHERE pv.professionalProfile = :profile AND pv.viewedAt BETWEEN :startDate AND :endDate")
+    Long countUniqueViewsBetween(@Param("profile") ProfessionalProfile professionalProfile,
+                                 @Param("startDate") LocalDateTime startDate,
+                                 @Param("endDate") LocalDateTime endDate);
+
+    // Página da exportação bruta, paginada por chave (viewedAt, id) a partir do último registro lido
+    @Query("SELECT pv.id, pv.viewedAt, u.id, pv.ipAddress, pv.userAgent, pv.referer, pv.country, pv.city, " +
+           "pv.deviceType, pv.browser, pv.operatingSystem, pv.sessionDuration " +
+           "FROM PageView pv LEFT JOIN pv.user u WHERE pv.professionalProfile = :profile AND pv.viewedAt <= :endDate " +
+           "AND (pv.viewedAt > :afterViewedAt OR (pv.viewedAt = :afterViewedAt AND pv.id > :afterId)) " +
+           "ORDER BY pv.viewedAt, pv.id")
+    List<Object[]> findExportPage(@Param("profile") ProfessionalProfile professionalProfile,
+                                  @Param("afterViewedAt") LocalDateTime afterViewedAt,
+                                  @Param("afterId") Long afterId,
+                                  @Param("endDate") LocalDateTime endDate,
+                                  Pageable pageable);
 }
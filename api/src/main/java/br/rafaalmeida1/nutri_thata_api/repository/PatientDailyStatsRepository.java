@@ -0,0 +1,29 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.PatientDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PatientDailyStatsRepository extends JpaRepository<PatientDailyStats, Long> {
+
+    List<PatientDailyStats> findByUserIdAndStatDateGreaterThanEqualOrderByStatDateAsc(Long userId, LocalDate from);
+
+    @Modifying
+    @Query(value = "INSERT INTO patient_daily_stats (user_id, stat_date, modules_viewed, time_spent) " +
+            "VALUES (:userId, :statDate, :modulesViewed, :timeSpent) " +
+            "ON CONFLICT (user_id, stat_date) DO UPDATE SET " +
+            "modules_viewed = patient_daily_stats.modules_viewed + EXCLUDED.modules_viewed, " +
+            "time_spent = patient_daily_stats.time_spent + EXCLUDED.time_spent",
+            nativeQuery = true)
+    void addActivity(@Param("userId") Long userId,
+                     @Param("statDate") LocalDate statDate,
+                     @Param("modulesViewed") long modulesViewed,
+                     @Param("timeSpent") long timeSpent);
+}
@@ -0,0 +1,96 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.PatientStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PatientStatsRepository extends JpaRepository<PatientStats, Long> {
+
+    Optional<PatientStats> findByUserId(Long userId);
+
+    List<PatientStats> findByUserIdIn(Collection<Long> userIds);
+
+    /*
+     * Páginas da listagem de pacientes por cursor: cada consulta continua do último
+     * (valor, user_id) da página anterior pelos índices de patient_stats, com custo
+     * proporcional ao tamanho da página e não ao número de pacientes.
+     */
+
+    @Query(value = "SELECT ps.* FROM patient_stats ps JOIN users u ON u.id = ps.user_id " +
+            "WHERE u.role = 'PATIENT' AND u.is_active AND ps.last_activity_at IS NOT NULL " +
+            "AND (ps.last_activity_at, ps.user_id) < (CAST(:lastActivityAt AS TIMESTAMP), :userId) " +
+            "ORDER BY ps.last_activity_at DESC, ps.user_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<PatientStats> findActivePatientsByLastActivityBefore(@Param("lastActivityAt") LocalDateTime lastActivityAt,
+                                                             @Param("userId") Long userId,
+                                                             @Param("limit") int limit);
+
+    // Pacientes sem atividade, depois dos demais; u.id repetido para o banco limitar também a varredura de users
+    @Query(value = "SELECT ps.* FROM patient_stats ps JOIN users u ON u.id = ps.user_id " +
+            "WHERE u.role = 'PATIENT' AND u.is_active AND ps.last_activity_at IS NULL " +
+            "AND ps.user_id < :userId AND u.id < :userId " +
+            "ORDER BY ps.user_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<PatientStats> findActivePatientsWithoutActivityBefore(@Param("userId") Long userId,
+                                                              @Param("limit") int limit);
+
+    @Query(value = "SELECT ps.* FROM patient_stats ps JOIN users u ON u.id = ps.user_id " +
+            "WHERE u.role = 'PATIENT' AND u.is_active " +
+            "AND (ps.progress_percentage, ps.user_id) < (:progress, :userId) " +
+            "ORDER BY ps.progress_percentage DESC, ps.user_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<PatientStats> findActivePatientsByProgressBefore(@Param("progress") int progress,
+                                                         @Param("userId") Long userId,
+                                                         @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO patient_stats (user_id, modules_viewed, time_spent, last_activity_at, updated_at) " +
+            "VALUES (:userId, :modulesViewed, :timeSpent, :at, :at) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "modules_viewed = patient_stats.modules_viewed + EXCLUDED.modules_viewed, " +
+            "time_spent = patient_stats.time_spent + EXCLUDED.time_spent, " +
+            "last_activity_at = GREATEST(patient_stats.last_activity_at, EXCLUDED.last_activity_at), " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void addActivity(@Param("userId") Long userId,
+                     @Param("modulesViewed") long modulesViewed,
+                     @Param("timeSpent") long timeSpent,
+                     @Param("at") LocalDateTime at);
+
+    /**
+     * Recalcula os módulos concluídos a partir de user_module_progress, para que concluir
+     * de novo o mesmo módulo não conte duas vezes. Percorre apenas os módulos do usuário.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO patient_stats (user_id, modules_completed, last_activity_at, updated_at) " +
+            "SELECT :userId, COUNT(*), CAST(:at AS TIMESTAMP), CAST(:at AS TIMESTAMP) FROM user_module_progress " +
+            "WHERE user_id = :userId AND is_completed " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "modules_completed = EXCLUDED.modules_completed, " +
+            "last_activity_at = GREATEST(patient_stats.last_activity_at, EXCLUDED.last_activity_at), " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void refreshModulesCompleted(@Param("userId") Long userId, @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Query(value = "INSERT INTO patient_stats (user_id, sessions_ended, session_time, last_activity_at, updated_at) " +
+            "VALUES (:userId, 1, :sessionTime, :at, :at) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "sessions_ended = patient_stats.sessions_ended + 1, " +
+            "session_time = patient_stats.session_time + EXCLUDED.session_time, " +
+            "last_activity_at = GREATEST(patient_stats.last_activity_at, EXCLUDED.last_activity_at), " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void addEndedSession(@Param("userId") Long userId,
+                         @Param("sessionTime") long sessionTime,
+                         @Param("at") LocalDateTime at);
+}
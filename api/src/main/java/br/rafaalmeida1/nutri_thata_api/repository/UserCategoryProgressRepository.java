@@ -3,10 +3,13 @@ package br.rafaalmeida1.nutri_thata_api.repository;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
 import br.rafaalmeida1.nutri_thata_api.entities.UserCategoryProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,12 +20,39 @@ public interface UserCategoryProgressRepository extends JpaRepository<UserCatego
 
     Optional<UserCategoryProgress> findByUserAndCategory(User user, String category);
 
+    /**
+     * Soma os deltas ao progresso da categoria, criando a linha na primeira vez, em um único
+     * comando atômico: eventos concorrentes do mesmo usuário não perdem incrementos nem
+     * esbarram na restrição única como aconteceria com busca seguida de save.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_category_progress (user_id, category, modules_viewed, modules_completed, " +
+            "total_time_spent, last_activity, created_at, updated_at) " +
+            "VALUES (:userId, :category, :modulesViewed, :modulesCompleted, :timeSpent, :now, :now, :now) " +
+            "ON CONFLICT (user_id, category) DO UPDATE SET " +
+            "modules_viewed = COALESCE(user_category_progress.modules_viewed, 0) + EXCLUDED.modules_viewed, " +
+            "modules_completed = COALESCE(user_category_progress.modules_completed, 0) + EXCLUDED.modules_completed, " +
+            "total_time_spent = COALESCE(user_category_progress.total_time_spent, 0) + EXCLUDED.total_time_spent, " +
+            "last_activity = EXCLUDED.last_activity, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void upsertProgress(@Param("userId") Long userId,
+                        @Param("category") String category,
+                        @Param("modulesViewed") int modulesViewed,
+                        @Param("modulesCompleted") int modulesCompleted,
+                        @Param("timeSpent") long timeSpent,
+                        @Param("now") LocalDateTime now);
+
     @Query("SELECT ucp FROM UserCategoryProgress ucp WHERE ucp.user = :user ORDER BY ucp.totalTimeSpent DESC")
     List<UserCategoryProgress> findByUserOrderByTotalTimeSpentDesc(@Param("user") User user);
 
     @Query("SELECT ucp FROM UserCategoryProgress ucp WHERE ucp.user = :user ORDER BY ucp.modulesViewed DESC")
     List<UserCategoryProgress> findByUserOrderByModulesViewedDesc(@Param("user") User user);
 
+    @Query("SELECT ucp.user.id, ucp.category FROM UserCategoryProgress ucp WHERE ucp.user.id IN :userIds " +
+           "ORDER BY ucp.modulesViewed DESC, ucp.category")
+    List<Object[]> findCategoriesByUserIdsOrderByModulesViewedDesc(@Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT SUM(ucp.modulesViewed) FROM UserCategoryProgress ucp WHERE ucp.user = :user")
     Long sumModulesViewedByUser(@Param("user") User user);
 
@@ -0,0 +1,44 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.UserModuleProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserModuleProgressRepository extends JpaRepository<UserModuleProgress, Long> {
+
+    /**
+     * Soma visualizações e tempo ao progresso do módulo, criando a linha na primeira vez,
+     * em um único comando atômico. A conclusão nunca é desfeita: o percentual só aumenta e
+     * {@code completed_at} guarda a primeira conclusão.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_module_progress (user_id, module_id, module_title, category, views, " +
+            "total_time_spent, is_completed, completion_percentage, first_viewed_at, last_viewed_at, completed_at) " +
+            "VALUES (:userId, :moduleId, :moduleTitle, :category, :views, :timeSpent, :completed, " +
+            ":completionPercentage, :now, :now, CASE WHEN :completed THEN CAST(:now AS TIMESTAMP) END) " +
+            "ON CONFLICT (user_id, module_id) DO UPDATE SET " +
+            "module_title = EXCLUDED.module_title, " +
+            "category = COALESCE(EXCLUDED.category, user_module_progress.category), " +
+            "views = user_module_progress.views + EXCLUDED.views, " +
+            "total_time_spent = user_module_progress.total_time_spent + EXCLUDED.total_time_spent, " +
+            "is_completed = user_module_progress.is_completed OR EXCLUDED.is_completed, " +
+            "completion_percentage = GREATEST(user_module_progress.completion_percentage, EXCLUDED.completion_percentage), " +
+            "last_viewed_at = EXCLUDED.last_viewed_at, " +
+            "completed_at = COALESCE(user_module_progress.completed_at, EXCLUDED.completed_at)",
+            nativeQuery = true)
+    void upsertProgress(@Param("userId") Long userId,
+                        @Param("moduleId") Long moduleId,
+                        @Param("moduleTitle") String moduleTitle,
+                        @Param("category") String category,
+                        @Param("views") int views,
+                        @Param("timeSpent") long timeSpent,
+                        @Param("completed") boolean completed,
+                        @Param("completionPercentage") int completionPercentage,
+                        @Param("now") LocalDateTime now);
+}
@@ -3,6 +3,7 @@ package br.rafaalmeida1.nutri_thata_api.repository;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
 import br.rafaalmeida1.nutri_thata_api.entities.UserSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,6 +17,13 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>
 
     Optional<UserSession> findBySessionId(String sessionId);
 
+    // Só as colunas de encerramento: os contadores são incrementados pelo SessionCounterStore
+    @Modifying
+    @Query("UPDATE UserSession us SET us.endTime = :endTime, us.totalTimeSpent = :totalTimeSpent, " +
+           "us.isActive = false, us.updatedAt = :endTime WHERE us.sessionId = :sessionId")
+    int endSession(@Param("sessionId") String sessionId, @Param("endTime") LocalDateTime endTime,
+                   @Param("totalTimeSpent") Long totalTimeSpent);
+
     List<UserSession> findByUserOrderByStartTimeDesc(User user);
 
     @Query("SELECT us FROM UserSession us WHERE us.user = :user AND us.isActive = true ORDER BY us.startTime DESC")
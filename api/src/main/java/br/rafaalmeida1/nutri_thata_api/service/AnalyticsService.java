@@ -2,105 +2,186 @@ package br.rafaalmeida1.nutri_thata_api.service;
 
 import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.*;
 import br.rafaalmeida1.nutri_thata_api.entities.*;
+import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickDailyStatRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickDailyTotalRepository;
 import br.rafaalmeida1.nutri_thata_api.repository.LinkClickRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewDailyStatRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewDailyTotalRepository;
 import br.rafaalmeida1.nutri_thata_api.repository.PageViewRepository;
 import br.rafaalmeida1.nutri_thata_api.repository.ProfessionalLinkRepository;
 import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsBucketCache;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsEvent;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsIngestionQueue;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsRollupService;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsTrafficFilter;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.GeoIpLocator;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.HyperLogLog;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.LinkClickCounterStore;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.TrendingLinksStore;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.UniqueVisitorSketchStore;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.UserAgentClassifier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
 
+    private static final int TOP_LINKS_LIMIT = 10;
+
     private final LinkClickRepository linkClickRepository;
     private final PageViewRepository pageViewRepository;
     private final ProfessionalLinkRepository linkRepository;
     private final ProfessionalProfileRepository profileRepository;
+    private final PageViewDailyTotalRepository pageViewDailyTotalRepository;
+    private final PageViewDailyStatRepository pageViewDailyStatRepository;
+    private final LinkClickDailyTotalRepository linkClickDailyTotalRepository;
+    private final LinkClickDailyStatRepository linkClickDailyStatRepository;
+    private final AnalyticsRollupService rollupService;
+    private final AnalyticsIngestionQueue ingestionQueue;
+    private final LinkClickCounterStore clickCounterStore;
+    private final UniqueVisitorSketchStore sketchStore;
+    private final UserAgentClassifier userAgentClassifier;
+    private final GeoIpLocator geoIpLocator;
+    private final AnalyticsTrafficFilter trafficFilter;
+    private final TrendingLinksStore trendingLinksStore;
+
+    private final AnalyticsBucketCache bucketCache;
+
+    @Value("${nutri.analytics.uniques.exact-max-days:31}")
+    private int exactUniquesMaxDays;
 
+    @Value("${nutri.analytics.cache.max-months:24}")
+    private int maxCachedMonths;
+
+    /**
+     * Monta o dashboard com um número fixo de consultas, independente de quantos links
+     * ou usuários autenticados o perfil tenha: os dados dos top links e os cliques por
+     * usuário são buscados em lote (IN) e distribuídos em memória. Os meses fechados das
+     * séries diárias vêm do {@link AnalyticsBucketCache}, e só o trecho aberto é recalculado.
+     */
     @Transactional(readOnly = true)
-    public PageAnalyticsResponse getPageAnalytics(User user, LocalDateTime startDate, LocalDateTime endDate) {
+    public PageAnalyticsResponse getPageAnalytics(User user, LocalDateTime startDate, LocalDateTime endDate,
+                                                  boolean exactUniques) {
+        validateExactUniques(exactUniques, startDate, endDate);
         ProfessionalProfile profile = findProfessionalProfile(user);
         
         PageAnalyticsResponse response = new PageAnalyticsResponse();
         response.setProfessionalId(profile.getId());
         
+        // Dias até a marca d'água vêm dos rollups diários; o restante (normalmente só hoje) da tabela bruta
+        LocalDate rolledUpTo = rollupService.getRolledUpTo();
+        LocalDateTime rawSince = rolledUpTo.plusDays(1).atStartOfDay();
+        
         // Estatísticas gerais
-        response.setTotalViews(pageViewRepository.countByProfessionalProfile(profile));
-        response.setUniqueViews(pageViewRepository.countUniqueViewsByProfessionalProfile(profile));
-        response.setTotalClicks(linkClickRepository.countByProfessionalProfile(profile));
-        response.setAverageSessionDuration(pageViewRepository.findAverageSessionDurationByProfessionalProfile(profile));
+        Object[] rolledTotals = pageViewDailyTotalRepository.sumTotalsByProfile(profile.getId(), rolledUpTo).get(0);
+        Object[] rawTotals = pageViewRepository.sumTotalsSince(profile, rawSince).get(0);
+        long sessionDurationSum = toLong(rolledTotals[1]) + toLong(rawTotals[1]);
+        long sessionDurationCount = toLong(rolledTotals[2]) + toLong(rawTotals[2]);
         
-        // Views por data
-        List<Object[]> viewsByDateData = pageViewRepository.findViewsByDateForProfile(profile, startDate, endDate);
-        List<ViewsByDateResponse> viewsByDate = viewsByDateData.stream()
-            .map(row -> {
-                ViewsByDateResponse viewData = new ViewsByDateResponse();
-                // Converter java.sql.Date para LocalDate
-                if (row[0] instanceof Date) {
-                    viewData.setDate(((Date) row[0]).toLocalDate());
-                } else {
-                    viewData.setDate((LocalDate) row[0]);
-                }
-                viewData.setViews((Long) row[1]);
-                viewData.setUniqueViews((Long) row[2]);
-                return viewData;
-            })
-            .collect(Collectors.toList());
-        response.setViewsByDate(viewsByDate);
+        response.setTotalViews(toLong(rolledTotals[0]) + toLong(rawTotals[0]));
+        response.setTotalClicks(linkClickDailyTotalRepository.sumClicksByProfile(profile.getId(), rolledUpTo)
+            + linkClickRepository.countByProfessionalProfileSince(profile, rawSince));
+        response.setAverageSessionDuration(sessionDurationCount > 0 ? (double) sessionDurationSum / sessionDurationCount : null);
         
-        // Views por país
-        List<Object[]> viewsByCountryData = pageViewRepository.findViewsByCountryForProfile(profile);
-        Map<String, Long> viewsByCountry = viewsByCountryData.stream()
-            .filter(row -> row[0] != null) // Filtrar países nulos
-            .collect(Collectors.toMap(
-                row -> (String) row[0], 
-                row -> (Long) row[1],
-                (existing, replacement) -> existing
-            ));
-        response.setViewsByCountry(viewsByCountry);
+        // Visitantes únicos
+        UniqueVisitorSketchStore.UniqueCounts uniques = sketchStore.estimateAll(UniqueVisitorSketchStore.PROFILE,
+            List.of(profile.getId()), startDate.toLocalDate(), endDate.toLocalDate()).get(profile.getId());
+        response.setUniqueViews(uniques.lifetime());
+        response.setUniqueViewsInRange(exactUniques
+            ? pageViewRepository.countUniqueViewsBetween(profile, startDate, endDate)
+            : uniques.inRange());
+        response.setUniqueCountsEstimated(!exactUniques);
+        response.setUniqueCountStandardError(HyperLogLog.STANDARD_ERROR);
         
-        // Views por dispositivo
-        List<Object[]> viewsByDeviceData = pageViewRepository.findViewsByDeviceForProfile(profile);
-        Map<String, Long> viewsByDevice = viewsByDeviceData.stream()
-            .filter(row -> row[0] != null) // Filtrar dispositivos nulos
-            .collect(Collectors.toMap(
-                row -> (String) row[0], 
-                row -> (Long) row[1],
-                (existing, replacement) -> existing
-            ));
-        response.setViewsByDevice(viewsByDevice);
+        // Views por data (dias completos, do dia de startDate até endDate)
+        Map<LocalDate, ViewsByDateResponse> viewsByDate = new TreeMap<>();
+        LocalDate startDay = startDate.toLocalDate();
+        LocalDate rolledEndDay = min(endDate.toLocalDate(), rolledUpTo);
+        splitClosedMonths(startDay, rolledEndDay, rolledUpTo,
+            month -> bucketCache.viewsByDate(profile.getId(), month).stream()
+                .filter(viewData -> isBetween(viewData.getDate(), startDay, rolledEndDay))
+                .forEach(viewData -> viewsByDate.put(viewData.getDate(), viewData)),
+            (from, to) -> pageViewDailyTotalRepository
+                .findByProfessionalProfileIdAndStatDateBetweenOrderByStatDateAsc(profile.getId(), from, to)
+                .forEach(total -> viewsByDate.put(total.getStatDate(),
+                    toViewsByDate(total.getStatDate(), total.getViews(), total.getUniqueVisitors()))));
+        LocalDateTime rawStart = max(startDay.atStartOfDay(), rawSince);
+        if (!rawStart.isAfter(endDate)) {
+            pageViewRepository.findViewsByDateForProfile(profile, rawStart, endDate)
+                .forEach(row -> {
+                    LocalDate date = toLocalDate(row[0]);
+                    viewsByDate.put(date, toViewsByDate(date, (Long) row[1], (Long) row[2]));
+                });
+        }
+        response.setViewsByDate(new ArrayList<>(viewsByDate.values()));
         
-        // Views por navegador
-        List<Object[]> viewsByBrowserData = pageViewRepository.findViewsByBrowserForProfile(profile);
-        Map<String, Long> viewsByBrowser = viewsByBrowserData.stream()
-            .filter(row -> row[0] != null) // Filtrar navegadores nulos
-            .collect(Collectors.toMap(
-                row -> (String) row[0], 
-                row -> (Long) row[1],
-                (existing, replacement) -> existing
-            ));
-        response.setViewsByBrowser(viewsByBrowser);
+        // Views por país, dispositivo e navegador
+        DimensionCounts viewDimensions = new DimensionCounts();
+        viewDimensions.addAll(pageViewDailyStatRepository.sumViewsByDimensions(profile.getId(), rolledUpTo));
+        viewDimensions.addAll(pageViewRepository.countViewsByDimensionsSince(profile, rawSince));
+        response.setViewsByCountry(viewDimensions.byCountry());
+        response.setViewsByDevice(viewDimensions.byDevice());
+        response.setViewsByBrowser(viewDimensions.byBrowser());
+        
+        // Top links (ordenados pelo contador persistido somado aos cliques ainda pendentes)
+        List<ProfessionalLink> topLinks = linkRepository.findTopLinksByClickCount(profile).stream()
+            .sorted(Comparator.comparingLong(
+                (ProfessionalLink link) -> clickCounterStore.currentCount(link.getId(), link.getClickCount())).reversed())
+            .limit(TOP_LINKS_LIMIT)
+            .collect(Collectors.toList());
+        response.setTopLinks(buildLinkAnalytics(profile.getId(), topLinks, startDate, endDate, exactUniques, rolledUpTo));
         
-        // Top links
-        List<ProfessionalLink> topLinks = linkRepository.findTopLinksByClickCount(profile);
-        List<LinkAnalyticsResponse> topLinksResponse = topLinks.stream()
-            .limit(10)
-            .map(link -> getLinkAnalytics(link, startDate, endDate))
+        // Links em alta, respondidos da memória; os títulos vêm em uma única consulta
+        Map<TrendingLinksStore.Window, List<TrendingLinksStore.TrendingLink>> trending = new HashMap<>();
+        for (TrendingLinksStore.Window window : TrendingLinksStore.Window.values()) {
+            trending.put(window, trendingLinksStore.topLinks(profile.getId(), window, TOP_LINKS_LIMIT));
+        }
+        Map<Long, String> trendingTitles = new HashMap<>();
+        List<Long> trendingIds = trending.values().stream()
+            .flatMap(List::stream)
+            .map(TrendingLinksStore.TrendingLink::linkId)
+            .distinct()
             .collect(Collectors.toList());
-        response.setTopLinks(topLinksResponse);
+        if (!trendingIds.isEmpty()) {
+            linkRepository.findAllById(trendingIds).stream()
+                .filter(link -> link.getProfessionalProfile().getId().equals(profile.getId()))
+                .forEach(link -> trendingTitles.put(link.getId(), link.getTitle()));
+        }
+        response.setTrendingLinksLastHour(toTrendingLinks(trending.get(TrendingLinksStore.Window.LAST_HOUR), trendingTitles));
+        response.setTrendingLinksLastDay(toTrendingLinks(trending.get(TrendingLinksStore.Window.LAST_DAY), trendingTitles));
+        response.setTrendingLinksLastWeek(toTrendingLinks(trending.get(TrendingLinksStore.Window.LAST_WEEK), trendingTitles));
         
-        // Usuários autenticados
+        // Usuários autenticados, com os cliques de todos eles buscados em uma única consulta
         List<Object[]> authenticatedUsersData = pageViewRepository.findAuthenticatedUsersByProfile(profile);
+        Map<Long, Long> clicksByUser = new HashMap<>();
+        if (!authenticatedUsersData.isEmpty()) {
+            List<Long> userIds = authenticatedUsersData.stream()
+                .map(row -> (Long) row[0])
+                .collect(Collectors.toList());
+            linkClickRepository.countByUsersAndProfessionalProfile(userIds, profile)
+                .forEach(row -> clicksByUser.put((Long) row[0], toLong(row[1])));
+        }
         List<UserClickResponse> authenticatedUsers = authenticatedUsersData.stream()
             .map(row -> {
                 UserClickResponse userResponse = new UserClickResponse();
@@ -109,12 +190,7 @@ public class AnalyticsService {
                 userResponse.setUserEmail((String) row[2]);
                 userResponse.setTotalViews((Long) row[3]);
                 userResponse.setLastActivityAt((LocalDateTime) row[4]);
-                
-                // Buscar cliques do usuário
-                User user1 = new User();
-                user1.setId((Long) row[0]);
-                userResponse.setTotalClicks(linkClickRepository.countByUserAndProfessionalProfile(user1, profile));
-                
+                userResponse.setTotalClicks(clicksByUser.getOrDefault((Long) row[0], 0L));
                 return userResponse;
             })
             .collect(Collectors.toList());
@@ -124,197 +200,328 @@ public class AnalyticsService {
     }
 
     @Transactional(readOnly = true)
-    public LinkAnalyticsResponse getLinkAnalytics(Long linkId, User user, LocalDateTime startDate, LocalDateTime endDate) {
+    public LinkAnalyticsResponse getLinkAnalytics(Long linkId, User user, LocalDateTime startDate, LocalDateTime endDate,
+                                                  boolean exactUniques) {
+        validateExactUniques(exactUniques, startDate, endDate);
         ProfessionalProfile profile = findProfessionalProfile(user);
         ProfessionalLink link = linkRepository.findByIdAndProfessionalProfile(linkId, profile)
             .orElseThrow(() -> new RuntimeException("Link não encontrado"));
         
-        return getLinkAnalytics(link, startDate, endDate);
+        return buildLinkAnalytics(profile.getId(), List.of(link), startDate, endDate, exactUniques,
+            rollupService.getRolledUpTo()).get(0);
     }
 
-    private LinkAnalyticsResponse getLinkAnalytics(ProfessionalLink link, LocalDateTime startDate, LocalDateTime endDate) {
-        LinkAnalyticsResponse response = new LinkAnalyticsResponse();
-        response.setLinkId(link.getId());
-        response.setLinkTitle(link.getTitle());
-        response.setTotalClicks(linkClickRepository.countByProfessionalLink(link));
-        response.setUniqueClicks(linkClickRepository.countUniqueClicksByProfessionalLink(link));
+    /**
+     * Estatísticas de vários links com uma consulta por tipo de dado, agrupada por link.
+     */
+    private List<LinkAnalyticsResponse> buildLinkAnalytics(Long profileId, List<ProfessionalLink> links,
+                                                           LocalDateTime startDate, LocalDateTime endDate,
+                                                           boolean exactUniques, LocalDate rolledUpTo) {
+        if (links.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        // Cliques por data
-        List<Object[]> clicksByDateData = linkClickRepository.findClicksByDateForLink(link, startDate, endDate);
-        List<ClicksByDateResponse> clicksByDate = clicksByDateData.stream()
-            .map(row -> {
-                ClicksByDateResponse clickData = new ClicksByDateResponse();
-                // Converter java.sql.Date para LocalDate
-                if (row[0] instanceof Date) {
-                    clickData.setDate(((Date) row[0]).toLocalDate());
-                } else {
-                    clickData.setDate((LocalDate) row[0]);
-                }
-                clickData.setClicks((Long) row[1]);
-                clickData.setUniqueClicks((Long) row[2]);
-                return clickData;
-            })
-            .collect(Collectors.toList());
-        response.setClicksByDate(clicksByDate);
+        LocalDateTime rawSince = rolledUpTo.plusDays(1).atStartOfDay();
+        List<Long> linkIds = links.stream().map(ProfessionalLink::getId).collect(Collectors.toList());
         
-        // Cliques por país
-        List<Object[]> clicksByCountryData = linkClickRepository.findClicksByCountryForLink(link);
-        Map<String, Long> clicksByCountry = clicksByCountryData.stream()
-            .collect(Collectors.toMap(
-                row -> (String) row[0], 
-                row -> (Long) row[1],
-                (existing, replacement) -> existing
-            ));
-        response.setClicksByCountry(clicksByCountry);
+        Map<Long, LinkAnalyticsResponse> responses = new LinkedHashMap<>();
+        Map<Long, Map<LocalDate, ClicksByDateResponse>> clicksByDate = new HashMap<>();
+        Map<Long, DimensionCounts> dimensions = new HashMap<>();
+        for (ProfessionalLink link : links) {
+            LinkAnalyticsResponse response = new LinkAnalyticsResponse();
+            response.setLinkId(link.getId());
+            response.setLinkTitle(link.getTitle());
+            response.setTotalClicks(0L);
+            responses.put(link.getId(), response);
+            clicksByDate.put(link.getId(), new TreeMap<>());
+            dimensions.put(link.getId(), new DimensionCounts());
+        }
         
-        // Cliques por dispositivo
-        List<Object[]> clicksByDeviceData = linkClickRepository.findClicksByDeviceForLink(link);
-        Map<String, Long> clicksByDevice = clicksByDeviceData.stream()
-            .collect(Collectors.toMap(
-                row -> (String) row[0], 
-                row -> (Long) row[1],
-                (existing, replacement) -> existing
-            ));
-        response.setClicksByDevice(clicksByDevice);
+        // Total de cliques: rollups até a marca d'água + parcial bruto
+        linkClickDailyTotalRepository.sumClicksByLinks(linkIds, rolledUpTo)
+            .forEach(row -> addClicks(responses.get((Long) row[0]), toLong(row[1])));
+        linkClickRepository.countByLinksSince(linkIds, rawSince)
+            .forEach(row -> addClicks(responses.get((Long) row[0]), toLong(row[1])));
         
-        // Cliques por navegador
-        List<Object[]> clicksByBrowserData = linkClickRepository.findClicksByBrowserForLink(link);
-        Map<String, Long> clicksByBrowser = clicksByBrowserData.stream()
-            .collect(Collectors.toMap(
-                row -> (String) row[0], 
-                row -> (Long) row[1],
-                (existing, replacement) -> existing
-            ));
-        response.setClicksByBrowser(clicksByBrowser);
+        // Visitantes únicos
+        Map<Long, UniqueVisitorSketchStore.UniqueCounts> uniques = sketchStore.estimateAll(UniqueVisitorSketchStore.LINK,
+            linkIds, startDate.toLocalDate(), endDate.toLocalDate());
+        Map<Long, Long> exactInRange = new HashMap<>();
+        if (exactUniques) {
+            linkClickRepository.countUniqueClicksByLinksBetween(linkIds, startDate, endDate)
+                .forEach(row -> exactInRange.put((Long) row[0], toLong(row[1])));
+        }
+        responses.forEach((linkId, response) -> {
+            response.setUniqueClicks(uniques.get(linkId).lifetime());
+            response.setUniqueClicksInRange(exactUniques
+                ? exactInRange.getOrDefault(linkId, 0L)
+                : uniques.get(linkId).inRange());
+        });
         
-        return response;
+        // Cliques por data (dias completos, do dia de startDate até endDate)
+        LocalDate startDay = startDate.toLocalDate();
+        LocalDate rolledEndDay = min(endDate.toLocalDate(), rolledUpTo);
+        splitClosedMonths(startDay, rolledEndDay, rolledUpTo,
+            month -> bucketCache.clicksByDate(profileId, month).stream()
+                .filter(clickData -> clicksByDate.containsKey(clickData.getLinkId())
+                    && isBetween(clickData.getDate(), startDay, rolledEndDay))
+                .forEach(clickData -> clicksByDate.get(clickData.getLinkId()).put(clickData.getDate(),
+                    toClicksByDate(clickData.getDate(), clickData.getClicks(), clickData.getUniqueClicks()))),
+            (from, to) -> linkClickDailyTotalRepository
+                .findByProfessionalLinkIdInAndStatDateBetweenOrderByStatDateAsc(linkIds, from, to)
+                .forEach(total -> clicksByDate.get(total.getProfessionalLinkId()).put(total.getStatDate(),
+                    toClicksByDate(total.getStatDate(), total.getClicks(), total.getUniqueVisitors()))));
+        LocalDateTime rawStart = max(startDay.atStartOfDay(), rawSince);
+        if (!rawStart.isAfter(endDate)) {
+            linkClickRepository.findClicksByDateForLinks(linkIds, rawStart, endDate)
+                .forEach(row -> {
+                    LocalDate date = toLocalDate(row[1]);
+                    clicksByDate.get((Long) row[0]).put(date, toClicksByDate(date, toLong(row[2]), toLong(row[3])));
+                });
+        }
+        
+        // Cliques por país, dispositivo e navegador
+        linkClickDailyStatRepository.sumClicksByDimensionsForLinks(linkIds, rolledUpTo)
+            .forEach(row -> dimensions.get((Long) row[0]).add(row[1], row[2], row[3], row[4]));
+        linkClickRepository.countClicksByDimensionsForLinksSince(linkIds, rawSince)
+            .forEach(row -> dimensions.get((Long) row[0]).add(row[1], row[2], row[3], row[4]));
+        
+        responses.forEach((linkId, response) -> {
+            response.setClicksByDate(new ArrayList<>(clicksByDate.get(linkId).values()));
+            DimensionCounts clickDimensions = dimensions.get(linkId);
+            response.setClicksByCountry(clickDimensions.byCountry());
+            response.setClicksByDevice(clickDimensions.byDevice());
+            response.setClicksByBrowser(clickDimensions.byBrowser());
+        });
+        
+        return new ArrayList<>(responses.values());
+    }
+
+    /**
+     * Divide os dias consolidados [startDay, endDay] entre meses fechados, servidos pelo
+     * {@link AnalyticsBucketCache}, e dias avulsos lidos direto dos rollups: o mês corrente,
+     * os dias ainda sujeitos a recálculo e o que passar de {@code maxCachedMonths} meses.
+     * Os meses fechados cobrem o mês inteiro; quem consome filtra pelo período.
+     */
+    private void splitClosedMonths(LocalDate startDay, LocalDate endDay, LocalDate rolledUpTo,
+                                   Consumer<YearMonth> closedMonth, BiConsumer<LocalDate, LocalDate> openDays) {
+        if (startDay.isAfter(endDay)) {
+            return;
+        }
+        // Último dia do último mês inteiramente definitivo
+        LocalDate closedEnd = min(endDay,
+            YearMonth.from(rollupService.getFinalizedThrough(rolledUpTo).plusDays(1)).atDay(1).minusDays(1));
+        LocalDate closedStart = max(startDay, YearMonth.from(closedEnd).minusMonths(maxCachedMonths - 1L).atDay(1));
+        if (closedStart.isAfter(closedEnd)) {
+            openDays.accept(startDay, endDay);
+            return;
+        }
+        
+        if (startDay.isBefore(closedStart)) {
+            openDays.accept(startDay, closedStart.minusDays(1));
+        }
+        for (YearMonth month = YearMonth.from(closedStart); !month.isAfter(YearMonth.from(closedEnd)); month = month.plusMonths(1)) {
+            closedMonth.accept(month);
+        }
+        if (closedEnd.isBefore(endDay)) {
+            openDays.accept(closedEnd.plusDays(1), endDay);
+        }
     }
 
-    @Transactional
+    private static boolean isBetween(LocalDate date, LocalDate from, LocalDate to) {
+        return !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    private static void addClicks(LinkAnalyticsResponse response, long clicks) {
+        response.setTotalClicks(response.getTotalClicks() + clicks);
+    }
+
+    /**
+     * Registra a visualização na fila de ingestão; a gravação acontece em lote
+     * pelo {@link AnalyticsIngestionQueue}, fora da requisição. Bots e visualizações
+     * repetidas são descartados antes pelo {@link AnalyticsTrafficFilter}.
+     */
     public void trackPageView(Long professionalId, String ipAddress, String userAgent, 
                              String referer, User user, Long sessionDuration) {
-        ProfessionalProfile profile = profileRepository.findById(professionalId)
-            .orElseThrow(() -> new RuntimeException("Perfil profissional não encontrado"));
-        
-        PageView pageView = PageView.builder()
-            .professionalProfile(profile)
-            .user(user)
+        UserAgentClassifier.Classification classification = userAgentClassifier.classify(userAgent);
+        if (!trafficFilter.acceptPageView(professionalId, ipAddress, userAgent, classification)) {
+            return;
+        }
+
+        AnalyticsEvent.AnalyticsEventBuilder event = AnalyticsEvent.builder()
+            .type(AnalyticsEvent.Type.PAGE_VIEW)
+            .targetId(professionalId)
+            .userId(user != null ? user.getId() : null)
             .ipAddress(ipAddress)
             .userAgent(userAgent)
             .referer(referer)
             .sessionDuration(sessionDuration)
-            .build();
+            .occurredAt(LocalDateTime.now());
         
-        // Extrair informações do user agent
-        extractDeviceInfo(userAgent, pageView);
+        // Informações do user agent e localização do IP
+        applyDeviceInfo(classification, event);
+        extractLocation(ipAddress, event);
         
-        pageViewRepository.save(pageView);
+        ingestionQueue.enqueue(event.build());
     }
 
-    @Transactional
+    /**
+     * Registra o clique na fila de ingestão; o contador do link é incrementado
+     * em memória após a gravação do lote e persistido pelo {@link LinkClickCounterStore}.
+     */
     public void trackLinkClick(Long linkId, String ipAddress, String userAgent, 
                               String referer, User user) {
-        ProfessionalLink link = linkRepository.findById(linkId)
-            .orElseThrow(() -> new RuntimeException("Link não encontrado"));
-        
-        LinkClick linkClick = LinkClick.builder()
-            .professionalLink(link)
-            .user(user)
+        UserAgentClassifier.Classification classification = userAgentClassifier.classify(userAgent);
+        if (!trafficFilter.acceptLinkClick(classification)) {
+            return;
+        }
+
+        AnalyticsEvent.AnalyticsEventBuilder event = AnalyticsEvent.builder()
+            .type(AnalyticsEvent.Type.LINK_CLICK)
+            .targetId(linkId)
+            .userId(user != null ? user.getId() : null)
             .ipAddress(ipAddress)
             .userAgent(userAgent)
             .referer(referer)
-            .build();
-        
-        // Extrair informações do user agent
-        extractDeviceInfo(userAgent, linkClick);
+            .occurredAt(LocalDateTime.now());
         
-        linkClickRepository.save(linkClick);
+        // Informações do user agent e localização do IP
+        applyDeviceInfo(classification, event);
+        extractLocation(ipAddress, event);
         
-        // Incrementar contador de cliques
-        link.setClickCount(link.getClickCount() + 1);
-        linkRepository.save(link);
+        ingestionQueue.enqueue(event.build());
     }
 
-    private void extractDeviceInfo(String userAgent, PageView pageView) {
-        if (userAgent != null) {
-            // Lógica simples para detectar dispositivo
-            if (userAgent.toLowerCase().contains("mobile")) {
-                pageView.setDeviceType("Mobile");
-            } else if (userAgent.toLowerCase().contains("tablet")) {
-                pageView.setDeviceType("Tablet");
-            } else {
-                pageView.setDeviceType("Desktop");
-            }
-            
-            // Detectar navegador
-            if (userAgent.contains("Chrome")) {
-                pageView.setBrowser("Chrome");
-            } else if (userAgent.contains("Firefox")) {
-                pageView.setBrowser("Firefox");
-            } else if (userAgent.contains("Safari")) {
-                pageView.setBrowser("Safari");
-            } else if (userAgent.contains("Edge")) {
-                pageView.setBrowser("Edge");
-            } else {
-                pageView.setBrowser("Other");
-            }
-            
-            // Detectar sistema operacional
-            if (userAgent.contains("Windows")) {
-                pageView.setOperatingSystem("Windows");
-            } else if (userAgent.contains("Mac")) {
-                pageView.setOperatingSystem("macOS");
-            } else if (userAgent.contains("Linux")) {
-                pageView.setOperatingSystem("Linux");
-            } else if (userAgent.contains("Android")) {
-                pageView.setOperatingSystem("Android");
-            } else if (userAgent.contains("iOS")) {
-                pageView.setOperatingSystem("iOS");
-            } else {
-                pageView.setOperatingSystem("Other");
-            }
+    private static void applyDeviceInfo(UserAgentClassifier.Classification classification,
+                                        AnalyticsEvent.AnalyticsEventBuilder event) {
+        if (classification != null) {
+            event.deviceType(classification.deviceType());
+            event.browser(classification.browser());
+            event.operatingSystem(classification.operatingSystem());
         }
     }
 
-    private void extractDeviceInfo(String userAgent, LinkClick linkClick) {
-        if (userAgent != null) {
-            // Lógica simples para detectar dispositivo
-            if (userAgent.toLowerCase().contains("mobile")) {
-                linkClick.setDeviceType("Mobile");
-            } else if (userAgent.toLowerCase().contains("tablet")) {
-                linkClick.setDeviceType("Tablet");
-            } else {
-                linkClick.setDeviceType("Desktop");
-            }
-            
-            // Detectar navegador
-            if (userAgent.contains("Chrome")) {
-                linkClick.setBrowser("Chrome");
-            } else if (userAgent.contains("Firefox")) {
-                linkClick.setBrowser("Firefox");
-            } else if (userAgent.contains("Safari")) {
-                linkClick.setBrowser("Safari");
-            } else if (userAgent.contains("Edge")) {
-                linkClick.setBrowser("Edge");
-            } else {
-                linkClick.setBrowser("Other");
+    private void extractLocation(String ipAddress, AnalyticsEvent.AnalyticsEventBuilder event) {
+        GeoIpLocator.GeoLocation location = geoIpLocator.locate(ipAddress);
+        if (location != null) {
+            event.country(location.country());
+            event.city(location.city());
+        }
+    }
+
+    /**
+     * A contagem exata de únicos (COUNT DISTINCT sobre a tabela bruta) só é permitida em
+     * períodos curtos; fora disso as contagens vêm dos sketches HyperLogLog.
+     */
+    private void validateExactUniques(boolean exactUniques, LocalDateTime startDate, LocalDateTime endDate) {
+        if (exactUniques && ChronoUnit.DAYS.between(startDate, endDate) > exactUniquesMaxDays) {
+            throw new BusinessException("Contagem exata de únicos disponível apenas para períodos de até "
+                + exactUniquesMaxDays + " dias");
+        }
+    }
+
+    // Links removidos depois dos cliques ficam de fora
+    private static List<TrendingLinkResponse> toTrendingLinks(List<TrendingLinksStore.TrendingLink> links,
+                                                              Map<Long, String> titles) {
+        return links.stream()
+            .filter(link -> titles.containsKey(link.linkId()))
+            .map(link -> {
+                TrendingLinkResponse response = new TrendingLinkResponse();
+                response.setLinkId(link.linkId());
+                response.setLinkTitle(titles.get(link.linkId()));
+                response.setClicks(link.clicks());
+                response.setMaxOverestimate(link.maxOverestimate());
+                return response;
+            })
+            .collect(Collectors.toList());
+    }
+
+    private static ViewsByDateResponse toViewsByDate(LocalDate date, Long views, Long uniqueViews) {
+        ViewsByDateResponse viewData = new ViewsByDateResponse();
+        viewData.setDate(date);
+        viewData.setViews(views);
+        viewData.setUniqueViews(uniqueViews);
+        return viewData;
+    }
+
+    private static ClicksByDateResponse toClicksByDate(LocalDate date, Long clicks, Long uniqueClicks) {
+        ClicksByDateResponse clickData = new ClicksByDateResponse();
+        clickData.setDate(date);
+        clickData.setClicks(clicks);
+        clickData.setUniqueClicks(uniqueClicks);
+        return clickData;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        // Converter java.sql.Date para LocalDate
+        if (value instanceof Date) {
+            return ((Date) value).toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Soma contagens por país, dispositivo e navegador a partir de linhas
+     * [country, deviceType, browser, count], ignorando valores vazios.
+     */
+    private static class DimensionCounts {
+        private final Map<String, Long> byCountry = new HashMap<>();
+        private final Map<String, Long> byDevice = new HashMap<>();
+        private final Map<String, Long> byBrowser = new HashMap<>();
+
+        void addAll(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                add(row[0], row[1], row[2], row[3]);
             }
-            
-            // Detectar sistema operacional
-            if (userAgent.contains("Windows")) {
-                linkClick.setOperatingSystem("Windows");
-            } else if (userAgent.contains("Mac")) {
-                linkClick.setOperatingSystem("macOS");
-            } else if (userAgent.contains("Linux")) {
-                linkClick.setOperatingSystem("Linux");
-            } else if (userAgent.contains("Android")) {
-                linkClick.setOperatingSystem("Android");
-            } else if (userAgent.contains("iOS")) {
-                linkClick.setOperatingSystem("iOS");
-            } else {
-                linkClick.setOperatingSystem("Other");
+        }
+
+        void add(Object country, Object device, Object browser, Object count) {
+            long value = toLong(count);
+            add(byCountry, (String) country, value);
+            add(byDevice, (String) device, value);
+            add(byBrowser, (String) browser, value);
+        }
+
+        Map<String, Long> byCountry() {
+            return sortedByCount(byCountry);
+        }
+
+        Map<String, Long> byDevice() {
+            return sortedByCount(byDevice);
+        }
+
+        Map<String, Long> byBrowser() {
+            return sortedByCount(byBrowser);
+        }
+
+        private static void add(Map<String, Long> counts, String key, long count) {
+            if (key != null && !key.isEmpty()) {
+                counts.merge(key, count, Long::sum);
             }
         }
+
+        private static Map<String, Long> sortedByCount(Map<String, Long> counts) {
+            return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                    (existing, replacement) -> existing, LinkedHashMap::new));
+        }
     }
 
     private ProfessionalProfile findProfessionalProfile(User user) {
@@ -31,6 +31,7 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final UserMapper userMapper;
+    private final PatientSearchIndex patientSearchIndex;
 
     @Transactional
     public AuthResponse registerPatient(PatientRegisterRequest request) {
@@ -50,6 +51,7 @@ public class AuthService {
                 .build();
 
         user = userRepository.save(user);
+        patientSearchIndex.index(user);
         
         String jwtToken = jwtService.generateToken(user);
         UserResponse userResponse = userMapper.toUserResponse(user);
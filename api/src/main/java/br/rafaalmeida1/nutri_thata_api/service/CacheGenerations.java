@@ -0,0 +1,168 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Versões (gerações) dos namespaces de cache, guardadas no Redis. As chaves dos
+ * {@code @Cacheable} embutem a geração atual dos namespaces de que o valor depende, por
+ * exemplo {@code key = "@cacheGenerations.key('professional:' + #user.id) + '_all'"}, e
+ * invalidar um namespace é um {@code INCR} do contador: as entradas da geração anterior
+ * deixam de ser lidas e expiram pelo TTL do cache, sem varrer chaves.
+ *
+ * Namespaces em uso:
+ * <ul>
+ *   <li>{@code professional:{id}} — módulos criados pelo profissional</li>
+ *   <li>{@code profile:{id}} — perfil do profissional</li>
+ *   <li>{@code patient:{id}} — módulos específicos liberados para o paciente</li>
+ *   <li>{@code patients} — o que todos os pacientes veem (módulos GENERAL)</li>
+ *   <li>{@code module:{id}} — um módulo</li>
+ *   <li>{@code user:{id}}, {@code user-email:{email}} e {@code user-stats:{id}} — um usuário</li>
+ *   <li>{@code patient-roster} — a lista de pacientes</li>
+ *   <li>{@code professional-profiles} — banners, que os pacientes leem do perfil de quem os convidou</li>
+ * </ul>
+ *
+ * A invalidação acontece depois do commit da transação corrente, como as remoções do
+ * cache transacional. Os contadores expiram no dobro do TTL do cache depois do último
+ * incremento, para não acumular namespaces de módulos e usuários apagados. Entradas são
+ * gravadas a cada leitura, então podem sobreviver ao contador; por isso um contador que
+ * some não recomeça do zero, e sim do relógio em microssegundos, acima de qualquer geração
+ * que ele já teve.
+ */
+@Component
+@Slf4j
+public class CacheGenerations {
+
+    public static final String PATIENTS = "patients";
+    public static final String PATIENT_ROSTER = "patient-roster";
+    public static final String PROFESSIONAL_PROFILES = "professional-profiles";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration counterTtl;
+    private final LongSupplier clock;
+
+    @Autowired
+    public CacheGenerations(StringRedisTemplate redisTemplate,
+                            @Value("${spring.cache.redis.key-prefix}") String cacheKeyPrefix,
+                            @Value("${spring.cache.redis.time-to-live}") Duration cacheTtl) {
+        this(redisTemplate, cacheKeyPrefix, cacheTtl, () -> System.currentTimeMillis() * 1000);
+    }
+
+    CacheGenerations(StringRedisTemplate redisTemplate, String cacheKeyPrefix, Duration cacheTtl, LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = cacheKeyPrefix + "generation:";
+        this.counterTtl = cacheTtl.multipliedBy(2);
+        this.clock = clock;
+    }
+
+    public static String professional(Long id) {
+        return "professional:" + id;
+    }
+
+    public static String profile(Long id) {
+        return "profile:" + id;
+    }
+
+    public static String patient(Long id) {
+        return "patient:" + id;
+    }
+
+    public static String module(Object id) {
+        return "module:" + id;
+    }
+
+    public static String user(Long id) {
+        return "user:" + id;
+    }
+
+    public static String userEmail(String email) {
+        return "user-email:" + email;
+    }
+
+    public static String userStats(Long id) {
+        return "user-stats:" + id;
+    }
+
+    /**
+     * Prefixo de chave com a geração atual de cada namespace, lidas num único MGET, no
+     * formato {@code professional:5@3}.
+     */
+    public String key(String... namespaces) {
+        List<String> generations = redisTemplate.opsForValue()
+                .multiGet(Arrays.stream(namespaces).map(this::counterKey).toList());
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < namespaces.length; i++) {
+            String generation = generations != null ? generations.get(i) : null;
+            if (i > 0) {
+                key.append('|');
+            }
+            key.append(namespaces[i]).append('@').append(generation != null ? generation : "0");
+        }
+        return key.toString();
+    }
+
+    /**
+     * Chave das listagens de módulos do usuário: o profissional vê os que criou; o paciente,
+     * os GENERAL e os liberados para ele.
+     */
+    public String forViewer(User user) {
+        return user.getRole() == Role.PROFESSIONAL
+                ? key(professional(user.getId()))
+                : key(PATIENTS, patient(user.getId()));
+    }
+
+    /**
+     * Avança a geração dos namespaces depois do commit, ou na hora fora de transação.
+     */
+    public void invalidate(String... namespaces) {
+        Set<String> distinct = new LinkedHashSet<>(Arrays.asList(namespaces));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(distinct);
+                }
+            });
+        } else {
+            increment(distinct);
+        }
+    }
+
+    private void increment(Set<String> namespaces) {
+        for (String namespace : namespaces) {
+            try {
+                String counterKey = counterKey(namespace);
+                Long generation = redisTemplate.opsForValue().increment(counterKey);
+                if (generation != null && generation == 1) {
+                    // O contador não existia: recomeça acima das gerações que ele teve antes de expirar.
+                    // Um INCR concorrente que tenha visto 2 também fica abaixo da semente
+                    redisTemplate.opsForValue().set(counterKey, Long.toString(clock.getAsLong()), counterTtl);
+                } else {
+                    redisTemplate.expire(counterKey, counterTtl);
+                }
+            } catch (Exception e) {
+                // Sem o incremento, as entradas antigas seguem válidas até o TTL do cache
+                log.error("Erro ao invalidar o namespace de cache {}", namespace, e);
+            }
+        }
+    }
+
+    private String counterKey(String namespace) {
+        return keyPrefix + namespace;
+    }
+}
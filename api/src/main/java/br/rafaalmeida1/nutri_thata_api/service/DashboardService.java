@@ -2,13 +2,14 @@ package br.rafaalmeida1.nutri_thata_api.service;
 
 import br.rafaalmeida1.nutri_thata_api.dto.response.dashboard.DashboardStatsResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.dashboard.ProfessionalInfoResponse;
-import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleSummaryResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
 import br.rafaalmeida1.nutri_thata_api.enums.Role;
 import br.rafaalmeida1.nutri_thata_api.mapper.ModuleMapper;
 import br.rafaalmeida1.nutri_thata_api.repositories.InviteRepository;
 import br.rafaalmeida1.nutri_thata_api.repositories.ModuleRepository;
+import br.rafaalmeida1.nutri_thata_api.repositories.ModuleSummaryView;
 import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
 import br.rafaalmeida1.nutri_thata_api.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +30,7 @@ public class DashboardService {
     private final ModuleRepository moduleRepository;
     private final InviteRepository inviteRepository;
     private final ModuleMapper moduleMapper;
+    private final ModuleVisibilityIndex moduleVisibilityIndex;
 
     /**
      * Busca informações do profissional para o dashboard
@@ -103,7 +106,7 @@ public class DashboardService {
      */
     private DashboardStatsResponse getPatientStats(User patient) {
         // Total de módulos disponíveis
-        long totalModules = moduleRepository.countVisibleToPatient(patient.getId());
+        long totalModules = moduleVisibilityIndex.countVisible(patient.getId());
         
         // Por enquanto, retornar valores básicos até implementar o sistema de visualização/conclusão
         return DashboardStatsResponse.builder()
@@ -115,21 +118,22 @@ public class DashboardService {
     }
 
     /**
-     * Busca módulos para o dashboard
+     * Busca módulos para o dashboard, em resumo
      */
-    public List<ModuleResponse> getModulesForDashboard(User user) {
-        List<br.rafaalmeida1.nutri_thata_api.entities.Module> modules;
+    public List<ModuleSummaryResponse> getModulesForDashboard(User user) {
+        List<ModuleSummaryView> modules;
         
         if (user.getRole().equals(Role.PROFESSIONAL)) {
             // Para profissionais, buscar módulos criados por eles
-            modules = moduleRepository.findByCreatedByOrderByOrderIndexAsc(user);
+            modules = moduleRepository.findSummariesByCreatedBy(user);
         } else {
             // Para pacientes, buscar módulos visíveis
-            modules = moduleRepository.findVisibleToPatient(user);
+            List<UUID> visibleIds = moduleVisibilityIndex.visibleModuleIds(user.getId());
+            modules = moduleRepository.findSummariesByIdInOrdered(visibleIds, ModuleRepository.MAX_IN_PARAMETERS);
         }
         
         return modules.stream()
-                .map(moduleMapper::toModuleResponse)
+                .map(moduleMapper::toModuleSummaryResponse)
                 .collect(java.util.stream.Collectors.toList());
     }
 }
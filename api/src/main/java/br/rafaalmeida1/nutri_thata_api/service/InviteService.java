@@ -43,6 +43,7 @@ public class InviteService {
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final NotificationService notificationService;
+    private final PatientSearchIndex patientSearchIndex;
 
     @Value("${INVITE_EXPIRATION_HOURS}")
     private int expirationHours;
@@ -139,6 +140,7 @@ public class InviteService {
                 .build();
 
         user = userRepository.save(user);
+        patientSearchIndex.index(user);
 
         // Mark invite as accepted
         invite.setStatus(InviteStatus.ACCEPTED);
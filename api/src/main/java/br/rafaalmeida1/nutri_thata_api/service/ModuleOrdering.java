@@ -0,0 +1,185 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chaves de ordenação dos módulos de cada profissional, com folga entre vizinhos: os
+ * módulos ficam a {@link #GAP} posições uns dos outros em {@code order_index}, e mover um
+ * módulo grava só a linha dele, com a chave no meio do intervalo entre os novos vizinhos.
+ *
+ * Quando um intervalo fica estreito (menos de {@link #MIN_GAP}), o profissional entra na
+ * fila do rebalanceamento em segundo plano, que volta a espaçar as chaves sem mudar a
+ * ordem. Se não sobrar espaço algum, o rebalanceamento roda na hora, dentro da transação
+ * da movimentação.
+ *
+ * Movimentações e rebalanceamentos do mesmo profissional são serializados pelo lock da
+ * linha dele em {@code users}.
+ */
+@Component
+@Slf4j
+public class ModuleOrdering {
+
+    static final int GAP = 1024;
+    static final int MIN_GAP = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public ModuleOrdering(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Chave entre os dois vizinhos; {@code null} em qualquer um dos lados significa início
+     * ou fim da lista. Retorna {@code null} quando não há chave livre no intervalo.
+     */
+    static Integer keyBetween(Integer previous, Integer next) {
+        long key;
+        if (previous == null && next == null) {
+            key = 0;
+        } else if (previous == null) {
+            key = (long) next - GAP;
+        } else if (next == null) {
+            key = (long) previous + GAP;
+        } else {
+            if ((long) next - previous < 2) {
+                return null;
+            }
+            key = previous + ((long) next - previous) / 2;
+        }
+        return key < Integer.MIN_VALUE || key > Integer.MAX_VALUE ? null : (int) key;
+    }
+
+    /**
+     * Se a chave ficou perto demais de algum vizinho, agenda o rebalanceamento do profissional.
+     */
+    void checkDensity(Long professionalId, Integer previous, int key, Integer next) {
+        if ((previous != null && (long) key - previous < MIN_GAP) || (next != null && (long) next - key < MIN_GAP)) {
+            scheduleRebalance(professionalId);
+        }
+    }
+
+    void scheduleRebalance(Long professionalId) {
+        pending.add(professionalId);
+    }
+
+    /**
+     * Trava a linha do profissional até o fim da transação corrente.
+     */
+    void lock(Long professionalId) {
+        jdbcTemplate.queryForList("SELECT id FROM users WHERE id = ? FOR UPDATE", Long.class, professionalId);
+    }
+
+    /**
+     * Chaves atuais dos módulos informados que pertencem ao profissional.
+     */
+    Map<UUID, Integer> keysOf(Long professionalId, Collection<UUID> moduleIds) {
+        Map<UUID, Integer> keys = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, order_index FROM modules WHERE created_by = :professionalId AND id IN (:ids)",
+                new MapSqlParameterSource("professionalId", professionalId).addValue("ids", moduleIds),
+                rs -> {
+                    keys.put(rs.getObject(1, UUID.class), rs.getInt(2));
+                });
+        return keys;
+    }
+
+    /**
+     * Menor chave maior ou igual a {@code key} entre os módulos do profissional, ignorando
+     * os informados. {@code null} quando não há nenhuma: {@code key} é a última da lista.
+     */
+    Integer keyFrom(Long professionalId, int key, Collection<UUID> excludedIds) {
+        return namedJdbcTemplate.queryForObject(
+                "SELECT MIN(order_index) FROM modules WHERE created_by = :professionalId " +
+                "AND order_index >= :key AND id NOT IN (:excluded)",
+                new MapSqlParameterSource("professionalId", professionalId)
+                        .addValue("key", key)
+                        .addValue("excluded", excludedIds),
+                Integer.class);
+    }
+
+    /**
+     * Maior chave menor ou igual a {@code key} entre os módulos do profissional, ignorando
+     * os informados. {@code null} quando não há nenhuma: {@code key} é a primeira da lista.
+     */
+    Integer keyUpTo(Long professionalId, int key, Collection<UUID> excludedIds) {
+        return namedJdbcTemplate.queryForObject(
+                "SELECT MAX(order_index) FROM modules WHERE created_by = :professionalId " +
+                "AND order_index <= :key AND id NOT IN (:excluded)",
+                new MapSqlParameterSource("professionalId", professionalId)
+                        .addValue("key", key)
+                        .addValue("excluded", excludedIds),
+                Integer.class);
+    }
+
+    /**
+     * Quantos módulos o profissional tem.
+     */
+    int countOf(Long professionalId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM modules WHERE created_by = ?",
+                Integer.class, professionalId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Reespaça as chaves do profissional (0, GAP, 2·GAP, ...) mantendo a ordem atual, na
+     * transação corrente. Só as linhas cuja chave muda são gravadas, em lote.
+     */
+    int rebalance(Long professionalId) {
+        lock(professionalId);
+        List<Object[]> changes = new ArrayList<>();
+        int[] position = {0};
+        jdbcTemplate.query("SELECT id, order_index FROM modules WHERE created_by = ? ORDER BY order_index, created_at, id",
+                rs -> {
+                    int key = position[0]++ * GAP;
+                    if (rs.getInt(2) != key) {
+                        changes.add(new Object[]{key, rs.getObject(1, UUID.class)});
+                    }
+                }, professionalId);
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE modules SET order_index = ? WHERE id = ?", changes);
+        }
+        pending.remove(professionalId);
+        log.debug("Módulos do profissional {} rebalanceados: {} chaves regravadas", professionalId, changes.size());
+        return changes.size();
+    }
+
+    /**
+     * Rebalanceia, cada um na própria transação, os profissionais com chaves adensadas.
+     */
+    @Scheduled(fixedDelayString = "${nutri.module-order.rebalance-interval-ms:30000}")
+    public void rebalancePending() {
+        for (Long professionalId : List.copyOf(pending)) {
+            try {
+                requiresNew.executeWithoutResult(status -> rebalance(professionalId));
+            } catch (Exception e) {
+                log.error("Erro ao rebalancear a ordem dos módulos do profissional {}", professionalId, e);
+            }
+        }
+    }
+
+    boolean isPending(Long professionalId) {
+        return pending.contains(professionalId);
+    }
+}
@@ -3,6 +3,7 @@ package br.rafaalmeida1.nutri_thata_api.service;
 import br.rafaalmeida1.nutri_thata_api.dto.request.module.CreateModuleRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.module.UpdateModuleRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.module.ModuleReorderRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.module.MoveModuleRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleSummaryResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.ContentBlock;
@@ -14,6 +15,7 @@ import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
 import br.rafaalmeida1.nutri_thata_api.exception.NotFoundException;
 import br.rafaalmeida1.nutri_thata_api.mapper.ModuleMapper;
 import br.rafaalmeida1.nutri_thata_api.repositories.ModuleRepository;
+import br.rafaalmeida1.nutri_thata_api.repositories.ModuleSummaryView;
 import br.rafaalmeida1.nutri_thata_api.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,13 +25,12 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -49,25 +50,33 @@ public class ModuleService {
     private final CacheService cacheService;
     private final NotificationService notificationService;
     private final ContentBlockRepository contentBlockRepository;
+    private final ModuleVisibilityIndex moduleVisibilityIndex;
+    private final ModuleOrdering moduleOrdering;
+    private final CacheGenerations cacheGenerations;
 
-    public Page<ModuleResponse> getModules(User user, Pageable pageable) {
+    /**
+     * Listagem em resumo (sem blocos de conteúdo nem pacientes liberados); o módulo completo
+     * vem de {@link #getModuleById(String)}.
+     */
+    public Page<ModuleSummaryResponse> getModules(User user, Pageable pageable) {
         log.info("Buscando módulos para usuário: {} (role: {})", user.getEmail(), user.getRole());
         
-        Page<Module> modules;
+        Page<ModuleSummaryView> modules;
         if (user.getRole().equals(Role.PROFESSIONAL)) {
             // Para profissionais, buscar todos os módulos criados por eles ordenados por ordem
-            modules = moduleRepository.findByCreatedByOrderByOrderIndexAsc(user, pageable);
+            modules = moduleRepository.findSummariesByCreatedBy(user, pageable);
             log.info("Profissional vendo {} módulos criados por ele", modules.getTotalElements());
         } else {
             // Para pacientes, buscar módulos visíveis (GENERAL + SPECIFIC para ele) ordenados por ordem
-            modules = moduleRepository.findVisibleModulesForUser(user.getId(), pageable);
+            List<UUID> visibleIds = moduleVisibilityIndex.visibleModuleIds(user.getId());
+            modules = moduleRepository.findSummariesByIdInOrdered(visibleIds, pageable, ModuleRepository.MAX_IN_PARAMETERS);
             log.info("Paciente vendo {} módulos visíveis", modules.getTotalElements());
         }
         
-        return modules.map(moduleMapper::toModuleResponse);
+        return modules.map(moduleMapper::toModuleSummaryResponse);
     }
 
-    @Cacheable(value = "modules", key = "#user.id + '_all'")
+    @Cacheable(value = "modules", key = "@cacheGenerations.forViewer(#user) + '_all'")
     public List<ModuleResponse> getCachedModules(User user) {
         log.info("Buscando módulos em cache para usuário: {} (role: {})", user.getEmail(), user.getRole());
         
@@ -78,7 +87,8 @@ public class ModuleService {
             log.info("Profissional vendo {} módulos em cache", modules.size());
         } else {
             // Para pacientes, buscar módulos visíveis (GENERAL + SPECIFIC para ele)
-            modules = moduleRepository.findVisibleToPatient(user);
+            List<UUID> visibleIds = moduleVisibilityIndex.visibleModuleIds(user.getId());
+            modules = moduleRepository.findByIdInOrdered(visibleIds, ModuleRepository.MAX_IN_PARAMETERS);
             log.info("Paciente vendo {} módulos visíveis em cache", modules.size());
         }
         
@@ -87,7 +97,7 @@ public class ModuleService {
                 .collect(Collectors.toList());
     }
 
-    @Cacheable(value = "modules", key = "#id")
+    @Cacheable(value = "modules", key = "@cacheGenerations.key('module:' + #id)")
     public ModuleResponse getModuleById(String id) {
         log.info("Buscando módulo por ID: {}", id);
         
@@ -97,23 +107,19 @@ public class ModuleService {
         return moduleMapper.toModuleResponse(module);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "modules", key = "#user.id + '_all'"),
-        @CacheEvict(value = "modules", key = "#user.id + '_categories'"),
-        @CacheEvict(value = "modules", allEntries = true)
-    })
     public ModuleResponse createModule(User user, CreateModuleRequest request) {
         log.info("Criando novo módulo para usuário: {}", user.getEmail());
         
         // Determinar a ordem do novo módulo
-        Integer newOrderIndex = 0;
+        Integer newOrderIndex;
         if (request.getOrderIndex() != null) {
             newOrderIndex = request.getOrderIndex();
         } else {
-            // Se não especificado, colocar no final
-            List<Module> existingModules = moduleRepository.findByCreatedByOrderByOrderIndexAsc(user);
-            if (!existingModules.isEmpty()) {
-                newOrderIndex = existingModules.get(existingModules.size() - 1).getOrderIndex() + 1;
+            // Se não especificado, colocar no final, uma folga depois da maior chave
+            newOrderIndex = ModuleOrdering.keyBetween(moduleRepository.findMaxOrderIndexByCreatedBy(user), null);
+            if (newOrderIndex == null) {
+                moduleOrdering.rebalance(user.getId());
+                newOrderIndex = ModuleOrdering.keyBetween(moduleRepository.findMaxOrderIndexByCreatedBy(user), null);
             }
         }
         
@@ -161,6 +167,8 @@ public class ModuleService {
         // Adicionar content blocks ao módulo
         module.getContent().addAll(contentBlocks);
         module = moduleRepository.save(module);
+        moduleVisibilityIndex.index(module);
+        cacheGenerations.invalidate(cacheNamespaces(module).toArray(String[]::new));
 
         // Criar notificação para pacientes se o módulo for visível
         if (module.getVisibility() == ContentVisibility.GENERAL) {
@@ -184,12 +192,7 @@ public class ModuleService {
         return moduleMapper.toModuleResponse(module);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "modules", key = "#id"),
-        @CacheEvict(value = "modules", key = "#user.id + '_all'"),
-        @CacheEvict(value = "modules", key = "#user.id + '_categories'"),
-        @CacheEvict(value = "modules", allEntries = true)
-    })
+    @Transactional
     public ModuleResponse updateModule(String id, User user, UpdateModuleRequest request) {
         log.info("Atualizando módulo: {} para usuário: {}", id, user.getEmail());
         log.info("Request data: title={}, visibility={}, allowedPatientIds={}", 
@@ -203,6 +206,9 @@ public class ModuleService {
             throw new BusinessException("Você não tem permissão para editar este módulo");
         }
 
+        // Caches de quem via o módulo antes da alteração
+        Set<String> staleNamespaces = cacheNamespaces(module);
+
         // Guardar dados antigos para limpeza de arquivos
         String oldCoverImage = module.getCoverImage();
         List<String> oldContentFiles = module.getContent().stream()
@@ -225,53 +231,16 @@ public class ModuleService {
         
         log.info("Dados básicos atualizados: visibility={}", module.getVisibility());
         
-        // Atualizar pacientes específicos se necessário
-        if (request.getVisibility() == ContentVisibility.SPECIFIC && request.getAllowedPatientIds() != null) {
-            log.info("Configurando pacientes específicos: {}", request.getAllowedPatientIds());
-            Set<User> allowedPatients = userRepository.findAllById(request.getAllowedPatientIds())
-                    .stream()
-                    .filter(u -> u.getRole().equals(Role.PATIENT))
-                    .collect(Collectors.toSet());
-            module.setAllowedPatients(allowedPatients);
-            log.info("Pacientes específicos configurados: {}", 
-                    allowedPatients.stream().map(User::getName).collect(Collectors.toList()));
-        } else {
-            log.info("Limpando pacientes específicos (visibilidade: {})", request.getVisibility());
-            module.setAllowedPatients(new HashSet<>());
-        }
-
-        // Limpar content blocks antigos de forma segura
-        if (module.getContent() != null) {
-            log.info("Limpando {} content blocks antigos", module.getContent().size());
-            // Deletar os content blocks do banco primeiro
-            contentBlockRepository.deleteByModule(module);
-            // Limpar a lista no módulo
-            module.getContent().clear();
-        }
-        
-        // Criar novos content blocks
-        List<ContentBlock> contentBlocks = new ArrayList<>();
-        for (var contentDto : request.getContent()) {
-            ContentBlock block = new ContentBlock();
-            block.setType(contentDto.getType());
-            block.setContent(contentDto.getContent());
-            block.setOrderIndex(contentDto.getOrder());
-            block.setModule(module);
-            contentBlocks.add(block);
-        }
-        
-        log.info("Criando {} novos content blocks", contentBlocks.size());
-        
-        // Salvar content blocks
-        contentBlocks = contentBlocks.stream()
-                .map(block -> contentBlockRepository.save(block))
-                .collect(Collectors.toList());
-        
-        // Atualizar a lista de content blocks no módulo
-        module.getContent().addAll(contentBlocks);
+        // Atualizar só os pacientes e blocos que mudaram
+        syncAllowedPatients(module, request.getVisibility() == ContentVisibility.SPECIFIC
+                ? request.getAllowedPatientIds() : null);
+        syncContentBlocks(module, request.getContent());
 
         log.info("Salvando módulo com visibilidade: {}", module.getVisibility());
         module = moduleRepository.save(module);
+        moduleVisibilityIndex.index(module);
+        staleNamespaces.addAll(cacheNamespaces(module));
+        cacheGenerations.invalidate(staleNamespaces.toArray(String[]::new));
 
         // Limpar arquivos antigos
         if (oldCoverImage != null && !oldCoverImage.equals(request.getCoverImage())) {
@@ -306,12 +275,97 @@ public class ModuleService {
         return moduleMapper.toModuleResponse(module);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "modules", key = "#id"),
-        @CacheEvict(value = "modules", key = "#user.id + '_all'"),
-        @CacheEvict(value = "modules", key = "#user.id + '_categories'"),
-        @CacheEvict(value = "modules", allEntries = true)
-    })
+    /**
+     * Namespaces de cache que dependem do módulo como ele está: o próprio módulo, as
+     * listagens do autor e as dos pacientes que o veem.
+     */
+    private Set<String> cacheNamespaces(Module module) {
+        Set<String> namespaces = new HashSet<>();
+        namespaces.add(CacheGenerations.module(module.getId()));
+        namespaces.add(CacheGenerations.professional(module.getCreatedBy().getId()));
+        if (module.getVisibility() == ContentVisibility.GENERAL) {
+            namespaces.add(CacheGenerations.PATIENTS);
+        } else if (module.getAllowedPatients() != null) {
+            module.getAllowedPatients().forEach(patient -> namespaces.add(CacheGenerations.patient(patient.getId())));
+        }
+        return namespaces;
+    }
+
+    /**
+     * Aplica a lista de pacientes liberados alterando a coleção em vez de trocá-la, para que
+     * o Hibernate grave em {@code module_patient_access} só as linhas incluídas e removidas.
+     * Lista nula ou módulo GENERAL deixa o módulo sem pacientes específicos.
+     */
+    private void syncAllowedPatients(Module module, List<Long> patientIds) {
+        Set<Long> wanted = patientIds == null ? Set.of() : new HashSet<>(patientIds);
+        if (module.getAllowedPatients() == null) {
+            module.setAllowedPatients(new HashSet<>());
+        }
+        Set<User> allowed = module.getAllowedPatients();
+
+        int before = allowed.size();
+        allowed.removeIf(patient -> !wanted.contains(patient.getId()));
+        int removed = before - allowed.size();
+
+        Set<Long> current = allowed.stream().map(User::getId).collect(Collectors.toSet());
+        List<Long> missing = wanted.stream().filter(patientId -> !current.contains(patientId)).toList();
+        List<User> added = missing.isEmpty() ? List.of() : userRepository.findAllById(missing).stream()
+                .filter(u -> u.getRole().equals(Role.PATIENT))
+                .toList();
+        allowed.addAll(added);
+
+        log.info("Pacientes específicos: {} incluídos, {} removidos, {} mantidos",
+                added.size(), removed, allowed.size() - added.size());
+    }
+
+    /**
+     * Compara os blocos enviados com os atuais pelo id: blocos sem id (ou com id que não é
+     * deste módulo) são inseridos, os alterados são atualizados e os que sumiram da lista
+     * são apagados num único DELETE. Mudanças só de ordem gravam apenas {@code order_index},
+     * e as atualizações saem em lote no flush.
+     */
+    private void syncContentBlocks(Module module, List<UpdateModuleRequest.ContentBlockUpdateData> content) {
+        if (module.getContent() == null) {
+            module.setContent(new ArrayList<>());
+        }
+        Map<UUID, ContentBlock> existing = module.getContent().stream()
+                .collect(Collectors.toMap(ContentBlock::getId, Function.identity()));
+
+        List<ContentBlock> blocks = new ArrayList<>();
+        int inserted = 0;
+        int updated = 0;
+        for (var contentDto : content == null ? List.<UpdateModuleRequest.ContentBlockUpdateData>of() : content) {
+            ContentBlock block = contentDto.getId() == null ? null : existing.remove(contentDto.getId());
+            if (block == null) {
+                block = new ContentBlock();
+                block.setModule(module);
+                block.setType(contentDto.getType());
+                block.setContent(contentDto.getContent());
+                block.setOrderIndex(contentDto.getOrder());
+                contentBlockRepository.save(block);
+                inserted++;
+            } else if (block.getType() != contentDto.getType()
+                    || !Objects.equals(block.getContent(), contentDto.getContent())
+                    || !Objects.equals(block.getOrderIndex(), contentDto.getOrder())) {
+                // Entidade gerenciada: o flush grava só as colunas alteradas
+                block.setType(contentDto.getType());
+                block.setContent(contentDto.getContent());
+                block.setOrderIndex(contentDto.getOrder());
+                updated++;
+            }
+            blocks.add(block);
+        }
+
+        if (!existing.isEmpty()) {
+            contentBlockRepository.deleteAllByIdInBatch(existing.keySet());
+        }
+        module.getContent().clear();
+        module.getContent().addAll(blocks);
+
+        log.info("Blocos de conteúdo: {} inseridos, {} atualizados, {} removidos, {} inalterados",
+                inserted, updated, existing.size(), blocks.size() - inserted - updated);
+    }
+
     public void deleteModule(String id, User user) {
         log.info("Deletando módulo: {} por usuário: {}", id, user.getEmail());
         
@@ -336,47 +390,132 @@ public class ModuleService {
             }
         }
 
+        Set<String> staleNamespaces = cacheNamespaces(module);
         moduleRepository.delete(module);
+        moduleVisibilityIndex.remove(module.getId());
+        cacheGenerations.invalidate(staleNamespaces.toArray(String[]::new));
         log.info("Módulo deletado com sucesso: {}", id);
     }
 
-    @Cacheable(value = "modules", key = "#user.id + '_categories'")
+    @Cacheable(value = "modules", key = "@cacheGenerations.forViewer(#user) + '_categories'")
     public List<String> getCategories(User user) {
         log.info("Buscando categorias para usuário: {}", user.getEmail());
         
         if (user.getRole().equals(Role.PROFESSIONAL)) {
             return moduleRepository.findDistinctCategoriesByCreatedBy(user);
         } else {
-            return moduleRepository.findDistinctCategoriesForUser(user.getId());
+            return moduleVisibilityIndex.visibleCategories(user.getId());
+        }
+    }
+
+    /**
+     * Move o módulo para entre dois vizinhos da lista do profissional, gravando só a chave
+     * de ordenação dele. Retorna a nova chave.
+     */
+    @Transactional
+    public int moveModule(String id, User user, MoveModuleRequest request) {
+        UUID moduleId = UUID.fromString(id);
+        if (moduleId.equals(request.getPreviousModuleId()) || moduleId.equals(request.getNextModuleId())) {
+            throw new BusinessException("Um módulo não pode ser vizinho de si mesmo");
+        }
+
+        moduleOrdering.lock(user.getId());
+        Integer key = keyForMove(moduleId, user, request);
+        if (key == null) {
+            log.info("Sem espaço entre os vizinhos; rebalanceando a ordem dos módulos de {}", user.getEmail());
+            moduleOrdering.rebalance(user.getId());
+            key = keyForMove(moduleId, user, request);
+        }
+
+        moduleRepository.updateOrderIndex(moduleId, key);
+        // A ordem aparece nas listagens do profissional e de todos os pacientes
+        cacheGenerations.invalidate(CacheGenerations.professional(user.getId()), CacheGenerations.PATIENTS);
+        log.info("Módulo {} movido para a chave {}", moduleId, key);
+        return key;
+    }
+
+    // Chave entre os vizinhos pedidos, ou null quando não há espaço entre eles
+    private Integer keyForMove(UUID moduleId, User user, MoveModuleRequest request) {
+        List<UUID> ids = new ArrayList<>(List.of(moduleId));
+        if (request.getPreviousModuleId() != null) {
+            ids.add(request.getPreviousModuleId());
+        }
+        if (request.getNextModuleId() != null) {
+            ids.add(request.getNextModuleId());
+        }
+        Map<UUID, Integer> keys = moduleOrdering.keysOf(user.getId(), ids);
+
+        if (!keys.containsKey(moduleId)) {
+            if (moduleRepository.existsById(moduleId)) {
+                throw new BusinessException("Você não tem permissão para reordenar este módulo");
+            }
+            throw new NotFoundException("Módulo não encontrado");
+        }
+        if (keys.size() != ids.size()) {
+            throw new NotFoundException("Módulo vizinho não encontrado");
         }
+
+        Integer previous = keys.get(request.getPreviousModuleId());
+        Integer next = keys.get(request.getNextModuleId());
+        if (previous == null && next == null) {
+            if (moduleOrdering.countOf(user.getId()) > 1) {
+                throw new BusinessException("Informe ao menos um módulo vizinho");
+            }
+            // Único módulo da lista: nada a mudar
+            return keys.get(moduleId);
+        }
+        if (previous != null && next != null && previous > next) {
+            throw new BusinessException("Os vizinhos informados estão fora de ordem");
+        }
+        // O cliente pode ter só uma página da lista: um vizinho ausente não quer dizer início
+        // ou fim, então o vizinho real vem do banco
+        if (next == null) {
+            next = moduleOrdering.keyFrom(user.getId(), previous, List.of(moduleId, request.getPreviousModuleId()));
+        } else if (previous == null) {
+            previous = moduleOrdering.keyUpTo(user.getId(), next, List.of(moduleId, request.getNextModuleId()));
+        }
+        Integer key = ModuleOrdering.keyBetween(previous, next);
+        if (key != null) {
+            moduleOrdering.checkDensity(user.getId(), previous, key, next);
+        }
+        return key;
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "modules", key = "#user.id + '_all'"),
-        @CacheEvict(value = "modules", allEntries = true)
-    })
+    /**
+     * Grava as posições informadas como chaves de ordenação. Mantido para clientes que
+     * enviam a lista inteira; prefira {@link #moveModule}, que grava uma linha só.
+     */
+    @Transactional
     public List<ModuleResponse> reorderModules(User user, List<ModuleReorderRequest> reorderRequests) {
         log.info("Reordenando {} módulos para usuário: {}", reorderRequests.size(), user.getEmail());
         
+        moduleOrdering.lock(user.getId());
+        Map<UUID, Module> modules = moduleRepository.findAllById(
+                        reorderRequests.stream().map(ModuleReorderRequest::getModuleId).toList())
+                .stream()
+                .collect(Collectors.toMap(Module::getId, Function.identity()));
+
         List<ModuleResponse> reorderedModules = new ArrayList<>();
         
         for (ModuleReorderRequest request : reorderRequests) {
-            Module module = moduleRepository.findById(request.getModuleId())
-                    .orElseThrow(() -> new NotFoundException("Módulo não encontrado: " + request.getModuleId()));
+            Module module = modules.get(request.getModuleId());
+            if (module == null) {
+                throw new NotFoundException("Módulo não encontrado: " + request.getModuleId());
+            }
             
             // Validar permissão
             if (!module.getCreatedBy().getId().equals(user.getId())) {
                 throw new BusinessException("Você não tem permissão para reordenar este módulo");
             }
             
-            // Atualizar ordem
+            // Atualizar ordem; as alterações saem em lote no flush
             module.setOrderIndex(request.getNewOrderIndex());
-            module = moduleRepository.save(module);
-            
             reorderedModules.add(moduleMapper.toModuleResponse(module));
-            log.info("Módulo {} reordenado para posição {}", module.getId(), request.getNewOrderIndex());
         }
-        
+
+        // Posições consecutivas não deixam folga para movimentações: reespaça em segundo plano
+        moduleOrdering.scheduleRebalance(user.getId());
+        cacheGenerations.invalidate(CacheGenerations.professional(user.getId()), CacheGenerations.PATIENTS);
         log.info("Reordenação concluída com sucesso");
         return reorderedModules;
     }
@@ -0,0 +1,409 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.Module;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Quais módulos cada paciente pode ver, resolvido em memória: o conjunto dos módulos
+ * GENERAL mais, por paciente, um bitmap compacto dos módulos SPECIFIC liberados para ele.
+ *
+ * Cada módulo recebe um número sequencial (a posição no bitmap). O bitmap de um paciente
+ * guarda as posições numa lista ordenada enquanto ela é menor que o mapa de bits
+ * equivalente, como os contêineres do Roaring; a maioria dos pacientes tem poucos módulos
+ * específicos. Com os ids em mãos, a listagem busca só esses módulos, num único
+ * {@code WHERE id IN (...)}.
+ *
+ * Criações, alterações e exclusões desta instância entram logo após o commit e são
+ * avisadas às demais pelo {@link ModuleVisibilityRelay}, que relê do banco só o módulo
+ * alterado. A recarga completa periódica cobre avisos perdidos e reaproveita as posições
+ * de módulos excluídos. As alterações que chegam enquanto a recarga lê o banco são
+ * registradas e reaplicadas sobre o retrato lido, que pode ser anterior a elas.
+ */
+@Component
+@Slf4j
+public class ModuleVisibilityIndex implements SmartLifecycle {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Posição -> módulo; posições de módulos excluídos ficam nulas até a próxima recarga
+    private final Map<UUID, Integer> positions = new HashMap<>();
+    private final List<UUID> moduleIds = new ArrayList<>();
+    private final List<String> categories = new ArrayList<>();
+    private final BitSet general = new BitSet();
+    private final Map<Long, Bitmap> specificByPatient = new HashMap<>();
+    // Posição -> pacientes liberados, para tirar o módulo dos bitmaps quando ele muda
+    private final Map<Integer, long[]> patientsByModule = new HashMap<>();
+    // Alterações aplicadas durante a leitura da recarga em andamento; null fora dela
+    private List<Runnable> duringRefresh;
+    private volatile boolean running;
+    private volatile Consumer<UUID> changeListener = id -> { };
+
+    public ModuleVisibilityIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ids dos módulos visíveis ao paciente, sem ordem definida.
+     */
+    public List<UUID> visibleModuleIds(Long patientId) {
+        lock.readLock().lock();
+        try {
+            BitSet visible = visible(patientId);
+            List<UUID> ids = new ArrayList<>(visible.cardinality());
+            visible.stream().forEach(position -> ids.add(moduleIds.get(position)));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countVisible(Long patientId) {
+        lock.readLock().lock();
+        try {
+            return visible(patientId).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Categorias distintas dos módulos visíveis ao paciente, em ordem alfabética.
+     */
+    public List<String> visibleCategories(Long patientId) {
+        lock.readLock().lock();
+        try {
+            Set<String> distinct = new TreeSet<>();
+            visible(patientId).stream().forEach(position -> {
+                String category = categories.get(position);
+                if (category != null) {
+                    distinct.add(category);
+                }
+            });
+            return new ArrayList<>(distinct);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registra o módulo como está agora (visibilidade, categoria e pacientes liberados),
+     * depois do commit da transação corrente ou na hora, fora de transação.
+     */
+    public void index(Module module) {
+        UUID id = module.getId();
+        boolean isGeneral = module.getVisibility() == ContentVisibility.GENERAL;
+        String category = module.getCategory();
+        long[] patientIds = module.getVisibility() == ContentVisibility.SPECIFIC && module.getAllowedPatients() != null
+                ? module.getAllowedPatients().stream().mapToLong(User::getId).toArray()
+                : new long[0];
+        afterCommit(() -> {
+            put(id, isGeneral, category, patientIds);
+            changeListener.accept(id);
+        });
+    }
+
+    public void remove(UUID id) {
+        afterCommit(() -> {
+            apply(() -> removeLocked(id));
+            changeListener.accept(id);
+        });
+    }
+
+    /**
+     * Avisado, depois do commit, do id de cada módulo criado, alterado ou excluído nesta instância.
+     */
+    public void onLocalChange(Consumer<UUID> listener) {
+        this.changeListener = listener;
+    }
+
+    /**
+     * Relê do banco um módulo alterado em outra instância, com seus pacientes liberados;
+     * se ele não existe mais, sai do índice.
+     */
+    public synchronized void reload(UUID id) {
+        List<Loaded> found = jdbcTemplate.query("SELECT visibility, category FROM modules WHERE id = ?",
+                (rs, rowNum) -> new Loaded(ContentVisibility.GENERAL.name().equals(rs.getString(1)),
+                        rs.getString(2), new ArrayList<>()), id);
+        if (found.isEmpty()) {
+            apply(() -> removeLocked(id));
+            return;
+        }
+        Loaded module = found.get(0);
+        long[] patientIds = module.general()
+                ? new long[0]
+                : jdbcTemplate.queryForList("SELECT patient_id FROM module_patient_access WHERE module_id = ?",
+                        Long.class, id).stream().mapToLong(Long::longValue).toArray();
+        put(id, module.general(), module.category(), patientIds);
+    }
+
+    void put(UUID id, boolean isGeneral, String category, long[] patientIds) {
+        apply(() -> putLocked(id, isGeneral, category, patientIds));
+    }
+
+    // Aplica a alteração e, se houver recarga lendo o banco, guarda-a para reaplicar depois
+    private void apply(Runnable mutation) {
+        lock.writeLock().lock();
+        try {
+            mutation.run();
+            if (duringRefresh != null) {
+                duringRefresh.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(UUID id) {
+        Integer position = positions.remove(id);
+        if (position != null) {
+            clear(position);
+            moduleIds.set(position, null);
+            categories.set(position, null);
+        }
+    }
+
+    private void putLocked(UUID id, boolean isGeneral, String category, long[] patientIds) {
+        Integer existing = positions.get(id);
+        int position;
+        if (existing == null) {
+            position = moduleIds.size();
+            positions.put(id, position);
+            moduleIds.add(id);
+            categories.add(category);
+        } else {
+            position = existing;
+            clear(position);
+            categories.set(position, category);
+        }
+        if (isGeneral) {
+            general.set(position);
+        } else if (patientIds.length > 0) {
+            for (long patientId : patientIds) {
+                specificByPatient.merge(patientId, Bitmap.of(position), (current, ignored) -> current.with(position));
+            }
+            patientsByModule.put(position, patientIds);
+        }
+    }
+
+    /**
+     * Recarrega tudo do banco: módulos e liberações de {@code module_patient_access}.
+     */
+    @Scheduled(fixedDelayString = "${nutri.module-visibility.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            load();
+        } catch (Exception e) {
+            log.error("Erro ao recarregar o índice de visibilidade de módulos", e);
+        }
+    }
+
+    private synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            duringRefresh = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Map<UUID, Loaded> modules = new HashMap<>();
+            jdbcTemplate.query("SELECT id, visibility, category FROM modules", rs -> {
+                modules.put(rs.getObject(1, UUID.class),
+                        new Loaded(ContentVisibility.GENERAL.name().equals(rs.getString(2)), rs.getString(3), new ArrayList<>()));
+            });
+            jdbcTemplate.query("SELECT a.module_id, a.patient_id FROM module_patient_access a " +
+                    "JOIN modules m ON m.id = a.module_id WHERE m.visibility = 'SPECIFIC'", rs -> {
+                Loaded module = modules.get(rs.getObject(1, UUID.class));
+                if (module != null) {
+                    module.patientIds().add(rs.getLong(2));
+                }
+            });
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                positions.clear();
+                moduleIds.clear();
+                categories.clear();
+                general.clear();
+                specificByPatient.clear();
+                patientsByModule.clear();
+                modules.forEach((id, module) -> putLocked(id, module.general(), module.category(),
+                        module.patientIds().stream().mapToLong(Long::longValue).toArray()));
+                duringRefresh.forEach(Runnable::run);
+                replayed = duringRefresh.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Índice de visibilidade de módulos recarregado: {} módulos e {} alterações reaplicadas em {} ms",
+                    modules.size(), replayed, System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                duringRefresh = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * A primeira carga impede a subida se falhar: com o índice vazio, nenhum paciente veria
+     * módulo algum, e as listagens vazias iriam para o cache.
+     */
+    @Override
+    public void start() {
+        load();
+        running = true;
+    }
+
+    @Override
+    public int getPhase() {
+        // Antes do servidor web, para nenhuma requisição consultar o índice ainda vazio
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private BitSet visible(Long patientId) {
+        BitSet visible = (BitSet) general.clone();
+        Bitmap specific = specificByPatient.get(patientId);
+        if (specific != null) {
+            specific.orInto(visible);
+        }
+        return visible;
+    }
+
+    // Tira o módulo do conjunto GENERAL e dos bitmaps dos pacientes que o tinham
+    private void clear(int position) {
+        general.clear(position);
+        long[] previous = patientsByModule.remove(position);
+        if (previous != null) {
+            for (long patientId : previous) {
+                Bitmap current = specificByPatient.get(patientId);
+                if (current != null) {
+                    Bitmap without = current.without(position);
+                    if (without == null) {
+                        specificByPatient.remove(patientId);
+                    } else {
+                        specificByPatient.put(patientId, without);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Loaded(boolean general, String category, List<Long> patientIds) {
+    }
+
+    /**
+     * Conjunto imutável de posições: lista ordenada ({@code int} por posição) ou mapa de bits
+     * ({@code long} a cada 64 posições), o que ocupar menos.
+     */
+    static final class Bitmap {
+
+        private final int[] sorted;
+        private final long[] words;
+
+        private Bitmap(int[] sorted, long[] words) {
+            this.sorted = sorted;
+            this.words = words;
+        }
+
+        static Bitmap of(int position) {
+            return new Bitmap(new int[]{position}, null);
+        }
+
+        Bitmap with(int position) {
+            BitSet bits = toBitSet();
+            bits.set(position);
+            return compact(bits);
+        }
+
+        // Null quando o conjunto fica vazio
+        Bitmap without(int position) {
+            BitSet bits = toBitSet();
+            bits.clear(position);
+            return bits.isEmpty() ? null : compact(bits);
+        }
+
+        void orInto(BitSet target) {
+            if (sorted != null) {
+                for (int position : sorted) {
+                    target.set(position);
+                }
+            } else {
+                target.or(BitSet.valueOf(words));
+            }
+        }
+
+        boolean isDense() {
+            return words != null;
+        }
+
+        private BitSet toBitSet() {
+            BitSet bits = new BitSet();
+            orInto(bits);
+            return bits;
+        }
+
+        private static Bitmap compact(BitSet bits) {
+            int cardinality = bits.cardinality();
+            int wordCount = (bits.length() + 63) / 64;
+            if (cardinality * Integer.BYTES <= wordCount * Long.BYTES) {
+                return new Bitmap(bits.stream().toArray(), null);
+            }
+            return new Bitmap(null, bits.toLongArray());
+        }
+    }
+
+    Bitmap specificOf(Long patientId) {
+        lock.readLock().lock();
+        try {
+            return specificByPatient.get(patientId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Propaga entre instâncias, via Redis pub/sub, os módulos alterados no
+ * {@link ModuleVisibilityIndex}: uma revogação de acesso não pode esperar a recarga
+ * completa periódica para valer nos outros nós.
+ *
+ * Cada nó publica {@code nodeId|moduleId} depois do commit; quem recebe relê do banco só
+ * esse módulo e avança a geração das listagens dos pacientes, que podem ter sido guardadas
+ * em cache com o índice antigo entre o commit remoto e a mensagem. Mensagens do próprio
+ * nó são ignoradas.
+ */
+@Component
+@ConditionalOnProperty(name = "nutri.module-visibility.redis-enabled", havingValue = "true")
+@Slf4j
+public class ModuleVisibilityRelay implements MessageListener {
+
+    static final String CHANNEL = "modules:visibility";
+
+    private final ModuleVisibilityIndex index;
+    private final CacheGenerations cacheGenerations;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ModuleVisibilityRelay(ModuleVisibilityIndex index, CacheGenerations cacheGenerations,
+                                 RedisConnectionFactory connectionFactory) {
+        this.index = index;
+        this.cacheGenerations = cacheGenerations;
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+        this.listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        this.listenerContainer.afterPropertiesSet();
+        this.listenerContainer.start();
+        index.onLocalChange(this::publish);
+    }
+
+    void publish(UUID moduleId) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + moduleId);
+        } catch (Exception e) {
+            // Os outros nós só verão a alteração na próxima recarga completa
+            log.warn("Falha ao publicar alteração do módulo {}: {}", moduleId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            UUID moduleId = UUID.fromString(body.substring(separator + 1));
+            index.reload(moduleId);
+            cacheGenerations.invalidate(CacheGenerations.PATIENTS);
+            log.debug("Módulo {} recarregado por alteração em outra instância", moduleId);
+        } catch (Exception e) {
+            log.warn("Falha ao aplicar alteração de módulo de outra instância ({}): {}", body, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        listenerContainer.stop();
+    }
+}
@@ -0,0 +1,462 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas, em memória, dos nomes e e-mails dos pacientes ativos,
+ * para a busca por prefixo com tolerância a erros de digitação.
+ *
+ * Nomes e e-mails são normalizados (minúsculas, sem acentos) e quebrados em palavras. O
+ * índice tem dois níveis: cada palavra distinta aponta para os pacientes que a contêm, e
+ * os trigramas de {@code "  palavra "} (como no pg_trgm) apontam para as palavras. Um termo
+ * da busca usa só os trigramas do início ({@code "  termo"}); as palavras com trigramas
+ * suficientes em comum recebem uma nota uma única vez (prefixo exato, prefixo com até 1 ou 2
+ * erros de digitação ou trecho do meio, útil para e-mails e números), que passa para os
+ * pacientes delas. Como nomes se repetem muito, o vocabulário é bem menor que o número de
+ * pacientes.
+ *
+ * O índice é carregado do banco ao subir a aplicação. Cadastros e alterações feitos por
+ * esta instância entram logo após o commit ({@link #index(User)}); os das demais instâncias
+ * chegam pela releitura periódica dos usuários com {@code updated_at} recente.
+ */
+@Component
+@Slf4j
+public class PatientSearchIndex implements SmartLifecycle {
+
+    public static final int MAX_LIMIT = 50;
+    private static final int MAX_TERMS = 5;
+    // Mantém a contagem de trigramas por termo dentro de um byte
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    // Releitura com folga, para não perder transações que gravaram antes mas commitaram depois
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    // Maior nota primeiro; empate pelo nome mais curto (mais próximo do termo) e depois pelo id
+    private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparingInt(match -> match.name().length())
+            .thenComparingLong(Match::id);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Posição -> paciente; posições removidas ficam nulas até a próxima compactação
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Long, Integer> positions = new HashMap<>();
+    // Palavra -> id, id -> palavra e id -> posições dos pacientes que a contêm
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> vocabulary = new ArrayList<>();
+    private final List<IntList> wordPostings = new ArrayList<>();
+    // Trigrama -> ids das palavras
+    private final Map<Long, IntList> gramPostings = new HashMap<>();
+    private int removed;
+
+    private LocalDateTime syncedUntil;
+    private volatile boolean loaded;
+    private volatile boolean running;
+
+    public PatientSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Até {@code limit} pacientes que combinam com todos os termos da busca, do mais ao
+     * menos relevante.
+     */
+    public List<Match> search(String query, int limit) {
+        List<String> terms = words(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        terms = terms.stream()
+                .limit(MAX_TERMS)
+                .map(term -> term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term)
+                .toList();
+        int size = Math.min(limit, MAX_LIMIT);
+
+        lock.readLock().lock();
+        try {
+            int count = entries.size();
+            float[] totals = new float[count];
+            byte[] hits = new byte[count];
+            int[] lastTerm = new int[count];
+            IntList touched = new IntList();
+            for (int t = 0; t < terms.size(); t++) {
+                // Palavras da maior para a menor nota: o primeiro acerto do paciente é o melhor dele no termo
+                for (WordMatch word : matchingWords(terms.get(t))) {
+                    IntList posting = wordPostings.get(word.wordId());
+                    for (int i = 0; i < posting.size; i++) {
+                        int position = posting.values[i];
+                        if (lastTerm[position] == t + 1 || hits[position] != t) {
+                            continue;
+                        }
+                        lastTerm[position] = t + 1;
+                        totals[position] += word.score();
+                        if (hits[position]++ == 0) {
+                            touched.add(position);
+                        }
+                    }
+                }
+            }
+
+            PriorityQueue<Match> top = new PriorityQueue<>(RANKING.reversed());
+            for (int i = 0; i < touched.size; i++) {
+                int position = touched.values[i];
+                Entry entry = entries.get(position);
+                if (hits[position] != terms.size() || entry == null) {
+                    continue;
+                }
+                Match match = new Match(entry.id(), entry.name(), entry.email(), totals[position]);
+                if (top.size() < size) {
+                    top.add(match);
+                } else if (RANKING.compare(match, top.peek()) < 0) {
+                    top.poll();
+                    top.add(match);
+                }
+            }
+            List<Match> matches = new ArrayList<>(top);
+            matches.sort(RANKING);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Atualiza o paciente no índice depois do commit da transação corrente (ou na hora, fora
+     * de transação). Usuários inativos ou que não são pacientes saem do índice.
+     */
+    public void index(User user) {
+        Long id = user.getId();
+        String name = user.getName();
+        String email = user.getEmail();
+        boolean searchable = user.getRole() == Role.PATIENT && Boolean.TRUE.equals(user.getIsActive());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    upsert(id, name, email, searchable);
+                }
+            });
+        } else {
+            upsert(id, name, email, searchable);
+        }
+    }
+
+    void upsert(long id, String name, String email, boolean searchable) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = positions.get(id);
+            if (previous != null && searchable && entries.get(previous).sameAs(name, email)) {
+                return;
+            }
+            positions.remove(id);
+            if (previous != null) {
+                entries.set(previous, null);
+                removed++;
+            }
+            if (searchable) {
+                add(new Entry(id, name, email, entryWords(name, email)));
+            }
+            if (removed > 1024 && removed > entries.size() / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Relê os usuários alterados desde a última sincronização (ou todos, se o índice ainda
+     * não foi carregado).
+     */
+    @Scheduled(fixedDelayString = "${nutri.patient-search.refresh-interval-ms:10000}")
+    public synchronized void refresh() {
+        try {
+            if (!loaded) {
+                load();
+                return;
+            }
+            LocalDateTime since = syncedUntil.minus(REFRESH_OVERLAP);
+            List<Row> rows = jdbcTemplate.query(
+                    "SELECT id, name, email, role, is_active, updated_at FROM users WHERE updated_at >= ?",
+                    (rs, rowNum) -> row(rs), Timestamp.valueOf(since));
+            for (Row row : rows) {
+                upsert(row.id(), row.name(), row.email(), row.searchable());
+                advance(row.updatedAt());
+            }
+        } catch (Exception e) {
+            log.error("Erro ao sincronizar o índice de busca de pacientes", e);
+        }
+    }
+
+    /**
+     * A primeira carga impede a subida se falhar, em vez de a busca responder sem pacientes.
+     */
+    @Override
+    public synchronized void start() {
+        load();
+        running = true;
+    }
+
+    @Override
+    public int getPhase() {
+        // Antes do servidor web, para nenhuma busca chegar ao índice ainda vazio
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        List<Row> rows = jdbcTemplate.query(
+                "SELECT id, name, email, role, is_active, updated_at FROM users WHERE role = 'PATIENT' AND is_active = TRUE",
+                (rs, rowNum) -> row(rs));
+        lock.writeLock().lock();
+        try {
+            clear();
+            syncedUntil = LocalDateTime.now();
+            for (Row row : rows) {
+                add(new Entry(row.id(), row.name(), row.email(), entryWords(row.name(), row.email())));
+                advance(row.updatedAt());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        log.info("Índice de busca de pacientes carregado: {} pacientes em {} ms",
+                rows.size(), System.currentTimeMillis() - started);
+    }
+
+    private Row row(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp(6);
+        return new Row(rs.getLong(1), rs.getString(2), rs.getString(3),
+                Role.PATIENT.name().equals(rs.getString(4)) && rs.getBoolean(5),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    }
+
+    private void advance(LocalDateTime updatedAt) {
+        if (updatedAt != null && (syncedUntil == null || updatedAt.isAfter(syncedUntil))) {
+            syncedUntil = updatedAt;
+        }
+    }
+
+    private void add(Entry entry) {
+        int position = entries.size();
+        entries.add(entry);
+        positions.put(entry.id(), position);
+        for (String word : entry.words()) {
+            Integer wordId = wordIds.get(word);
+            if (wordId == null) {
+                wordId = vocabulary.size();
+                wordIds.put(word, wordId);
+                vocabulary.add(word);
+                wordPostings.add(new IntList());
+                for (long gram : Arrays.stream(wordGrams(word)).distinct().toArray()) {
+                    gramPostings.computeIfAbsent(gram, key -> new IntList()).add(wordId);
+                }
+            }
+            wordPostings.get(wordId).add(position);
+        }
+    }
+
+    // Refaz o índice só com os pacientes vivos; palavras que ficaram sem pacientes saem do vocabulário
+    private void compact() {
+        List<Entry> live = entries.stream().filter(entry -> entry != null).toList();
+        clear();
+        live.forEach(this::add);
+    }
+
+    private void clear() {
+        entries.clear();
+        positions.clear();
+        wordIds.clear();
+        vocabulary.clear();
+        wordPostings.clear();
+        gramPostings.clear();
+        removed = 0;
+    }
+
+    /**
+     * Palavras do vocabulário que combinam com o termo, da maior para a menor nota. Só são
+     * conferidas as que têm trigramas de início em comum suficientes para um prefixo com os
+     * erros admitidos (cada edição altera no máximo 3 trigramas), e pelo menos metade deles.
+     */
+    private List<WordMatch> matchingWords(String term) {
+        long[] grams = prefixGrams(term);
+        int needed = Math.max((grams.length + 1) / 2, grams.length - 3 * maxTypos(term));
+        byte[] counts = new byte[vocabulary.size()];
+        List<WordMatch> matches = new ArrayList<>();
+        for (long gram : grams) {
+            IntList posting = gramPostings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++) {
+                int wordId = posting.values[i];
+                if (++counts[wordId] == needed) {
+                    float score = termScore(term, vocabulary.get(wordId));
+                    if (score > 0) {
+                        matches.add(new WordMatch(wordId, score));
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble(WordMatch::score).reversed());
+        return matches;
+    }
+
+    static float termScore(String term, String word) {
+        if (word.startsWith(term)) {
+            return word.length() == term.length() ? 1f : 0.8f;
+        }
+        int typos = maxTypos(term);
+        if (typos > 0) {
+            int distance = prefixDistance(term, word, typos);
+            if (distance <= typos) {
+                return distance == 1 ? 0.5f : 0.3f;
+            }
+        }
+        return term.length() >= 3 && word.contains(term) ? 0.4f : 0;
+    }
+
+    private static int maxTypos(String term) {
+        return term.length() <= 3 ? 0 : term.length() <= 6 ? 1 : 2;
+    }
+
+    /**
+     * Menor distância de edição (com transposição de letras vizinhas) entre o termo e algum
+     * prefixo da palavra; para em {@code max + 1} quando já não há como ficar abaixo.
+     */
+    static int prefixDistance(String term, String word, int max) {
+        int m = term.length();
+        int n = Math.min(word.length(), m + max);
+        int[] before = new int[n + 1];
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= n; j++) {
+                int cost = term.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && term.charAt(i - 1) == word.charAt(j - 2) && term.charAt(i - 2) == word.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        int best = max + 1;
+        for (int j = 0; j <= n; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(normalized)).filter(word -> !word.isEmpty()).toList();
+    }
+
+    private static String[] entryWords(String name, String email) {
+        List<String> words = new ArrayList<>(words(name));
+        words(email).stream().filter(word -> !words.contains(word)).forEach(words::add);
+        return words.toArray(String[]::new);
+    }
+
+    private static long[] wordGrams(String word) {
+        return grams("  " + word + " ");
+    }
+
+    private static long[] prefixGrams(String term) {
+        return Arrays.stream(grams("  " + term)).distinct().toArray();
+    }
+
+    private static long[] grams(String padded) {
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    public record Match(long id, String name, String email, double score) {
+    }
+
+    private record Entry(long id, String name, String email, String[] words) {
+
+        boolean sameAs(String otherName, String otherEmail) {
+            return name.equals(otherName) && email.equals(otherEmail);
+        }
+    }
+
+    private record WordMatch(int wordId, float score) {
+    }
+
+    private record Row(long id, String name, String email, boolean searchable, LocalDateTime updatedAt) {
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.PatientRosterResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserStatsResponse;
+import br.rafaalmeida1.nutri_thata_api.entities.PatientStats;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.PatientRosterSort;
+import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
+import br.rafaalmeida1.nutri_thata_api.repositories.UserRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PatientDailyStatsRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PatientStatsRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.UserCategoryProgressRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Estatísticas de pacientes mantidas incrementalmente em {@code patient_stats} e
+ * {@code patient_daily_stats}: cada evento rastreado soma seus valores com um upsert, e a
+ * leitura é uma linha por paciente mais os últimos dias, sem agregar o histórico.
+ *
+ * Cada escrita invalida no cache {@code users} apenas os namespaces afetados, as
+ * estatísticas do próprio paciente e a lista de pacientes, depois do commit
+ * (ver {@link CacheGenerations}).
+ */
+@Service
+@RequiredArgsConstructor
+public class PatientStatsService {
+
+    private static final int WEEKLY_DAYS = 7;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final int MAX_ROSTER_LIMIT = 200;
+    // Posição antes de qualquer atividade real, para a primeira página
+    private static final LocalDateTime ROSTER_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final PatientStatsRepository patientStatsRepository;
+    private final PatientDailyStatsRepository patientDailyStatsRepository;
+    private final UserCategoryProgressRepository userCategoryProgressRepository;
+    private final UserRepository userRepository;
+    private final CacheGenerations cacheGenerations;
+
+    /**
+     * Soma visualizações de módulos e tempo, ou apenas atualiza a última atividade quando
+     * ambos são zero.
+     */
+    public void recordActivity(Long userId, long modulesViewed, long timeSpent, LocalDateTime at) {
+        patientStatsRepository.addActivity(userId, modulesViewed, timeSpent, at);
+        if (modulesViewed > 0 || timeSpent > 0) {
+            patientDailyStatsRepository.addActivity(userId, at.toLocalDate(), modulesViewed, timeSpent);
+        }
+        evict(userId);
+    }
+
+    /**
+     * Deve ser chamado depois do upsert em user_module_progress, na mesma transação.
+     */
+    public void recordModuleCompletion(Long userId, LocalDateTime at) {
+        patientStatsRepository.refreshModulesCompleted(userId, at);
+        evict(userId);
+    }
+
+    public void recordSessionEnd(Long userId, Long sessionTime, LocalDateTime at) {
+        if (sessionTime != null) {
+            patientStatsRepository.addEndedSession(userId, sessionTime, at);
+        } else {
+            // Como na média anterior, sessões sem duração não entram na conta
+            patientStatsRepository.addActivity(userId, 0, 0, at);
+        }
+        evict(userId);
+    }
+
+    public UserStatsResponse getUserStats(Long userId) {
+        PatientStats stats = patientStatsRepository.findByUserId(userId).orElse(null);
+        List<String> favoriteCategories = favoriteCategories(List.of(userId), 5).getOrDefault(userId, List.of());
+        List<UserStatsResponse.WeeklyActivity> weeklyActivity = patientDailyStatsRepository
+                .findByUserIdAndStatDateGreaterThanEqualOrderByStatDateAsc(userId, LocalDate.now().minusDays(WEEKLY_DAYS))
+                .stream()
+                .map(day -> UserStatsResponse.WeeklyActivity.builder()
+                        .date(day.getStatDate().toString())
+                        .modulesViewed(day.getModulesViewed().intValue())
+                        .timeSpent(day.getTimeSpent().intValue())
+                        .build())
+                .collect(Collectors.toList());
+
+        return UserStatsResponse.builder()
+                .id(userId)
+                .totalModulesViewed(stats != null ? stats.getModulesViewed().intValue() : 0)
+                .totalTimeSpent(stats != null ? stats.getTimeSpent().intValue() : 0)
+                .modulesCompleted(stats != null ? stats.getModulesCompleted().intValue() : 0)
+                .averageSessionTime(averageSessionTime(stats))
+                .favoriteCategories(favoriteCategories)
+                .progressPercentage(progressPercentage(stats))
+                .lastActivity(lastActivity(stats))
+                .weeklyActivity(weeklyActivity)
+                .build();
+    }
+
+    /**
+     * Estatísticas resumidas de vários pacientes com duas consultas, independente de quantos são.
+     */
+    public Map<Long, UserResponse.PatientStats> getPatientStats(List<User> patients) {
+        List<Long> userIds = patients.stream().map(User::getId).toList();
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, PatientStats> statsByUser = patientStatsRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(PatientStats::getUserId, Function.identity()));
+        Map<Long, List<String>> favoritesByUser = favoriteCategories(userIds, 3);
+
+        Map<Long, UserResponse.PatientStats> result = new HashMap<>();
+        for (Long userId : userIds) {
+            result.put(userId, toPatientStats(statsByUser.get(userId), favoritesByUser.getOrDefault(userId, List.of())));
+        }
+        return result;
+    }
+
+    /**
+     * Uma página de pacientes ativos com estatísticas, ordenada pela última atividade ou
+     * pelo progresso (decrescentes, empate pelo id). O cursor é o retornado na página
+     * anterior; cada página custa três consultas limitadas ao tamanho dela.
+     */
+    public PatientRosterResponse getRoster(PatientRosterSort sort, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_ROSTER_LIMIT));
+        RosterPosition position = cursor == null || cursor.isBlank()
+                ? RosterPosition.first()
+                : RosterPosition.decode(sort, cursor);
+
+        List<PatientStats> rows = findRosterRows(sort, position, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = RosterPosition.after(sort, rows.get(pageSize - 1)).encode(sort);
+        }
+
+        List<Long> userIds = rows.stream().map(PatientStats::getUserId).toList();
+        Map<Long, User> usersById = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, List<String>> favoritesByUser = userIds.isEmpty() ? Map.of() : favoriteCategories(userIds, 3);
+
+        List<UserResponse> patients = new ArrayList<>(rows.size());
+        for (PatientStats stats : rows) {
+            User user = usersById.get(stats.getUserId());
+            if (user == null) {
+                continue;
+            }
+            patients.add(UserResponse.builder()
+                    .id(user.getId())
+                    .name(user.getName())
+                    .email(user.getEmail())
+                    .role(user.getRole())
+                    .isActive(user.getIsActive())
+                    .createdAt(user.getCreatedAt())
+                    .stats(toPatientStats(stats, favoritesByUser.getOrDefault(user.getId(), List.of())))
+                    .build());
+        }
+        return PatientRosterResponse.builder()
+                .patients(patients)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<PatientStats> findRosterRows(PatientRosterSort sort, RosterPosition position, int limit) {
+        if (sort == PatientRosterSort.PROGRESS) {
+            return patientStatsRepository.findActivePatientsByProgressBefore(position.progress(), position.userId(), limit);
+        }
+        // Pacientes com atividade primeiro; ao esgotá-los a página continua pelos que não têm nenhuma
+        List<PatientStats> rows = new ArrayList<>();
+        long userId = position.userId();
+        if (position.lastActivityAt() != null) {
+            rows.addAll(patientStatsRepository.findActivePatientsByLastActivityBefore(
+                    position.lastActivityAt(), userId, limit));
+            if (rows.size() == limit) {
+                return rows;
+            }
+            userId = Long.MAX_VALUE;
+        }
+        rows.addAll(patientStatsRepository.findActivePatientsWithoutActivityBefore(userId, limit - rows.size()));
+        return rows;
+    }
+
+    private static UserResponse.PatientStats toPatientStats(PatientStats stats, List<String> favoriteCategories) {
+        return UserResponse.PatientStats.builder()
+                .totalModulesViewed(stats != null ? stats.getModulesViewed().intValue() : 0)
+                .totalTimeSpent(stats != null ? stats.getTimeSpent().intValue() : 0)
+                .modulesCompleted(stats != null ? stats.getModulesCompleted().intValue() : 0)
+                .averageSessionTime(averageSessionTime(stats))
+                .lastActivity(lastActivity(stats))
+                .favoriteCategories(favoriteCategories)
+                .progressPercentage(progressPercentage(stats))
+                .build();
+    }
+
+    private void evict(Long userId) {
+        cacheGenerations.invalidate(CacheGenerations.userStats(userId), CacheGenerations.PATIENT_ROSTER);
+    }
+
+    // Categorias mais vistas de cada usuário, a partir do progresso por categoria
+    private Map<Long, List<String>> favoriteCategories(List<Long> userIds, int limit) {
+        Map<Long, List<String>> favorites = new HashMap<>();
+        for (Object[] row : userCategoryProgressRepository.findCategoriesByUserIdsOrderByModulesViewedDesc(userIds)) {
+            List<String> categories = favorites.computeIfAbsent((Long) row[0], id -> new ArrayList<>());
+            if (categories.size() < limit) {
+                categories.add((String) row[1]);
+            }
+        }
+        return favorites;
+    }
+
+    private static int averageSessionTime(PatientStats stats) {
+        if (stats == null || stats.getSessionsEnded() == 0) {
+            return 0;
+        }
+        return (int) (stats.getSessionTime() / stats.getSessionsEnded());
+    }
+
+    private static int progressPercentage(PatientStats stats) {
+        if (stats == null || stats.getModulesViewed() == 0) {
+            return 0;
+        }
+        return (int) Math.round((double) stats.getModulesCompleted() / stats.getModulesViewed() * 100);
+    }
+
+    private static String lastActivity(PatientStats stats) {
+        if (stats == null || stats.getLastActivityAt() == null) {
+            return "Nunca";
+        }
+        return stats.getLastActivityAt().format(DATE_TIME);
+    }
+
+    /**
+     * Última linha entregue na listagem. {@code lastActivityAt} nulo em LAST_ACTIVITY indica
+     * que a listagem já está nos pacientes sem atividade.
+     */
+    record RosterPosition(LocalDateTime lastActivityAt, int progress, long userId) {
+
+        static RosterPosition first() {
+            return new RosterPosition(ROSTER_START, Integer.MAX_VALUE, Long.MAX_VALUE);
+        }
+
+        static RosterPosition after(PatientRosterSort sort, PatientStats row) {
+            return sort == PatientRosterSort.PROGRESS
+                    ? new RosterPosition(null, row.getProgressPercentage(), row.getUserId())
+                    : new RosterPosition(row.getLastActivityAt(), 0, row.getUserId());
+        }
+
+        String encode(PatientRosterSort sort) {
+            String value = sort == PatientRosterSort.PROGRESS
+                    ? String.valueOf(progress)
+                    : lastActivityAt != null ? lastActivityAt.toString() : "";
+            String raw = sort.name() + "|" + value + "|" + userId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static RosterPosition decode(PatientRosterSort sort, String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+                if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                    throw new BusinessException("Cursor inválido para esta ordenação");
+                }
+                long userId = Long.parseLong(parts[2]);
+                if (sort == PatientRosterSort.PROGRESS) {
+                    return new RosterPosition(null, Integer.parseInt(parts[1]), userId);
+                }
+                return new RosterPosition(parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]), 0, userId);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BusinessException("Cursor inválido");
+            }
+        }
+    }
+}
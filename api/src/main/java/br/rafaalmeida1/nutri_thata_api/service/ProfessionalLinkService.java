@@ -13,6 +13,7 @@ import br.rafaalmeida1.nutri_thata_api.mapper.PublicLinksMapper;
 import br.rafaalmeida1.nutri_thata_api.repository.ProfessionalLinkRepository;
 import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
 import br.rafaalmeida1.nutri_thata_api.service.LinkPageProfileService;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.LinkClickCounterStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -30,12 +31,15 @@ public class ProfessionalLinkService {
     private final ProfessionalLinkMapper linkMapper;
     private final PublicLinksMapper publicLinksMapper;
     private final LinkPageProfileService linkPageProfileService;
+    private final LinkClickCounterStore clickCounterStore;
 
     @Transactional(readOnly = true)
     public List<LinkResponse> getAllLinks(User user) {
         ProfessionalProfile profile = findProfessionalProfile(user);
         List<ProfessionalLink> links = linkRepository.findByProfessionalProfileOrderByDisplayOrderAsc(profile);
-        return linkMapper.toResponseList(links);
+        List<LinkResponse> responses = linkMapper.toResponseList(links);
+        responses.forEach(this::mergePendingClicks);
+        return responses;
     }
 
     @Transactional
@@ -65,7 +69,9 @@ public class ProfessionalLinkService {
 
         linkMapper.updateEntity(request, link);
         link = linkRepository.save(link);
-        return linkMapper.toResponse(link);
+        LinkResponse response = linkMapper.toResponse(link);
+        mergePendingClicks(response);
+        return response;
     }
 
     @Transactional
@@ -76,6 +82,7 @@ public class ProfessionalLinkService {
             .orElseThrow(() -> new RuntimeException("Link não encontrado"));
 
         linkRepository.delete(link);
+        clickCounterStore.discard(linkId);
     }
 
     @Transactional
@@ -110,13 +117,13 @@ public class ProfessionalLinkService {
         return response;
     }
 
-    @Transactional
     public void incrementClickCount(Long linkId) {
-        ProfessionalLink link = linkRepository.findById(linkId)
-            .orElseThrow(() -> new RuntimeException("Link não encontrado"));
-        
-        link.setClickCount(link.getClickCount() + 1);
-        linkRepository.save(link);
+        // Incremento em memória, persistido em lote pelo LinkClickCounterStore
+        clickCounterStore.increment(linkId);
+    }
+
+    private void mergePendingClicks(LinkResponse response) {
+        response.setClickCount(clickCounterStore.currentCount(response.getId(), response.getClickCount()));
     }
 
     private ProfessionalProfile findProfessionalProfile(User user) {
@@ -36,8 +36,9 @@ public class ProfessionalService {
     private final ProfessionalMapper professionalMapper;
     private final FileCleanupService fileCleanupService;
     private final CacheService cacheService;
+    private final CacheGenerations cacheGenerations;
 
-    @Cacheable(value = "professional_profiles", key = "#user.id")
+    @Cacheable(value = "professional_profiles", key = "@cacheGenerations.key('profile:' + #user.id) + '_profile'")
     public ProfessionalProfileResponse getProfessionalProfile(User user) {
         if (!user.getRole().equals(Role.PROFESSIONAL)) {
             throw new BusinessException("Apenas profissionais podem acessar este recurso");
@@ -49,11 +50,6 @@ public class ProfessionalService {
         return professionalMapper.toProfessionalProfileResponse(profile);
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "professional_profiles", key = "#user.id"),
-        @CacheEvict(value = "professional_profiles", key = "'banner_' + #user.id"),
-        @CacheEvict(value = "professional_profiles", allEntries = true)
-    })
     @Transactional
     public ProfessionalProfileResponse updateProfessionalProfile(User user, UpdateProfessionalProfileRequest request) {
         if (!user.getRole().equals(Role.PROFESSIONAL)) {
@@ -104,6 +100,7 @@ public class ProfessionalService {
         profile.setSpecialties(request.getSpecialties());
 
         profile = professionalProfileRepository.save(profile);
+        invalidateCaches(user);
 
         // Remover arquivos substituÃ­dos (se diferentes e locais)
         if (oldImage != null && request.getImage() != null && !request.getImage().equals(oldImage)) {
@@ -122,7 +119,7 @@ public class ProfessionalService {
         return professionalMapper.toProfessionalProfileResponse(profile);
     }
 
-    @Cacheable(value = "professional_profiles", key = "#userId")
+    @Cacheable(value = "professional_profiles", key = "@cacheGenerations.key('profile:' + #userId) + '_profile'")
     public ProfessionalProfileResponse getProfessionalProfileById(Long userId) {
         ProfessionalProfile profile = professionalProfileRepository.findByUserId(userId)
                 .orElseThrow(() -> new NotFoundException("Perfil profissional nÃ£o encontrado"));
@@ -130,7 +127,7 @@ public class ProfessionalService {
         return professionalMapper.toProfessionalProfileResponse(profile);
     }
 
-    @Cacheable(value = "professional_profiles", key = "'banner_' + #user.id")
+    @Cacheable(value = "professional_profiles", key = "@cacheGenerations.key('professional-profiles') + '_banner_' + #user.id")
     public ProfessionalProfileResponse getBannerData(User user) {
         log.info("Buscando dados do banner para usuÃ¡rio: {} (role: {})", user.getEmail(), user.getRole());
         
@@ -301,7 +298,12 @@ public class ProfessionalService {
         }
 
         professionalProfileRepository.save(profile);
+        invalidateCaches(user);
         log.info("Tema atualizado para usuÃ¡rio: {}", user.getEmail());
     }
-}
 
+    // Perfil do profissional e os banners, que os pacientes leem do perfil de quem os convidou
+    private void invalidateCaches(User user) {
+        cacheGenerations.invalidate(CacheGenerations.profile(user.getId()), CacheGenerations.PROFESSIONAL_PROFILES);
+    }
+}
@@ -0,0 +1,257 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores das sessões ativas (páginas visitadas, módulos visualizados e concluídos e
+ * última atividade) acumulados em memória e gravados em {@code user_sessions} em lote,
+ * com um {@code UPDATE ... SET pages_visited = pages_visited + ?} por sessão. A última
+ * atividade de cada usuário vai no mesmo lote para {@code patient_stats}, então visualizações
+ * de página não fazem upsert por evento nem invalidam a lista de pacientes.
+ *
+ * Semântica em falhas:
+ * <ul>
+ *   <li>O delta pendente é sempre {@code total - flushed}; incrementos que chegam durante
+ *   o flush entram no ciclo seguinte.</li>
+ *   <li>Se o UPDATE falhar, {@code flushed} não avança e o delta é reenviado no próximo
+ *   ciclo. Como o UPDATE é aditivo, várias instâncias podem gravar na mesma sessão.</li>
+ *   <li>No encerramento normal da aplicação tudo é gravado ({@link #stop()}). Se o processo
+ *   morrer sem encerrar, perdem-se no máximo os incrementos do último intervalo de flush:
+ *   os contadores de sessão são estatísticas, e {@code user_activities} continua tendo
+ *   cada evento gravado na própria requisição.</li>
+ *   <li>Leituras de {@code user_sessions} podem ficar até um intervalo de flush atrás.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class SessionCounterStore implements SmartLifecycle {
+
+    private static final String FLUSH_SQL =
+            "UPDATE user_sessions SET pages_visited = COALESCE(pages_visited, 0) + ?, " +
+            "modules_viewed = COALESCE(modules_viewed, 0) + ?, modules_completed = COALESCE(modules_completed, 0) + ?, " +
+            "last_activity_at = CASE WHEN last_activity_at IS NULL OR last_activity_at < ? THEN ? ELSE last_activity_at END, " +
+            "updated_at = ? WHERE session_id = ? AND user_id = ?";
+
+    private static final String LAST_ACTIVITY_SQL =
+            "INSERT INTO patient_stats (user_id, modules_viewed, time_spent, last_activity_at, updated_at) " +
+            "VALUES (?, 0, 0, ?, ?) ON CONFLICT (user_id) DO UPDATE SET " +
+            "last_activity_at = GREATEST(patient_stats.last_activity_at, EXCLUDED.last_activity_at), " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final CacheGenerations cacheGenerations;
+    private final Map<SessionKey, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> lastActivityByUser = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public SessionCounterStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               CacheGenerations cacheGenerations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheGenerations = cacheGenerations;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Soma os incrementos à sessão e registra a atividade do usuário. Sem sessão, só a
+     * atividade é registrada. Sessões inexistentes ou de outro usuário são ignoradas no flush.
+     */
+    public void add(Long userId, String sessionId, SessionCounters delta) {
+        LocalDateTime now = LocalDateTime.now();
+        lastActivityByUser.merge(userId, now, (current, next) -> next.isAfter(current) ? next : current);
+        if (sessionId == null) {
+            return;
+        }
+        // compute serializa com a remoção de células já gravadas, então nenhum incremento se perde
+        cells.compute(new SessionKey(userId, sessionId), (key, cell) -> {
+            Cell target = cell != null ? cell : new Cell();
+            target.pagesVisited.addAndGet(delta.pagesVisited());
+            target.modulesViewed.addAndGet(delta.modulesViewed());
+            target.modulesCompleted.addAndGet(delta.modulesCompleted());
+            target.lastActivity = now;
+            return target;
+        });
+    }
+
+    /**
+     * Incrementos ainda não gravados da sessão.
+     */
+    public SessionCounters pending(Long userId, String sessionId) {
+        Cell cell = cells.get(new SessionKey(userId, sessionId));
+        return cell != null ? cell.snapshot().minus(cell) : SessionCounters.NONE;
+    }
+
+    @Scheduled(fixedDelayString = "${nutri.user-activity.session-flush-interval-ms:5000}")
+    public synchronized void flush() {
+        flush(cells.keySet(), lastActivityByUser.keySet());
+    }
+
+    /**
+     * Grava os incrementos de uma única sessão, como ao finalizá-la.
+     */
+    public synchronized void flush(Long userId, String sessionId) {
+        flush(List.of(new SessionKey(userId, sessionId)), List.of(userId));
+    }
+
+    // O lote roda em transação própria: só marca como gravado o que foi de fato confirmado
+
+    private void flush(Iterable<SessionKey> keys, Iterable<Long> userIds) {
+        List<SessionKey> flushedKeys = new ArrayList<>();
+        List<Snapshot> snapshots = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (SessionKey key : keys) {
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                continue;
+            }
+            Snapshot snapshot = cell.snapshot();
+            SessionCounters delta = snapshot.minus(cell);
+            if (delta.equals(SessionCounters.NONE) && snapshot.lastActivity() == cell.flushedLastActivity) {
+                continue;
+            }
+            Timestamp lastActivity = Timestamp.valueOf(snapshot.lastActivity());
+            flushedKeys.add(key);
+            snapshots.add(snapshot);
+            args.add(new Object[]{delta.pagesVisited(), delta.modulesViewed(), delta.modulesCompleted(),
+                    lastActivity, lastActivity, now, key.sessionId(), key.userId()});
+        }
+
+        Map<Long, LocalDateTime> flushedActivity = new LinkedHashMap<>();
+        List<Object[]> activityArgs = new ArrayList<>();
+        for (Long userId : userIds) {
+            LocalDateTime lastActivity = lastActivityByUser.get(userId);
+            if (lastActivity == null) {
+                continue;
+            }
+            flushedActivity.put(userId, lastActivity);
+            activityArgs.add(new Object[]{userId, Timestamp.valueOf(lastActivity), now});
+        }
+
+        if (args.isEmpty() && activityArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                if (!args.isEmpty()) {
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+                }
+                if (!activityArgs.isEmpty()) {
+                    jdbcTemplate.batchUpdate(LAST_ACTIVITY_SQL, activityArgs);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Erro ao gravar contadores de {} sessões e atividade de {} usuários, nova tentativa no próximo ciclo",
+                    args.size(), activityArgs.size(), e);
+            return;
+        }
+
+        // Só remove se não chegou atividade mais recente durante o flush; a lista de pacientes
+        // não é invalidada, apenas as estatísticas do próprio usuário
+        flushedActivity.forEach((userId, lastActivity) -> {
+            lastActivityByUser.remove(userId, lastActivity);
+            cacheGenerations.invalidate(CacheGenerations.userStats(userId));
+        });
+
+        for (int i = 0; i < flushedKeys.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            cells.computeIfPresent(flushedKeys.get(i), (key, cell) -> {
+                cell.markFlushed(snapshot);
+                // Sessão sem nada pendente sai da memória; o próximo evento cria outra célula
+                return cell.isFlushed() ? null : cell;
+            });
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    public record SessionCounters(long pagesVisited, long modulesViewed, long modulesCompleted) {
+
+        public static final SessionCounters NONE = new SessionCounters(0, 0, 0);
+        public static final SessionCounters PAGE_VISITED = new SessionCounters(1, 0, 0);
+        public static final SessionCounters MODULE_VIEWED = new SessionCounters(0, 1, 0);
+        public static final SessionCounters MODULE_COMPLETED = new SessionCounters(0, 0, 1);
+
+        public SessionCounters plus(SessionCounters other) {
+            return new SessionCounters(pagesVisited + other.pagesVisited, modulesViewed + other.modulesViewed,
+                    modulesCompleted + other.modulesCompleted);
+        }
+    }
+
+    private record SessionKey(Long userId, String sessionId) {
+    }
+
+    private record Snapshot(long pagesVisited, long modulesViewed, long modulesCompleted, LocalDateTime lastActivity) {
+
+        SessionCounters minus(Cell cell) {
+            return new SessionCounters(pagesVisited - cell.flushedPagesVisited, modulesViewed - cell.flushedModulesViewed,
+                    modulesCompleted - cell.flushedModulesCompleted);
+        }
+    }
+
+    private static final class Cell {
+        private final AtomicLong pagesVisited = new AtomicLong();
+        private final AtomicLong modulesViewed = new AtomicLong();
+        private final AtomicLong modulesCompleted = new AtomicLong();
+        private volatile LocalDateTime lastActivity;
+
+        // Já gravados; alterados só pelo flush, sob o lock do mapa
+        private volatile long flushedPagesVisited;
+        private volatile long flushedModulesViewed;
+        private volatile long flushedModulesCompleted;
+        private volatile LocalDateTime flushedLastActivity;
+
+        private Snapshot snapshot() {
+            return new Snapshot(pagesVisited.get(), modulesViewed.get(), modulesCompleted.get(), lastActivity);
+        }
+
+        private void markFlushed(Snapshot snapshot) {
+            flushedPagesVisited = snapshot.pagesVisited();
+            flushedModulesViewed = snapshot.modulesViewed();
+            flushedModulesCompleted = snapshot.modulesCompleted();
+            flushedLastActivity = snapshot.lastActivity();
+        }
+
+        private boolean isFlushed() {
+            return snapshot().minus(this).equals(SessionCounters.NONE) && lastActivity == flushedLastActivity;
+        }
+    }
+}
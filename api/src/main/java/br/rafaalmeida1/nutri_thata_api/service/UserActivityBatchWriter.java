@@ -0,0 +1,58 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.ModuleView;
+import br.rafaalmeida1.nutri_thata_api.entities.UserActivity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grava lotes de atividades de usuário com JDBC batch. As entidades usam IDENTITY, o que
+ * impede o Hibernate de agrupar os INSERTs; aqui cada tabela recebe um único batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserActivityBatchWriter {
+
+    private static final String INSERT_ACTIVITY =
+            "INSERT INTO user_activities (user_id, activity_type, page_path, module_id, module_title, category, " +
+            "time_spent, session_id, ip_address, user_agent, device_type, browser, operating_system, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_MODULE_VIEW =
+            "INSERT INTO module_views (user_id, module_id, module_title, category, time_spent, is_completed, " +
+            "completion_percentage, session_id, viewed_at) VALUES (?, ?, ?, ?, ?, FALSE, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertActivities(Long userId, List<UserActivity> activities, LocalDateTime createdAt) {
+        List<Object[]> rows = new ArrayList<>(activities.size());
+        for (UserActivity activity : activities) {
+            rows.add(new Object[]{userId, activity.getActivityType(), activity.getPagePath(), activity.getModuleId(),
+                    activity.getModuleTitle(), activity.getCategory(), activity.getTimeSpent(), activity.getSessionId(),
+                    activity.getIpAddress(), activity.getUserAgent(), activity.getDeviceType(), activity.getBrowser(),
+                    activity.getOperatingSystem(), Timestamp.valueOf(createdAt)});
+        }
+        batchUpdate(INSERT_ACTIVITY, rows);
+    }
+
+    public void insertModuleViews(Long userId, List<ModuleView> moduleViews, LocalDateTime viewedAt) {
+        List<Object[]> rows = new ArrayList<>(moduleViews.size());
+        for (ModuleView moduleView : moduleViews) {
+            rows.add(new Object[]{userId, moduleView.getModuleId(), moduleView.getModuleTitle(), moduleView.getCategory(),
+                    moduleView.getTimeSpent(), moduleView.getSessionId(), Timestamp.valueOf(viewedAt)});
+        }
+        batchUpdate(INSERT_MODULE_VIEW, rows);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+}
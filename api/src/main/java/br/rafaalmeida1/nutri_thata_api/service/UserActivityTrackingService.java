@@ -1,17 +1,28 @@
 package br.rafaalmeida1.nutri_thata_api.service;
 
+import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackActivityBatchRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackActivityRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackModuleCompletionRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackModuleViewRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.TrackActivityBatchResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.*;
 import br.rafaalmeida1.nutri_thata_api.repository.*;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.UserAgentClassifier;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +33,12 @@ public class UserActivityTrackingService {
     private final UserSessionRepository userSessionRepository;
     private final ModuleViewRepository moduleViewRepository;
     private final UserCategoryProgressRepository userCategoryProgressRepository;
+    private final UserModuleProgressRepository userModuleProgressRepository;
+    private final UserAgentClassifier userAgentClassifier;
+    private final UserActivityBatchWriter batchWriter;
+    private final SessionCounterStore sessionCounterStore;
+    private final PatientStatsService patientStatsService;
+    private final Validator validator;
 
     @Transactional
     public void trackPageView(User user, String pagePath, String sessionId, String userAgent, String ipAddress) {
@@ -40,8 +57,8 @@ public class UserActivityTrackingService {
 
             userActivityRepository.save(activity);
 
-            // Atualizar contador de páginas visitadas na sessão
-            updateSessionPagesVisited(sessionId);
+            // Atualizar contador de páginas visitadas e a última atividade, gravados em lote
+            sessionCounterStore.add(user.getId(), sessionId, SessionCounterStore.SessionCounters.PAGE_VISITED);
 
             log.debug("Página visualizada rastreada: usuário={}, página={}", user.getId(), pagePath);
         } catch (Exception e) {
@@ -50,7 +67,6 @@ public class UserActivityTrackingService {
     }
 
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
     public void trackModuleView(User user, Long moduleId, String moduleTitle, String category, 
                                Long timeSpent, String sessionId, String userAgent, String ipAddress) {
         try {
@@ -82,11 +98,15 @@ public class UserActivityTrackingService {
 
             moduleViewRepository.save(moduleView);
 
-            // Atualizar progresso da categoria
+            // Atualizar progresso do módulo, da categoria e do paciente
+            LocalDateTime now = LocalDateTime.now();
+            userModuleProgressRepository.upsertProgress(user.getId(), moduleId, moduleTitle, category, 1, timeSpent,
+                    false, 0, now);
             updateCategoryProgress(user, category, timeSpent, false);
+            patientStatsService.recordActivity(user.getId(), 1, timeSpent, now);
 
             // Atualizar contador de módulos visualizados na sessão
-            updateSessionModulesViewed(sessionId);
+            sessionCounterStore.add(user.getId(), sessionId, SessionCounterStore.SessionCounters.MODULE_VIEWED);
 
             log.debug("Módulo visualizado rastreado: usuário={}, módulo={}", user.getId(), moduleId);
         } catch (Exception e) {
@@ -95,7 +115,6 @@ public class UserActivityTrackingService {
     }
 
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
     public void trackModuleCompletion(User user, Long moduleId, String moduleTitle, String category, 
                                      Long timeSpent, Integer completionPercentage, String sessionId) {
         try {
@@ -112,20 +131,17 @@ public class UserActivityTrackingService {
 
             userActivityRepository.save(activity);
 
-            // Atualizar visualização do módulo como completado
-            List<ModuleView> moduleViews = moduleViewRepository.findByUserAndModuleId(user, moduleId);
-            if (!moduleViews.isEmpty()) {
-                ModuleView moduleView = moduleViews.get(0);
-                moduleView.setIsCompleted(true);
-                moduleView.setCompletionPercentage(completionPercentage);
-                moduleViewRepository.save(moduleView);
-            }
+            // Marcar o módulo como completado; o tempo do módulo vem apenas das visualizações
+            LocalDateTime now = LocalDateTime.now();
+            userModuleProgressRepository.upsertProgress(user.getId(), moduleId, moduleTitle, category, 0, 0L,
+                    true, completionPercentage, now);
+            patientStatsService.recordModuleCompletion(user.getId(), now);
 
             // Atualizar progresso da categoria
             updateCategoryProgress(user, category, timeSpent, true);
 
             // Atualizar contador de módulos completados na sessão
-            updateSessionModulesCompleted(sessionId);
+            sessionCounterStore.add(user.getId(), sessionId, SessionCounterStore.SessionCounters.MODULE_COMPLETED);
 
             log.debug("Módulo completado rastreado: usuário={}, módulo={}", user.getId(), moduleId);
         } catch (Exception e) {
@@ -133,6 +149,122 @@ public class UserActivityTrackingService {
         }
     }
 
+    /**
+     * Rastreia um lote de eventos de tipos variados em uma única transação. Cada evento é
+     * validado com as regras do endpoint individual do seu tipo; os inválidos são recusados
+     * sem afetar os demais. Os válidos são gravados com um batch por tabela de histórico e
+     * um upsert por módulo e por categoria; os contadores somados de cada sessão vão para o
+     * {@link SessionCounterStore}.
+     */
+    @Transactional
+    public TrackActivityBatchResponse trackBatch(User user, List<TrackActivityBatchRequest.TrackActivityEvent> events,
+                                                 String userAgent, String ipAddress) {
+        UserAgentClassifier.Classification classification = userAgentClassifier.classify(userAgent);
+
+        List<TrackActivityBatchResponse.EventResult> results = new ArrayList<>(events.size());
+        List<UserActivity> activities = new ArrayList<>();
+        List<ModuleView> moduleViews = new ArrayList<>();
+        Map<Long, ModuleDelta> moduleDeltas = new LinkedHashMap<>();
+        Map<String, CategoryDelta> categoryDeltas = new LinkedHashMap<>();
+        Map<String, SessionCounterStore.SessionCounters> sessionCounters = new LinkedHashMap<>();
+
+        for (int i = 0; i < events.size(); i++) {
+            TrackActivityBatchRequest.TrackActivityEvent event = events.get(i);
+            String error = validate(event);
+            results.add(TrackActivityBatchResponse.EventResult.builder()
+                    .index(i)
+                    .accepted(error == null)
+                    .error(error)
+                    .build());
+            if (error != null) {
+                continue;
+            }
+
+            switch (event.getType()) {
+                case PAGE_VIEW -> {
+                    activities.add(withDeviceInfo(classification, UserActivity.builder()
+                            .activityType("page_view")
+                            .pagePath(event.getPagePath())
+                            .sessionId(event.getSessionId())
+                            .userAgent(userAgent)
+                            .ipAddress(ipAddress)
+                            .build()));
+                    sessionCounters.merge(event.getSessionId(), SessionCounterStore.SessionCounters.PAGE_VISITED,
+                            SessionCounterStore.SessionCounters::plus);
+                }
+                case MODULE_VIEW -> {
+                    activities.add(withDeviceInfo(classification, UserActivity.builder()
+                            .activityType("module_view")
+                            .moduleId(event.getModuleId())
+                            .moduleTitle(event.getModuleTitle())
+                            .category(event.getCategory())
+                            .timeSpent(event.getTimeSpent())
+                            .sessionId(event.getSessionId())
+                            .userAgent(userAgent)
+                            .ipAddress(ipAddress)
+                            .build()));
+                    moduleViews.add(ModuleView.builder()
+                            .moduleId(event.getModuleId())
+                            .moduleTitle(event.getModuleTitle())
+                            .category(event.getCategory())
+                            .timeSpent(event.getTimeSpent())
+                            .sessionId(event.getSessionId())
+                            .build());
+                    moduleDeltas.merge(event.getModuleId(), new ModuleDelta(event.getModuleTitle(), event.getCategory(),
+                            1, event.getTimeSpent(), false, 0), ModuleDelta::plus);
+                    categoryDeltas.merge(event.getCategory(), new CategoryDelta(1, 0, event.getTimeSpent()), CategoryDelta::plus);
+                    sessionCounters.merge(event.getSessionId(), SessionCounterStore.SessionCounters.MODULE_VIEWED,
+                            SessionCounterStore.SessionCounters::plus);
+                }
+                case MODULE_COMPLETION -> {
+                    activities.add(UserActivity.builder()
+                            .activityType("module_complete")
+                            .moduleId(event.getModuleId())
+                            .moduleTitle(event.getModuleTitle())
+                            .category(event.getCategory())
+                            .timeSpent(event.getTimeSpent())
+                            .sessionId(event.getSessionId())
+                            .build());
+                    moduleDeltas.merge(event.getModuleId(), new ModuleDelta(event.getModuleTitle(), event.getCategory(),
+                            0, 0, true, event.getCompletionPercentage()), ModuleDelta::plus);
+                    categoryDeltas.merge(event.getCategory(), new CategoryDelta(1, 1, event.getTimeSpent()), CategoryDelta::plus);
+                    sessionCounters.merge(event.getSessionId(), SessionCounterStore.SessionCounters.MODULE_COMPLETED,
+                            SessionCounterStore.SessionCounters::plus);
+                }
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        batchWriter.insertActivities(user.getId(), activities, now);
+        batchWriter.insertModuleViews(user.getId(), moduleViews, now);
+        moduleDeltas.forEach((moduleId, delta) -> userModuleProgressRepository.upsertProgress(user.getId(), moduleId,
+                delta.moduleTitle(), delta.category(), delta.views(), delta.timeSpent(), delta.completed(),
+                delta.completionPercentage(), now));
+        categoryDeltas.forEach((category, delta) ->
+                updateCategoryProgress(user, category, delta.modulesViewed(), delta.modulesCompleted(), delta.timeSpent()));
+        sessionCounters.forEach((sessionId, delta) -> sessionCounterStore.add(user.getId(), sessionId, delta));
+        if (!activities.isEmpty()) {
+            long modulesViewed = moduleDeltas.values().stream().mapToLong(ModuleDelta::views).sum();
+            long timeSpent = moduleDeltas.values().stream().mapToLong(ModuleDelta::timeSpent).sum();
+            // A última atividade já vai no flush dos contadores de sessão
+            if (modulesViewed > 0 || timeSpent > 0) {
+                patientStatsService.recordActivity(user.getId(), modulesViewed, timeSpent, now);
+            }
+            if (moduleDeltas.values().stream().anyMatch(ModuleDelta::completed)) {
+                patientStatsService.recordModuleCompletion(user.getId(), now);
+            }
+        }
+
+        int accepted = (int) results.stream().filter(TrackActivityBatchResponse.EventResult::getAccepted).count();
+        log.debug("Lote de atividades rastreado: usuário={}, aceitos={}, recusados={}",
+                user.getId(), accepted, results.size() - accepted);
+        return TrackActivityBatchResponse.builder()
+                .accepted(accepted)
+                .rejected(results.size() - accepted)
+                .results(results)
+                .build();
+    }
+
     @Transactional
     public String startSession(User user, String userAgent, String ipAddress) {
         try {
@@ -161,6 +293,7 @@ public class UserActivityTrackingService {
 
             extractDeviceInfo(userAgent, activity);
             userActivityRepository.save(activity);
+            patientStatsService.recordActivity(user.getId(), 0, 0, session.getStartTime());
 
             log.debug("Sessão iniciada: usuário={}, sessão={}", user.getId(), sessionId);
             return sessionId;
@@ -176,10 +309,11 @@ public class UserActivityTrackingService {
             Optional<UserSession> sessionOpt = userSessionRepository.findBySessionId(sessionId);
             if (sessionOpt.isPresent()) {
                 UserSession session = sessionOpt.get();
-                session.setEndTime(LocalDateTime.now());
-                session.setTotalTimeSpent(totalTimeSpent);
-                session.setIsActive(false);
-                userSessionRepository.save(session);
+                // Contadores pendentes em memória são gravados antes; o UPDATE abaixo não os sobrescreve
+                sessionCounterStore.flush(session.getUser().getId(), sessionId);
+                LocalDateTime now = LocalDateTime.now();
+                userSessionRepository.endSession(sessionId, now, totalTimeSpent);
+                patientStatsService.recordSessionEnd(session.getUser().getId(), totalTimeSpent, now);
 
                 // Salvar atividade de fim de sessão
                 UserActivity activity = UserActivity.builder()
@@ -200,154 +334,95 @@ public class UserActivityTrackingService {
     }
 
     private void updateCategoryProgress(User user, String category, Long timeSpent, boolean isCompleted) {
-        try {
-            Optional<UserCategoryProgress> progressOpt = userCategoryProgressRepository
-                    .findByUserAndCategory(user, category);
-
-            UserCategoryProgress progress;
-            if (progressOpt.isPresent()) {
-                progress = progressOpt.get();
-                progress.setModulesViewed(progress.getModulesViewed() + 1);
-                progress.setTotalTimeSpent(progress.getTotalTimeSpent() + timeSpent);
-                if (isCompleted) {
-                    progress.setModulesCompleted(progress.getModulesCompleted() + 1);
-                }
-                progress.setLastActivity(LocalDateTime.now());
-            } else {
-                progress = UserCategoryProgress.builder()
-                        .user(user)
-                        .category(category)
-                        .modulesViewed(1)
-                        .modulesCompleted(isCompleted ? 1 : 0)
-                        .totalTimeSpent(timeSpent)
-                        .lastActivity(LocalDateTime.now())
-                        .build();
-            }
+        updateCategoryProgress(user, category, 1, isCompleted ? 1 : 0, timeSpent);
+    }
 
-            userCategoryProgressRepository.save(progress);
+    private void updateCategoryProgress(User user, String category, int modulesViewed, int modulesCompleted,
+                                        Long timeSpent) {
+        try {
+            userCategoryProgressRepository.upsertProgress(user.getId(), category, modulesViewed, modulesCompleted,
+                    timeSpent, LocalDateTime.now());
         } catch (Exception e) {
             log.error("Erro ao atualizar progresso da categoria", e);
         }
     }
 
-    private void updateSessionPagesVisited(String sessionId) {
-        try {
-            Optional<UserSession> sessionOpt = userSessionRepository.findBySessionId(sessionId);
-            if (sessionOpt.isPresent()) {
-                UserSession session = sessionOpt.get();
-                session.setPagesVisited(session.getPagesVisited() + 1);
-                userSessionRepository.save(session);
-            }
-        } catch (Exception e) {
-            log.error("Erro ao atualizar páginas visitadas na sessão", e);
-        }
+    private void extractDeviceInfo(String userAgent, UserActivity activity) {
+        withDeviceInfo(userAgentClassifier.classify(userAgent), activity);
     }
 
-    private void updateSessionModulesViewed(String sessionId) {
-        try {
-            Optional<UserSession> sessionOpt = userSessionRepository.findBySessionId(sessionId);
-            if (sessionOpt.isPresent()) {
-                UserSession session = sessionOpt.get();
-                session.setModulesViewed(session.getModulesViewed() + 1);
-                userSessionRepository.save(session);
-            }
-        } catch (Exception e) {
-            log.error("Erro ao atualizar módulos visualizados na sessão", e);
+    private static UserActivity withDeviceInfo(UserAgentClassifier.Classification classification, UserActivity activity) {
+        if (classification != null) {
+            activity.setDeviceType(classification.deviceType());
+            activity.setBrowser(classification.browser());
+            activity.setOperatingSystem(classification.operatingSystem());
         }
+        return activity;
     }
 
-    private void updateSessionModulesCompleted(String sessionId) {
-        try {
-            Optional<UserSession> sessionOpt = userSessionRepository.findBySessionId(sessionId);
-            if (sessionOpt.isPresent()) {
-                UserSession session = sessionOpt.get();
-                session.setModulesCompleted(session.getModulesCompleted() + 1);
-                userSessionRepository.save(session);
-            }
-        } catch (Exception e) {
-            log.error("Erro ao atualizar módulos completados na sessão", e);
+    /**
+     * Valida o evento com as regras do request individual do seu tipo, retornando as
+     * mensagens de erro ou {@code null} se o evento for válido.
+     */
+    private String validate(TrackActivityBatchRequest.TrackActivityEvent event) {
+        if (event == null || event.getType() == null) {
+            return "Tipo do evento é obrigatório";
+        }
+        Object request = switch (event.getType()) {
+            case PAGE_VIEW -> TrackActivityRequest.builder()
+                    .pagePath(event.getPagePath())
+                    .sessionId(event.getSessionId())
+                    .build();
+            case MODULE_VIEW -> TrackModuleViewRequest.builder()
+                    .moduleId(event.getModuleId())
+                    .moduleTitle(event.getModuleTitle())
+                    .category(event.getCategory())
+                    .timeSpent(event.getTimeSpent())
+                    .sessionId(event.getSessionId())
+                    .build();
+            case MODULE_COMPLETION -> TrackModuleCompletionRequest.builder()
+                    .moduleId(event.getModuleId())
+                    .moduleTitle(event.getModuleTitle())
+                    .category(event.getCategory())
+                    .timeSpent(event.getTimeSpent())
+                    .completionPercentage(event.getCompletionPercentage())
+                    .sessionId(event.getSessionId())
+                    .build();
+        };
+        var violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
         }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
     }
 
-    private void extractDeviceInfo(String userAgent, UserActivity activity) {
-        if (userAgent != null) {
-            // Detectar dispositivo
-            if (userAgent.toLowerCase().contains("mobile") || userAgent.toLowerCase().contains("android") || userAgent.toLowerCase().contains("iphone")) {
-                activity.setDeviceType("mobile");
-            } else if (userAgent.toLowerCase().contains("tablet") || userAgent.toLowerCase().contains("ipad")) {
-                activity.setDeviceType("tablet");
-            } else {
-                activity.setDeviceType("desktop");
-            }
-
-            // Detectar navegador
-            if (userAgent.toLowerCase().contains("chrome")) {
-                activity.setBrowser("Chrome");
-            } else if (userAgent.toLowerCase().contains("firefox")) {
-                activity.setBrowser("Firefox");
-            } else if (userAgent.toLowerCase().contains("safari")) {
-                activity.setBrowser("Safari");
-            } else if (userAgent.toLowerCase().contains("edge")) {
-                activity.setBrowser("Edge");
-            } else {
-                activity.setBrowser("Other");
-            }
+    private record CategoryDelta(int modulesViewed, int modulesCompleted, long timeSpent) {
 
-            // Detectar sistema operacional
-            if (userAgent.toLowerCase().contains("windows")) {
-                activity.setOperatingSystem("Windows");
-            } else if (userAgent.toLowerCase().contains("mac")) {
-                activity.setOperatingSystem("macOS");
-            } else if (userAgent.toLowerCase().contains("linux")) {
-                activity.setOperatingSystem("Linux");
-            } else if (userAgent.toLowerCase().contains("android")) {
-                activity.setOperatingSystem("Android");
-            } else if (userAgent.toLowerCase().contains("ios")) {
-                activity.setOperatingSystem("iOS");
-            } else {
-                activity.setOperatingSystem("Other");
-            }
+        CategoryDelta plus(CategoryDelta other) {
+            return new CategoryDelta(modulesViewed + other.modulesViewed, modulesCompleted + other.modulesCompleted,
+                    timeSpent + other.timeSpent);
         }
     }
 
-    private void extractDeviceInfo(String userAgent, UserSession session) {
-        if (userAgent != null) {
-            // Detectar dispositivo
-            if (userAgent.toLowerCase().contains("mobile") || userAgent.toLowerCase().contains("android") || userAgent.toLowerCase().contains("iphone")) {
-                session.setDeviceType("mobile");
-            } else if (userAgent.toLowerCase().contains("tablet") || userAgent.toLowerCase().contains("ipad")) {
-                session.setDeviceType("tablet");
-            } else {
-                session.setDeviceType("desktop");
-            }
+    // Título e categoria ficam com os do último evento do lote, como no upsert individual
+    private record ModuleDelta(String moduleTitle, String category, int views, long timeSpent, boolean completed,
+                               int completionPercentage) {
 
-            // Detectar navegador
-            if (userAgent.toLowerCase().contains("chrome")) {
-                session.setBrowser("Chrome");
-            } else if (userAgent.toLowerCase().contains("firefox")) {
-                session.setBrowser("Firefox");
-            } else if (userAgent.toLowerCase().contains("safari")) {
-                session.setBrowser("Safari");
-            } else if (userAgent.toLowerCase().contains("edge")) {
-                session.setBrowser("Edge");
-            } else {
-                session.setBrowser("Other");
-            }
+        ModuleDelta plus(ModuleDelta other) {
+            return new ModuleDelta(other.moduleTitle, other.category, views + other.views, timeSpent + other.timeSpent,
+                    completed || other.completed, Math.max(completionPercentage, other.completionPercentage));
+        }
+    }
 
-            // Detectar sistema operacional
-            if (userAgent.toLowerCase().contains("windows")) {
-                session.setOperatingSystem("Windows");
-            } else if (userAgent.toLowerCase().contains("mac")) {
-                session.setOperatingSystem("macOS");
-            } else if (userAgent.toLowerCase().contains("linux")) {
-                session.setOperatingSystem("Linux");
-            } else if (userAgent.toLowerCase().contains("android")) {
-                session.setOperatingSystem("Android");
-            } else if (userAgent.toLowerCase().contains("ios")) {
-                session.setOperatingSystem("iOS");
-            } else {
-                session.setOperatingSystem("Other");
-            }
+    private void extractDeviceInfo(String userAgent, UserSession session) {
+        UserAgentClassifier.Classification classification = userAgentClassifier.classify(userAgent);
+        if (classification != null) {
+            session.setDeviceType(classification.deviceType());
+            session.setBrowser(classification.browser());
+            session.setOperatingSystem(classification.operatingSystem());
         }
     }
 }
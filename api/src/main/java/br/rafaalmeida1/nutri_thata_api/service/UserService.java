@@ -2,31 +2,26 @@ package br.rafaalmeida1.nutri_thata_api.service;
 
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.ChangePasswordRequest;
 import br.rafaalmeida1.nutri_thata_api.dto.request.user.UpdateUserRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.PatientRosterResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserResponse;
 import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserStatsResponse;
 import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.PatientRosterSort;
 import br.rafaalmeida1.nutri_thata_api.enums.Role;
 import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
 import br.rafaalmeida1.nutri_thata_api.exception.NotFoundException;
 import br.rafaalmeida1.nutri_thata_api.mapper.UserMapper;
 import br.rafaalmeida1.nutri_thata_api.repositories.UserRepository;
-import br.rafaalmeida1.nutri_thata_api.repository.UserActivityRepository;
-import br.rafaalmeida1.nutri_thata_api.repository.UserSessionRepository;
-import br.rafaalmeida1.nutri_thata_api.repository.ModuleViewRepository;
-import br.rafaalmeida1.nutri_thata_api.repository.UserCategoryProgressRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,10 +33,9 @@ public class UserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final CacheService cacheService;
-    private final UserActivityRepository userActivityRepository;
-    private final UserSessionRepository userSessionRepository;
-    private final ModuleViewRepository moduleViewRepository;
-    private final UserCategoryProgressRepository userCategoryProgressRepository;
+    private final PatientStatsService patientStatsService;
+    private final PatientSearchIndex patientSearchIndex;
+    private final CacheGenerations cacheGenerations;
 
     public UserResponse getCurrentUser(User user) {
         return userMapper.toUserResponse(user);
@@ -61,11 +55,13 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(currentUser);
+        patientSearchIndex.index(updatedUser);
+        invalidateCaches(updatedUser, updatedUser.getEmail());
 
         return userMapper.toUserResponse(updatedUser);
     }
 
-    @Cacheable(value = "users", key = "#id")
+    @Cacheable(value = "users", key = "@cacheGenerations.key('user:' + #id)")
     public UserResponse getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
@@ -80,7 +76,7 @@ public class UserService {
                 .build();
     }
 
-    @Cacheable(value = "users", key = "#email")
+    @Cacheable(value = "users", key = "@cacheGenerations.key('user-email:' + #email)")
     public UserResponse getUserByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
@@ -95,122 +91,63 @@ public class UserService {
                 .build();
     }
 
-    @Cacheable(value = "users", key = "'patients'")
+    @Cacheable(value = "users", key = "@cacheGenerations.key('patient-roster') + '_patients'")
     public List<UserResponse> getAllPatients() {
         List<User> patients = userRepository.findByRoleAndIsActiveTrue(Role.PATIENT);
-        
-        return patients.stream()
-                .map(user -> {
-                    UserResponse.UserResponseBuilder builder = UserResponse.builder()
-                            .id(user.getId())
-                            .name(user.getName())
-                            .email(user.getEmail())
-                            .role(user.getRole())
-                            .isActive(user.getIsActive())
-                            .createdAt(user.getCreatedAt());
-
-                    // Adicionar estatísticas se disponíveis
-                    try {
-                        Long totalModulesViewed = moduleViewRepository.countByUser(user);
-                        Long totalTimeSpent = moduleViewRepository.sumTimeSpentByUser(user);
-                        Long modulesCompleted = moduleViewRepository.countCompletedByUser(user);
-                        Double averageSessionTime = userSessionRepository.findAverageSessionDurationByUser(user);
-                        
-                        // Buscar última atividade
-                        String lastActivity = "Nunca";
-                        var lastActivityOpt = userActivityRepository.findLastActivityByUser(user);
-                        if (lastActivityOpt != null) {
-                            lastActivity = lastActivityOpt.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                        }
 
-                        // Buscar categorias favoritas
-                        List<Object[]> favoriteCategoriesData = userActivityRepository.findFavoriteCategoriesByUser(user);
-                        List<String> favoriteCategories = favoriteCategoriesData.stream()
-                                .limit(3) // Top 3 categorias
-                                .map(row -> (String) row[0])
-                                .collect(Collectors.toList());
+        // Estatísticas de todos os pacientes em lote, em vez de consultas por paciente
+        Map<Long, UserResponse.PatientStats> statsByUser = Map.of();
+        try {
+            statsByUser = patientStatsService.getPatientStats(patients);
+        } catch (Exception e) {
+            log.error("Erro ao carregar estatísticas dos pacientes", e);
+            // Continuar sem estatísticas em caso de erro
+        }
 
-                        // Calcular progresso
-                        Integer progressPercentage = 0;
-                        if (totalModulesViewed > 0) {
-                            progressPercentage = (int) Math.round((double) modulesCompleted / totalModulesViewed * 100);
-                        }
+        Map<Long, UserResponse.PatientStats> stats = statsByUser;
+        return patients.stream()
+                .map(user -> UserResponse.builder()
+                        .id(user.getId())
+                        .name(user.getName())
+                        .email(user.getEmail())
+                        .role(user.getRole())
+                        .isActive(user.getIsActive())
+                        .createdAt(user.getCreatedAt())
+                        .stats(stats.get(user.getId()))
+                        .build())
+                .collect(Collectors.toList());
+    }
 
-                        builder.stats(UserResponse.PatientStats.builder()
-                                .totalModulesViewed(totalModulesViewed.intValue())
-                                .totalTimeSpent(totalTimeSpent != null ? totalTimeSpent.intValue() : 0)
-                                .modulesCompleted(modulesCompleted.intValue())
-                                .averageSessionTime(averageSessionTime != null ? averageSessionTime.intValue() : 0)
-                                .lastActivity(lastActivity)
-                                .favoriteCategories(favoriteCategories)
-                                .progressPercentage(progressPercentage)
-                                .build());
-                    } catch (Exception e) {
-                        log.error("Erro ao calcular estatísticas do paciente: {}", user.getId(), e);
-                        // Continuar sem estatísticas em caso de erro
-                    }
+    /**
+     * Listagem paginada por cursor, sem cache: cada página lê só as linhas que exibe.
+     */
+    public PatientRosterResponse getPatientRoster(PatientRosterSort sort, String cursor, int limit) {
+        return patientStatsService.getRoster(sort, cursor, limit);
+    }
 
-                    return builder.build();
-                })
-                .collect(Collectors.toList());
+    /**
+     * Busca de pacientes ativos por nome ou e-mail, respondida pelo índice em memória.
+     */
+    public List<UserResponse> searchPatients(String query, int limit) {
+        return patientSearchIndex.search(query, limit).stream()
+                .map(match -> UserResponse.builder()
+                        .id(match.id())
+                        .name(match.name())
+                        .email(match.email())
+                        .role(Role.PATIENT)
+                        .isActive(true)
+                        .build())
+                .toList();
     }
 
-    @Cacheable(value = "users", key = "'user_stats_' + #userId")
+    @Cacheable(value = "users", key = "@cacheGenerations.key('user-stats:' + #userId) + '_stats'")
     public UserStatsResponse getUserStats(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Usuário não encontrado");
+        }
 
         try {
-            // Buscar estatísticas reais dos repositórios
-            Long totalModulesViewed = moduleViewRepository.countByUser(user);
-            Long totalTimeSpent = moduleViewRepository.sumTimeSpentByUser(user);
-            Long modulesCompleted = moduleViewRepository.countCompletedByUser(user);
-            Double averageSessionTime = userSessionRepository.findAverageSessionDurationByUser(user);
-            
-            // Buscar categorias favoritas
-            List<Object[]> favoriteCategoriesData = userActivityRepository.findFavoriteCategoriesByUser(user);
-            List<String> favoriteCategories = favoriteCategoriesData.stream()
-                    .limit(5) // Top 5 categorias
-                    .map(row -> (String) row[0])
-                    .collect(Collectors.toList());
-
-            // Calcular progresso geral (baseado em módulos completados vs visualizados)
-            Integer progressPercentage = 0;
-            if (totalModulesViewed > 0) {
-                progressPercentage = (int) Math.round((double) modulesCompleted / totalModulesViewed * 100);
-            }
-
-            // Buscar atividade semanal (últimos 7 dias)
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(7);
-            List<Object[]> weeklyActivityData = userActivityRepository.findWeeklyActivityByUser(user, startDate, endDate);
-            
-            List<UserStatsResponse.WeeklyActivity> weeklyActivity = weeklyActivityData.stream()
-                    .map(row -> UserStatsResponse.WeeklyActivity.builder()
-                            .date(((java.sql.Date) row[0]).toLocalDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")))
-                            .modulesViewed(((Long) row[1]).intValue())
-                            .timeSpent(0) // Seria necessário calcular baseado no tempo gasto por dia
-                            .build())
-                    .collect(Collectors.toList());
-
-            // Buscar última atividade
-            String lastActivity = "Nunca";
-            var lastActivityOpt = userActivityRepository.findLastActivityByUser(user);
-            if (lastActivityOpt != null) {
-                lastActivity = lastActivityOpt.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            }
-
-            return UserStatsResponse.builder()
-                    .id(userId)
-                    .totalModulesViewed(totalModulesViewed.intValue())
-                    .totalTimeSpent(totalTimeSpent != null ? totalTimeSpent.intValue() : 0)
-                    .modulesCompleted(modulesCompleted.intValue())
-                    .averageSessionTime(averageSessionTime != null ? averageSessionTime.intValue() : 0)
-                    .favoriteCategories(favoriteCategories)
-                    .progressPercentage(progressPercentage)
-                    .lastActivity(lastActivity)
-                    .weeklyActivity(weeklyActivity)
-                    .build();
+            return patientStatsService.getUserStats(userId);
         } catch (Exception e) {
             log.error("Erro ao calcular estatísticas do usuário: {}", userId, e);
             // Retornar estatísticas vazias em caso de erro
@@ -228,14 +165,10 @@ public class UserService {
         }
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "users", key = "#id"),
-        @CacheEvict(value = "users", key = "#user.email"),
-        @CacheEvict(value = "users", allEntries = true)
-    })
     public UserResponse updateUser(Long id, UpdateUserRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
+        String previousEmail = user.getEmail();
 
         if (request.getName() != null) {
             user.setName(request.getName());
@@ -245,6 +178,8 @@ public class UserService {
         }
 
         user = userRepository.save(user);
+        patientSearchIndex.index(user);
+        invalidateCaches(user, previousEmail);
         
         return UserResponse.builder()
                 .id(user.getId())
@@ -256,11 +191,6 @@ public class UserService {
                 .build();
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "users", key = "#id"),
-        @CacheEvict(value = "users", key = "#user.email"),
-        @CacheEvict(value = "users", allEntries = true)
-    })
     public void changePassword(Long id, ChangePasswordRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
@@ -271,18 +201,24 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        invalidateCaches(user, user.getEmail());
     }
 
-    @Caching(evict = {
-        @CacheEvict(value = "users", key = "#id"),
-        @CacheEvict(value = "users", key = "#user.email"),
-        @CacheEvict(value = "users", allEntries = true)
-    })
     public void deactivateUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
 
         user.setIsActive(false);
         userRepository.save(user);
+        patientSearchIndex.index(user);
+        invalidateCaches(user, user.getEmail());
+    }
+
+    // Entradas do usuário (por id e pelos e-mails antigo e novo) e a lista de pacientes
+    private void invalidateCaches(User user, String previousEmail) {
+        cacheGenerations.invalidate(CacheGenerations.user(user.getId()),
+                CacheGenerations.userEmail(previousEmail),
+                CacheGenerations.userEmail(user.getEmail()),
+                CacheGenerations.PATIENT_ROSTER);
     }
 }
\ No newline at end of file
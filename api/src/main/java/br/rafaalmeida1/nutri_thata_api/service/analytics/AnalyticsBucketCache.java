@@ -0,0 +1,73 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.ViewsByDateResponse;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickDailyTotalRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewDailyTotalRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Séries diárias de meses fechados, guardadas no cache Redis com TTL longo.
+ *
+ * Só deve ser consultado para meses cujos dias já são definitivos
+ * ({@link AnalyticsRollupService#getFinalizedThrough}): esses rollups nunca mais mudam,
+ * então a chave por perfil e mês não precisa de invalidação. O mês corrente e os dias
+ * ainda sujeitos a recálculo são lidos direto dos rollups e da tabela bruta.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsBucketCache {
+
+    public static final String CACHE_NAME = "analytics_buckets";
+
+    private final PageViewDailyTotalRepository pageViewDailyTotalRepository;
+    private final LinkClickDailyTotalRepository linkClickDailyTotalRepository;
+
+    @Cacheable(value = CACHE_NAME, key = "'views_' + #profileId + '_' + #month")
+    public List<ViewsByDateResponse> viewsByDate(Long profileId, YearMonth month) {
+        return pageViewDailyTotalRepository
+            .findByProfessionalProfileIdAndStatDateBetweenOrderByStatDateAsc(profileId, month.atDay(1), month.atEndOfMonth())
+            .stream()
+            .map(total -> {
+                ViewsByDateResponse viewData = new ViewsByDateResponse();
+                viewData.setDate(total.getStatDate());
+                viewData.setViews(total.getViews());
+                viewData.setUniqueViews(total.getUniqueVisitors());
+                return viewData;
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Cliques por dia de todos os links do perfil no mês, para que qualquer seleção de
+     * links (top links ou um link só) reaproveite a mesma entrada.
+     */
+    @Cacheable(value = CACHE_NAME, key = "'clicks_' + #profileId + '_' + #month")
+    public List<LinkClicksByDate> clicksByDate(Long profileId, YearMonth month) {
+        return linkClickDailyTotalRepository
+            .findByProfessionalProfileIdAndStatDateBetweenOrderByStatDateAsc(profileId, month.atDay(1), month.atEndOfMonth())
+            .stream()
+            .map(total -> new LinkClicksByDate(total.getProfessionalLinkId(), total.getStatDate(),
+                total.getClicks(), total.getUniqueVisitors()))
+            .collect(Collectors.toList());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LinkClicksByDate {
+        private Long linkId;
+        private LocalDate date;
+        private Long clicks;
+        private Long uniqueClicks;
+    }
+}
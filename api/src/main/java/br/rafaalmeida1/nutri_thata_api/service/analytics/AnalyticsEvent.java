@@ -0,0 +1,47 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de analytics capturado no caminho da requisição e persistido
+ * de forma assíncrona pelo {@link AnalyticsIngestionQueue}.
+ */
+@Getter
+@Builder
+public class AnalyticsEvent {
+
+    public enum Type {
+        PAGE_VIEW,
+        LINK_CLICK
+    }
+
+    private final Type type;
+
+    // ID do perfil profissional (PAGE_VIEW) ou do link (LINK_CLICK)
+    private final Long targetId;
+
+    private final Long userId; // Null se for usuário anônimo
+
+    private final String ipAddress;
+
+    private final String userAgent;
+
+    private final String referer;
+
+    private final String country;
+
+    private final String city;
+
+    private final String deviceType;
+
+    private final String browser;
+
+    private final String operatingSystem;
+
+    private final Long sessionDuration; // em segundos, apenas PAGE_VIEW
+
+    private final LocalDateTime occurredAt;
+}
@@ -0,0 +1,155 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persiste lotes de {@link AnalyticsEvent} com INSERTs multi-linha via JDBC,
+ * sem passar pelo contexto de persistência do JPA.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsEventWriter {
+
+    // Mantém cada statement bem abaixo do limite de parâmetros do driver do PostgreSQL
+    static final int ROWS_PER_STATEMENT = 200;
+
+    private static final String PAGE_VIEW_COLUMNS =
+            "professional_profile_id, user_id, ip_address, user_agent, referer, country, city, " +
+            "device_type, browser, operating_system, session_duration, viewed_at";
+
+    private static final String LINK_CLICK_COLUMNS =
+            "professional_link_id, user_id, ip_address, user_agent, referer, country, city, " +
+            "device_type, browser, operating_system, clicked_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LinkClickCounterStore clickCounterStore;
+    private final UniqueVisitorSketchStore sketchStore;
+    private final LiveAnalyticsWindows liveWindows;
+    private final TrendingLinksStore trendingLinksStore;
+
+    /**
+     * Grava o lote e retorna quantos eventos foram persistidos. Se um statement
+     * multi-linha falhar (ex.: link removido entre o clique e a gravação), as linhas
+     * daquele statement são regravadas uma a uma para isolar o evento inválido.
+     */
+    public WriteResult write(List<AnalyticsEvent> events) {
+        List<AnalyticsEvent> pageViews = new ArrayList<>();
+        List<AnalyticsEvent> linkClicks = new ArrayList<>();
+        for (AnalyticsEvent event : events) {
+            if (event.getType() == AnalyticsEvent.Type.PAGE_VIEW) {
+                pageViews.add(event);
+            } else {
+                linkClicks.add(event);
+            }
+        }
+
+        WriteResult result = new WriteResult();
+        insertAll("page_views", PAGE_VIEW_COLUMNS, 12, pageViews, result);
+        insertAll("link_clicks", LINK_CLICK_COLUMNS, 11, linkClicks, result);
+        return result;
+    }
+
+    private void insertAll(String table, String columns, int columnCount,
+                           List<AnalyticsEvent> events, WriteResult result) {
+        for (int from = 0; from < events.size(); from += ROWS_PER_STATEMENT) {
+            List<AnalyticsEvent> chunk = events.subList(from, Math.min(from + ROWS_PER_STATEMENT, events.size()));
+            try {
+                jdbcTemplate.update(buildInsert(table, columns, columnCount, chunk.size()), toArgs(chunk));
+                result.written += chunk.size();
+                chunk.forEach(this::afterWrite);
+            } catch (Exception e) {
+                log.warn("Falha ao gravar lote de {} eventos em {}, regravando individualmente: {}",
+                        chunk.size(), table, e.getMessage());
+                for (AnalyticsEvent event : chunk) {
+                    try {
+                        jdbcTemplate.update(buildInsert(table, columns, columnCount, 1), toArgs(List.of(event)));
+                        result.written++;
+                        afterWrite(event);
+                    } catch (Exception rowError) {
+                        result.failed++;
+                        log.debug("Evento de analytics descartado ({} {}): {}",
+                                event.getType(), event.getTargetId(), rowError.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // Só conta eventos efetivamente gravados, mantendo contadores e sketches coerentes com as tabelas
+    private void afterWrite(AnalyticsEvent event) {
+        sketchStore.record(event);
+        liveWindows.record(event);
+        trendingLinksStore.record(event);
+        if (event.getType() == AnalyticsEvent.Type.LINK_CLICK) {
+            clickCounterStore.increment(event.getTargetId());
+        }
+    }
+
+    private static String buildInsert(String table, String columns, int columnCount, int rows) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columnCount; i++) {
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(")");
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(table).append(" (").append(columns).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private static Object[] toArgs(List<AnalyticsEvent> events) {
+        List<Object> args = new ArrayList<>();
+        for (AnalyticsEvent event : events) {
+            args.add(event.getTargetId());
+            args.add(event.getUserId());
+            args.add(event.getIpAddress());
+            args.add(event.getUserAgent());
+            args.add(event.getReferer());
+            args.add(event.getCountry());
+            args.add(event.getCity());
+            args.add(event.getDeviceType());
+            args.add(event.getBrowser());
+            args.add(event.getOperatingSystem());
+            if (event.getType() == AnalyticsEvent.Type.PAGE_VIEW) {
+                args.add(event.getSessionDuration());
+            }
+            args.add(Timestamp.valueOf(event.getOccurredAt()));
+        }
+        return args.toArray();
+    }
+
+    public static class WriteResult {
+        private long written;
+        private long failed;
+
+        WriteResult() {
+        }
+
+        WriteResult(long written, long failed) {
+            this.written = written;
+            this.failed = failed;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.AnalyticsExportDataset;
+import br.rafaalmeida1.nutri_thata_api.enums.AnalyticsExportFormat;
+import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
+import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação dos eventos brutos (page views e cliques) em CSV ou NDJSON.
+ *
+ * As linhas são lidas em páginas de tamanho fixo, paginadas por chave (data do evento, id)
+ * em vez de OFFSET, e cada página é escrita e descarregada antes da próxima ser lida. As
+ * consultas retornam projeções escalares, então nenhuma entidade fica no contexto de
+ * persistência e o uso de memória não cresce com o tamanho da exportação.
+ */
+@Service
+@Slf4j
+public class AnalyticsExportService {
+
+    static final String[] PAGE_VIEW_COLUMNS = {
+            "id", "viewed_at", "user_id", "ip_address", "user_agent", "referer", "country", "city",
+            "device_type", "browser", "operating_system", "session_duration"
+    };
+
+    static final String[] LINK_CLICK_COLUMNS = {
+            "id", "clicked_at", "link_id", "link_title", "user_id", "ip_address", "user_agent", "referer", "country", "city",
+            "device_type", "browser", "operating_system"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PageViewRepository pageViewRepository;
+    private final LinkClickRepository linkClickRepository;
+    private final ProfessionalProfileRepository profileRepository;
+    private final int pageSize;
+
+    public AnalyticsExportService(PageViewRepository pageViewRepository,
+                                  LinkClickRepository linkClickRepository,
+                                  ProfessionalProfileRepository profileRepository,
+                                  @Value("${nutri.analytics.export.page-size:5000}") int pageSize) {
+        this.pageViewRepository = pageViewRepository;
+        this.linkClickRepository = linkClickRepository;
+        this.profileRepository = profileRepository;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Valida a requisição e resolve o perfil antes da resposta começar; a escrita em si
+     * acontece depois, na thread assíncrona do {@link StreamingResponseBody}.
+     */
+    public StreamingResponseBody export(User user, AnalyticsExportDataset dataset, AnalyticsExportFormat format,
+                                        LocalDateTime startDate, LocalDateTime endDate, boolean gzip) {
+        if (startDate.isAfter(endDate)) {
+            throw new BusinessException("Data inicial deve ser anterior à data final");
+        }
+        ProfessionalProfile profile = profileRepository.findByUser(user)
+                .orElseThrow(() -> new RuntimeException("Perfil profissional não encontrado"));
+
+        return outputStream -> {
+            long rows = write(profile, dataset, format, startDate, endDate, gzip, outputStream);
+            log.info("Exportação de {} concluída: perfil={}, linhas={}", dataset, profile.getId(), rows);
+        };
+    }
+
+    long write(ProfessionalProfile profile, AnalyticsExportDataset dataset, AnalyticsExportFormat format,
+               LocalDateTime startDate, LocalDateTime endDate, boolean gzip, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipStream : outputStream, StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+        String[] columns = dataset == AnalyticsExportDataset.PAGE_VIEWS ? PAGE_VIEW_COLUMNS : LINK_CLICK_COLUMNS;
+        RowWriter rowWriter = format == AnalyticsExportFormat.CSV ? new CsvRowWriter(writer, columns) : new NdjsonRowWriter(writer, columns);
+
+        long total = 0;
+        LocalDateTime afterDate = startDate;
+        Long afterId = 0L;
+        List<Object[]> page;
+        do {
+            page = dataset == AnalyticsExportDataset.PAGE_VIEWS
+                    ? pageViewRepository.findExportPage(profile, afterDate, afterId, endDate, PageRequest.of(0, pageSize))
+                    : linkClickRepository.findExportPage(profile, afterDate, afterId, endDate, PageRequest.of(0, pageSize));
+            for (Object[] row : page) {
+                rowWriter.write(row);
+            }
+            if (!page.isEmpty()) {
+                Object[] last = page.get(page.size() - 1);
+                afterId = (Long) last[0];
+                afterDate = (LocalDateTime) last[1];
+            }
+            total += page.size();
+            rowWriter.flush();
+        } while (page.size() == pageSize);
+
+        rowWriter.close();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        outputStream.flush();
+        return total;
+    }
+
+    private static String format(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return String.valueOf(value);
+    }
+
+    private interface RowWriter {
+        void write(Object[] row) throws IOException;
+
+        void flush() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer, String[] columns) throws IOException {
+            this.writer = writer;
+            writer.write(String.join(",", columns));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (row[i] != null) {
+                    writer.write(escape(format(row[i])));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * Aspas conforme a RFC 4180. Valores iniciados por caracteres de fórmula recebem um
+         * apóstrofo, já que user agent e referer vêm de visitantes anônimos e o arquivo
+         * costuma ser aberto em planilhas.
+         */
+        static String escape(String value) {
+            if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        private NdjsonRowWriter(Writer writer, String[] columns) throws IOException {
+            this.generator = new JsonFactory().createGenerator(writer);
+            this.generator.setRootValueSeparator(null);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                generator.writeFieldName(columns[i]);
+                Object value = row[i];
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Long number) {
+                    generator.writeNumber(number);
+                } else {
+                    generator.writeString(format(value));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila limitada em memória entre o caminho da requisição e o banco.
+ *
+ * Os controllers públicos apenas enfileiram eventos; workers dedicados drenam a fila
+ * em lotes de até {@code batchSize} eventos ou a cada {@code maxFlushLatencyMs}, o que
+ * ocorrer primeiro. Com a fila cheia o evento é descartado (após aguardar no máximo
+ * {@code offerTimeoutMs}) e contabilizado em {@code dropped}, em vez de segurar a
+ * requisição. No desligamento a fila é drenada antes do pool de conexões fechar.
+ */
+@Component
+@Slf4j
+public class AnalyticsIngestionQueue implements SmartLifecycle {
+
+    private static final long POLL_SLICE_MS = 100;
+
+    private final AnalyticsEventWriter writer;
+    private final BlockingQueue<AnalyticsEvent> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxFlushLatencyMs;
+    private final long offerTimeoutMs;
+    private final int workerCount;
+    private final long shutdownTimeoutMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public AnalyticsIngestionQueue(
+            AnalyticsEventWriter writer,
+            @Value("${nutri.analytics.ingestion.queue-capacity:10000}") int capacity,
+            @Value("${nutri.analytics.ingestion.batch-size:500}") int batchSize,
+            @Value("${nutri.analytics.ingestion.max-flush-latency-ms:1000}") long maxFlushLatencyMs,
+            @Value("${nutri.analytics.ingestion.offer-timeout-ms:0}") long offerTimeoutMs,
+            @Value("${nutri.analytics.ingestion.workers:2}") int workerCount,
+            @Value("${nutri.analytics.ingestion.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.writer = writer;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxFlushLatencyMs = maxFlushLatencyMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.workerCount = workerCount;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    /**
+     * Enfileira o evento sem bloquear a requisição além de {@code offerTimeoutMs}.
+     *
+     * @return false se o evento foi descartado por falta de espaço na fila
+     */
+    public boolean enqueue(AnalyticsEvent event) {
+        boolean accepted;
+        try {
+            accepted = offerTimeoutMs > 0
+                    ? queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)
+                    : queue.offer(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else {
+            long total = dropped.incrementAndGet();
+            // Evita inundar o log durante um pico: registra o 1º descarte e depois a cada 1000
+            if (total == 1 || total % 1000 == 0) {
+                log.warn("Fila de analytics cheia ({} eventos), {} eventos descartados até agora", capacity, total);
+            }
+        }
+        return accepted;
+    }
+
+    public IngestionStats getStats() {
+        return IngestionStats.builder()
+                .queueSize(queue.size())
+                .queueCapacity(capacity)
+                .enqueued(enqueued.get())
+                .dropped(dropped.get())
+                .written(written.get())
+                .failed(failed.get())
+                .batches(batches.get())
+                .build();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "Analytics-Ingest-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Ingestão de analytics iniciada: {} workers, lote={}, latência máx={}ms, capacidade={}",
+                workerCount, batchSize, maxFlushLatencyMs, capacity);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+
+        // Garante que nada fique para trás caso algum worker não tenha terminado a tempo
+        List<AnalyticsEvent> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining = new ArrayList<>();
+        }
+        log.info("Ingestão de analytics finalizada: {}", getStats());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Para depois do servidor web, para não perder eventos de requisições ainda em andamento
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<AnalyticsEvent> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Erro inesperado no worker de ingestão de analytics", e);
+            }
+        }
+    }
+
+    private List<AnalyticsEvent> nextBatch() throws InterruptedException {
+        List<AnalyticsEvent> batch = new ArrayList<>(batchSize);
+        AnalyticsEvent first = queue.poll(Math.min(maxFlushLatencyMs, POLL_SLICE_MS), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushLatencyMs);
+        while (batch.size() < batchSize && running) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            // Espera em fatias curtas para perceber o desligamento sem segurar o lote
+            AnalyticsEvent next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_SLICE_MS)),
+                    TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+        if (!running) {
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+        return batch;
+    }
+
+    private void flush(List<AnalyticsEvent> batch) {
+        try {
+            AnalyticsEventWriter.WriteResult result = writer.write(batch);
+            written.addAndGet(result.getWritten());
+            failed.addAndGet(result.getFailed());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("Erro ao gravar lote de {} eventos de analytics", batch.size(), e);
+        } finally {
+            batches.incrementAndGet();
+        }
+    }
+
+    @Data
+    @Builder
+    public static class IngestionStats {
+        private int queueSize;
+        private int queueCapacity;
+        private long enqueued;
+        private long dropped;
+        private long written;
+        private long failed;
+        private long batches;
+    }
+}
@@ -0,0 +1,153 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.config.SchedulingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manutenção das partições mensais de page_views, link_clicks e user_activities (V24).
+ *
+ * Diariamente garante que existam as partições dos próximos {@code monthsAhead} meses e
+ * remove (DETACH + DROP) as partições inteiramente anteriores à janela de retenção.
+ * Em bancos sem particionamento (H2 nos testes, ou um PostgreSQL ainda sem a V24) a
+ * retenção cai para um DELETE por data, com o mesmo resultado.
+ *
+ * A retenção apaga dados e vem desligada ({@code retention-months=0}): cada ambiente
+ * decide se quer ligá-la. Eventos fora das partições mensais ficam na partição DEFAULT
+ * (V32), de onde a retenção os remove por DELETE.
+ */
+@Service
+@Slf4j
+public class AnalyticsPartitionService {
+
+    // Tabela particionada -> coluna de partição
+    static final Map<String, String> PARTITIONED_TABLES = new LinkedHashMap<>();
+
+    static {
+        PARTITIONED_TABLES.put("page_views", "viewed_at");
+        PARTITIONED_TABLES.put("link_clicks", "clicked_at");
+        PARTITIONED_TABLES.put("user_activities", "created_at");
+    }
+
+    private static final String DEFAULT_PARTITION_SUFFIX = "_default";
+
+    private static final Pattern PARTITION_SUFFIX = Pattern.compile("_p(\\d{6})$");
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private volatile Boolean postgres;
+
+    public AnalyticsPartitionService(JdbcTemplate jdbcTemplate,
+                                     @Value("${nutri.analytics.partitions.months-ahead:3}") int monthsAhead,
+                                     @Value("${nutri.analytics.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(cron = "${nutri.analytics.partitions.cron:0 30 3 * * *}",
+               scheduler = SchedulingConfig.ANALYTICS_MAINTENANCE_SCHEDULER)
+    public void maintain() {
+        LocalDate today = LocalDate.now();
+        for (String table : PARTITIONED_TABLES.keySet()) {
+            try {
+                ensurePartitions(table, today);
+                applyRetention(table, today);
+            } catch (Exception e) {
+                log.error("Erro na manutenção das partições de {}", table, e);
+            }
+        }
+    }
+
+    /**
+     * Cria as partições do mês corrente até {@code monthsAhead} meses à frente.
+     */
+    void ensurePartitions(String table, LocalDate today) {
+        if (!isPartitioned(table)) {
+            return;
+        }
+        Integer created = jdbcTemplate.queryForObject("SELECT analytics_ensure_monthly_partitions(?, ?, ?)", Integer.class,
+                table, Date.valueOf(today.withDayOfMonth(1)), Date.valueOf(today.plusMonths(monthsAhead)));
+        if (created != null && created > 0) {
+            log.info("{} partições mensais criadas para {}", created, table);
+        }
+    }
+
+    /**
+     * Remove os eventos anteriores ao primeiro dia do mês de {@code today - retentionMonths}.
+     * Retenção menor ou igual a zero desativa a remoção.
+     */
+    void applyRetention(String table, LocalDate today) {
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth cutoff = YearMonth.from(today).minusMonths(retentionMonths);
+
+        if (!isPartitioned(table)) {
+            int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE " + PARTITIONED_TABLES.get(table) + " < ?",
+                    Timestamp.valueOf(cutoff.atDay(1).atStartOfDay()));
+            if (deleted > 0) {
+                log.info("{} registros de {} anteriores a {} removidos", deleted, table, cutoff);
+            }
+            return;
+        }
+
+        for (String partition : findPartitions(table)) {
+            Matcher matcher = PARTITION_SUFFIX.matcher(partition);
+            if (matcher.find() && YearMonth.parse(matcher.group(1), PARTITION_MONTH).isBefore(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Partição {} removida pela política de retenção", partition);
+            } else if (partition.equals(table + DEFAULT_PARTITION_SUFFIX)) {
+                int deleted = jdbcTemplate.update("DELETE FROM " + partition + " WHERE " + PARTITIONED_TABLES.get(table) + " < ?",
+                        Timestamp.valueOf(cutoff.atDay(1).atStartOfDay()));
+                if (deleted > 0) {
+                    log.info("{} registros de {} anteriores a {} removidos", deleted, partition, cutoff);
+                }
+            }
+        }
+    }
+
+    private List<String> findPartitions(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? ORDER BY c.relname",
+                String.class, table);
+    }
+
+    private boolean isPartitioned(String table) {
+        if (!isPostgres()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,186 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.config.SchedulingConfig;
+import br.rafaalmeida1.nutri_thata_api.entities.AnalyticsRollupState;
+import br.rafaalmeida1.nutri_thata_api.repository.AnalyticsRollupStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Consolida page_views e link_clicks em agregados diários (V21).
+ *
+ * Cada execução recalcula, de forma idempotente, os dias fechados desde a última
+ * marca d'água mais os últimos {@code lookbackDays} dias, para absorver eventos que
+ * chegaram atrasados pela fila de ingestão. O dia corrente nunca é consolidado: as
+ * leituras usam os rollups até {@link #getRolledUpTo()} e a tabela bruta depois disso.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsRollupService {
+
+    static final String JOB_NAME = "daily_page_link_rollup";
+
+    static final String SKETCH_BACKFILL_JOB_NAME = "unique_sketch_backfill";
+
+    // Marca d'água usada quando nenhum dia foi consolidado ainda
+    private static final LocalDate NEVER = LocalDate.of(1970, 1, 1);
+
+    private static final String[] ROLLUP_TABLES = {
+            "page_view_daily_stats", "page_view_daily_totals", "link_click_daily_stats", "link_click_daily_totals"
+    };
+
+    private static final String INSERT_PAGE_VIEW_STATS =
+            "INSERT INTO page_view_daily_stats (professional_profile_id, stat_date, country, device_type, browser, operating_system, views) " +
+            "SELECT professional_profile_id, CAST(viewed_at AS DATE), COALESCE(country, ''), COALESCE(device_type, ''), " +
+            "COALESCE(browser, ''), COALESCE(operating_system, ''), COUNT(*) " +
+            "FROM page_views WHERE viewed_at >= ? AND viewed_at < ? " +
+            "GROUP BY professional_profile_id, CAST(viewed_at AS DATE), COALESCE(country, ''), COALESCE(device_type, ''), " +
+            "COALESCE(browser, ''), COALESCE(operating_system, '')";
+
+    private static final String INSERT_PAGE_VIEW_TOTALS =
+            "INSERT INTO page_view_daily_totals (professional_profile_id, stat_date, views, unique_visitors, session_duration_sum, session_duration_count) " +
+            "SELECT professional_profile_id, CAST(viewed_at AS DATE), COUNT(*), COUNT(DISTINCT ip_address), " +
+            "COALESCE(SUM(session_duration), 0), COUNT(session_duration) " +
+            "FROM page_views WHERE viewed_at >= ? AND viewed_at < ? " +
+            "GROUP BY professional_profile_id, CAST(viewed_at AS DATE)";
+
+    private static final String INSERT_LINK_CLICK_STATS =
+            "INSERT INTO link_click_daily_stats (professional_link_id, professional_profile_id, stat_date, country, device_type, browser, operating_system, clicks) " +
+            "SELECT lc.professional_link_id, pl.professional_profile_id, CAST(lc.clicked_at AS DATE), COALESCE(lc.country, ''), " +
+            "COALESCE(lc.device_type, ''), COALESCE(lc.browser, ''), COALESCE(lc.operating_system, ''), COUNT(*) " +
+            "FROM link_clicks lc JOIN professional_links pl ON pl.id = lc.professional_link_id " +
+            "WHERE lc.clicked_at >= ? AND lc.clicked_at < ? " +
+            "GROUP BY lc.professional_link_id, pl.professional_profile_id, CAST(lc.clicked_at AS DATE), COALESCE(lc.country, ''), " +
+            "COALESCE(lc.device_type, ''), COALESCE(lc.browser, ''), COALESCE(lc.operating_system, '')";
+
+    private static final String INSERT_LINK_CLICK_TOTALS =
+            "INSERT INTO link_click_daily_totals (professional_link_id, professional_profile_id, stat_date, clicks, unique_visitors) " +
+            "SELECT lc.professional_link_id, pl.professional_profile_id, CAST(lc.clicked_at AS DATE), COUNT(*), COUNT(DISTINCT lc.ip_address) " +
+            "FROM link_clicks lc JOIN professional_links pl ON pl.id = lc.professional_link_id " +
+            "WHERE lc.clicked_at >= ? AND lc.clicked_at < ? " +
+            "GROUP BY lc.professional_link_id, pl.professional_profile_id, CAST(lc.clicked_at AS DATE)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnalyticsRollupStateRepository stateRepository;
+    private final UniqueVisitorSketchStore sketchStore;
+
+    @Value("${nutri.analytics.rollup.lookback-days:2}")
+    private int lookbackDays;
+
+    /**
+     * Último dia fechado já consolidado. Dias posteriores devem ser lidos das tabelas brutas.
+     */
+    @Transactional(readOnly = true)
+    public LocalDate getRolledUpTo() {
+        return stateRepository.findById(JOB_NAME)
+                .map(AnalyticsRollupState::getLastRolledDate)
+                .orElse(NEVER);
+    }
+
+    /**
+     * Último dia consolidado que nenhuma execução futura vai recalcular: os dias dentro de
+     * {@code lookbackDays} ainda podem receber eventos atrasados.
+     */
+    public LocalDate getFinalizedThrough(LocalDate rolledUpTo) {
+        return min(rolledUpTo, LocalDate.now().minusDays(lookbackDays + 1L));
+    }
+
+    @Scheduled(initialDelayString = "${nutri.analytics.rollup.initial-delay-ms:60000}",
+               fixedDelayString = "${nutri.analytics.rollup.interval-ms:3600000}",
+               scheduler = SchedulingConfig.ANALYTICS_MAINTENANCE_SCHEDULER)
+    @Transactional
+    public void rollUp() {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+
+        LocalDate from = stateRepository.findById(JOB_NAME)
+                .map(state -> min(state.getLastRolledDate().plusDays(1), today.minusDays(lookbackDays)))
+                .orElseGet(this::findFirstEventDate);
+
+        if (from != null && !from.isAfter(yesterday)) {
+            rollRange(from, today);
+            log.info("Rollup diário de analytics recalculado de {} até {}", from, yesterday);
+        }
+
+        stateRepository.save(AnalyticsRollupState.builder()
+                .name(JOB_NAME)
+                .lastRolledDate(yesterday)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Gera, uma única vez, os sketches de visitantes únicos do histórico anterior à
+     * ingestão com HyperLogLog. Pode sobrepor eventos já registrados na ingestão, pois
+     * a mescla de sketches é idempotente.
+     */
+    @Scheduled(initialDelayString = "${nutri.analytics.rollup.initial-delay-ms:60000}",
+               fixedDelayString = "${nutri.analytics.rollup.interval-ms:3600000}",
+               scheduler = SchedulingConfig.ANALYTICS_MAINTENANCE_SCHEDULER)
+    public void backfillUniqueSketches() {
+        if (stateRepository.existsById(SKETCH_BACKFILL_JOB_NAME)) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate from = findFirstEventDate();
+        if (from != null) {
+            sketchStore.rebuildFromRaw(from, today.plusDays(1));
+            log.info("Sketches de visitantes únicos gerados a partir de {}", from);
+        }
+
+        stateRepository.save(AnalyticsRollupState.builder()
+                .name(SKETCH_BACKFILL_JOB_NAME)
+                .lastRolledDate(today)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Recalcula os agregados de [from, toExclusive). Apaga e reinsere o intervalo na mesma
+     * transação, então reexecutar o mesmo intervalo produz sempre o mesmo resultado.
+     */
+    private void rollRange(LocalDate from, LocalDate toExclusive) {
+        for (String table : ROLLUP_TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE stat_date >= ? AND stat_date < ?",
+                    Date.valueOf(from), Date.valueOf(toExclusive));
+        }
+
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(toExclusive.atStartOfDay());
+        jdbcTemplate.update(INSERT_PAGE_VIEW_STATS, start, end);
+        jdbcTemplate.update(INSERT_PAGE_VIEW_TOTALS, start, end);
+        jdbcTemplate.update(INSERT_LINK_CLICK_STATS, start, end);
+        jdbcTemplate.update(INSERT_LINK_CLICK_TOTALS, start, end);
+    }
+
+    private LocalDate findFirstEventDate() {
+        Timestamp firstView = jdbcTemplate.queryForObject("SELECT MIN(viewed_at) FROM page_views", Timestamp.class);
+        Timestamp firstClick = jdbcTemplate.queryForObject("SELECT MIN(clicked_at) FROM link_clicks", Timestamp.class);
+        if (firstView == null && firstClick == null) {
+            return null;
+        }
+        if (firstView == null) {
+            return firstClick.toLocalDateTime().toLocalDate();
+        }
+        if (firstClick == null) {
+            return firstView.toLocalDateTime().toLocalDate();
+        }
+        return min(firstView.toLocalDateTime().toLocalDate(), firstClick.toLocalDateTime().toLocalDate());
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
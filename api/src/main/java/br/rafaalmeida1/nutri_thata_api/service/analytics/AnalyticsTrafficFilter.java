@@ -0,0 +1,127 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Filtro aplicado antes de um evento entrar na fila de ingestão.
+ *
+ * Descarta acessos de bots (crawlers, geradores de preview de link, clientes HTTP de
+ * scripts), identificados pelo {@link UserAgentClassifier}, e visualizações repetidas do
+ * mesmo visitante (IP + user agent) na mesma página dentro de {@code duplicate-window-seconds},
+ * como as de quem atualiza a página várias vezes. As visualizações recentes ficam num
+ * {@link TimeBucketedBloomFilter}, com memória fixa.
+ */
+@Component
+public class AnalyticsTrafficFilter {
+
+    private final boolean enabled;
+    private final TimeBucketedBloomFilter recentViews;
+    private final LongSupplier clock;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong suppressedBots = new AtomicLong();
+    private final AtomicLong suppressedDuplicates = new AtomicLong();
+
+    @Autowired
+    public AnalyticsTrafficFilter(
+            @Value("${nutri.analytics.filter.enabled:true}") boolean enabled,
+            @Value("${nutri.analytics.filter.duplicate-window-seconds:1800}") long duplicateWindowSeconds,
+            @Value("${nutri.analytics.filter.expected-views-per-window:100000}") int expectedViewsPerWindow,
+            @Value("${nutri.analytics.filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this(enabled, duplicateWindowSeconds, expectedViewsPerWindow, falsePositiveRate, System::currentTimeMillis);
+    }
+
+    AnalyticsTrafficFilter(boolean enabled, long duplicateWindowSeconds, int expectedViewsPerWindow,
+                           double falsePositiveRate, LongSupplier clock) {
+        this.enabled = enabled;
+        this.recentViews = new TimeBucketedBloomFilter(duplicateWindowSeconds * 1000, expectedViewsPerWindow,
+                falsePositiveRate);
+        this.clock = clock;
+    }
+
+    /**
+     * Informa se a visualização deve ser gravada.
+     */
+    public boolean acceptPageView(Long professionalId, String ipAddress, String userAgent,
+                                  UserAgentClassifier.Classification classification) {
+        if (!enabled) {
+            return true;
+        }
+        if (classification != null && classification.bot()) {
+            suppressedBots.incrementAndGet();
+            return false;
+        }
+        if (!recentViews.add(visitorHash(professionalId, ipAddress, userAgent), clock.getAsLong())) {
+            suppressedDuplicates.incrementAndGet();
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Informa se o clique deve ser gravado. Cliques repetidos são mantidos: cada um é uma
+     * saída real para o link.
+     */
+    public boolean acceptLinkClick(UserAgentClassifier.Classification classification) {
+        if (!enabled) {
+            return true;
+        }
+        if (classification != null && classification.bot()) {
+            suppressedBots.incrementAndGet();
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    public TrafficFilterStats getStats() {
+        return TrafficFilterStats.builder()
+                .enabled(enabled)
+                .accepted(accepted.get())
+                .suppressedBots(suppressedBots.get())
+                .suppressedDuplicates(suppressedDuplicates.get())
+                .build();
+    }
+
+    // FNV-1a de 64 bits sobre perfil, IP e user agent, sem concatenar strings
+    static long visitorHash(Long professionalId, String ipAddress, String userAgent) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ (professionalId == null ? 0 : professionalId)) * 0x100000001b3L;
+        hash = hashString(hash, ipAddress);
+        hash = hashString(hash, userAgent);
+        // Mistura final (fmix64 do MurmurHash3): as duas metades viram os hashes do filtro de Bloom
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long hashString(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        // Separador, para que ("ab", "c") e ("a", "bc") não colidam
+        return (hash ^ 0xFFFF) * 0x100000001b3L;
+    }
+
+    @Data
+    @Builder
+    public static class TrafficFilterStats {
+        private boolean enabled;
+        private long accepted;
+        private long suppressedBots;
+        private long suppressedDuplicates;
+    }
+}
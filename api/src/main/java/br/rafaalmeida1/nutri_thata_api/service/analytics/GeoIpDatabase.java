@@ -0,0 +1,409 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base de faixas de IP para geolocalização, lida de um arquivo binário mapeado em memória.
+ *
+ * O arquivo é gerado por {@link #compile} a partir de um CSV {@code ip_inicial,ip_final,país,cidade}
+ * (formato dos dumps "lite" gratuitos, como o DB-IP) e tem o layout, em big-endian:
+ * <pre>
+ * cabeçalho   magic, versão, faixas IPv4, faixas IPv6, localizações   (5 x int)
+ * IPv4        início, fim, localização                               (int, int, int)
+ * IPv6        início, fim, localização                               (2 x long, 2 x long, int)
+ * locais      país e cidade                                          (int tamanho + UTF-8, cada)
+ * </pre>
+ * As faixas ficam ordenadas e sem sobreposição, então a busca é binária direto sobre o
+ * buffer mapeado, sem alocar. Só a tabela de localizações, pequena, é carregada no heap.
+ */
+final class GeoIpDatabase {
+
+    static final int MAGIC = 0x4E474950; // "NGIP"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int IPV4_RECORD_BYTES = 3 * Integer.BYTES;
+    private static final int IPV6_RECORD_BYTES = 4 * Long.BYTES + Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int ipv4Count;
+    private final int ipv6Count;
+    private final int ipv6Offset;
+    private final GeoIpLocator.GeoLocation[] locations;
+
+    private GeoIpDatabase(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Arquivo não é uma base de geolocalização compilada");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Versão de base de geolocalização não suportada: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.ipv4Count = buffer.getInt(8);
+        this.ipv6Count = buffer.getInt(12);
+        this.ipv6Offset = HEADER_BYTES + ipv4Count * IPV4_RECORD_BYTES;
+
+        int locationCount = buffer.getInt(16);
+        this.locations = new GeoIpLocator.GeoLocation[locationCount];
+        int position = ipv6Offset + ipv6Count * IPV6_RECORD_BYTES;
+        for (int i = 0; i < locationCount; i++) {
+            String country = readString(buffer, position);
+            position += Integer.BYTES + buffer.getInt(position);
+            String city = readString(buffer, position);
+            position += Integer.BYTES + buffer.getInt(position);
+            locations[i] = new GeoIpLocator.GeoLocation(country, city);
+        }
+    }
+
+    /**
+     * Mapeia o arquivo em modo somente leitura. O mapeamento continua válido mesmo que o
+     * arquivo seja substituído depois (por rename), então uma base nova nunca é vista pela
+     * metade por quem ainda usa a antiga.
+     */
+    static GeoIpDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new GeoIpDatabase(mapped);
+        }
+    }
+
+    static boolean isCompiled(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(header, 0) == Integer.BYTES && header.getInt(0) == MAGIC;
+        }
+    }
+
+    int ipv4Count() {
+        return ipv4Count;
+    }
+
+    int ipv6Count() {
+        return ipv6Count;
+    }
+
+    /**
+     * Localização do IP (literal IPv4 ou IPv6), ou {@code null} se ele for inválido ou não
+     * estiver em nenhuma faixa. IPv6 mapeado em IPv4 ({@code ::ffff:a.b.c.d}) usa as faixas IPv4.
+     */
+    GeoIpLocator.GeoLocation lookup(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        if (ip.indexOf(':') < 0) {
+            long ipv4 = parseIpv4(ip, 0, ip.length());
+            return ipv4 < 0 ? null : lookupIpv4((int) ipv4);
+        }
+        long[] ipv6 = parseIpv6(ip);
+        if (ipv6 == null) {
+            return null;
+        }
+        if (ipv6[0] == 0 && (ipv6[1] >>> 32) == 0xFFFFL) {
+            return lookupIpv4((int) ipv6[1]);
+        }
+        return lookupIpv6(ipv6[0], ipv6[1]);
+    }
+
+    private GeoIpLocator.GeoLocation lookupIpv4(int ip) {
+        int low = 0;
+        int high = ipv4Count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Integer.compareUnsigned(buffer.getInt(HEADER_BYTES + mid * IPV4_RECORD_BYTES), ip) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        int record = HEADER_BYTES + found * IPV4_RECORD_BYTES;
+        if (Integer.compareUnsigned(ip, buffer.getInt(record + Integer.BYTES)) > 0) {
+            return null;
+        }
+        return locations[buffer.getInt(record + 2 * Integer.BYTES)];
+    }
+
+    private GeoIpLocator.GeoLocation lookupIpv6(long high64, long low64) {
+        int low = 0;
+        int high = ipv6Count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = ipv6Offset + mid * IPV6_RECORD_BYTES;
+            if (compareIpv6(buffer.getLong(record), buffer.getLong(record + Long.BYTES), high64, low64) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+        int record = ipv6Offset + found * IPV6_RECORD_BYTES;
+        if (compareIpv6(high64, low64, buffer.getLong(record + 2 * Long.BYTES), buffer.getLong(record + 3 * Long.BYTES)) > 0) {
+            return null;
+        }
+        return locations[buffer.getInt(record + 4 * Long.BYTES)];
+    }
+
+    /**
+     * Converte o CSV de faixas no formato binário. Linhas vazias e iniciadas por {@code #}
+     * são ignoradas; faixas sobrepostas ou com IP inválido interrompem a compilação.
+     */
+    static void compile(Path csv, Path output) throws IOException {
+        List<long[]> ipv4 = new ArrayList<>();
+        List<long[]> ipv6 = new ArrayList<>();
+        Map<GeoIpLocator.GeoLocation, Integer> locationIds = new HashMap<>();
+        List<GeoIpLocator.GeoLocation> locations = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", 4);
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException("Linha " + lineNumber + " da base de geolocalização inválida");
+                }
+                GeoIpLocator.GeoLocation location = new GeoIpLocator.GeoLocation(
+                        emptyToNull(unquote(fields[2])), fields.length > 3 ? emptyToNull(unquote(fields[3])) : null);
+                int locationId = locationIds.computeIfAbsent(location, key -> {
+                    locations.add(key);
+                    return locations.size() - 1;
+                });
+
+                String start = unquote(fields[0]);
+                String end = unquote(fields[1]);
+                if (start.indexOf(':') < 0) {
+                    long first = parseIpv4(start, 0, start.length());
+                    long last = parseIpv4(end, 0, end.length());
+                    if (first < 0 || last < 0 || first > last) {
+                        throw new IllegalArgumentException("Faixa IPv4 inválida na linha " + lineNumber);
+                    }
+                    ipv4.add(new long[]{first, last, locationId});
+                } else {
+                    long[] first = parseIpv6(start);
+                    long[] last = parseIpv6(end);
+                    if (first == null || last == null || compareIpv6(first[0], first[1], last[0], last[1]) > 0) {
+                        throw new IllegalArgumentException("Faixa IPv6 inválida na linha " + lineNumber);
+                    }
+                    ipv6.add(new long[]{first[0], first[1], last[0], last[1], locationId});
+                }
+            }
+        }
+
+        ipv4.sort(Comparator.comparingLong(range -> range[0]));
+        for (int i = 1; i < ipv4.size(); i++) {
+            if (ipv4.get(i)[0] <= ipv4.get(i - 1)[1]) {
+                throw new IllegalArgumentException("Faixas IPv4 sobrepostas na base de geolocalização");
+            }
+        }
+        ipv6.sort((a, b) -> compareIpv6(a[0], a[1], b[0], b[1]));
+        for (int i = 1; i < ipv6.size(); i++) {
+            long[] previous = ipv6.get(i - 1);
+            if (compareIpv6(ipv6.get(i)[0], ipv6.get(i)[1], previous[2], previous[3]) <= 0) {
+                throw new IllegalArgumentException("Faixas IPv6 sobrepostas na base de geolocalização");
+            }
+        }
+
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ipv4.size());
+            out.writeInt(ipv6.size());
+            out.writeInt(locations.size());
+            for (long[] range : ipv4) {
+                out.writeInt((int) range[0]);
+                out.writeInt((int) range[1]);
+                out.writeInt((int) range[2]);
+            }
+            for (long[] range : ipv6) {
+                out.writeLong(range[0]);
+                out.writeLong(range[1]);
+                out.writeLong(range[2]);
+                out.writeLong(range[3]);
+                out.writeInt((int) range[4]);
+            }
+            for (GeoIpLocator.GeoLocation location : locations) {
+                writeString(out, location.country());
+                writeString(out, location.city());
+            }
+        }
+    }
+
+    /**
+     * IPv4 em {@code [from, to)} como inteiro sem sinal, ou -1 se o texto não for um IPv4 válido.
+     */
+    static long parseIpv4(String text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && octets < 3) {
+                address = (address << 8) | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (value < 0 || octets != 3) {
+            return -1;
+        }
+        return (address << 8) | value;
+    }
+
+    /**
+     * IPv6 como {@code [64 bits altos, 64 bits baixos]}, aceitando {@code ::}, IPv4 embutido
+     * no final, colchetes e sufixo de zona ({@code %eth0}); {@code null} se for inválido.
+     */
+    static long[] parseIpv6(String text) {
+        int from = 0;
+        int to = text.length();
+        if (to > 1 && text.charAt(0) == '[' && text.charAt(to - 1) == ']') {
+            from = 1;
+            to--;
+        }
+        int zone = text.indexOf('%', from);
+        if (zone >= 0 && zone < to) {
+            to = zone;
+        }
+
+        int[] groups = new int[8];
+        int count = 0;
+        int compressAt = -1;
+        int i = from;
+        if (text.startsWith("::", i)) {
+            compressAt = 0;
+            i += 2;
+        }
+        while (i < to) {
+            int end = i;
+            while (end < to && text.charAt(end) != ':') {
+                end++;
+            }
+            if (end == i) {
+                return null;
+            }
+            if (end == to && text.indexOf('.', i) >= 0 && text.indexOf('.', i) < to) {
+                long ipv4 = parseIpv4(text, i, to);
+                if (ipv4 < 0 || count > 6) {
+                    return null;
+                }
+                groups[count++] = (int) (ipv4 >>> 16);
+                groups[count++] = (int) (ipv4 & 0xFFFF);
+                i = to;
+                break;
+            }
+            if (end - i > 4 || count == 8) {
+                return null;
+            }
+            int group = 0;
+            for (int j = i; j < end; j++) {
+                int digit = Character.digit(text.charAt(j), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                group = (group << 4) | digit;
+            }
+            groups[count++] = group;
+            if (end == to) {
+                i = to;
+            } else if (end + 1 < to && text.charAt(end + 1) == ':') {
+                if (compressAt >= 0) {
+                    return null;
+                }
+                compressAt = count;
+                i = end + 2;
+            } else if (end + 1 == to) {
+                return null;
+            } else {
+                i = end + 1;
+            }
+        }
+
+        if (compressAt < 0 ? count != 8 : count > 7) {
+            return null;
+        }
+        int[] expanded = new int[8];
+        if (compressAt < 0) {
+            expanded = groups;
+        } else {
+            int tail = count - compressAt;
+            System.arraycopy(groups, 0, expanded, 0, compressAt);
+            System.arraycopy(groups, compressAt, expanded, 8 - tail, tail);
+        }
+        long high = 0;
+        long low = 0;
+        for (int g = 0; g < 4; g++) {
+            high = (high << 16) | expanded[g];
+            low = (low << 16) | expanded[g + 4];
+        }
+        return new long[]{high, low};
+    }
+
+    private static int compareIpv6(long high1, long low1, long high2, long low2) {
+        int compare = Long.compareUnsigned(high1, high2);
+        return compare != 0 ? compare : Long.compareUnsigned(low1, low2);
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Nulo e vazio viram a mesma coisa: ausência do campo
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
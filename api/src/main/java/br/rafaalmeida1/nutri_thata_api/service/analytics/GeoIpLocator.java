@@ -0,0 +1,128 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Geolocalização offline de IPs (país e cidade) para os eventos de analytics.
+ *
+ * A base configurada em {@code nutri.analytics.geoip.database-path} pode ser o binário já
+ * compilado ou o CSV de faixas, que é compilado para um arquivo temporário na carga. O
+ * arquivo é verificado periodicamente e, quando muda, a base nova é carregada por inteiro
+ * e trocada de uma vez junto com o cache (Caffeine, limitado e sem lock global nas
+ * consultas); se a carga falhar, a base anterior continua em uso.
+ * Para atualizar, grave o arquivo novo ao lado e renomeie por cima do antigo.
+ */
+@Component
+@Slf4j
+public class GeoIpLocator {
+
+    // Marca IPs já consultados e sem localização, para que também fiquem no cache
+    private static final GeoLocation NOT_FOUND = new GeoLocation(null, null);
+
+    private final Path databasePath;
+    private final int cacheSize;
+    private volatile Loaded loaded;
+
+    public GeoIpLocator(@Value("${nutri.analytics.geoip.database-path:}") String databasePath,
+                        @Value("${nutri.analytics.geoip.cache-size:4096}") int cacheSize) {
+        this.databasePath = databasePath == null || databasePath.isBlank() ? null : Path.of(databasePath);
+        this.cacheSize = cacheSize;
+        if (this.databasePath == null) {
+            log.info("Base de geolocalização não configurada, país e cidade não serão preenchidos");
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * País e cidade do IP, ou {@code null} sem base carregada, com IP inválido ou fora das faixas.
+     */
+    public GeoLocation locate(String ipAddress) {
+        Loaded current = loaded;
+        if (current == null || ipAddress == null) {
+            return null;
+        }
+        GeoLocation location = current.cache.get(ipAddress, ip -> {
+            GeoLocation found = current.database.lookup(ip);
+            return found != null ? found : NOT_FOUND;
+        });
+        return location == NOT_FOUND ? null : location;
+    }
+
+    @Scheduled(fixedDelayString = "${nutri.analytics.geoip.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (databasePath == null) {
+            return;
+        }
+        Loaded current = loaded;
+        try {
+            if (current == null || !Files.getLastModifiedTime(databasePath).equals(current.modified)
+                    || Files.size(databasePath) != current.size) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("Não foi possível verificar a base de geolocalização {}: {}", databasePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Carrega a base do disco e a coloca em uso. Retorna {@code false} se a carga falhou.
+     */
+    boolean reload() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(databasePath);
+            long size = Files.size(databasePath);
+            GeoIpDatabase database;
+            if (GeoIpDatabase.isCompiled(databasePath)) {
+                database = GeoIpDatabase.open(databasePath);
+            } else {
+                Path compiled = Files.createTempFile("geoip-", ".bin");
+                try {
+                    GeoIpDatabase.compile(databasePath, compiled);
+                    database = GeoIpDatabase.open(compiled);
+                } finally {
+                    deleteCompiled(compiled);
+                }
+            }
+            loaded = new Loaded(database, modified, size, newCache(cacheSize));
+            log.info("Base de geolocalização carregada de {}: {} faixas IPv4, {} faixas IPv6",
+                    databasePath, database.ipv4Count(), database.ipv6Count());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Erro ao carregar a base de geolocalização {}", databasePath, e);
+            return false;
+        }
+    }
+
+    // No Linux o mapeamento continua válido depois que o arquivo é removido; onde o sistema
+    // não permite remover um arquivo mapeado, ele fica para o fim da JVM
+    private static void deleteCompiled(Path compiled) {
+        try {
+            Files.deleteIfExists(compiled);
+        } catch (IOException e) {
+            compiled.toFile().deleteOnExit();
+        }
+    }
+
+    private static Cache<String, GeoLocation> newCache(int cacheSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    public record GeoLocation(String country, String city) {
+    }
+
+    private record Loaded(GeoIpDatabase database, FileTime modified, long size, Cache<String, GeoLocation> cache) {
+    }
+}
@@ -0,0 +1,155 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de cliques por link mantidos em memória e descarregados periodicamente
+ * com um único {@code UPDATE ... SET click_count = click_count + ?} em lote.
+ *
+ * Cada link tem uma célula com um {@link LongAdder} (incrementos sem disputa entre
+ * threads) e o total já persistido. O delta pendente é sempre {@code total - flushed},
+ * então incrementos que chegam durante o flush entram no próximo ciclo sem precisar
+ * zerar a célula. Se o UPDATE falhar, {@code flushed} não avança e o delta é
+ * reenviado no flush seguinte. Células sem nada pendente depois do flush saem da memória;
+ * o próximo clique no link cria outra.
+ */
+@Component
+@Slf4j
+public class LinkClickCounterStore implements SmartLifecycle {
+
+    private static final String FLUSH_SQL =
+            "UPDATE professional_links SET click_count = click_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public LinkClickCounterStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void increment(Long linkId) {
+        add(linkId, 1);
+    }
+
+    public void add(Long linkId, long delta) {
+        // compute serializa com a remoção de células já gravadas, então nenhum incremento se perde
+        cells.compute(linkId, (id, cell) -> {
+            Cell current = cell != null ? cell : new Cell();
+            current.total.add(delta);
+            return current;
+        });
+    }
+
+    /**
+     * Cliques ainda não persistidos em {@code professional_links.click_count}.
+     */
+    public long pending(Long linkId) {
+        Cell cell = cells.get(linkId);
+        return cell != null ? cell.pending() : 0L;
+    }
+
+    /**
+     * Valor persistido somado ao delta pendente, para leituras consistentes entre flushes.
+     */
+    public long currentCount(Long linkId, Long persistedCount) {
+        return (persistedCount != null ? persistedCount : 0L) + pending(linkId);
+    }
+
+    /**
+     * Descarta a célula de um link removido, para que o flush não tente atualizá-lo.
+     */
+    public void discard(Long linkId) {
+        cells.remove(linkId);
+    }
+
+    @Scheduled(fixedDelayString = "${nutri.analytics.click-counter.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<Long> flushedIds = new ArrayList<>();
+        List<Cell> flushedCells = new ArrayList<>();
+        List<Long> snapshots = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+
+        cells.forEach((linkId, cell) -> {
+            long snapshot = cell.total.sum();
+            long delta = snapshot - cell.flushed.get();
+            if (delta != 0) {
+                flushedIds.add(linkId);
+                flushedCells.add(cell);
+                snapshots.add(snapshot);
+                args.add(new Object[]{delta, linkId});
+            }
+        });
+
+        if (args.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+        } catch (Exception e) {
+            log.error("Erro ao gravar contadores de cliques de {} links, nova tentativa no próximo ciclo",
+                    args.size(), e);
+            return;
+        }
+
+        for (int i = 0; i < flushedCells.size(); i++) {
+            Cell flushedCell = flushedCells.get(i);
+            long snapshot = snapshots.get(i);
+            cells.computeIfPresent(flushedIds.get(i), (linkId, cell) -> {
+                if (cell != flushedCell) {
+                    // Link descartado e recriado durante o flush: a célula nova não foi gravada
+                    return cell;
+                }
+                cell.flushed.set(snapshot);
+                return cell.pending() == 0 ? null : cell;
+            });
+        }
+    }
+
+    int cellCount() {
+        return cells.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Para depois da fila de ingestão, que ainda incrementa contadores ao drenar
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private static final class Cell {
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong flushed = new AtomicLong();
+
+        private long pending() {
+            return total.sum() - flushed.get();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Perfil dono de cada link, para os agregados em memória que são indexados por perfil
+ * mas recebem cliques identificados só pelo link. O mapeamento fica em um cache limitado,
+ * então links antigos ou apagados não se acumulam na memória.
+ */
+@Component
+public class LinkProfileResolver {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, Long> linkProfiles;
+
+    public LinkProfileResolver(JdbcTemplate jdbcTemplate,
+                               @Value("${nutri.analytics.link-profile.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.linkProfiles = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Perfil do link, ou {@code null} se o link não existe. Um link nunca muda de perfil,
+     * então cada link em cache custa no máximo uma consulta.
+     */
+    public Long profileOf(Long linkId) {
+        Long profileId = linkProfiles.getIfPresent(linkId);
+        if (profileId == null) {
+            List<Long> found = jdbcTemplate.queryForList(
+                    "SELECT professional_profile_id FROM professional_links WHERE id = ?", Long.class, linkId);
+            if (found.isEmpty()) {
+                return null;
+            }
+            profileId = found.get(0);
+            linkProfiles.put(linkId, profileId);
+        }
+        return profileId;
+    }
+}
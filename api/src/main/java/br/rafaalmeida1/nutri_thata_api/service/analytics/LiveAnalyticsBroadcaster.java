@@ -0,0 +1,191 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia, por Server-Sent Events, as janelas ao vivo de cada perfil para os dashboards
+ * conectados. A cada segundo o estado de cada perfil com conexões abertas é lido da
+ * memória e serializado uma única vez, independente de quantos dashboards o recebem.
+ *
+ * Os envios saem de um pool próprio e limitado, nunca da thread do agendador. Cada conexão
+ * tem no máximo um envio em andamento: enquanto ele não termina, os ticks seguintes são
+ * pulados, e um envio parado há mais de {@code sendTimeoutMs} derruba a conexão.
+ */
+@Component
+@Slf4j
+public class LiveAnalyticsBroadcaster {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String TICK_EVENT = "tick";
+
+    private final LiveAnalyticsWindows windows;
+    private final ProfessionalProfileRepository profileRepository;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutMs;
+    private final ExecutorService sender;
+    private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    public LiveAnalyticsBroadcaster(LiveAnalyticsWindows windows,
+                                    ProfessionalProfileRepository profileRepository,
+                                    ObjectMapper objectMapper,
+                                    @Value("${nutri.analytics.live.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                    @Value("${nutri.analytics.live.send-timeout-ms:5000}") long sendTimeoutMs,
+                                    @Value("${nutri.analytics.live.send-threads:4}") int sendThreads,
+                                    @Value("${nutri.analytics.live.send-queue-capacity:1000}") int sendQueueCapacity) {
+        this.windows = windows;
+        this.profileRepository = profileRepository;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(sendThreads, sendThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sendQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "Analytics-Live-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Abre o stream do perfil do usuário, começando pelas séries completas. Ao expirar,
+     * o EventSource do navegador reconecta sozinho e recebe um novo snapshot.
+     */
+    public SseEmitter subscribe(User user) {
+        ProfessionalProfile profile = profileRepository.findByUser(user)
+                .orElseThrow(() -> new RuntimeException("Perfil profissional não encontrado"));
+        Long profileId = profile.getId();
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Connection connection = register(profileId, emitter);
+
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(SNAPSHOT_EVENT)
+                    .data(serialize(windows.snapshot(profileId, true)), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            drop(profileId, connection, e);
+        }
+        return emitter;
+    }
+
+    Connection register(Long profileId, SseEmitter emitter) {
+        Connection connection = new Connection(emitter);
+        connections.computeIfAbsent(profileId, id -> new CopyOnWriteArrayList<>()).add(connection);
+        emitter.onCompletion(() -> remove(profileId, connection));
+        emitter.onTimeout(() -> remove(profileId, connection));
+        emitter.onError(error -> remove(profileId, connection));
+        return connection;
+    }
+
+    @Scheduled(fixedRateString = "${nutri.analytics.live.tick-interval-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        connections.forEach((profileId, profileConnections) -> {
+            if (profileConnections.isEmpty()) {
+                return;
+            }
+            String payload;
+            try {
+                payload = serialize(windows.snapshot(profileId, false));
+            } catch (JsonProcessingException e) {
+                log.error("Erro ao serializar analytics ao vivo do perfil {}", profileId, e);
+                return;
+            }
+            for (Connection connection : profileConnections) {
+                Future<?> previous = connection.inFlight;
+                if (previous != null && !previous.isDone()) {
+                    if (now - connection.sendStartedAt > sendTimeoutMs) {
+                        // Cliente lento ou meio aberto: libera a thread e encerra a conexão
+                        previous.cancel(true);
+                        drop(profileId, connection, null);
+                    }
+                    continue;
+                }
+                try {
+                    connection.sendStartedAt = now;
+                    connection.inFlight = sender.submit(() -> send(profileId, connection, payload));
+                } catch (RejectedExecutionException e) {
+                    drop(profileId, connection, e);
+                }
+            }
+        });
+    }
+
+    int connectionCount() {
+        return connections.values().stream().mapToInt(List::size).sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void send(Long profileId, Connection connection, String payload) {
+        try {
+            connection.emitter.send(SseEmitter.event().name(TICK_EVENT).data(payload, MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            // Cliente desconectado: o onError/onCompletion do emitter também remove
+            drop(profileId, connection, e);
+        }
+    }
+
+    private void drop(Long profileId, Connection connection, Exception cause) {
+        remove(profileId, connection);
+        try {
+            if (cause != null) {
+                connection.emitter.completeWithError(cause);
+            } else {
+                connection.emitter.complete();
+            }
+        } catch (Exception e) {
+            log.debug("Erro ao encerrar conexão de analytics ao vivo do perfil {}", profileId, e);
+        }
+    }
+
+    private void remove(Long profileId, Connection connection) {
+        connections.computeIfPresent(profileId, (id, profileConnections) -> {
+            profileConnections.remove(connection);
+            return profileConnections.isEmpty() ? null : profileConnections;
+        });
+    }
+
+    private String serialize(Object value) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    static final class Connection {
+
+        private final SseEmitter emitter;
+        private volatile Future<?> inFlight;
+        private volatile long sendStartedAt;
+
+        private Connection(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Replica as janelas ao vivo entre instâncias via Redis pub/sub, para que um dashboard
+ * conectado a qualquer nó veja os eventos ingeridos por todos.
+ *
+ * Cada nó publica, uma vez por segundo, só os incrementos agregados por (perfil, segundo)
+ * numa mensagem compacta: {@code nodeId|perfil:segundo:views:clicks;...}. Mensagens do
+ * próprio nó são ignoradas na recepção.
+ */
+@Component
+@ConditionalOnProperty(name = "nutri.analytics.live.redis-enabled", havingValue = "true")
+@Slf4j
+public class LiveAnalyticsRelay implements MessageListener {
+
+    static final String CHANNEL = "analytics:live";
+
+    private final LiveAnalyticsWindows windows;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public LiveAnalyticsRelay(LiveAnalyticsWindows windows, RedisConnectionFactory connectionFactory) {
+        this.windows = windows;
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+        this.listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        this.listenerContainer.afterPropertiesSet();
+        this.listenerContainer.start();
+        windows.enablePublishing();
+    }
+
+    @Scheduled(fixedRateString = "${nutri.analytics.live.publish-interval-ms:1000}")
+    public void publish() {
+        Map<LiveAnalyticsWindows.DeltaKey, long[]> deltas = windows.drainUnpublished();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, encode(nodeId, deltas));
+        } catch (Exception e) {
+            // Incrementos perdidos só afetam a visão ao vivo dos outros nós; as tabelas estão corretas
+            log.warn("Falha ao publicar analytics ao vivo: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            for (String entry : body.substring(separator + 1).split(";")) {
+                String[] parts = entry.split(":");
+                windows.applyRemote(Long.valueOf(parts[0]), Long.parseLong(parts[1]),
+                        Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Mensagem de analytics ao vivo inválida ignorada: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        listenerContainer.stop();
+    }
+
+    static String encode(String nodeId, Map<LiveAnalyticsWindows.DeltaKey, long[]> deltas) {
+        StringBuilder message = new StringBuilder(nodeId).append('|');
+        boolean first = true;
+        for (Map.Entry<LiveAnalyticsWindows.DeltaKey, long[]> entry : deltas.entrySet()) {
+            if (!first) {
+                message.append(';');
+            }
+            first = false;
+            message.append(entry.getKey().profileId()).append(':')
+                    .append(entry.getKey().second()).append(':')
+                    .append(entry.getValue()[0]).append(':')
+                    .append(entry.getValue()[1]);
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.LiveAnalyticsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Janelas deslizantes em memória de views e cliques por perfil: os últimos 60 segundos
+ * e os últimos 60 minutos. São alimentadas pelo {@link AnalyticsEventWriter} depois de
+ * cada gravação e lidas pelo {@link LiveAnalyticsBroadcaster}, sem consultas ao banco.
+ *
+ * Com o relay Redis ativo, os incrementos locais também ficam acumulados por segundo até
+ * serem publicados para as outras instâncias, que os aplicam com {@link #applyRemote}.
+ */
+@Component
+public class LiveAnalyticsWindows {
+
+    static final int SECONDS = 60;
+    static final int MINUTES = 60;
+
+    // Perfis sem eventos há mais tempo que isso têm as janelas descartadas
+    private static final long IDLE_SECONDS = MINUTES * 60L;
+
+    private final LinkProfileResolver linkProfileResolver;
+    private final LongSupplier clock;
+    private final Map<Long, ProfileWindows> windows = new ConcurrentHashMap<>();
+    private final Map<DeltaKey, long[]> unpublished = new HashMap<>();
+    private volatile boolean publishing;
+
+    @Autowired
+    public LiveAnalyticsWindows(LinkProfileResolver linkProfileResolver) {
+        this(linkProfileResolver, () -> System.currentTimeMillis() / 1000);
+    }
+
+    LiveAnalyticsWindows(LinkProfileResolver linkProfileResolver, LongSupplier clock) {
+        this.linkProfileResolver = linkProfileResolver;
+        this.clock = clock;
+    }
+
+    public void record(AnalyticsEvent event) {
+        Long profileId = event.getType() == AnalyticsEvent.Type.PAGE_VIEW
+                ? event.getTargetId()
+                : linkProfileResolver.profileOf(event.getTargetId());
+        if (profileId == null) {
+            return;
+        }
+        long second = event.getOccurredAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+        long views = event.getType() == AnalyticsEvent.Type.PAGE_VIEW ? 1 : 0;
+        add(profileId, second, views, 1 - views);
+
+        if (publishing) {
+            synchronized (unpublished) {
+                long[] delta = unpublished.computeIfAbsent(new DeltaKey(profileId, second), key -> new long[2]);
+                delta[0] += views;
+                delta[1] += 1 - views;
+            }
+        }
+    }
+
+    /**
+     * Aplica incrementos publicados por outra instância.
+     */
+    public void applyRemote(Long profileId, long second, long views, long clicks) {
+        add(profileId, second, views, clicks);
+    }
+
+    /**
+     * Liga o acúmulo de incrementos locais para publicação.
+     */
+    void enablePublishing() {
+        publishing = true;
+    }
+
+    /**
+     * Retira os incrementos locais ainda não publicados, como {(perfil, segundo) -> [views, clicks]}.
+     */
+    Map<DeltaKey, long[]> drainUnpublished() {
+        synchronized (unpublished) {
+            Map<DeltaKey, long[]> drained = new HashMap<>(unpublished);
+            unpublished.clear();
+            return drained;
+        }
+    }
+
+    public long currentSecond() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Estado das janelas até o último segundo completo. Com {@code withSeries} inclui as
+     * séries por segundo e por minuto, usadas no evento inicial de cada conexão.
+     */
+    public LiveAnalyticsResponse snapshot(Long profileId, boolean withSeries) {
+        long second = currentSecond() - 1;
+        long minute = Math.floorDiv(second, 60);
+        ProfileWindows profile = windows.get(profileId);
+        if (profile == null) {
+            profile = new ProfileWindows(second);
+        }
+
+        LiveAnalyticsResponse response = new LiveAnalyticsResponse();
+        response.setEpochSecond(second);
+        response.setViewsLastSecond(profile.viewsBySecond.get(second));
+        response.setClicksLastSecond(profile.clicksBySecond.get(second));
+        response.setViewsLastMinute(profile.viewsBySecond.sum(second));
+        response.setClicksLastMinute(profile.clicksBySecond.sum(second));
+        response.setViewsLastHour(profile.viewsByMinute.sum(minute));
+        response.setClicksLastHour(profile.clicksByMinute.sum(minute));
+        if (withSeries) {
+            response.setViewsPerSecond(toList(profile.viewsBySecond.series(second)));
+            response.setClicksPerSecond(toList(profile.clicksBySecond.series(second)));
+            response.setViewsPerMinute(toList(profile.viewsByMinute.series(minute)));
+            response.setClicksPerMinute(toList(profile.clicksByMinute.series(minute)));
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${nutri.analytics.live.cleanup-interval-ms:600000}")
+    public void evictIdle() {
+        long threshold = currentSecond() - IDLE_SECONDS;
+        windows.values().removeIf(profile -> profile.lastSecond < threshold);
+    }
+
+    private void add(Long profileId, long second, long views, long clicks) {
+        ProfileWindows profile = windows.computeIfAbsent(profileId, id -> new ProfileWindows(second));
+        long minute = Math.floorDiv(second, 60);
+        if (views != 0) {
+            profile.viewsBySecond.add(second, views);
+            profile.viewsByMinute.add(minute, views);
+        }
+        if (clicks != 0) {
+            profile.clicksBySecond.add(second, clicks);
+            profile.clicksByMinute.add(minute, clicks);
+        }
+        if (second > profile.lastSecond) {
+            profile.lastSecond = second;
+        }
+    }
+
+    private static List<Long> toList(long[] values) {
+        return new ArrayList<>(Arrays.stream(values).boxed().toList());
+    }
+
+    record DeltaKey(Long profileId, long second) {
+    }
+
+    private static final class ProfileWindows {
+        private final SlidingWindowCounter viewsBySecond = new SlidingWindowCounter(SECONDS);
+        private final SlidingWindowCounter clicksBySecond = new SlidingWindowCounter(SECONDS);
+        private final SlidingWindowCounter viewsByMinute = new SlidingWindowCounter(MINUTES);
+        private final SlidingWindowCounter clicksByMinute = new SlidingWindowCounter(MINUTES);
+        private volatile long lastSecond;
+
+        private ProfileWindows(long lastSecond) {
+            this.lastSecond = lastSecond;
+        }
+    }
+}
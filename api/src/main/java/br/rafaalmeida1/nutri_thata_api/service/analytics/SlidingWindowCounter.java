@@ -0,0 +1,70 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Contador em janela deslizante sobre um buffer circular de {@code size} posições, uma
+ * por unidade de tempo (segundo ou minuto, conforme quem chama). Cada posição guarda a
+ * unidade a que pertence; ao ser reutilizada por uma unidade mais nova ela é zerada, então
+ * não há tarefa de limpeza e a memória é fixa.
+ */
+final class SlidingWindowCounter {
+
+    private final long[] units;
+    private final long[] counts;
+
+    SlidingWindowCounter(int size) {
+        this.units = new long[size];
+        this.counts = new long[size];
+        Arrays.fill(units, Long.MIN_VALUE);
+    }
+
+    /**
+     * Soma {@code delta} na unidade informada. Unidades que já saíram do buffer são ignoradas.
+     */
+    synchronized void add(long unit, long delta) {
+        int index = index(unit);
+        if (units[index] == unit) {
+            counts[index] += delta;
+        } else if (units[index] < unit) {
+            units[index] = unit;
+            counts[index] = delta;
+        }
+    }
+
+    synchronized long get(long unit) {
+        int index = index(unit);
+        return units[index] == unit ? counts[index] : 0L;
+    }
+
+    /**
+     * Soma das {@code size} unidades terminadas em {@code lastUnit}, inclusive.
+     */
+    synchronized long sum(long lastUnit) {
+        long firstUnit = lastUnit - units.length + 1;
+        long sum = 0;
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] >= firstUnit && units[i] <= lastUnit) {
+                sum += counts[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Valores das {@code size} unidades terminadas em {@code lastUnit}, da mais antiga para a mais nova.
+     */
+    synchronized long[] series(long lastUnit) {
+        long[] series = new long[units.length];
+        for (int i = 0; i < units.length; i++) {
+            long unit = lastUnit - units.length + 1 + i;
+            int index = index(unit);
+            series[i] = units[index] == unit ? counts[index] : 0L;
+        }
+        return series;
+    }
+
+    private int index(long unit) {
+        return (int) Math.floorMod(unit, (long) units.length);
+    }
+}
@@ -0,0 +1,150 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumo Space-Saving (Metwally et al.) dos itens mais frequentes de um fluxo, com no
+ * máximo {@code capacity} contadores.
+ *
+ * Enquanto há menos itens distintos que contadores a contagem é exata. Depois disso, um
+ * item novo assume o contador do menor item, herdando a contagem dele como erro: cada
+ * contagem é um limite superior, e {@code count - error} um limite inferior. Qualquer item
+ * com frequência acima de N/capacity está garantidamente no resumo.
+ *
+ * Resumos são mescláveis, o que permite somar intervalos de tempo e instâncias diferentes.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, long[]> counters; // item -> {contagem, erro}
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+    }
+
+    /**
+     * Soma {@code delta} ocorrências do item. A busca do menor contador percorre o mapa,
+     * o que com algumas dezenas de contadores custa menos que manter uma estrutura ordenada.
+     */
+    synchronized void offer(long item, long delta) {
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0] += delta;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new long[]{delta, 0});
+            return;
+        }
+        Map.Entry<Long, long[]> min = minEntry();
+        counters.remove(min.getKey());
+        long minCount = min.getValue()[0];
+        counters.put(item, new long[]{minCount + delta, minCount});
+    }
+
+    /**
+     * Mescla outro resumo neste. Um item ausente de um resumo cheio pode ter ocorrido lá até
+     * o menor contador daquele resumo, que então entra na contagem e no erro, mantendo as
+     * contagens como limites superiores.
+     */
+    void merge(SpaceSaving other) {
+        Map<Long, long[]> otherCounters;
+        long otherMin;
+        synchronized (other) {
+            otherCounters = new HashMap<>();
+            other.counters.forEach((item, counter) -> otherCounters.put(item, counter.clone()));
+            otherMin = other.counters.size() < other.capacity ? 0 : other.minEntry().getValue()[0];
+        }
+
+        synchronized (this) {
+            long thisMin = counters.size() < capacity ? 0 : minEntry().getValue()[0];
+            for (Map.Entry<Long, long[]> entry : counters.entrySet()) {
+                long[] counter = entry.getValue();
+                long[] otherCounter = otherCounters.remove(entry.getKey());
+                counter[0] += otherCounter != null ? otherCounter[0] : otherMin;
+                counter[1] += otherCounter != null ? otherCounter[1] : otherMin;
+            }
+            otherCounters.forEach((item, counter) ->
+                    counters.put(item, new long[]{counter[0] + thisMin, counter[1] + thisMin}));
+
+            if (counters.size() > capacity) {
+                List<Map.Entry<Long, long[]>> sorted = sortedEntries();
+                for (Map.Entry<Long, long[]> dropped : sorted.subList(capacity, sorted.size())) {
+                    counters.remove(dropped.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Os {@code k} itens de maior contagem, em ordem decrescente.
+     */
+    synchronized List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>();
+        for (Map.Entry<Long, long[]> entry : sortedEntries()) {
+            if (top.size() == k) {
+                break;
+            }
+            top.add(new Entry(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        return top;
+    }
+
+    synchronized boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    synchronized byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + counters.size() * 3 * Long.BYTES);
+        buffer.putInt(capacity);
+        buffer.putInt(counters.size());
+        counters.forEach((item, counter) -> {
+            buffer.putLong(item);
+            buffer.putLong(counter[0]);
+            buffer.putLong(counter[1]);
+        });
+        return buffer.array();
+    }
+
+    static SpaceSaving fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        SpaceSaving summary = new SpaceSaving(buffer.getInt());
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            summary.counters.put(buffer.getLong(), new long[]{buffer.getLong(), buffer.getLong()});
+        }
+        return summary;
+    }
+
+    private Map.Entry<Long, long[]> minEntry() {
+        Map.Entry<Long, long[]> min = null;
+        for (Map.Entry<Long, long[]> entry : counters.entrySet()) {
+            if (min == null || entry.getValue()[0] < min.getValue()[0]) {
+                min = entry;
+            }
+        }
+        return min;
+    }
+
+    // Maior contagem primeiro; empate pelo menor erro e depois pelo id, para uma ordem estável
+    private List<Map.Entry<Long, long[]>> sortedEntries() {
+        List<Map.Entry<Long, long[]>> sorted = new ArrayList<>(counters.entrySet());
+        sorted.sort(Comparator.<Map.Entry<Long, long[]>>comparingLong(entry -> -entry.getValue()[0])
+                .thenComparingLong(entry -> entry.getValue()[1])
+                .thenComparingLong(Map.Entry::getKey));
+        return sorted;
+    }
+
+    /**
+     * @param count limite superior das ocorrências
+     * @param error quanto de {@code count} pode ser superestimado
+     */
+    record Entry(long item, long count, long error) {
+    }
+}
@@ -0,0 +1,81 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom que "esquece" por tempo: o tempo é dividido em intervalos de
+ * {@code windowMs} e só os filtros do intervalo atual e do anterior são mantidos. Uma
+ * chave vista há menos de {@code windowMs} é sempre reconhecida; depois de dois intervalos
+ * sem ser vista ela é esquecida. Falsos positivos seguem a taxa de Bloom configurada.
+ *
+ * A memória é fixa (dois vetores de bits), independente de quantas chaves passam.
+ */
+final class TimeBucketedBloomFilter {
+
+    private final long windowMs;
+    private final int bitCount;
+    private final int hashCount;
+
+    private long bucket = Long.MIN_VALUE;
+    private AtomicLongArray current;
+    private AtomicLongArray previous;
+
+    /**
+     * @param expectedPerWindow quantidade de chaves distintas esperada por intervalo
+     * @param falsePositiveRate taxa de falsos positivos aceita com essa quantidade
+     */
+    TimeBucketedBloomFilter(long windowMs, int expectedPerWindow, double falsePositiveRate) {
+        double bits = -expectedPerWindow * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.windowMs = windowMs;
+        this.bitCount = (int) Math.max(Long.SIZE, Math.min(Integer.MAX_VALUE - Long.SIZE, Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) expectedPerWindow * Math.log(2)));
+    }
+
+    /**
+     * Registra a chave e informa se ela é nova, isto é, se não foi vista no intervalo atual
+     * nem no anterior.
+     */
+    boolean add(long hash, long nowMs) {
+        AtomicLongArray[] filters = filtersAt(nowMs);
+        int h1 = (int) hash;
+        // Ímpar, para que os k índices nunca colapsem em um só
+        int h2 = (int) (hash >>> 32) | 1;
+        boolean seenCurrent = true;
+        boolean seenPrevious = true;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            if (seenPrevious && (filters[1].get(word) & mask) == 0) {
+                seenPrevious = false;
+            }
+            long before = filters[0].getAndUpdate(word, value -> value | mask);
+            if ((before & mask) == 0) {
+                seenCurrent = false;
+            }
+        }
+        return !seenCurrent && !seenPrevious;
+    }
+
+    int bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private synchronized AtomicLongArray[] filtersAt(long nowMs) {
+        long now = Math.floorDiv(nowMs, windowMs);
+        if (now > bucket) {
+            previous = now == bucket + 1 ? current : newBits();
+            current = newBits();
+            bucket = now;
+        }
+        return new AtomicLongArray[]{current, previous};
+    }
+
+    private AtomicLongArray newBits() {
+        return new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+    }
+}
@@ -0,0 +1,238 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Links mais clicados de cada perfil na última hora, no último dia e na última semana,
+ * respondidos da memória.
+ *
+ * Cada clique gravado entra em um resumo {@link SpaceSaving} por perfil e intervalo de
+ * tempo (5 minutos, 1 hora e 1 dia); a consulta mescla os intervalos que cobrem a janela.
+ * Periodicamente cada instância grava seus resumos em {@code analytics_trending_snapshots}
+ * e carrega os das demais, que entram na mescla. Só as linhas alteradas desde a carga
+ * anterior são lidas ({@code updated_at}, no relógio do banco), e cada uma substitui o
+ * resumo daquela instância no intervalo. Uma instância reiniciada recebe um novo id e
+ * passa a enxergar os resumos da execução anterior como os de outra instância.
+ */
+@Component
+@Slf4j
+public class TrendingLinksStore implements SmartLifecycle {
+
+    public enum Window {
+        LAST_HOUR(5 * 60, 12),
+        LAST_DAY(60 * 60, 24),
+        LAST_WEEK(24 * 60 * 60, 7);
+
+        private final long bucketSeconds;
+        private final int buckets;
+
+        Window(long bucketSeconds, int buckets) {
+            this.bucketSeconds = bucketSeconds;
+            this.buckets = buckets;
+        }
+
+        long bucketStart(long epochSecond) {
+            return Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds;
+        }
+
+        // Início do intervalo mais antigo que ainda entra na janela
+        long firstBucketStart(long epochSecond) {
+            return bucketStart(epochSecond) - (buckets - 1) * bucketSeconds;
+        }
+    }
+
+    // Folga na carga incremental para linhas gravadas com updated_at anterior ao da última
+    // linha lida, mas confirmadas depois dela
+    private static final long RELOAD_OVERLAP_MS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LinkProfileResolver linkProfileResolver;
+    private final int capacity;
+    private final LongSupplier clock;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<BucketKey, SpaceSaving> local = new ConcurrentHashMap<>();
+    private final Set<BucketKey> dirty = ConcurrentHashMap.newKeySet();
+    // Resumos das outras instâncias, por intervalo e id da instância
+    private final Map<BucketKey, Map<String, SpaceSaving>> remote = new ConcurrentHashMap<>();
+    // Maior updated_at já carregado; alterado só por snapshot(), que é synchronized
+    private Timestamp remoteLoadedUpTo;
+    private volatile boolean running;
+
+    @Autowired
+    public TrendingLinksStore(JdbcTemplate jdbcTemplate, LinkProfileResolver linkProfileResolver,
+                              @Value("${nutri.analytics.trending.capacity:50}") int capacity) {
+        this(jdbcTemplate, linkProfileResolver, capacity, () -> System.currentTimeMillis() / 1000);
+    }
+
+    TrendingLinksStore(JdbcTemplate jdbcTemplate, LinkProfileResolver linkProfileResolver, int capacity,
+                       LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.linkProfileResolver = linkProfileResolver;
+        this.capacity = capacity;
+        this.clock = clock;
+    }
+
+    public void record(AnalyticsEvent event) {
+        if (event.getType() != AnalyticsEvent.Type.LINK_CLICK) {
+            return;
+        }
+        Long profileId = linkProfileResolver.profileOf(event.getTargetId());
+        if (profileId == null) {
+            return;
+        }
+        long epochSecond = event.getOccurredAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+        for (Window window : Window.values()) {
+            BucketKey key = new BucketKey(profileId, window, window.bucketStart(epochSecond));
+            local.computeIfAbsent(key, k -> new SpaceSaving(capacity)).offer(event.getTargetId(), 1);
+            dirty.add(key);
+        }
+    }
+
+    /**
+     * Até {@code limit} links mais clicados do perfil na janela, somando esta e as demais
+     * instâncias (até o último snapshot delas).
+     */
+    public List<TrendingLink> topLinks(Long profileId, Window window, int limit) {
+        long now = clock.getAsLong();
+        SpaceSaving merged = new SpaceSaving(capacity);
+        for (long start = window.firstBucketStart(now); start <= window.bucketStart(now); start += window.bucketSeconds) {
+            BucketKey key = new BucketKey(profileId, window, start);
+            SpaceSaving localSummary = local.get(key);
+            if (localSummary != null) {
+                merged.merge(localSummary);
+            }
+            Map<String, SpaceSaving> remoteSummaries = remote.get(key);
+            if (remoteSummaries != null) {
+                remoteSummaries.values().forEach(merged::merge);
+            }
+        }
+        return merged.top(limit).stream()
+                .map(entry -> new TrendingLink(entry.item(), entry.count(), entry.error()))
+                .toList();
+    }
+
+    /**
+     * Grava os resumos alterados desde o último ciclo, descarta os que saíram das janelas
+     * e carrega os resumos das outras instâncias alterados desde o ciclo anterior.
+     */
+    @Scheduled(fixedDelayString = "${nutri.analytics.trending.snapshot-interval-ms:30000}")
+    public synchronized void snapshot() {
+        long now = clock.getAsLong();
+        try {
+            writeDirty();
+            local.keySet().removeIf(key -> key.bucketStart() < key.window().firstBucketStart(now));
+            remote.keySet().removeIf(key -> key.bucketStart() < key.window().firstBucketStart(now));
+            for (Window window : Window.values()) {
+                jdbcTemplate.update("DELETE FROM analytics_trending_snapshots WHERE time_window = ? AND bucket_start < ?",
+                        window.name(), window.firstBucketStart(now));
+            }
+            loadRemote();
+        } catch (Exception e) {
+            log.error("Erro ao sincronizar snapshots de links em alta", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writeDirty();
+        } catch (Exception e) {
+            log.error("Erro ao gravar snapshots de links em alta no encerramento", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Para depois da fila de ingestão, que ainda registra cliques ao drenar
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private synchronized void writeDirty() {
+        for (BucketKey key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            SpaceSaving summary = local.get(key);
+            if (summary == null) {
+                continue;
+            }
+            try {
+                // Cada instância só escreve as próprias linhas, então UPDATE + INSERT não disputa com ninguém
+                byte[] bytes = summary.toBytes();
+                // updated_at vem do banco: a carga incremental das outras instâncias compara com o mesmo relógio
+                int updated = jdbcTemplate.update(
+                        "UPDATE analytics_trending_snapshots SET summary = ?, updated_at = LOCALTIMESTAMP " +
+                        "WHERE node_id = ? AND professional_profile_id = ? AND time_window = ? AND bucket_start = ?",
+                        bytes, nodeId, key.profileId(), key.window().name(), key.bucketStart());
+                if (updated == 0) {
+                    jdbcTemplate.update(
+                            "INSERT INTO analytics_trending_snapshots " +
+                            "(node_id, professional_profile_id, time_window, bucket_start, summary, updated_at) " +
+                            "VALUES (?, ?, ?, ?, ?, LOCALTIMESTAMP)",
+                            nodeId, key.profileId(), key.window().name(), key.bucketStart(), bytes);
+                }
+            } catch (RuntimeException e) {
+                dirty.add(key);
+                throw e;
+            }
+        }
+    }
+
+    // Na primeira carga lê tudo; depois, só as linhas alteradas desde a anterior
+    private void loadRemote() {
+        String sql = "SELECT professional_profile_id, time_window, bucket_start, node_id, summary, updated_at " +
+                "FROM analytics_trending_snapshots WHERE node_id <> ?";
+        List<Object> args = new ArrayList<>();
+        args.add(nodeId);
+        if (remoteLoadedUpTo != null) {
+            sql += " AND updated_at > ?";
+            args.add(new Timestamp(remoteLoadedUpTo.getTime() - RELOAD_OVERLAP_MS));
+        }
+
+        Timestamp[] latest = {remoteLoadedUpTo};
+        jdbcTemplate.query(sql,
+                rs -> {
+                    BucketKey key = new BucketKey(rs.getLong(1), Window.valueOf(rs.getString(2)), rs.getLong(3));
+                    remote.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                            .put(rs.getString(4), SpaceSaving.fromBytes(rs.getBytes(5)));
+                    Timestamp updatedAt = rs.getTimestamp(6);
+                    if (latest[0] == null || updatedAt.after(latest[0])) {
+                        latest[0] = updatedAt;
+                    }
+                },
+                args.toArray());
+        remoteLoadedUpTo = latest[0];
+    }
+
+    public record TrendingLink(Long linkId, long clicks, long maxOverestimate) {
+    }
+
+    private record BucketKey(Long profileId, Window window, long bucketStart) {
+    }
+}
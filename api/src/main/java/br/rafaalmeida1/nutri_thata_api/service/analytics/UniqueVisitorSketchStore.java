@@ -0,0 +1,284 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sketches HyperLogLog de visitantes únicos (por IP) por perfil/link e por dia.
+ *
+ * Os sketches são atualizados em memória no momento da ingestão e mesclados
+ * periodicamente na tabela {@code analytics_unique_sketches}. Como a mescla de HLL é
+ * idempotente (oferecer o mesmo IP duas vezes não altera o sketch), reprocessar eventos
+ * já contados, seja por uma nova tentativa de flush ou pelo backfill a partir das tabelas
+ * brutas, nunca infla a contagem. Pelo mesmo motivo o flush grava antes de retirar o sketch
+ * da memória: uma leitura concorrente sempre encontra os IPs em um dos dois lugares.
+ *
+ * Os sketches diários são gravados no formato esparso de {@link HyperLogLog} e mesclados
+ * sem desserializar, então consultar um período longo custa proporcional ao tráfego de
+ * cada dia, não 4 KB por dia.
+ */
+@Component
+@Slf4j
+public class UniqueVisitorSketchStore implements SmartLifecycle {
+
+    public static final String PROFILE = "PROFILE";
+    public static final String LINK = "LINK";
+
+    // Linha que acumula o sketch de todo o período de cada perfil/link
+    static final LocalDate LIFETIME = LocalDate.of(1970, 1, 1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public UniqueVisitorSketchStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Registra o IP do evento no sketch do dia e no acumulado do perfil/link.
+     */
+    public void record(AnalyticsEvent event) {
+        if (event.getIpAddress() == null) {
+            return;
+        }
+        String targetType = event.getType() == AnalyticsEvent.Type.PAGE_VIEW ? PROFILE : LINK;
+        LocalDate date = event.getOccurredAt().toLocalDate();
+        offer(new SketchKey(targetType, event.getTargetId(), date), event.getIpAddress());
+        offer(new SketchKey(targetType, event.getTargetId(), LIFETIME), event.getIpAddress());
+    }
+
+    /**
+     * Estimativas de visitantes únicos de vários perfis/links em uma única consulta:
+     * o acumulado de todo o período e a união dos dias entre startDay e endDay (inclusive).
+     * Sketches ainda não gravados no banco também entram na conta.
+     */
+    public Map<Long, UniqueCounts> estimateAll(String targetType, Collection<Long> targetIds,
+                                               LocalDate startDay, LocalDate endDay) {
+        Map<Long, UniqueCounts> result = new HashMap<>();
+        if (targetIds.isEmpty()) {
+            return result;
+        }
+
+        LocalDate from = startDay.isAfter(LIFETIME) ? startDay : LIFETIME.plusDays(1);
+        Map<Long, HyperLogLog> lifetime = new HashMap<>();
+        Map<Long, HyperLogLog> inRange = new HashMap<>();
+        for (Long targetId : targetIds) {
+            lifetime.put(targetId, new HyperLogLog());
+            inRange.put(targetId, new HyperLogLog());
+        }
+
+        List<Object> args = new ArrayList<>();
+        args.add(targetType);
+        args.addAll(targetIds);
+        args.add(Date.valueOf(LIFETIME));
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(endDay));
+        jdbcTemplate.query(
+                "SELECT target_id, stat_date, sketch FROM analytics_unique_sketches WHERE target_type = ? " +
+                "AND target_id IN (" + String.join(", ", Collections.nCopies(targetIds.size(), "?")) + ") " +
+                "AND (stat_date = ? OR stat_date BETWEEN ? AND ?)",
+                rs -> {
+                    Long targetId = rs.getLong(1);
+                    boolean isLifetime = rs.getDate(2).toLocalDate().equals(LIFETIME);
+                    (isLifetime ? lifetime : inRange).get(targetId).merge(rs.getBytes(3));
+                },
+                args.toArray());
+
+        // Só os sketches ainda em memória, em vez de uma busca por dia do período
+        for (SketchKey key : pending.keySet()) {
+            if (!key.targetType().equals(targetType) || !lifetime.containsKey(key.targetId())) {
+                continue;
+            }
+            if (key.statDate().equals(LIFETIME)) {
+                mergePending(key, lifetime.get(key.targetId()));
+            } else if (!key.statDate().isBefore(from) && !key.statDate().isAfter(endDay)) {
+                mergePending(key, inRange.get(key.targetId()));
+            }
+        }
+
+        for (Long targetId : targetIds) {
+            result.put(targetId, new UniqueCounts(lifetime.get(targetId).cardinality(), inRange.get(targetId).cardinality()));
+        }
+        return result;
+    }
+
+    /**
+     * Reconstrói os sketches de [from, toExclusive) a partir das tabelas brutas, um dia
+     * por vez para limitar a memória, e mescla no que já está persistido.
+     */
+    public void rebuildFromRaw(LocalDate from, LocalDate toExclusive) {
+        Map<SketchKey, HyperLogLog> lifetime = new HashMap<>();
+        for (LocalDate day = from; day.isBefore(toExclusive); day = day.plusDays(1)) {
+            Map<SketchKey, HyperLogLog> daily = new HashMap<>();
+            Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+            Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+            LocalDate statDate = day;
+
+            jdbcTemplate.query(
+                    "SELECT DISTINCT professional_profile_id, ip_address FROM page_views " +
+                    "WHERE viewed_at >= ? AND viewed_at < ? AND ip_address IS NOT NULL",
+                    rs -> {
+                        addTo(daily, lifetime, PROFILE, rs.getLong(1), statDate, rs.getString(2));
+                    },
+                    start, end);
+            jdbcTemplate.query(
+                    "SELECT DISTINCT professional_link_id, ip_address FROM link_clicks " +
+                    "WHERE clicked_at >= ? AND clicked_at < ? AND ip_address IS NOT NULL",
+                    rs -> {
+                        addTo(daily, lifetime, LINK, rs.getLong(1), statDate, rs.getString(2));
+                    },
+                    start, end);
+
+            daily.forEach(this::mergeIntoDatabase);
+        }
+        lifetime.forEach(this::mergeIntoDatabase);
+    }
+
+    @Scheduled(fixedDelayString = "${nutri.analytics.uniques.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int total = 0;
+        int failed = 0;
+        for (SketchKey key : List.copyOf(pending.keySet())) {
+            HyperLogLog snapshot = snapshot(key);
+            if (snapshot == null) {
+                continue;
+            }
+            total++;
+            try {
+                mergeIntoDatabase(key, snapshot);
+            } catch (Exception e) {
+                // O sketch continua em memória e vai no próximo ciclo
+                failed++;
+                if (failed == 1) {
+                    log.error("Erro ao gravar sketch de visitantes únicos, nova tentativa no próximo ciclo", e);
+                }
+                continue;
+            }
+            // Só sai da memória se nenhum IP novo chegou durante a gravação; se chegou, fica
+            // inteiro para o próximo ciclo, o que é seguro porque a mescla é idempotente
+            pending.computeIfPresent(key, (k, sketch) -> sketch.equals(snapshot) ? null : sketch);
+        }
+        if (failed > 0) {
+            log.warn("{} de {} sketches de visitantes únicos não foram gravados", failed, total);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Para depois da fila de ingestão, que ainda registra IPs ao drenar
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private void offer(SketchKey key, String ipAddress) {
+        pending.compute(key, (k, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.offer(ipAddress);
+            return target;
+        });
+    }
+
+    // Cópia feita sob o lock da chave, já que offer() altera o sketch no lugar
+    private HyperLogLog snapshot(SketchKey key) {
+        HyperLogLog[] copy = new HyperLogLog[1];
+        pending.computeIfPresent(key, (k, sketch) -> {
+            copy[0] = new HyperLogLog();
+            copy[0].merge(sketch);
+            return sketch;
+        });
+        return copy[0];
+    }
+
+    private void mergePending(SketchKey key, HyperLogLog union) {
+        pending.computeIfPresent(key, (k, sketch) -> {
+            union.merge(sketch);
+            return sketch;
+        });
+    }
+
+    private static void addTo(Map<SketchKey, HyperLogLog> daily, Map<SketchKey, HyperLogLog> lifetime,
+                              String targetType, Long targetId, LocalDate day, String ipAddress) {
+        daily.computeIfAbsent(new SketchKey(targetType, targetId, day), k -> new HyperLogLog()).offer(ipAddress);
+        lifetime.computeIfAbsent(new SketchKey(targetType, targetId, LIFETIME), k -> new HyperLogLog()).offer(ipAddress);
+    }
+
+    /**
+     * Mescla o sketch na linha persistida, cada chave na sua própria transação. Se outra
+     * instância inserir a mesma chave entre o SELECT e o INSERT, a mescla é refeita.
+     */
+    private void mergeIntoDatabase(SketchKey key, HyperLogLog sketch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> mergeOnce(key, sketch));
+        } catch (DuplicateKeyException e) {
+            transactionTemplate.executeWithoutResult(status -> mergeOnce(key, sketch));
+        }
+    }
+
+    private void mergeOnce(SketchKey key, HyperLogLog sketch) {
+        Date statDate = Date.valueOf(key.statDate());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<byte[]> existing = jdbcTemplate.query(
+                "SELECT sketch FROM analytics_unique_sketches WHERE target_type = ? AND target_id = ? AND stat_date = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getBytes(1),
+                key.targetType(), key.targetId(), statDate);
+
+        if (existing.isEmpty()) {
+            jdbcTemplate.update(
+                    "INSERT INTO analytics_unique_sketches (target_type, target_id, stat_date, sketch, updated_at) VALUES (?, ?, ?, ?, ?)",
+                    key.targetType(), key.targetId(), statDate, sketch.toBytes(), now);
+            return;
+        }
+
+        HyperLogLog merged = HyperLogLog.fromBytes(existing.get(0));
+        merged.merge(sketch);
+        jdbcTemplate.update(
+                "UPDATE analytics_unique_sketches SET sketch = ?, updated_at = ? WHERE target_type = ? AND target_id = ? AND stat_date = ?",
+                merged.toBytes(), now, key.targetType(), key.targetId(), statDate);
+    }
+
+    public record UniqueCounts(long lifetime, long inRange) {
+    }
+
+    private record SketchKey(String targetType, Long targetId, LocalDate statDate) {
+    }
+}
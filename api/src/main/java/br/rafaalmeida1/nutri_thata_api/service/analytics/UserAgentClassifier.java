@@ -0,0 +1,274 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Classifica user agents em dispositivo, navegador e sistema operacional, e identifica
+ * crawlers e clientes automatizados.
+ *
+ * Todos os padrões são procurados em uma única passada sobre o user agent com um
+ * autômato Aho-Corasick (minúsculas aplicadas caractere a caractere, sem criar uma
+ * cópia da string). As regras de precedência são avaliadas sobre o conjunto de padrões
+ * encontrados: Edge e Opera antes de Chrome, Chrome antes de Safari, iOS e Android antes
+ * de macOS e Linux. Como o tráfego real tem poucos user agents distintos, o resultado
+ * fica em um cache limitado e concorrente (Caffeine), sem lock global no caminho de leitura.
+ */
+@Component
+public class UserAgentClassifier {
+
+    public static final String MOBILE = "Mobile";
+    public static final String TABLET = "Tablet";
+    public static final String DESKTOP = "Desktop";
+    public static final String OTHER = "Other";
+
+    // User agents maiores que isso são classificados, mas não ocupam o cache
+    private static final int MAX_CACHED_LENGTH = 512;
+
+    private static final int ALPHABET = 128;
+
+    private static final String[] PATTERNS = {
+            "mobile", "tablet", "ipad", "iphone", "ipod", "android",
+            "edg/", "edge/", "edga/", "edgios/", "opr/", "opera", "firefox/", "fxios/", "chrome/", "crios/", "safari/",
+            "windows", "mac os x", "macintosh", "linux", "cros ",
+            // Crawlers, geradores de preview de link e clientes HTTP de scripts. "bot" aparece
+            // sempre seguido de separador para não pegar modelos de aparelho como "CUBOT_X20"
+            "bot/", "bot-", "bot;", "bot)", "telegrambot", "crawler", "spider", "slurp",
+            "facebookexternalhit", "facebookcatalog", "whatsapp/", "preview", "slack-imgproxy", "embedly",
+            "curl/", "wget/", "python-requests", "python-urllib", "go-http-client", "okhttp", "java/",
+            "java-http-client", "apache-httpclient", "axios/", "node-fetch", "postmanruntime", "scrapy",
+            "headlesschrome", "phantomjs", "lighthouse", "ia_archiver", "pingdom"
+    };
+
+    private static final long MOBILE_MASK = mask("mobile");
+    private static final long TABLET_MASK = mask("tablet");
+    private static final long IPAD_MASK = mask("ipad");
+    private static final long IPHONE_MASK = mask("iphone", "ipod");
+    private static final long ANDROID_MASK = mask("android");
+    private static final long EDGE_MASK = mask("edg/", "edge/", "edga/", "edgios/");
+    private static final long OPERA_MASK = mask("opr/", "opera");
+    private static final long FIREFOX_MASK = mask("firefox/", "fxios/");
+    private static final long CHROME_MASK = mask("chrome/", "crios/");
+    private static final long SAFARI_MASK = mask("safari/");
+    private static final long WINDOWS_MASK = mask("windows");
+    private static final long MAC_MASK = mask("mac os x", "macintosh");
+    private static final long LINUX_MASK = mask("linux");
+    private static final long CHROME_OS_MASK = mask("cros ");
+    private static final long BOT_MASK = mask(
+            "bot/", "bot-", "bot;", "bot)", "telegrambot", "crawler", "spider", "slurp",
+            "facebookexternalhit", "facebookcatalog", "whatsapp/", "preview", "slack-imgproxy", "embedly",
+            "curl/", "wget/", "python-requests", "python-urllib", "go-http-client", "okhttp", "java/",
+            "java-http-client", "apache-httpclient", "axios/", "node-fetch", "postmanruntime", "scrapy",
+            "headlesschrome", "phantomjs", "lighthouse", "ia_archiver", "pingdom");
+
+    private static final Automaton AUTOMATON = new Automaton(PATTERNS);
+
+    private final Cache<String, Classification> cache;
+
+    public UserAgentClassifier(@Value("${nutri.analytics.user-agent.cache-size:1024}") int cacheSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Classificação do user agent, ou {@code null} quando ele não foi informado.
+     */
+    public Classification classify(String userAgent) {
+        if (userAgent == null) {
+            return null;
+        }
+        if (userAgent.length() > MAX_CACHED_LENGTH) {
+            return compute(userAgent);
+        }
+
+        return cache.get(userAgent, UserAgentClassifier::compute);
+    }
+
+    int cacheSize() {
+        // A remoção por tamanho é feita em segundo plano; cleanUp() a conclui antes de contar
+        cache.cleanUp();
+        return (int) cache.estimatedSize();
+    }
+
+    static Classification compute(String userAgent) {
+        long found = AUTOMATON.scan(userAgent);
+        return new Classification(deviceType(found), browser(found), operatingSystem(found), has(found, BOT_MASK));
+    }
+
+    private static String deviceType(long found) {
+        if (has(found, IPAD_MASK | TABLET_MASK) || (has(found, ANDROID_MASK) && !has(found, MOBILE_MASK))) {
+            return TABLET;
+        }
+        if (has(found, MOBILE_MASK | IPHONE_MASK | ANDROID_MASK)) {
+            return MOBILE;
+        }
+        return DESKTOP;
+    }
+
+    private static String browser(long found) {
+        // Edge e Opera também anunciam "Chrome/" e "Safari/"; Chrome também anuncia "Safari/"
+        if (has(found, EDGE_MASK)) {
+            return "Edge";
+        }
+        if (has(found, OPERA_MASK)) {
+            return "Opera";
+        }
+        if (has(found, FIREFOX_MASK)) {
+            return "Firefox";
+        }
+        if (has(found, CHROME_MASK)) {
+            return "Chrome";
+        }
+        if (has(found, SAFARI_MASK)) {
+            return "Safari";
+        }
+        return OTHER;
+    }
+
+    private static String operatingSystem(long found) {
+        // iOS anuncia "like Mac OS X" e Android anuncia "Linux"
+        if (has(found, IPAD_MASK | IPHONE_MASK)) {
+            return "iOS";
+        }
+        if (has(found, ANDROID_MASK)) {
+            return "Android";
+        }
+        if (has(found, WINDOWS_MASK)) {
+            return "Windows";
+        }
+        if (has(found, MAC_MASK)) {
+            return "macOS";
+        }
+        if (has(found, CHROME_OS_MASK)) {
+            return "ChromeOS";
+        }
+        if (has(found, LINUX_MASK)) {
+            return "Linux";
+        }
+        return OTHER;
+    }
+
+    private static boolean has(long found, long mask) {
+        return (found & mask) != 0;
+    }
+
+    private static long mask(String... patterns) {
+        long mask = 0;
+        for (String pattern : patterns) {
+            int index = Arrays.asList(PATTERNS).indexOf(pattern);
+            if (index < 0) {
+                throw new IllegalStateException("Padrão de user agent não registrado: " + pattern);
+            }
+            mask |= 1L << index;
+        }
+        return mask;
+    }
+
+    /**
+     * @param bot user agent de crawler, gerador de preview ou cliente HTTP automatizado
+     */
+    public record Classification(String deviceType, String browser, String operatingSystem, boolean bot) {
+    }
+
+    /**
+     * Aho-Corasick sobre ASCII, com a função de transição já resolvida (sem seguir links
+     * de falha durante a busca) e a saída de cada estado como máscara de bits dos padrões.
+     */
+    private static final class Automaton {
+
+        private final int[][] transitions;
+        private final long[] outputs;
+
+        private Automaton(String[] patterns) {
+            if (patterns.length > Long.SIZE) {
+                throw new IllegalArgumentException("No máximo " + Long.SIZE + " padrões são suportados");
+            }
+
+            List<int[]> gotos = new ArrayList<>();
+            List<Long> out = new ArrayList<>();
+            gotos.add(newState());
+            out.add(0L);
+            for (int p = 0; p < patterns.length; p++) {
+                int state = 0;
+                for (char c : patterns[p].toCharArray()) {
+                    int next = gotos.get(state)[c];
+                    if (next < 0) {
+                        next = gotos.size();
+                        gotos.add(newState());
+                        out.add(0L);
+                        gotos.get(state)[c] = next;
+                    }
+                    state = next;
+                }
+                out.set(state, out.get(state) | (1L << p));
+            }
+
+            int stateCount = gotos.size();
+            transitions = new int[stateCount][];
+            outputs = new long[stateCount];
+            int[] fail = new int[stateCount];
+            for (int s = 0; s < stateCount; s++) {
+                transitions[s] = gotos.get(s);
+                outputs[s] = out.get(s);
+            }
+
+            // Busca em largura: a falha de um estado já está resolvida quando seus filhos são visitados
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                if (transitions[0][c] < 0) {
+                    transitions[0][c] = 0;
+                } else {
+                    fail[transitions[0][c]] = 0;
+                    queue.add(transitions[0][c]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] |= outputs[fail[state]];
+                for (int c = 0; c < ALPHABET; c++) {
+                    int next = transitions[state][c];
+                    if (next < 0) {
+                        transitions[state][c] = transitions[fail[state]][c];
+                    } else {
+                        fail[next] = transitions[fail[state]][c];
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+
+        private long scan(String text) {
+            long found = 0;
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= ALPHABET) {
+                    // Nenhum padrão contém caracteres fora do ASCII
+                    state = 0;
+                    continue;
+                }
+                if (c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                }
+                state = transitions[state][c];
+                found |= outputs[state];
+            }
+            return found;
+        }
+
+        private static int[] newState() {
+            int[] state = new int[ALPHABET];
+            Arrays.fill(state, -1);
+            return state;
+        }
+    }
+}
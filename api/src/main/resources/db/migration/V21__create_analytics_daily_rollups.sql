@@ -0,0 +1,68 @@
+-- Agregados diários de page_views e link_clicks, mantidos pelo AnalyticsRollupService.
+-- Dimensões nulas são gravadas como '' para que a chave única funcione como chave de upsert.
+
+-- Visualizações por perfil, dia e dimensões
+CREATE TABLE IF NOT EXISTS page_view_daily_stats (
+    id BIGSERIAL PRIMARY KEY,
+    professional_profile_id BIGINT NOT NULL REFERENCES professional_profiles(id) ON DELETE CASCADE,
+    stat_date DATE NOT NULL,
+    country VARCHAR(100) NOT NULL DEFAULT '',
+    device_type VARCHAR(50) NOT NULL DEFAULT '',
+    browser VARCHAR(50) NOT NULL DEFAULT '',
+    operating_system VARCHAR(50) NOT NULL DEFAULT '',
+    views BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_page_view_daily_stats UNIQUE (professional_profile_id, stat_date, country, device_type, browser, operating_system)
+);
+
+-- Cliques por link, dia e dimensões
+CREATE TABLE IF NOT EXISTS link_click_daily_stats (
+    id BIGSERIAL PRIMARY KEY,
+    professional_link_id BIGINT NOT NULL REFERENCES professional_links(id) ON DELETE CASCADE,
+    professional_profile_id BIGINT NOT NULL REFERENCES professional_profiles(id) ON DELETE CASCADE,
+    stat_date DATE NOT NULL,
+    country VARCHAR(100) NOT NULL DEFAULT '',
+    device_type VARCHAR(50) NOT NULL DEFAULT '',
+    browser VARCHAR(50) NOT NULL DEFAULT '',
+    operating_system VARCHAR(50) NOT NULL DEFAULT '',
+    clicks BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_link_click_daily_stats UNIQUE (professional_link_id, stat_date, country, device_type, browser, operating_system)
+);
+
+-- Totais diários por perfil (visitantes únicos não podem ser somados a partir das dimensões)
+CREATE TABLE IF NOT EXISTS page_view_daily_totals (
+    id BIGSERIAL PRIMARY KEY,
+    professional_profile_id BIGINT NOT NULL REFERENCES professional_profiles(id) ON DELETE CASCADE,
+    stat_date DATE NOT NULL,
+    views BIGINT NOT NULL DEFAULT 0,
+    unique_visitors BIGINT NOT NULL DEFAULT 0,
+    session_duration_sum BIGINT NOT NULL DEFAULT 0,
+    session_duration_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_page_view_daily_totals UNIQUE (professional_profile_id, stat_date)
+);
+
+-- Totais diários por link
+CREATE TABLE IF NOT EXISTS link_click_daily_totals (
+    id BIGSERIAL PRIMARY KEY,
+    professional_link_id BIGINT NOT NULL REFERENCES professional_links(id) ON DELETE CASCADE,
+    professional_profile_id BIGINT NOT NULL REFERENCES professional_profiles(id) ON DELETE CASCADE,
+    stat_date DATE NOT NULL,
+    clicks BIGINT NOT NULL DEFAULT 0,
+    unique_visitors BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_link_click_daily_totals UNIQUE (professional_link_id, stat_date)
+);
+
+-- Último dia fechado já consolidado por cada job de agregação
+CREATE TABLE IF NOT EXISTS analytics_rollup_state (
+    name VARCHAR(100) PRIMARY KEY,
+    last_rolled_date DATE NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Índices para performance
+CREATE INDEX IF NOT EXISTS idx_page_view_daily_stats_profile_date ON page_view_daily_stats(professional_profile_id, stat_date);
+CREATE INDEX IF NOT EXISTS idx_link_click_daily_stats_profile_date ON link_click_daily_stats(professional_profile_id, stat_date);
+CREATE INDEX IF NOT EXISTS idx_link_click_daily_totals_profile_date ON link_click_daily_totals(professional_profile_id, stat_date);
+
+-- O job de agregação lê janelas de tempo de todos os perfis
+CREATE INDEX IF NOT EXISTS idx_page_views_viewed_at ON page_views(viewed_at);
+CREATE INDEX IF NOT EXISTS idx_link_clicks_clicked_at ON link_clicks(clicked_at);
@@ -0,0 +1,12 @@
+-- Sketches HyperLogLog de visitantes únicos por perfil ou link e por dia, de tamanho variável:
+-- esparsos (3 bytes por registrador preenchido) enquanto isso for menor que o denso de 4 KB.
+-- A linha com stat_date = '1970-01-01' guarda o sketch acumulado de todo o período.
+CREATE TABLE IF NOT EXISTS analytics_unique_sketches (
+    id BIGSERIAL PRIMARY KEY,
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_analytics_unique_sketches UNIQUE (target_type, target_id, stat_date)
+);
@@ -0,0 +1,4 @@
+-- Rastreamento de atividade passou a usar o mesmo classificador de user agent das analytics
+-- públicas: tipos de dispositivo gravados em minúsculas são convertidos para o novo padrão.
+UPDATE user_activities SET device_type = INITCAP(device_type) WHERE device_type IN ('mobile', 'tablet', 'desktop');
+UPDATE user_sessions SET device_type = INITCAP(device_type) WHERE device_type IN ('mobile', 'tablet', 'desktop');
@@ -0,0 +1,144 @@
+-- Particionamento mensal (por intervalo de data) das tabelas de eventos: page_views, link_clicks e user_activities.
+-- A retenção passa a remover partições inteiras (DETACH + DROP) em vez de DELETEs linha a linha,
+-- e consultas com filtro de data leem apenas as partições do intervalo.
+-- A chave primária inclui a coluna de partição, exigência do PostgreSQL para tabelas particionadas.
+
+-- Cria (se não existirem) as partições mensais de parent entre from_month e to_month, inclusive.
+-- Também usada pelo AnalyticsPartitionService para criar as partições dos próximos meses.
+CREATE OR REPLACE FUNCTION analytics_ensure_monthly_partitions(parent TEXT, from_month DATE, to_month DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month)::DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE month_start <= to_month LOOP
+        partition_name := parent || '_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, parent, month_start, (month_start + INTERVAL '1 month')::DATE);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE 'plpgsql';
+
+-- page_views
+CREATE TABLE page_views_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('page_views_id_seq'),
+    professional_profile_id BIGINT NOT NULL REFERENCES professional_profiles(id) ON DELETE CASCADE,
+    user_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    referer TEXT,
+    country VARCHAR(100),
+    city VARCHAR(100),
+    device_type VARCHAR(50),
+    browser VARCHAR(50),
+    operating_system VARCHAR(50),
+    session_duration BIGINT,
+    viewed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_page_views PRIMARY KEY (id, viewed_at)
+) PARTITION BY RANGE (viewed_at);
+
+-- link_clicks
+CREATE TABLE link_clicks_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('link_clicks_id_seq'),
+    professional_link_id BIGINT NOT NULL REFERENCES professional_links(id) ON DELETE CASCADE,
+    user_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    referer TEXT,
+    country VARCHAR(100),
+    city VARCHAR(100),
+    device_type VARCHAR(50),
+    browser VARCHAR(50),
+    operating_system VARCHAR(50),
+    clicked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_link_clicks PRIMARY KEY (id, clicked_at)
+) PARTITION BY RANGE (clicked_at);
+
+-- user_activities
+CREATE TABLE user_activities_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('user_activities_id_seq'),
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    activity_type VARCHAR(50) NOT NULL,
+    page_path VARCHAR(500),
+    module_id BIGINT,
+    module_title VARCHAR(255),
+    category VARCHAR(100),
+    time_spent BIGINT,
+    session_id VARCHAR(255),
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    device_type VARCHAR(50),
+    browser VARCHAR(50),
+    operating_system VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_user_activities PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Partições do mês do evento mais antigo até três meses à frente
+SELECT analytics_ensure_monthly_partitions('page_views_partitioned',
+       COALESCE((SELECT MIN(viewed_at) FROM page_views)::DATE, CURRENT_DATE), (CURRENT_DATE + INTERVAL '3 months')::DATE);
+SELECT analytics_ensure_monthly_partitions('link_clicks_partitioned',
+       COALESCE((SELECT MIN(clicked_at) FROM link_clicks)::DATE, CURRENT_DATE), (CURRENT_DATE + INTERVAL '3 months')::DATE);
+SELECT analytics_ensure_monthly_partitions('user_activities_partitioned',
+       COALESCE((SELECT MIN(created_at) FROM user_activities)::DATE, CURRENT_DATE), (CURRENT_DATE + INTERVAL '3 months')::DATE);
+
+-- Cópia dos dados existentes
+INSERT INTO page_views_partitioned SELECT id, professional_profile_id, user_id, ip_address, user_agent, referer, country, city,
+       device_type, browser, operating_system, session_duration, viewed_at FROM page_views;
+INSERT INTO link_clicks_partitioned SELECT id, professional_link_id, user_id, ip_address, user_agent, referer, country, city,
+       device_type, browser, operating_system, clicked_at FROM link_clicks;
+INSERT INTO user_activities_partitioned SELECT id, user_id, activity_type, page_path, module_id, module_title, category, time_spent,
+       session_id, ip_address, user_agent, device_type, browser, operating_system, created_at FROM user_activities;
+
+-- As sequências pertencem às tabelas antigas: desvincula antes do DROP para não perdê-las
+ALTER SEQUENCE page_views_id_seq OWNED BY NONE;
+ALTER SEQUENCE link_clicks_id_seq OWNED BY NONE;
+ALTER SEQUENCE user_activities_id_seq OWNED BY NONE;
+
+DROP TABLE page_views;
+DROP TABLE link_clicks;
+DROP TABLE user_activities;
+
+ALTER TABLE page_views_partitioned RENAME TO page_views;
+ALTER TABLE link_clicks_partitioned RENAME TO link_clicks;
+ALTER TABLE user_activities_partitioned RENAME TO user_activities;
+
+-- Renomeia as partições para o padrão <tabela>_pYYYYMM
+DO $$
+DECLARE
+    partition RECORD;
+BEGIN
+    FOR partition IN
+        SELECT c.relname AS name, p.relname AS parent
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname IN ('page_views', 'link_clicks', 'user_activities')
+    LOOP
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', partition.name,
+                       replace(partition.name, partition.parent || '_partitioned', partition.parent));
+    END LOOP;
+END $$;
+
+ALTER SEQUENCE page_views_id_seq OWNED BY page_views.id;
+ALTER SEQUENCE link_clicks_id_seq OWNED BY link_clicks.id;
+ALTER SEQUENCE user_activities_id_seq OWNED BY user_activities.id;
+
+-- Índices criados na tabela pai são propagados para cada partição
+CREATE INDEX IF NOT EXISTS idx_page_views_profile_date ON page_views(professional_profile_id, viewed_at);
+CREATE INDEX IF NOT EXISTS idx_page_views_ip_date ON page_views(ip_address, viewed_at);
+CREATE INDEX IF NOT EXISTS idx_page_views_user ON page_views(user_id);
+CREATE INDEX IF NOT EXISTS idx_page_views_viewed_at ON page_views(viewed_at);
+CREATE INDEX IF NOT EXISTS idx_link_clicks_link_date ON link_clicks(professional_link_id, clicked_at);
+CREATE INDEX IF NOT EXISTS idx_link_clicks_ip_date ON link_clicks(ip_address, clicked_at);
+CREATE INDEX IF NOT EXISTS idx_link_clicks_user ON link_clicks(user_id);
+CREATE INDEX IF NOT EXISTS idx_link_clicks_clicked_at ON link_clicks(clicked_at);
+CREATE INDEX IF NOT EXISTS idx_user_activities_user_date ON user_activities(user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_user_activities_type ON user_activities(activity_type);
+CREATE INDEX IF NOT EXISTS idx_user_activities_session ON user_activities(session_id);
@@ -0,0 +1,15 @@
+-- Resumos Space-Saving dos links mais clicados, por instância da aplicação, perfil,
+-- janela (LAST_HOUR, LAST_DAY, LAST_WEEK) e intervalo (bucket_start em epoch seconds).
+-- Cada instância grava só as próprias linhas e lê as das demais para mesclar.
+CREATE TABLE IF NOT EXISTS analytics_trending_snapshots (
+    node_id VARCHAR(36) NOT NULL,
+    professional_profile_id BIGINT NOT NULL,
+    time_window VARCHAR(20) NOT NULL,
+    bucket_start BIGINT NOT NULL,
+    summary BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_analytics_trending_snapshots PRIMARY KEY (node_id, professional_profile_id, time_window, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_analytics_trending_snapshots_window
+    ON analytics_trending_snapshots (time_window, bucket_start);
@@ -0,0 +1,2 @@
+-- Última atividade da sessão, gravada junto com os contadores acumulados em memória
+ALTER TABLE user_sessions ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMP;
@@ -0,0 +1,60 @@
+-- Progresso por (usuário, categoria): garante a restrição única usada pelo upsert,
+-- consolidando antes eventuais duplicatas criadas por eventos concorrentes
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'user_category_progress'::regclass AND contype = 'u') THEN
+        UPDATE user_category_progress p SET
+            modules_viewed = d.modules_viewed,
+            modules_completed = d.modules_completed,
+            total_time_spent = d.total_time_spent,
+            last_activity = d.last_activity
+        FROM (SELECT MIN(id) AS id, SUM(COALESCE(modules_viewed, 0)) AS modules_viewed,
+                     SUM(COALESCE(modules_completed, 0)) AS modules_completed,
+                     SUM(COALESCE(total_time_spent, 0)) AS total_time_spent, MAX(last_activity) AS last_activity
+              FROM user_category_progress GROUP BY user_id, category HAVING COUNT(*) > 1) d
+        WHERE p.id = d.id;
+
+        DELETE FROM user_category_progress p
+        WHERE EXISTS (SELECT 1 FROM user_category_progress o
+                      WHERE o.user_id = p.user_id AND o.category = p.category AND o.id < p.id);
+
+        ALTER TABLE user_category_progress
+            ADD CONSTRAINT uk_user_category_progress_user_category UNIQUE (user_id, category);
+    END IF;
+END $$;
+
+-- Progresso por (usuário, módulo), atualizado com um único upsert por evento em vez de
+-- varrer module_views, que continua como histórico de visualizações
+CREATE TABLE IF NOT EXISTS user_module_progress (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    module_id BIGINT NOT NULL,
+    module_title VARCHAR(255) NOT NULL,
+    category VARCHAR(100),
+    views INTEGER NOT NULL DEFAULT 0,
+    total_time_spent BIGINT NOT NULL DEFAULT 0, -- em segundos
+    is_completed BOOLEAN NOT NULL DEFAULT false,
+    completion_percentage INTEGER NOT NULL DEFAULT 0,
+    first_viewed_at TIMESTAMP NOT NULL,
+    last_viewed_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    CONSTRAINT uk_user_module_progress_user_module UNIQUE (user_id, module_id)
+);
+
+INSERT INTO user_module_progress (user_id, module_id, module_title, category, views, total_time_spent,
+                                  is_completed, completion_percentage, first_viewed_at, last_viewed_at, completed_at)
+SELECT user_id,
+       module_id,
+       (ARRAY_AGG(module_title ORDER BY viewed_at DESC))[1],
+       (ARRAY_AGG(category ORDER BY viewed_at DESC))[1],
+       COUNT(*),
+       COALESCE(SUM(time_spent), 0),
+       BOOL_OR(COALESCE(is_completed, false)),
+       COALESCE(MAX(completion_percentage), 0),
+       MIN(viewed_at),
+       MAX(viewed_at),
+       CASE WHEN BOOL_OR(COALESCE(is_completed, false)) THEN MAX(viewed_at) END
+FROM module_views
+GROUP BY user_id, module_id
+ON CONFLICT (user_id, module_id) DO NOTHING;
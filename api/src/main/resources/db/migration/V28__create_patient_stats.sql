@@ -0,0 +1,51 @@
+-- Estatísticas de cada paciente mantidas incrementalmente pelo rastreamento de atividades,
+-- lidas pelo painel em uma linha em vez de agregações sobre o histórico
+CREATE TABLE IF NOT EXISTS patient_stats (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    modules_viewed BIGINT NOT NULL DEFAULT 0,
+    modules_completed BIGINT NOT NULL DEFAULT 0,
+    time_spent BIGINT NOT NULL DEFAULT 0, -- em segundos
+    sessions_ended BIGINT NOT NULL DEFAULT 0,
+    session_time BIGINT NOT NULL DEFAULT 0, -- em segundos
+    last_activity_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_patient_stats_user UNIQUE (user_id)
+);
+
+-- Visualizações e tempo por dia, para a atividade semanal
+CREATE TABLE IF NOT EXISTS patient_daily_stats (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    stat_date DATE NOT NULL,
+    modules_viewed BIGINT NOT NULL DEFAULT 0,
+    time_spent BIGINT NOT NULL DEFAULT 0, -- em segundos
+    CONSTRAINT uk_patient_daily_stats_user_date UNIQUE (user_id, stat_date)
+);
+
+INSERT INTO patient_stats (user_id, modules_viewed, modules_completed, time_spent, sessions_ended, session_time,
+                           last_activity_at, updated_at)
+SELECT u.id,
+       COALESCE(mp.views, 0),
+       COALESCE(mp.completed, 0),
+       COALESCE(mp.time_spent, 0),
+       COALESCE(s.sessions_ended, 0),
+       COALESCE(s.session_time, 0),
+       a.last_activity_at,
+       CURRENT_TIMESTAMP
+FROM users u
+LEFT JOIN (SELECT user_id, SUM(views) AS views, COUNT(*) FILTER (WHERE is_completed) AS completed,
+                  SUM(total_time_spent) AS time_spent
+           FROM user_module_progress GROUP BY user_id) mp ON mp.user_id = u.id
+LEFT JOIN (SELECT user_id, COUNT(total_time_spent) AS sessions_ended, SUM(total_time_spent) AS session_time
+           FROM user_sessions WHERE end_time IS NOT NULL GROUP BY user_id) s ON s.user_id = u.id
+LEFT JOIN (SELECT user_id, MAX(created_at) AS last_activity_at
+           FROM user_activities GROUP BY user_id) a ON a.user_id = u.id
+WHERE mp.user_id IS NOT NULL OR s.user_id IS NOT NULL OR a.user_id IS NOT NULL
+ON CONFLICT (user_id) DO NOTHING;
+
+INSERT INTO patient_daily_stats (user_id, stat_date, modules_viewed, time_spent)
+SELECT user_id, CAST(viewed_at AS DATE), COUNT(*), COALESCE(SUM(time_spent), 0)
+FROM module_views
+GROUP BY user_id, CAST(viewed_at AS DATE)
+ON CONFLICT (user_id, stat_date) DO NOTHING;
@@ -0,0 +1,38 @@
+-- Listagem paginada de pacientes por cursor (keyset) ordenada por última atividade ou progresso,
+-- percorrendo patient_stats pelos índices abaixo em vez de ordenar todos os pacientes
+
+-- Progresso geral (módulos concluídos / visualizados), o mesmo exibido nas estatísticas
+ALTER TABLE patient_stats
+    ADD COLUMN IF NOT EXISTS progress_percentage INTEGER GENERATED ALWAYS AS (
+        CASE WHEN modules_viewed > 0 THEN CAST(ROUND(modules_completed * 100.0 / modules_viewed) AS INTEGER) ELSE 0 END
+    ) STORED;
+
+-- Pacientes sem atividade vêm por último, percorridos pelo segundo índice parcial
+CREATE INDEX IF NOT EXISTS idx_patient_stats_last_activity
+    ON patient_stats (last_activity_at DESC, user_id DESC) WHERE last_activity_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_patient_stats_no_activity
+    ON patient_stats (user_id DESC) WHERE last_activity_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_patient_stats_progress
+    ON patient_stats (progress_percentage DESC, user_id DESC);
+
+-- Todo paciente tem uma linha, para que quem ainda não teve atividade também apareça na listagem
+INSERT INTO patient_stats (user_id, updated_at)
+SELECT id, CURRENT_TIMESTAMP FROM users WHERE role = 'PATIENT'
+ON CONFLICT (user_id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION create_patient_stats_for_new_patient()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO patient_stats (user_id, updated_at)
+    VALUES (NEW.id, CURRENT_TIMESTAMP)
+    ON CONFLICT (user_id) DO NOTHING;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS create_patient_stats_for_new_patient ON users;
+CREATE TRIGGER create_patient_stats_for_new_patient
+    AFTER INSERT ON users
+    FOR EACH ROW
+    WHEN (NEW.role = 'PATIENT')
+    EXECUTE FUNCTION create_patient_stats_for_new_patient();
@@ -0,0 +1,3 @@
+-- A busca de pacientes usa um índice em memória (PatientSearchIndex), que a cada ciclo relê
+-- só os usuários alterados recentemente
+CREATE INDEX IF NOT EXISTS idx_users_updated_at ON users (updated_at);
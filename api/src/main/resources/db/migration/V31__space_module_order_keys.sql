@@ -0,0 +1,13 @@
+-- Chaves de ordenação dos módulos com folga de 1024 entre vizinhos, por profissional,
+-- mantendo a ordem atual: mover um módulo passa a gravar só a linha dele.
+UPDATE modules m
+SET order_index = r.position * 1024
+FROM (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY created_by ORDER BY order_index, created_at, id) - 1 AS position
+    FROM modules
+) r
+WHERE r.id = m.id;
+
+-- MAX(order_index) do append e a listagem ordenada do profissional
+CREATE INDEX IF NOT EXISTS idx_modules_created_by_order ON modules(created_by, order_index);
@@ -0,0 +1,48 @@
+-- Partição DEFAULT das tabelas de eventos particionadas na V24: um evento fora das partições mensais
+-- já criadas (atrasado, anterior à mais antiga, ou adiante se a manutenção não rodou) cai nela em vez
+-- de fazer o INSERT falhar.
+CREATE TABLE IF NOT EXISTS page_views_default PARTITION OF page_views DEFAULT;
+CREATE TABLE IF NOT EXISTS link_clicks_default PARTITION OF link_clicks DEFAULT;
+CREATE TABLE IF NOT EXISTS user_activities_default PARTITION OF user_activities DEFAULT;
+
+-- Com uma partição DEFAULT, o PostgreSQL só cria a partição de um mês se a DEFAULT não tiver linhas
+-- daquele mês. A função passa a criar a partição fora da tabela, mover para ela as linhas do mês que
+-- estejam na DEFAULT e só então anexá-la.
+CREATE OR REPLACE FUNCTION analytics_ensure_monthly_partitions(parent TEXT, from_month DATE, to_month DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month)::DATE;
+    month_end DATE;
+    partition_name TEXT;
+    default_name TEXT := parent || '_default';
+    partition_column TEXT;
+    created INTEGER := 0;
+BEGIN
+    SELECT a.attname INTO partition_column
+    FROM pg_partitioned_table pt
+    JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE pt.partrelid = parent::regclass;
+
+    WHILE month_start <= to_month LOOP
+        partition_name := parent || '_p' || to_char(month_start, 'YYYYMM');
+        month_end := (month_start + INTERVAL '1 month')::DATE;
+        IF to_regclass(partition_name) IS NULL THEN
+            IF to_regclass(default_name) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, parent, month_start, month_end);
+            ELSE
+                EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                               partition_name, parent);
+                EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) ' ||
+                               'INSERT INTO %I SELECT * FROM moved',
+                               default_name, partition_column, month_start, partition_column, month_end, partition_name);
+                EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               parent, partition_name, month_start, month_end);
+            END IF;
+            created := created + 1;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE 'plpgsql';
@@ -0,0 +1,3 @@
+-- Cada instância carrega só os resumos das demais alterados desde a última carga
+CREATE INDEX IF NOT EXISTS idx_analytics_trending_snapshots_updated_at
+    ON analytics_trending_snapshots (updated_at);
@@ -0,0 +1,133 @@
+package br.rafaalmeida1.nutri_thata_api.repository;
+
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Os upserts de progresso são SQL nativo do PostgreSQL ({@code INSERT ... ON CONFLICT}),
+ * que o H2 dos demais testes não executa. Aqui rodam contra um PostgreSQL real, com o
+ * esquema criado pelas migrações do Flyway. Sem Docker, a classe é ignorada.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ProgressUpsertPostgresTest {
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2026, 10, 1, 9, 0);
+    private static final LocalDateTime SECOND = FIRST.plusHours(2);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+    }
+
+    @Autowired
+    private UserModuleProgressRepository userModuleProgressRepository;
+
+    @Autowired
+    private UserCategoryProgressRepository userCategoryProgressRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persistFlushFind(User.builder()
+                .name("Ana")
+                .email("ana.upsert@exemplo.com")
+                .password("senha")
+                .role(Role.PATIENT)
+                .isActive(true)
+                .build());
+    }
+
+    @Test
+    void moduleUpsert_Twice_ShouldAccumulateIntoOneRow() {
+        // When: uma visualização e depois a conclusão do mesmo módulo
+        userModuleProgressRepository.upsertProgress(user.getId(), 3L, "Módulo 3", "nutricao",
+                1, 30L, false, 40, FIRST);
+        userModuleProgressRepository.upsertProgress(user.getId(), 3L, "Módulo 3 revisado", null,
+                2, 45L, true, 100, SECOND);
+
+        // Then
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) OVER () AS total, * FROM user_module_progress WHERE user_id = ?", user.getId());
+        assertEquals(1L, row.get("total"));
+        assertEquals("Módulo 3 revisado", row.get("module_title"));
+        assertEquals("nutricao", row.get("category"));
+        assertEquals(3, row.get("views"));
+        assertEquals(75L, row.get("total_time_spent"));
+        assertEquals(true, row.get("is_completed"));
+        assertEquals(100, row.get("completion_percentage"));
+        assertEquals(Timestamp.valueOf(FIRST), row.get("first_viewed_at"));
+        assertEquals(Timestamp.valueOf(SECOND), row.get("last_viewed_at"));
+        assertEquals(Timestamp.valueOf(SECOND), row.get("completed_at"));
+    }
+
+    @Test
+    void moduleUpsert_AfterCompletion_ShouldKeepTheFirstCompletion() {
+        // Given
+        userModuleProgressRepository.upsertProgress(user.getId(), 3L, "Módulo 3", "nutricao",
+                0, 0L, true, 100, FIRST);
+
+        // When: revisitar um módulo concluído
+        userModuleProgressRepository.upsertProgress(user.getId(), 3L, "Módulo 3", "nutricao",
+                1, 10L, false, 20, SECOND);
+
+        // Then
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT * FROM user_module_progress WHERE user_id = ?", user.getId());
+        assertEquals(true, row.get("is_completed"));
+        assertEquals(100, row.get("completion_percentage"));
+        assertEquals(Timestamp.valueOf(FIRST), row.get("completed_at"));
+    }
+
+    @Test
+    void categoryUpsert_Twice_ShouldAccumulateIntoOneRow() {
+        // When
+        userCategoryProgressRepository.upsertProgress(user.getId(), "nutricao", 2, 0, 60L, FIRST);
+        userCategoryProgressRepository.upsertProgress(user.getId(), "nutricao", 1, 1, 15L, SECOND);
+
+        // Then
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) OVER () AS total, * FROM user_category_progress WHERE user_id = ?", user.getId());
+        assertEquals(1L, row.get("total"));
+        assertEquals(3, row.get("modules_viewed"));
+        assertEquals(1, row.get("modules_completed"));
+        assertEquals(75L, row.get("total_time_spent"));
+        assertEquals(Timestamp.valueOf(SECOND), row.get("last_activity"));
+    }
+}
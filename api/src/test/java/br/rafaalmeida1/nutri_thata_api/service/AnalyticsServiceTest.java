@@ -0,0 +1,249 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.PageAnalyticsResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.ViewsByDateResponse;
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalLink;
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickDailyStatRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickDailyTotalRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewDailyStatRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewDailyTotalRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.ProfessionalLinkRepository;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsBucketCache;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsIngestionQueue;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.AnalyticsRollupService;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.LinkClickCounterStore;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.TrendingLinksStore;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.UniqueVisitorSketchStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AnalyticsServiceTest {
+
+    @Mock
+    private LinkClickRepository linkClickRepository;
+
+    @Mock
+    private PageViewRepository pageViewRepository;
+
+    @Mock
+    private ProfessionalLinkRepository linkRepository;
+
+    @Mock
+    private ProfessionalProfileRepository profileRepository;
+
+    @Mock
+    private PageViewDailyTotalRepository pageViewDailyTotalRepository;
+
+    @Mock
+    private PageViewDailyStatRepository pageViewDailyStatRepository;
+
+    @Mock
+    private LinkClickDailyTotalRepository linkClickDailyTotalRepository;
+
+    @Mock
+    private LinkClickDailyStatRepository linkClickDailyStatRepository;
+
+    @Mock
+    private AnalyticsRollupService rollupService;
+
+    @Mock
+    private AnalyticsIngestionQueue ingestionQueue;
+
+    @Mock
+    private LinkClickCounterStore clickCounterStore;
+
+    @Mock
+    private UniqueVisitorSketchStore sketchStore;
+
+    @Mock
+    private TrendingLinksStore trendingLinksStore;
+
+    @Mock
+    private AnalyticsBucketCache bucketCache;
+
+    @InjectMocks
+    private AnalyticsService analyticsService;
+
+    private User user;
+    private ProfessionalProfile profile;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        profile = ProfessionalProfile.builder().id(1L).user(user).build();
+        endDate = LocalDateTime.now();
+        startDate = endDate.minusDays(30);
+
+        when(profileRepository.findByUser(user)).thenReturn(Optional.of(profile));
+        when(rollupService.getRolledUpTo()).thenReturn(LocalDate.now().minusDays(1));
+        when(rollupService.getFinalizedThrough(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(pageViewDailyTotalRepository.sumTotalsByProfile(anyLong(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{100L, 500L, 10L}));
+        when(pageViewRepository.sumTotalsSince(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{5L, 20L, 1L}));
+        when(sketchStore.estimateAll(anyString(), anyCollection(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Map<Long, UniqueVisitorSketchStore.UniqueCounts> counts = new HashMap<>();
+                    Collection<Long> ids = invocation.getArgument(1);
+                    ids.forEach(id -> counts.put(id, new UniqueVisitorSketchStore.UniqueCounts(7L, 3L)));
+                    return counts;
+                });
+        when(linkClickDailyTotalRepository.sumClicksByLinks(anyCollection(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> ids = invocation.getArgument(0);
+                    return ids.stream().map(id -> new Object[]{id, 4L}).toList();
+                });
+    }
+
+    @Test
+    void getPageAnalytics_ShouldUseSameNumberOfQueries_RegardlessOfLinksAndUsers() {
+        // Given
+        givenLinksAndUsers(1, 1);
+        PageAnalyticsResponse small = analyticsService.getPageAnalytics(user, startDate, endDate, false);
+        int smallQueries = countQueries();
+
+        clearInvocations(allCollaborators());
+        givenLinksAndUsers(10, 50);
+
+        // When
+        PageAnalyticsResponse large = analyticsService.getPageAnalytics(user, startDate, endDate, false);
+        int largeQueries = countQueries();
+
+        // Then
+        assertEquals(1, small.getTopLinks().size());
+        assertEquals(10, large.getTopLinks().size());
+        assertEquals(50, large.getAuthenticatedUsers().size());
+        assertEquals(smallQueries, largeQueries);
+        verify(linkClickRepository, times(1)).countByUsersAndProfessionalProfile(anyCollection(), eq(profile));
+        verify(sketchStore, times(2)).estimateAll(anyString(), anyCollection(), any(), any());
+    }
+
+    @Test
+    void getPageAnalytics_ShouldDistributeBatchedResultsPerLinkAndUser() {
+        // Given
+        givenLinksAndUsers(2, 2);
+        when(linkClickRepository.countByUsersAndProfessionalProfile(anyCollection(), eq(profile)))
+                .thenReturn(List.<Object[]>of(new Object[]{100L, 9L}));
+        when(linkClickRepository.countByLinksSince(anyCollection(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{11L, 2L}));
+
+        // When
+        PageAnalyticsResponse response = analyticsService.getPageAnalytics(user, startDate, endDate, false);
+
+        // Then
+        assertEquals(105L, response.getTotalViews());
+        assertEquals(6L, response.getTopLinks().get(0).getTotalClicks());
+        assertEquals(4L, response.getTopLinks().get(1).getTotalClicks());
+        assertEquals(3L, response.getTopLinks().get(0).getUniqueClicksInRange());
+        assertEquals(9L, response.getAuthenticatedUsers().get(0).getTotalClicks());
+        assertEquals(0L, response.getAuthenticatedUsers().get(1).getTotalClicks());
+    }
+
+    @Test
+    void getPageAnalytics_ShouldServeClosedMonthsFromBucketCache() {
+        // Given: dias até 07/10 definitivos, rollups até 09/10
+        ReflectionTestUtils.setField(analyticsService, "maxCachedMonths", 24);
+        when(rollupService.getRolledUpTo()).thenReturn(LocalDate.of(2026, 10, 9));
+        when(rollupService.getFinalizedThrough(any())).thenReturn(LocalDate.of(2026, 10, 7));
+        givenLinksAndUsers(1, 0);
+        when(bucketCache.viewsByDate(1L, YearMonth.of(2026, 7)))
+                .thenReturn(List.of(viewsOn(LocalDate.of(2026, 7, 1)), viewsOn(LocalDate.of(2026, 7, 20))));
+        when(bucketCache.clicksByDate(1L, YearMonth.of(2026, 8))).thenReturn(List.of(
+                new AnalyticsBucketCache.LinkClicksByDate(11L, LocalDate.of(2026, 8, 3), 5L, 2L),
+                new AnalyticsBucketCache.LinkClicksByDate(99L, LocalDate.of(2026, 8, 3), 8L, 8L)));
+
+        // When
+        PageAnalyticsResponse response = analyticsService.getPageAnalytics(user,
+                LocalDateTime.of(2026, 7, 15, 0, 0), LocalDateTime.of(2026, 10, 10, 12, 0), false);
+
+        // Then: julho a setembro vêm do cache; outubro, ainda aberto, dos rollups
+        verify(bucketCache).viewsByDate(1L, YearMonth.of(2026, 9));
+        verify(bucketCache, never()).viewsByDate(1L, YearMonth.of(2026, 10));
+        verify(pageViewDailyTotalRepository).findByProfessionalProfileIdAndStatDateBetweenOrderByStatDateAsc(
+                1L, LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 9));
+        verify(linkClickDailyTotalRepository).findByProfessionalLinkIdInAndStatDateBetweenOrderByStatDateAsc(
+                List.of(11L), LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 9));
+        assertEquals(List.of(LocalDate.of(2026, 7, 20)),
+                response.getViewsByDate().stream().map(ViewsByDateResponse::getDate).toList());
+        assertEquals(1, response.getTopLinks().get(0).getClicksByDate().size());
+        assertEquals(5L, response.getTopLinks().get(0).getClicksByDate().get(0).getClicks());
+    }
+
+    private static ViewsByDateResponse viewsOn(LocalDate date) {
+        ViewsByDateResponse viewData = new ViewsByDateResponse();
+        viewData.setDate(date);
+        viewData.setViews(10L);
+        viewData.setUniqueViews(4L);
+        return viewData;
+    }
+
+    private void givenLinksAndUsers(int linkCount, int userCount) {
+        List<ProfessionalLink> links = new ArrayList<>();
+        for (int i = 0; i < linkCount; i++) {
+            links.add(ProfessionalLink.builder()
+                    .id(11L + i)
+                    .title("Link " + i)
+                    .clickCount((long) (linkCount - i))
+                    .professionalProfile(profile)
+                    .build());
+        }
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            users.add(new Object[]{100L + i, "Paciente " + i, "paciente" + i + "@email.com", 3L, LocalDateTime.now()});
+        }
+
+        when(linkRepository.findTopLinksByClickCount(profile)).thenReturn(links);
+        when(pageViewRepository.findAuthenticatedUsersByProfile(profile)).thenReturn(users);
+        when(clickCounterStore.currentCount(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    private int countQueries() {
+        // currentCount é leitura em memória, não vai ao banco
+        return Stream.of(allCollaborators())
+                .mapToInt(mock -> (int) mockingDetails(mock).getInvocations().stream()
+                        .filter(invocation -> !invocation.getMethod().getName().equals("currentCount"))
+                        .count())
+                .sum();
+    }
+
+    private Object[] allCollaborators() {
+        return new Object[]{linkClickRepository, pageViewRepository, linkRepository, profileRepository,
+                pageViewDailyTotalRepository, pageViewDailyStatRepository, linkClickDailyTotalRepository,
+                linkClickDailyStatRepository, rollupService, clickCounterStore, sketchStore};
+    }
+}
@@ -48,6 +48,9 @@ class AuthServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private PatientSearchIndex patientSearchIndex;
+
     @InjectMocks
     private AuthService authService;
 
@@ -0,0 +1,146 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheGenerationsTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private CacheGenerations cacheGenerations;
+
+    @BeforeEach
+    void setUp() {
+        cacheGenerations = new CacheGenerations(redisTemplate, "nutri:", Duration.ofMinutes(10));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void key_ShouldReadAllCountersInOneCallAndDefaultToZero() {
+        // Given
+        when(valueOperations.multiGet(List.of("nutri:generation:patients", "nutri:generation:patient:7")))
+                .thenReturn(Arrays.asList("4", null));
+
+        // When
+        String key = cacheGenerations.key(CacheGenerations.PATIENTS, CacheGenerations.patient(7L));
+
+        // Then
+        assertEquals("patients@4|patient:7@0", key);
+        verify(valueOperations, times(1)).multiGet(anyList());
+    }
+
+    @Test
+    void forViewer_ShouldUseTheNamespacesTheUserCanSee() {
+        // Given
+        User professional = User.builder().id(5L).role(Role.PROFESSIONAL).build();
+        User patient = User.builder().id(7L).role(Role.PATIENT).build();
+        when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> Arrays.asList(
+                new String[((List<?>) invocation.getArgument(0)).size()]));
+
+        // When / Then
+        assertEquals("professional:5@0", cacheGenerations.forViewer(professional));
+        assertEquals("patients@0|patient:7@0", cacheGenerations.forViewer(patient));
+    }
+
+    @Test
+    void invalidate_OutsideTransaction_ShouldIncrementEachNamespaceOnce() {
+        // When
+        cacheGenerations.invalidate("module:1", CacheGenerations.PATIENTS, "module:1");
+
+        // Then
+        verify(valueOperations).increment("nutri:generation:module:1");
+        verify(valueOperations).increment("nutri:generation:patients");
+        verify(redisTemplate).expire("nutri:generation:module:1", Duration.ofMinutes(20));
+        verify(redisTemplate).expire("nutri:generation:patients", Duration.ofMinutes(20));
+        verifyNoMoreInteractions(valueOperations);
+    }
+
+    @Test
+    void invalidate_AfterCounterExpired_ShouldNotReuseAnOldGeneration() {
+        // Given: contadores num mapa em memória, com expiração simulada removendo a chave
+        Map<String, String> redis = new HashMap<>();
+        AtomicLong now = new AtomicLong(1_000_000);
+        CacheGenerations generations = new CacheGenerations(redisTemplate, "nutri:", Duration.ofMinutes(10), now::get);
+        when(valueOperations.increment(anyString())).thenAnswer(invocation ->
+                Long.parseLong(redis.merge(invocation.getArgument(0), "1",
+                        (current, one) -> Long.toString(Long.parseLong(current) + 1))));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream()
+                .map(redis::get)
+                .toList());
+
+        generations.invalidate("module:1");
+        String before = generations.key("module:1");
+
+        // When: o contador expira enquanto uma entrada gravada com ele segue viva, e o módulo muda
+        redis.remove("nutri:generation:module:1");
+        now.addAndGet(1_000);
+        generations.invalidate("module:1");
+
+        // Then
+        String after = generations.key("module:1");
+        assertNotEquals(before, after);
+        assertEquals("module:1@1001000", after);
+
+        // When: invalidações seguintes só incrementam
+        generations.invalidate("module:1");
+
+        // Then
+        assertEquals("module:1@1001001", generations.key("module:1"));
+    }
+
+    @Test
+    void invalidate_InsideTransaction_ShouldWaitForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cacheGenerations.invalidate(CacheGenerations.professional(5L));
+
+        // Then: nada muda no Redis até o commit
+        verifyNoInteractions(valueOperations);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+
+        // When
+        synchronizations.get(0).afterCommit();
+
+        // Then
+        verify(valueOperations).increment("nutri:generation:professional:5");
+    }
+}
@@ -0,0 +1,223 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleSummaryResponse;
+import br.rafaalmeida1.nutri_thata_api.entities.ContentBlock;
+import br.rafaalmeida1.nutri_thata_api.entities.Module;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentType;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import br.rafaalmeida1.nutri_thata_api.mapper.ModuleMapper;
+import br.rafaalmeida1.nutri_thata_api.repositories.ModuleRepository;
+import br.rafaalmeida1.nutri_thata_api.repositories.ModuleSummaryView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conta os comandos SQL das listagens de módulos. Os resumos saem de um único SELECT
+ * (mais o total da página); o carregamento completo usa módulos (com o autor), blocos de
+ * conteúdo e pacientes liberados, independentemente do número de módulos.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+class ModuleListQueryCountIntegrationTest {
+
+    private static final int MODULES = 50;
+    private static final String BLOCK_BODY = "Texto do bloco de conteúdo. ".repeat(80);
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private ModuleVisibilityIndex moduleVisibilityIndex;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private ModuleMapper moduleMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User professional;
+    private User otherProfessional;
+    private User patient;
+
+    @BeforeEach
+    void setUp() {
+        professional = persistUser("Nutri", "nutri.consultas@exemplo.com", Role.PROFESSIONAL);
+        otherProfessional = persistUser("Outra Nutri", "outra.nutri@exemplo.com", Role.PROFESSIONAL);
+        patient = persistUser("Ana", "ana.consultas@exemplo.com", Role.PATIENT);
+        User otherPatient = persistUser("Bruno", "bruno.consultas@exemplo.com", Role.PATIENT);
+
+        for (int i = 0; i < MODULES; i++) {
+            boolean specific = i % 2 == 0;
+            Module module = Module.builder()
+                    .title("Módulo " + i)
+                    .description("Descrição " + i)
+                    .category("categoria " + i % 5)
+                    .orderIndex(i)
+                    .visibility(specific ? ContentVisibility.SPECIFIC : ContentVisibility.GENERAL)
+                    .createdBy(i % 3 == 0 ? otherProfessional : professional)
+                    .allowedPatients(specific ? Set.of(patient, otherPatient) : Set.of())
+                    .content(new ArrayList<>())
+                    .build();
+            entityManager.persist(module);
+            for (int order = 0; order < 3; order++) {
+                ContentBlock block = new ContentBlock();
+                block.setModule(module);
+                block.setType(ContentType.TEXT);
+                block.setContent(BLOCK_BODY + order);
+                block.setOrderIndex(order);
+                entityManager.persist(block);
+            }
+            // Fora de transação confirmada o índice não recebe o afterCommit, então entra direto
+            moduleVisibilityIndex.put(module.getId(), !specific, module.getCategory(),
+                    specific ? new long[]{patient.getId(), otherPatient.getId()} : new long[0]);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getModules_ForPatient_ShouldReadSummariesInOneStatement() {
+        // When
+        Page<ModuleSummaryResponse> page = moduleService.getModules(patient, PageRequest.of(0, MODULES));
+
+        // Then
+        assertEquals(MODULES, page.getContent().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        ModuleSummaryResponse first = page.getContent().get(0);
+        assertEquals("Módulo 0", first.getTitle());
+        assertEquals(3, first.getContentCount());
+        assertEquals("Outra Nutri", first.getCreatedBy().getName());
+    }
+
+    @Test
+    void getModules_ForProfessional_ShouldAddOnlyThePageCount() {
+        // When
+        Page<ModuleSummaryResponse> page = moduleService.getModules(professional, PageRequest.of(0, 20));
+
+        // Then: resumos e total da página
+        assertEquals(20, page.getContent().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getModulesForDashboard_ForPatient_ShouldReadSummariesInOneStatement() {
+        // When
+        List<ModuleSummaryResponse> modules = dashboardService.getModulesForDashboard(patient);
+
+        // Then
+        assertEquals(MODULES, modules.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void fullModules_ShouldUseThreeStatements() {
+        // When
+        List<UUID> ids = moduleVisibilityIndex.visibleModuleIds(patient.getId());
+        List<ModuleResponse> modules = moduleRepository.findByIdInOrderByOrderIndexAsc(ids).stream()
+                .map(moduleMapper::toModuleResponse)
+                .toList();
+
+        // Then: módulos com o autor, blocos e pacientes liberados
+        assertEquals(MODULES, modules.size());
+        assertCompleteResponses(modules);
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void summaries_ShouldBeAnOrderOfMagnitudeSmallerThanFullModules() throws Exception {
+        // Given
+        List<UUID> ids = moduleVisibilityIndex.visibleModuleIds(patient.getId());
+        List<ModuleResponse> full = moduleRepository.findByIdInOrderByOrderIndexAsc(ids).stream()
+                .map(moduleMapper::toModuleResponse)
+                .toList();
+
+        // When
+        List<ModuleSummaryResponse> summaries = dashboardService.getModulesForDashboard(patient);
+
+        // Then
+        int fullBytes = objectMapper.writeValueAsBytes(full).length;
+        int summaryBytes = objectMapper.writeValueAsBytes(summaries).length;
+        assertTrue(summaryBytes * 10 < fullBytes, "resumo: " + summaryBytes + " bytes, completo: " + fullBytes);
+    }
+
+    @Test
+    void visibleModules_InChunks_ShouldMatchASingleQuery() {
+        // Given
+        List<UUID> ids = moduleVisibilityIndex.visibleModuleIds(patient.getId());
+        List<UUID> expected = moduleRepository.findSummariesByIdIn(ids).stream().map(ModuleSummaryView::getId).toList();
+
+        // When: lotes bem menores que a lista
+        List<UUID> summaries = moduleRepository.findSummariesByIdInOrdered(ids, 7).stream()
+                .map(ModuleSummaryView::getId)
+                .toList();
+        List<UUID> modules = moduleRepository.findByIdInOrdered(ids, 7).stream().map(Module::getId).toList();
+        Page<ModuleSummaryView> page = moduleRepository.findSummariesByIdInOrdered(ids, PageRequest.of(2, 10), 7);
+
+        // Then
+        assertEquals(expected, summaries);
+        assertEquals(expected, modules);
+        assertEquals(MODULES, page.getTotalElements());
+        assertEquals(expected.subList(20, 30), page.getContent().stream().map(ModuleSummaryView::getId).toList());
+    }
+
+    private static void assertCompleteResponses(List<ModuleResponse> modules) {
+        for (ModuleResponse module : modules) {
+            assertEquals(3, module.getContent().size());
+            assertNotNull(module.getCreatedBy().getName());
+            int expectedPatients = module.getVisibility() == ContentVisibility.SPECIFIC ? 2 : 0;
+            assertEquals(expectedPatients, module.getAllowedPatients().size());
+        }
+    }
+
+    private User persistUser(String name, String email, Role role) {
+        User user = User.builder()
+                .name(name)
+                .email(email + "." + UUID.randomUUID())
+                .password("senha")
+                .role(role)
+                .isActive(true)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,231 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.request.module.CreateModuleRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.module.MoveModuleRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.response.module.ModuleResponse;
+import br.rafaalmeida1.nutri_thata_api.entities.Module;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentType;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ModuleOrderingIntegrationTest {
+
+    private static final int MODULES = 5;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private ModuleOrdering moduleOrdering;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User professional;
+    private List<UUID> ids;
+
+    @BeforeEach
+    void setUp() {
+        professional = persistUser("Nutri", "nutri.ordem@exemplo.com", Role.PROFESSIONAL);
+        ids = new ArrayList<>();
+        for (int i = 0; i < MODULES; i++) {
+            ids.add(persistModule(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void moveModule_ShouldRewriteOnlyTheMovedKey() {
+        // Given
+        Map<UUID, Integer> before = moduleOrdering.keysOf(professional.getId(), ids);
+
+        // When: o último vai para entre o primeiro e o segundo
+        int key = moduleService.moveModule(ids.get(4).toString(), professional, move(ids.get(0), ids.get(1)));
+
+        // Then
+        assertEquals(ModuleOrdering.GAP / 2, key);
+        assertEquals(List.of(ids.get(0), ids.get(4), ids.get(1), ids.get(2), ids.get(3)), storedOrder());
+        Map<UUID, Integer> after = moduleOrdering.keysOf(professional.getId(), ids);
+        for (int i = 0; i < MODULES - 1; i++) {
+            assertEquals(before.get(ids.get(i)), after.get(ids.get(i)));
+        }
+    }
+
+    @Test
+    void moveModule_ToEitherEnd_ShouldStepOneGapOutside() {
+        // When
+        int first = moduleService.moveModule(ids.get(2).toString(), professional, move(null, ids.get(0)));
+        int last = moduleService.moveModule(ids.get(1).toString(), professional, move(ids.get(4), null));
+
+        // Then
+        assertEquals(-ModuleOrdering.GAP, first);
+        assertEquals(5 * ModuleOrdering.GAP, last);
+        assertEquals(List.of(ids.get(2), ids.get(0), ids.get(3), ids.get(4), ids.get(1)), storedOrder());
+    }
+
+    @Test
+    void moveModule_WhenGapRunsOut_ShouldRebalanceAndKeepOrder() {
+        // When: alternar os dois últimos logo depois do primeiro, estreitando o intervalo até esgotá-lo
+        UUID moving = ids.get(3);
+        UUID other = ids.get(4);
+        for (int round = 0; round < 12; round++) {
+            UUID next = storedOrder().get(1);
+            moduleService.moveModule(moving.toString(), professional, move(ids.get(0), next));
+            UUID swap = moving;
+            moving = other;
+            other = swap;
+        }
+
+        // Then: o último movido está logo depois do primeiro, seguido do anterior
+        List<UUID> order = storedOrder();
+        assertEquals(List.of(ids.get(0), other, moving, ids.get(1), ids.get(2)), order);
+
+        // When: rebalanceamento de segundo plano
+        moduleOrdering.rebalance(professional.getId());
+
+        // Then: mesma ordem, chaves espaçadas de novo
+        assertEquals(order, storedOrder());
+        assertFalse(moduleOrdering.isPending(professional.getId()));
+        Map<UUID, Integer> keys = moduleOrdering.keysOf(professional.getId(), ids);
+        for (int i = 0; i < MODULES; i++) {
+            assertEquals(i * ModuleOrdering.GAP, keys.get(order.get(i)));
+        }
+    }
+
+    @Test
+    void moveModule_ToTheEndOfALoadedPage_ShouldLandBeforeTheNextPage() {
+        // Given: mais módulos do que cabem na página que o editor carrega
+        int pageSize = 20;
+        List<UUID> all = new ArrayList<>(ids);
+        for (int i = MODULES; i < pageSize + 5; i++) {
+            all.add(persistModule(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // When: o terceiro vai para o fim da primeira página, sem vizinho seguinte no cliente
+        UUID moved = all.get(2);
+        int key = moduleService.moveModule(moved.toString(), professional, move(all.get(pageSize - 1), null));
+
+        // Then: fica entre o último da página e o primeiro da seguinte
+        assertEquals((pageSize - 1) * ModuleOrdering.GAP + ModuleOrdering.GAP / 2, key);
+        List<UUID> expected = new ArrayList<>(all);
+        expected.remove(moved);
+        expected.add(pageSize - 1, moved);
+        assertEquals(expected, storedOrder());
+
+        // When: e volta para antes do primeiro da segunda página, sem vizinho anterior no cliente
+        moduleService.moveModule(moved.toString(), professional, move(null, all.get(pageSize + 1)));
+
+        // Then
+        expected.remove(moved);
+        expected.add(expected.indexOf(all.get(pageSize + 1)), moved);
+        assertEquals(expected, storedOrder());
+    }
+
+    @Test
+    void moveModule_WithoutNeighbours_ShouldBeRejectedWhenThereAreOthers() {
+        // When / Then
+        assertThrows(BusinessException.class,
+                () -> moduleService.moveModule(ids.get(0).toString(), professional, move(null, null)));
+    }
+
+    @Test
+    void moveModule_FromAnotherProfessional_ShouldBeRejected() {
+        // Given
+        User other = persistUser("Outra Nutri", "outra.ordem@exemplo.com", Role.PROFESSIONAL);
+
+        // When / Then
+        assertThrows(BusinessException.class,
+                () -> moduleService.moveModule(ids.get(0).toString(), other, move(null, null)));
+    }
+
+    @Test
+    void createModule_ShouldAppendOneGapAfterTheLastKey() {
+        // Given
+        CreateModuleRequest request = CreateModuleRequest.builder()
+                .title("Novo")
+                .description("Descrição")
+                .category("nutricao")
+                .content(List.of(CreateModuleRequest.ContentBlockData.builder()
+                        .type(ContentType.TEXT).content("Texto").order(1).build()))
+                .build();
+
+        // When
+        ModuleResponse created = moduleService.createModule(professional, request);
+
+        // Then
+        assertEquals(MODULES * ModuleOrdering.GAP, created.getOrderIndex());
+    }
+
+    @Test
+    void keyBetween_ShouldSplitTheGapOrReportNoRoom() {
+        // When / Then
+        assertEquals(0, ModuleOrdering.keyBetween(null, null));
+        assertEquals(512, ModuleOrdering.keyBetween(0, 1024));
+        assertEquals(2048, ModuleOrdering.keyBetween(1024, null));
+        assertEquals(-1024, ModuleOrdering.keyBetween(null, 0));
+        assertEquals(5, ModuleOrdering.keyBetween(4, 6));
+        assertNull(ModuleOrdering.keyBetween(4, 5));
+        assertNull(ModuleOrdering.keyBetween(Integer.MAX_VALUE - 10, null));
+    }
+
+    private static MoveModuleRequest move(UUID previous, UUID next) {
+        return MoveModuleRequest.builder().previousModuleId(previous).nextModuleId(next).build();
+    }
+
+    private List<UUID> storedOrder() {
+        return entityManager.createQuery(
+                        "SELECT m.id FROM Module m WHERE m.createdBy = :createdBy ORDER BY m.orderIndex", UUID.class)
+                .setParameter("createdBy", professional)
+                .getResultList();
+    }
+
+    private UUID persistModule(int position) {
+        Module module = Module.builder()
+                .title("Módulo " + position)
+                .description("Descrição")
+                .category("nutricao")
+                .orderIndex(position * ModuleOrdering.GAP)
+                .visibility(ContentVisibility.GENERAL)
+                .createdBy(professional)
+                .allowedPatients(new HashSet<>())
+                .content(new ArrayList<>())
+                .build();
+        entityManager.persist(module);
+        return module.getId();
+    }
+
+    private User persistUser(String name, String email, Role role) {
+        User user = User.builder()
+                .name(name)
+                .email(email + "." + UUID.randomUUID())
+                .password("senha")
+                .role(role)
+                .isActive(true)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
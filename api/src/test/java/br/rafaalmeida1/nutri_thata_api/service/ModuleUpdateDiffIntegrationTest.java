@@ -0,0 +1,232 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.request.module.UpdateModuleRequest;
+import br.rafaalmeida1.nutri_thata_api.dto.request.module.UpdateModuleRequest.ContentBlockUpdateData;
+import br.rafaalmeida1.nutri_thata_api.entities.ContentBlock;
+import br.rafaalmeida1.nutri_thata_api.entities.Module;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentType;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere que {@code updateModule} grava só o que mudou nos blocos de conteúdo e nos
+ * pacientes liberados, em vez de apagar e recriar tudo.
+ *
+ * Sem transação de teste: {@code updateModule} roda e confirma a própria transação, como
+ * em produção, e os dados são criados e apagados explicitamente.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ModuleUpdateDiffIntegrationTest {
+
+    private static final int BLOCKS = 10;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+    private User professional;
+    private User ana;
+    private User bruno;
+    private User carla;
+    private Module module;
+    private List<UUID> blockIds;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> persistModule());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Module stored = entityManager.find(Module.class, module.getId());
+            if (stored != null) {
+                stored.getAllowedPatients().clear();
+                entityManager.remove(stored);
+            }
+            // Notificações enviadas aos pacientes liberados durante o teste
+            List<Long> userIds = List.of(ana.getId(), bruno.getId(), carla.getId(), professional.getId());
+            entityManager.createQuery("DELETE FROM Notification n WHERE n.user.id IN :userIds")
+                    .setParameter("userIds", userIds)
+                    .executeUpdate();
+            for (Long userId : userIds) {
+                entityManager.remove(entityManager.find(User.class, userId));
+            }
+        });
+    }
+
+    private void persistModule() {
+        professional = persistUser("Nutri", "nutri.diff@exemplo.com", Role.PROFESSIONAL);
+        ana = persistUser("Ana", "ana.diff@exemplo.com", Role.PATIENT);
+        bruno = persistUser("Bruno", "bruno.diff@exemplo.com", Role.PATIENT);
+        carla = persistUser("Carla", "carla.diff@exemplo.com", Role.PATIENT);
+
+        module = Module.builder()
+                .title("Módulo")
+                .description("Descrição")
+                .category("nutricao")
+                .orderIndex(0)
+                .visibility(ContentVisibility.SPECIFIC)
+                .createdBy(professional)
+                .allowedPatients(new HashSet<>(Set.of(ana, bruno)))
+                .content(new ArrayList<>())
+                .build();
+        entityManager.persist(module);
+        blockIds = new ArrayList<>();
+        for (int order = 1; order <= BLOCKS; order++) {
+            ContentBlock block = new ContentBlock();
+            block.setModule(module);
+            block.setType(ContentType.TEXT);
+            block.setContent("Bloco " + order);
+            block.setOrderIndex(order);
+            entityManager.persist(block);
+            blockIds.add(block.getId());
+        }
+    }
+
+    @Test
+    void updateModule_WhenOneBlockChanges_ShouldUpdateOnlyThatBlock() {
+        // Given: correção de um erro de digitação no terceiro bloco
+        List<ContentBlockUpdateData> content = currentContent();
+        content.get(2).setContent("Bloco 3 corrigido");
+
+        // When
+        update(content, List.of(ana.getId(), bruno.getId()));
+
+        // Then
+        assertEquals(1, blockStatistics().getUpdateCount());
+        assertEquals(0, blockStatistics().getInsertCount());
+        assertEquals(0, accessStatistics().getUpdateCount());
+        assertEquals(0, accessStatistics().getRecreateCount());
+        assertEquals(blockIds, storedBlockIds());
+        assertEquals("Bloco 3 corrigido", transactionTemplate.execute(status ->
+                entityManager.find(ContentBlock.class, blockIds.get(2)).getContent()));
+    }
+
+    @Test
+    void updateModule_WhenBlocksAreAddedRemovedAndReordered_ShouldKeepSurvivingIds() {
+        // Given: o primeiro bloco vai para o fim, o último sai e entra um bloco novo
+        List<ContentBlockUpdateData> content = currentContent();
+        content.remove(BLOCKS - 1);
+        content.add(content.remove(0));
+        content.add(ContentBlockUpdateData.builder().type(ContentType.VIDEO).content("https://youtu.be/novo").build());
+        for (int i = 0; i < content.size(); i++) {
+            content.get(i).setOrder(i + 1);
+        }
+
+        // When
+        update(content, List.of(ana.getId(), bruno.getId()));
+
+        // Then: todos os que ficaram mudaram de posição; nenhum foi recriado
+        assertEquals(BLOCKS - 1, blockStatistics().getUpdateCount());
+        assertEquals(1, blockStatistics().getInsertCount());
+        List<UUID> stored = storedBlockIds();
+        assertEquals(BLOCKS, stored.size());
+        assertEquals(blockIds.subList(1, BLOCKS - 1), stored.subList(0, BLOCKS - 2));
+        assertEquals(blockIds.get(0), stored.get(BLOCKS - 2));
+        assertFalse(stored.contains(blockIds.get(BLOCKS - 1)));
+    }
+
+    @Test
+    void updateModule_WhenPatientsChange_ShouldDiffAccessRows() {
+        // When: Bruno sai, Carla entra, Ana fica
+        update(currentContent(), List.of(ana.getId(), carla.getId()));
+
+        // Then
+        assertEquals(1, accessStatistics().getUpdateCount());
+        assertEquals(0, accessStatistics().getRecreateCount());
+        assertEquals(0, blockStatistics().getUpdateCount());
+        Set<Long> stored = transactionTemplate.execute(status ->
+                entityManager.find(Module.class, module.getId()).getAllowedPatients().stream()
+                        .map(User::getId)
+                        .collect(Collectors.toSet()));
+        assertEquals(Set.of(ana.getId(), carla.getId()), stored);
+    }
+
+    private void update(List<ContentBlockUpdateData> content, List<Long> patientIds) {
+        UpdateModuleRequest request = UpdateModuleRequest.builder()
+                .title("Módulo")
+                .description("Descrição")
+                .category("nutricao")
+                .visibility(ContentVisibility.SPECIFIC)
+                .allowedPatientIds(patientIds)
+                .content(content)
+                .build();
+        statistics.clear();
+        moduleService.updateModule(module.getId().toString(), professional, request);
+    }
+
+    private EntityStatistics blockStatistics() {
+        return statistics.getEntityStatistics(ContentBlock.class.getName());
+    }
+
+    private CollectionStatistics accessStatistics() {
+        return statistics.getCollectionStatistics(Module.class.getName() + ".allowedPatients");
+    }
+
+    private List<ContentBlockUpdateData> currentContent() {
+        List<ContentBlockUpdateData> content = new ArrayList<>();
+        for (int i = 0; i < BLOCKS; i++) {
+            content.add(ContentBlockUpdateData.builder()
+                    .id(blockIds.get(i))
+                    .type(ContentType.TEXT)
+                    .content("Bloco " + (i + 1))
+                    .order(i + 1)
+                    .build());
+        }
+        return content;
+    }
+
+    private List<UUID> storedBlockIds() {
+        return transactionTemplate.execute(status -> entityManager.createQuery(
+                        "SELECT b.id FROM ContentBlock b WHERE b.module.id = :moduleId ORDER BY b.orderIndex", UUID.class)
+                .setParameter("moduleId", module.getId())
+                .getResultList());
+    }
+
+    private User persistUser(String name, String email, Role role) {
+        User user = User.builder()
+                .name(name)
+                .email(email + "." + UUID.randomUUID())
+                .password("senha")
+                .role(role)
+                .isActive(true)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,212 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.Module;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.ContentVisibility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class ModuleVisibilityIndexTest {
+
+    private final UUID general = UUID.randomUUID();
+    private final UUID forAna = UUID.randomUUID();
+    private final UUID forAnaAndBruno = UUID.randomUUID();
+
+    private ModuleVisibilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ModuleVisibilityIndex(null);
+        index.index(module(general, ContentVisibility.GENERAL, "nutricao"));
+        index.index(module(forAna, ContentVisibility.SPECIFIC, "treino", 1L));
+        index.index(module(forAnaAndBruno, ContentVisibility.SPECIFIC, "receitas", 1L, 2L));
+    }
+
+    @Test
+    void visibleModuleIds_ShouldCombineGeneralAndSpecificModules() {
+        // When / Then
+        assertEquals(Set.of(general, forAna, forAnaAndBruno), Set.copyOf(index.visibleModuleIds(1L)));
+        assertEquals(Set.of(general, forAnaAndBruno), Set.copyOf(index.visibleModuleIds(2L)));
+        assertEquals(List.of(general), index.visibleModuleIds(3L));
+        assertEquals(3, index.countVisible(1L));
+        assertEquals(List.of("nutricao", "receitas"), index.visibleCategories(2L));
+    }
+
+    @Test
+    void index_WhenModuleChanges_ShouldReplacePreviousAccess() {
+        // When: o módulo da Ana passa a ser só do Bruno, e o geral vira específico sem pacientes
+        index.index(module(forAna, ContentVisibility.SPECIFIC, "treino", 2L));
+        index.index(module(general, ContentVisibility.SPECIFIC, "nutricao"));
+
+        // Then
+        assertEquals(Set.of(forAnaAndBruno), Set.copyOf(index.visibleModuleIds(1L)));
+        assertEquals(Set.of(forAna, forAnaAndBruno), Set.copyOf(index.visibleModuleIds(2L)));
+        assertTrue(index.visibleModuleIds(3L).isEmpty());
+    }
+
+    @Test
+    void remove_ShouldDropModuleFromEveryPatient() {
+        // When
+        index.remove(forAnaAndBruno);
+        index.remove(forAna);
+
+        // Then
+        assertEquals(List.of(general), index.visibleModuleIds(1L));
+        assertEquals(List.of(general), index.visibleModuleIds(2L));
+        assertNull(index.specificOf(1L));
+        assertEquals(List.of("nutricao"), index.visibleCategories(1L));
+    }
+
+    @Test
+    void refresh_ShouldReplayChangesCommittedWhileReadingTheDatabase() throws Exception {
+        // Given: o banco ainda devolve o módulo liberado para a Ana, mas a revogação confirma
+        // enquanto a recarga lê
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ModuleVisibilityIndex refreshing = new ModuleVisibilityIndex(jdbcTemplate);
+        refreshing.index(module(forAna, ContentVisibility.SPECIFIC, "treino", 1L));
+        doAnswer(invocation -> {
+            refreshing.remove(forAna);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row(forAna, "SPECIFIC", "treino"));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id, visibility"), any(RowCallbackHandler.class));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(access(forAna, 1L));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT a.module_id"), any(RowCallbackHandler.class));
+
+        // When
+        refreshing.refresh();
+
+        // Then
+        assertTrue(refreshing.visibleModuleIds(1L).isEmpty());
+        assertNull(refreshing.specificOf(1L));
+    }
+
+    @Test
+    void reload_ShouldApplyAChangeCommittedByAnotherInstance() throws Exception {
+        // Given: outra instância tirou a Ana do módulo e liberou para o Bruno
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ModuleVisibilityIndex remote = new ModuleVisibilityIndex(jdbcTemplate);
+        remote.index(module(forAna, ContentVisibility.SPECIFIC, "treino", 1L));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn("SPECIFIC");
+        when(rs.getString(2)).thenReturn("treino");
+        doAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(rs, 0)))
+                .when(jdbcTemplate).query(startsWith("SELECT visibility"), any(RowMapper.class), eq(forAna));
+        when(jdbcTemplate.queryForList(startsWith("SELECT patient_id"), eq(Long.class), eq(forAna)))
+                .thenReturn(List.of(2L));
+
+        // When
+        remote.reload(forAna);
+
+        // Then
+        assertTrue(remote.visibleModuleIds(1L).isEmpty());
+        assertEquals(List.of(forAna), remote.visibleModuleIds(2L));
+
+        // When: o módulo foi excluído lá
+        when(jdbcTemplate.query(startsWith("SELECT visibility"), any(RowMapper.class), eq(forAna)))
+                .thenReturn(List.of());
+        remote.reload(forAna);
+
+        // Then
+        assertTrue(remote.visibleModuleIds(2L).isEmpty());
+    }
+
+    @Test
+    void onLocalChange_ShouldReceiveEveryIndexedOrRemovedModule() {
+        // Given
+        List<UUID> changed = new ArrayList<>();
+        index.onLocalChange(changed::add);
+
+        // When
+        index.index(module(forAna, ContentVisibility.SPECIFIC, "treino", 2L));
+        index.remove(general);
+
+        // Then
+        assertEquals(List.of(forAna, general), changed);
+    }
+
+    @Test
+    void start_WhenTheFirstLoadFails_ShouldFailInsteadOfServingAnEmptyIndex() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ModuleVisibilityIndex starting = new ModuleVisibilityIndex(jdbcTemplate);
+        doThrow(new DataAccessResourceFailureException("banco indisponível"))
+                .when(jdbcTemplate).query(startsWith("SELECT id, visibility"), any(RowCallbackHandler.class));
+
+        // When / Then
+        assertThrows(DataAccessResourceFailureException.class, starting::start);
+        assertFalse(starting.isRunning());
+
+        // When: a recarga periódica só registra a falha
+        assertDoesNotThrow(starting::refresh);
+    }
+
+    @Test
+    void bitmap_ShouldSwitchBetweenSortedListAndBits() {
+        // Given: muitos módulos específicos seguidos para o mesmo paciente
+        List<UUID> many = IntStream.range(0, 200).mapToObj(i -> UUID.randomUUID()).toList();
+        many.forEach(id -> index.index(module(id, ContentVisibility.SPECIFIC, "extra", 7L)));
+
+        // When / Then
+        assertTrue(index.specificOf(7L).isDense());
+        assertEquals(201, index.countVisible(7L));
+        assertFalse(index.specificOf(2L).isDense());
+
+        // When: sobra só um
+        many.subList(1, many.size()).forEach(index::remove);
+
+        // Then
+        assertFalse(index.specificOf(7L).isDense());
+        assertEquals(Set.of(general, many.get(0)), Set.copyOf(index.visibleModuleIds(7L)));
+    }
+
+    private static Module module(UUID id, ContentVisibility visibility, String category, Long... patientIds) {
+        Set<User> allowed = new HashSet<>();
+        for (Long patientId : patientIds) {
+            User patient = new User();
+            patient.setId(patientId);
+            allowed.add(patient);
+        }
+        return Module.builder()
+                .id(id)
+                .visibility(visibility)
+                .category(category)
+                .allowedPatients(allowed)
+                .build();
+    }
+
+    private static ResultSet row(UUID id, String visibility, String category) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, UUID.class)).thenReturn(id);
+        when(rs.getString(2)).thenReturn(visibility);
+        when(rs.getString(3)).thenReturn(category);
+        return rs;
+    }
+
+    private static ResultSet access(UUID moduleId, long patientId) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, UUID.class)).thenReturn(moduleId);
+        when(rs.getLong(2)).thenReturn(patientId);
+        return rs;
+    }
+}
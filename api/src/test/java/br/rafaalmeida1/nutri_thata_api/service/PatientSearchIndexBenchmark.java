@@ -0,0 +1,75 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark da busca de pacientes com 100 mil pacientes sintéticos, misturando prefixos
+ * curtos, nomes completos, e-mails e termos com erro de digitação. O modo de amostragem
+ * mostra os percentis (p99) de cada busca.
+ *
+ * Execução: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=br.rafaalmeida1.nutri_thata_api.service.PatientSearchIndexBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientSearchIndexBenchmark {
+
+    private static final int PATIENTS = 100_000;
+    private static final String[] FIRST_NAMES = {"Ana", "Maria", "João", "José", "Pedro", "Paula", "Lucas",
+            "Luana", "Carlos", "Camila", "Rafael", "Fernanda", "Bruno", "Beatriz", "Gabriel", "Juliana",
+            "Marcos", "Mariana", "Thiago", "Larissa"};
+    private static final String[] LAST_NAMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira",
+            "Alves", "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes",
+            "Soares", "Fernandes", "Vieira", "Barbosa"};
+    private static final List<String> QUERIES = List.of("a", "ma", "sil", "silva", "mariana silva", "pereita",
+            "fernadna", "carlos alm", "p4242", "gmail", "bruno souza ribeiro", "thiagp");
+
+    private PatientSearchIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new PatientSearchIndex(null);
+        Random random = new Random(42);
+        for (int i = 0; i < PATIENTS; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String middle = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String domain = random.nextBoolean() ? "gmail.com" : "exemplo.com.br";
+            index.upsert(i, first + " " + middle + " " + last, "p" + i + "." + first.toLowerCase() + "@" + domain, true);
+        }
+    }
+
+    @Benchmark
+    public List<PatientSearchIndex.Match> search() {
+        String query = QUERIES.get(next);
+        next = (next + 1) % QUERIES.size();
+        return index.search(query, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PatientSearchIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
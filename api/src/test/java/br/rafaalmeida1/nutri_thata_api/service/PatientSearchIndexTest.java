@@ -0,0 +1,139 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PatientSearchIndexTest {
+
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PatientSearchIndex(null);
+        index.upsert(1L, "Ana Silva", "ana.silva@exemplo.com", true);
+        index.upsert(2L, "João Souza", "joao@exemplo.com", true);
+        index.upsert(3L, "Mariana Silveira", "mari@exemplo.com", true);
+        index.upsert(4L, "Carlos Pereira", "carlos.p@gmail.com", true);
+    }
+
+    @Test
+    void search_ByPrefix_ShouldMatchAnyWordOfNameOrEmail() {
+        // When / Then
+        assertEquals(List.of(1L, 3L), ids(index.search("silv", 10)));
+        assertEquals(List.of(4L), ids(index.search("gmai", 10)));
+        assertEquals(List.of(2L), ids(index.search("joao@", 10)));
+    }
+
+    @Test
+    void search_ShouldIgnoreAccentsAndCase() {
+        // When / Then
+        assertEquals(List.of(2L), ids(index.search("JOÃO", 10)));
+        assertEquals(List.of(2L), ids(index.search("joao", 10)));
+    }
+
+    @Test
+    void search_ShouldTolerateTypos() {
+        // When / Then: troca, transposição e letra faltando
+        assertEquals(List.of(4L), ids(index.search("pereita", 10)));
+        assertEquals(List.of(4L), ids(index.search("carlso", 10)));
+        assertEquals(List.of(3L), ids(index.search("marana", 10)));
+    }
+
+    @Test
+    void search_WithSeveralTerms_ShouldRequireAllOfThem() {
+        // When / Then
+        assertEquals(List.of(1L), ids(index.search("ana silva", 10)));
+        assertEquals(List.of(3L), ids(index.search("mari silveira", 10)));
+        assertTrue(index.search("ana pereira", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankExactWordsFirstAndRespectLimit() {
+        // Given
+        index.upsert(5L, "Silva Costa", "costa@exemplo.com", true);
+
+        // When
+        List<PatientSearchIndex.Match> matches = index.search("silva", 2);
+
+        // Then: empate entre as palavras exatas pelo nome mais curto; "Silveira" só combina com erro
+        assertEquals(List.of(1L, 5L), ids(matches));
+    }
+
+    @Test
+    void index_ShouldReplaceChangedPatientsAndDropInactiveOnes() {
+        // Given
+        User renamed = patient(1L, "Ana Costa", "ana.costa@exemplo.com", true);
+        User inactive = patient(3L, "Mariana Silveira", "mari@exemplo.com", false);
+
+        // When: fora de transação, o índice é atualizado na hora
+        index.index(renamed);
+        index.index(inactive);
+
+        // Then
+        assertTrue(index.search("silva", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("costa", 10)));
+        assertTrue(index.search("mariana", 10).isEmpty());
+    }
+
+    @Test
+    void upsert_ShouldKeepResultsAcrossCompaction() {
+        // Given: alterações suficientes para compactar o índice
+        for (String round : List.of("primeira", "segunda", "terceira")) {
+            for (long id = 100; id < 1_200; id++) {
+                index.upsert(id, "Paciente " + id + " " + round, "p" + id + "@exemplo.com", true);
+            }
+        }
+
+        // When / Then
+        assertEquals(List.of(1L), ids(index.search("ana silva", 10)));
+        assertEquals(1_150L, index.search("p1150", 10).get(0).id());
+        assertEquals(10, index.search("paciente terceira", 10).size());
+        assertTrue(index.search("paciente segunda", 10).isEmpty());
+    }
+
+    @Test
+    void search_WithBlankQuery_ShouldReturnNothing() {
+        // When / Then
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search("@.", 10).isEmpty());
+    }
+
+    @Test
+    void start_WhenTheFirstLoadFails_ShouldFailInsteadOfServingAnEmptyIndex() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        PatientSearchIndex starting = new PatientSearchIndex(jdbcTemplate);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+                .thenThrow(new DataAccessResourceFailureException("banco indisponível"));
+
+        // When / Then
+        assertThrows(DataAccessResourceFailureException.class, starting::start);
+        assertFalse(starting.isRunning());
+    }
+
+    private static List<Long> ids(List<PatientSearchIndex.Match> matches) {
+        return matches.stream().map(PatientSearchIndex.Match::id).toList();
+    }
+
+    private static User patient(Long id, String name, String email, boolean active) {
+        return User.builder()
+                .id(id)
+                .name(name)
+                .email(email)
+                .role(Role.PATIENT)
+                .isActive(active)
+                .build();
+    }
+}
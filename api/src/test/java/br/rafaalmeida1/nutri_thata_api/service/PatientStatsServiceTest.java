@@ -0,0 +1,226 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.PatientRosterResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserResponse;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.UserStatsResponse;
+import br.rafaalmeida1.nutri_thata_api.entities.PatientDailyStats;
+import br.rafaalmeida1.nutri_thata_api.entities.PatientStats;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.PatientRosterSort;
+import br.rafaalmeida1.nutri_thata_api.exception.BusinessException;
+import br.rafaalmeida1.nutri_thata_api.repositories.UserRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PatientDailyStatsRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PatientStatsRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.UserCategoryProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientStatsServiceTest {
+
+    @Mock
+    private PatientStatsRepository patientStatsRepository;
+
+    @Mock
+    private PatientDailyStatsRepository patientDailyStatsRepository;
+
+    @Mock
+    private UserCategoryProgressRepository userCategoryProgressRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    private PatientStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PatientStatsService(patientStatsRepository, patientDailyStatsRepository,
+                userCategoryProgressRepository, userRepository, cacheGenerations);
+    }
+
+    @Test
+    void recordActivity_ShouldInvalidateOnlyTheAffectedPatient() {
+        // Given
+        LocalDateTime at = LocalDateTime.of(2026, 10, 15, 14, 30);
+
+        // When
+        service.recordActivity(7L, 1, 120, at);
+
+        // Then
+        verify(patientStatsRepository).addActivity(7L, 1, 120, at);
+        verify(patientDailyStatsRepository).addActivity(7L, at.toLocalDate(), 1, 120);
+        verify(cacheGenerations).invalidate("user-stats:7", CacheGenerations.PATIENT_ROSTER);
+        verifyNoMoreInteractions(cacheGenerations);
+    }
+
+    @Test
+    void recordActivity_WithoutViews_ShouldOnlyTouchLastActivity() {
+        // When
+        service.recordActivity(7L, 0, 0, LocalDateTime.now());
+
+        // Then
+        verify(patientStatsRepository).addActivity(eq(7L), eq(0L), eq(0L), any());
+        verifyNoInteractions(patientDailyStatsRepository);
+    }
+
+    @Test
+    void getUserStats_ShouldReadTheMaterializedRow() {
+        // Given
+        LocalDate today = LocalDate.now();
+        when(patientStatsRepository.findByUserId(7L)).thenReturn(Optional.of(PatientStats.builder()
+                .userId(7L)
+                .modulesViewed(8L)
+                .modulesCompleted(2L)
+                .timeSpent(600L)
+                .sessionsEnded(3L)
+                .sessionTime(900L)
+                .lastActivityAt(LocalDateTime.of(2026, 10, 15, 14, 30))
+                .build()));
+        when(userCategoryProgressRepository.findCategoriesByUserIdsOrderByModulesViewedDesc(List.of(7L)))
+                .thenReturn(List.of(new Object[]{7L, "nutricao"}, new Object[]{7L, "treino"}));
+        when(patientDailyStatsRepository.findByUserIdAndStatDateGreaterThanEqualOrderByStatDateAsc(7L, today.minusDays(7)))
+                .thenReturn(List.of(PatientDailyStats.builder()
+                        .userId(7L).statDate(today).modulesViewed(3L).timeSpent(240L).build()));
+
+        // When
+        UserStatsResponse stats = service.getUserStats(7L);
+
+        // Then
+        assertEquals(8, stats.getTotalModulesViewed());
+        assertEquals(2, stats.getModulesCompleted());
+        assertEquals(600, stats.getTotalTimeSpent());
+        assertEquals(300, stats.getAverageSessionTime());
+        assertEquals(25, stats.getProgressPercentage());
+        assertEquals("2026-10-15 14:30:00", stats.getLastActivity());
+        assertEquals(List.of("nutricao", "treino"), stats.getFavoriteCategories());
+        assertEquals(1, stats.getWeeklyActivity().size());
+        assertEquals(240, stats.getWeeklyActivity().get(0).getTimeSpent());
+    }
+
+    @Test
+    void getPatientStats_ShouldLoadAllPatientsInBulk() {
+        // Given
+        User first = new User();
+        first.setId(7L);
+        User second = new User();
+        second.setId(8L);
+        when(patientStatsRepository.findByUserIdIn(List.of(7L, 8L))).thenReturn(List.of(PatientStats.builder()
+                .userId(7L).modulesViewed(4L).modulesCompleted(1L).timeSpent(60L).sessionsEnded(0L).sessionTime(0L)
+                .build()));
+        when(userCategoryProgressRepository.findCategoriesByUserIdsOrderByModulesViewedDesc(anyCollection()))
+                .thenReturn(List.of());
+
+        // When
+        Map<Long, UserResponse.PatientStats> stats = service.getPatientStats(List.of(first, second));
+
+        // Then: quem ainda não tem atividade aparece zerado
+        assertEquals(4, stats.get(7L).getTotalModulesViewed());
+        assertEquals(25, stats.get(7L).getProgressPercentage());
+        assertEquals(0, stats.get(8L).getTotalModulesViewed());
+        assertEquals("Nunca", stats.get(8L).getLastActivity());
+        verify(patientStatsRepository, never()).findByUserId(any());
+    }
+
+    @Test
+    void getRoster_ShouldContinueWithPatientsWithoutActivityAcrossPages() {
+        // Given: um paciente com atividade e dois sem nenhuma
+        LocalDateTime at = LocalDateTime.of(2026, 10, 15, 14, 30, 0, 123_456_000);
+        when(patientStatsRepository.findActivePatientsByLastActivityBefore(any(), eq(Long.MAX_VALUE), eq(3)))
+                .thenReturn(List.of(stats(5L, at)));
+        when(patientStatsRepository.findActivePatientsWithoutActivityBefore(Long.MAX_VALUE, 2))
+                .thenReturn(List.of(stats(9L, null), stats(3L, null)));
+        when(userRepository.findAllById(List.of(5L, 9L))).thenReturn(List.of(patient(9L), patient(5L)));
+        when(userCategoryProgressRepository.findCategoriesByUserIdsOrderByModulesViewedDesc(anyCollection()))
+                .thenReturn(List.of());
+
+        // When
+        PatientRosterResponse first = service.getRoster(PatientRosterSort.LAST_ACTIVITY, null, 2);
+
+        // Then: ordem das linhas de patient_stats, e o cursor continua depois do id 9
+        assertEquals(List.of(5L, 9L), first.getPatients().stream().map(UserResponse::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        // When
+        when(patientStatsRepository.findActivePatientsWithoutActivityBefore(9L, 3)).thenReturn(List.of(stats(3L, null)));
+        when(userRepository.findAllById(List.of(3L))).thenReturn(List.of(patient(3L)));
+        PatientRosterResponse second = service.getRoster(PatientRosterSort.LAST_ACTIVITY, first.getNextCursor(), 2);
+
+        // Then
+        assertEquals(List.of(3L), second.getPatients().stream().map(UserResponse::getId).toList());
+        assertNull(second.getNextCursor());
+        verify(patientStatsRepository, times(1)).findActivePatientsByLastActivityBefore(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getRoster_ByProgress_ShouldResumeFromTheLastRow() {
+        // Given
+        PatientStats row = stats(4L, null);
+        row.setProgressPercentage(60);
+        when(patientStatsRepository.findActivePatientsByProgressBefore(Integer.MAX_VALUE, Long.MAX_VALUE, 2))
+                .thenReturn(List.of(row, stats(2L, null)));
+        when(userRepository.findAllById(List.of(4L))).thenReturn(List.of(patient(4L)));
+        when(userCategoryProgressRepository.findCategoriesByUserIdsOrderByModulesViewedDesc(anyCollection()))
+                .thenReturn(List.of());
+        String cursor = service.getRoster(PatientRosterSort.PROGRESS, null, 1).getNextCursor();
+
+        // When
+        service.getRoster(PatientRosterSort.PROGRESS, cursor, 1);
+
+        // Then
+        verify(patientStatsRepository).findActivePatientsByProgressBefore(60, 4L, 2);
+    }
+
+    @Test
+    void getRoster_WithCursorFromAnotherSortOrGarbage_ShouldFail() {
+        // Given
+        PatientStats row = stats(4L, null);
+        row.setProgressPercentage(60);
+        when(patientStatsRepository.findActivePatientsByProgressBefore(anyInt(), anyLong(), anyInt()))
+                .thenReturn(List.of(row, stats(2L, null)));
+        String progressCursor = service.getRoster(PatientRosterSort.PROGRESS, null, 1).getNextCursor();
+
+        // When / Then
+        assertThrows(BusinessException.class,
+                () -> service.getRoster(PatientRosterSort.LAST_ACTIVITY, progressCursor, 1));
+        assertThrows(BusinessException.class,
+                () -> service.getRoster(PatientRosterSort.LAST_ACTIVITY, "não é um cursor", 1));
+    }
+
+    private static PatientStats stats(Long userId, LocalDateTime lastActivityAt) {
+        return PatientStats.builder()
+                .userId(userId)
+                .modulesViewed(0L)
+                .modulesCompleted(0L)
+                .timeSpent(0L)
+                .sessionsEnded(0L)
+                .sessionTime(0L)
+                .progressPercentage(0)
+                .lastActivityAt(lastActivityAt)
+                .build();
+    }
+
+    private static User patient(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
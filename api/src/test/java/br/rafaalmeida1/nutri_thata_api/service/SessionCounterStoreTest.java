@@ -0,0 +1,157 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.service.SessionCounterStore.SessionCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionCounterStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    private SessionCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new SessionCounterStore(jdbcTemplate, transactionManager, cacheGenerations);
+    }
+
+    @Test
+    void add_ConcurrentUpdatesAreNotLost() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When: eventos da mesma sessão enquanto flushes removem as células já gravadas
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    store.add(1L, "s1", SessionCounters.PAGE_VISITED);
+                }
+            });
+        }
+        executor.submit(() -> {
+            for (int j = 0; j < 50; j++) {
+                store.flush();
+            }
+        });
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        store.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(startsWith("UPDATE user_sessions"), captor.capture());
+        long flushedPages = captor.getAllValues().stream()
+                .flatMap(List::stream)
+                .mapToLong(row -> (Long) row[0])
+                .sum();
+        assertEquals(8000, flushedPages);
+        assertEquals(SessionCounters.NONE, store.pending(1L, "s1"));
+    }
+
+    @Test
+    void flush_SendsOneRowPerSession() {
+        // Given
+        store.add(1L, "s1", SessionCounters.PAGE_VISITED);
+        store.add(1L, "s1", SessionCounters.MODULE_VIEWED);
+        store.add(1L, "s1", SessionCounters.MODULE_COMPLETED);
+        store.add(2L, "s2", SessionCounters.PAGE_VISITED);
+
+        // When
+        store.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("UPDATE user_sessions"), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        Object[] s1 = captor.getValue().stream().filter(row -> "s1".equals(row[6])).findFirst().orElseThrow();
+        assertArrayEquals(new Object[]{1L, 1L, 1L}, new Object[]{s1[0], s1[1], s1[2]});
+        assertEquals(1L, s1[7]);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO patient_stats"), anyList());
+
+        // Sem novos eventos, o próximo flush não vai ao banco
+        store.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_KeepsPendingDeltaWhenUpdateFails() {
+        // Given
+        store.add(1L, "s1", SessionCounters.PAGE_VISITED);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("banco indisponível"));
+
+        // When
+        store.flush();
+
+        // Then
+        verify(transactionManager).rollback(any());
+        assertEquals(SessionCounters.PAGE_VISITED, store.pending(1L, "s1"));
+    }
+
+    @Test
+    void flush_WritesLastActivityOncePerUserWithoutInvalidatingTheRoster() {
+        // Given: várias visualizações de página, uma delas fora de sessão
+        store.add(1L, "s1", SessionCounters.PAGE_VISITED);
+        store.add(1L, "s1", SessionCounters.PAGE_VISITED);
+        store.add(1L, null, SessionCounters.PAGE_VISITED);
+        store.add(2L, null, SessionCounters.PAGE_VISITED);
+
+        // When
+        store.flush();
+
+        // Then: uma linha por usuário em patient_stats, no mesmo ciclo de flush
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO patient_stats"), captor.capture());
+        assertEquals(List.of(1L, 2L), captor.getValue().stream().map(row -> row[0]).sorted().toList());
+        verify(cacheGenerations).invalidate(CacheGenerations.userStats(1L));
+        verify(cacheGenerations).invalidate(CacheGenerations.userStats(2L));
+        verify(cacheGenerations, never()).invalidate(CacheGenerations.PATIENT_ROSTER);
+
+        // Atividade já gravada não é reenviada
+        store.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO patient_stats"), anyList());
+    }
+
+    @Test
+    void flushSession_WritesOnlyThatSession() {
+        // Given
+        store.add(1L, "s1", SessionCounters.PAGE_VISITED);
+        store.add(1L, "s2", SessionCounters.PAGE_VISITED);
+
+        // When
+        store.flush(1L, "s1");
+
+        // Then
+        assertEquals(SessionCounters.NONE, store.pending(1L, "s1"));
+        assertEquals(SessionCounters.PAGE_VISITED, store.pending(1L, "s2"));
+    }
+}
@@ -0,0 +1,182 @@
+package br.rafaalmeida1.nutri_thata_api.service;
+
+import br.rafaalmeida1.nutri_thata_api.dto.request.user.TrackActivityBatchRequest.TrackActivityEvent;
+import br.rafaalmeida1.nutri_thata_api.dto.response.user.TrackActivityBatchResponse;
+import br.rafaalmeida1.nutri_thata_api.entities.ModuleView;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.entities.UserActivity;
+import br.rafaalmeida1.nutri_thata_api.enums.ActivityEventType;
+import br.rafaalmeida1.nutri_thata_api.repository.ModuleViewRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.UserActivityRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.UserCategoryProgressRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.UserModuleProgressRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.UserSessionRepository;
+import br.rafaalmeida1.nutri_thata_api.service.analytics.UserAgentClassifier;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserActivityTrackingServiceTest {
+
+    private static final String CHROME = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
+
+    @Mock
+    private UserActivityRepository userActivityRepository;
+
+    @Mock
+    private UserSessionRepository userSessionRepository;
+
+    @Mock
+    private ModuleViewRepository moduleViewRepository;
+
+    @Mock
+    private UserCategoryProgressRepository userCategoryProgressRepository;
+
+    @Mock
+    private UserModuleProgressRepository userModuleProgressRepository;
+
+    @Mock
+    private UserActivityBatchWriter batchWriter;
+
+    @Mock
+    private SessionCounterStore sessionCounterStore;
+
+    @Mock
+    private PatientStatsService patientStatsService;
+
+    private UserActivityTrackingService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserActivityTrackingService(userActivityRepository, userSessionRepository, moduleViewRepository,
+                userCategoryProgressRepository, userModuleProgressRepository, new UserAgentClassifier(16), batchWriter,
+                sessionCounterStore, patientStatsService, Validation.buildDefaultValidatorFactory().getValidator());
+        user = new User();
+        user.setId(7L);
+    }
+
+    @Test
+    void trackBatch_ShouldRejectInvalidEventsWithoutDroppingTheOthers() {
+        // Given
+        List<TrackActivityEvent> events = List.of(
+                pageView("/modulos", "s1"),
+                TrackActivityEvent.builder().type(ActivityEventType.MODULE_VIEW).moduleId(3L).sessionId("s1").build(),
+                TrackActivityEvent.builder().pagePath("/sem-tipo").sessionId("s1").build());
+
+        // When
+        TrackActivityBatchResponse response = service.trackBatch(user, events, CHROME, "10.0.0.1");
+
+        // Then
+        assertEquals(1, response.getAccepted());
+        assertEquals(2, response.getRejected());
+        assertTrue(response.getResults().get(0).getAccepted());
+        assertEquals("Categoria é obrigatória; Tempo gasto é obrigatório; Título do módulo é obrigatório",
+                response.getResults().get(1).getError());
+        assertEquals("Tipo do evento é obrigatório", response.getResults().get(2).getError());
+
+        ArgumentCaptor<List<UserActivity>> activities = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).insertActivities(eq(7L), activities.capture(), any());
+        assertEquals(1, activities.getValue().size());
+        assertEquals(UserAgentClassifier.DESKTOP, activities.getValue().get(0).getDeviceType());
+    }
+
+    @Test
+    void trackBatch_ShouldSumCountersPerSessionAndCategory() {
+        // Given
+        List<TrackActivityEvent> events = List.of(
+                pageView("/modulos", "s1"),
+                pageView("/modulos/3", "s1"),
+                moduleView(3L, 30L, "s1"),
+                moduleView(3L, 45L, "s2"),
+                TrackActivityEvent.builder().type(ActivityEventType.MODULE_COMPLETION).moduleId(3L)
+                        .moduleTitle("Módulo 3").category("nutricao").timeSpent(15L).completionPercentage(100)
+                        .sessionId("s2").build());
+
+        // When
+        TrackActivityBatchResponse response = service.trackBatch(user, events, CHROME, "10.0.0.1");
+
+        // Then: um batch por tabela, um upsert por módulo e por categoria e um incremento por sessão
+        assertEquals(5, response.getAccepted());
+        verify(batchWriter).insertActivities(eq(7L), argThat(list -> list.size() == 5), any());
+        ArgumentCaptor<List<ModuleView>> moduleViews = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).insertModuleViews(eq(7L), moduleViews.capture(), any());
+        assertEquals(2, moduleViews.getValue().size());
+        verify(userModuleProgressRepository).upsertProgress(eq(7L), eq(3L), eq("Módulo 3"), eq("nutricao"),
+                eq(2), eq(75L), eq(true), eq(100), any());
+        verify(sessionCounterStore).add(7L, "s1", new SessionCounterStore.SessionCounters(2, 1, 0));
+        verify(sessionCounterStore).add(7L, "s2", new SessionCounterStore.SessionCounters(0, 1, 1));
+        verifyNoMoreInteractions(sessionCounterStore);
+
+        verify(userCategoryProgressRepository).upsertProgress(eq(7L), eq("nutricao"), eq(3), eq(1), eq(90L), any());
+        verifyNoMoreInteractions(userModuleProgressRepository, userCategoryProgressRepository);
+        verify(patientStatsService).recordActivity(eq(7L), eq(2L), eq(75L), any());
+        verify(patientStatsService).recordModuleCompletion(eq(7L), any());
+        verifyNoInteractions(userActivityRepository, moduleViewRepository, userSessionRepository);
+    }
+
+    @Test
+    void trackPageView_ShouldLeaveLastActivityToTheSessionFlush() {
+        // When
+        service.trackPageView(user, "/modulos", "s1", CHROME, "10.0.0.1");
+
+        // Then: nenhum upsert em patient_stats por evento
+        verify(sessionCounterStore).add(7L, "s1", SessionCounterStore.SessionCounters.PAGE_VISITED);
+        verifyNoInteractions(patientStatsService);
+    }
+
+    @Test
+    void trackBatch_OnlyPageViews_ShouldNotUpsertPatientStats() {
+        // When
+        service.trackBatch(user, List.of(pageView("/modulos", "s1"), pageView("/inicio", "s1")), CHROME, "10.0.0.1");
+
+        // Then
+        verify(sessionCounterStore).add(7L, "s1", new SessionCounterStore.SessionCounters(2, 0, 0));
+        verifyNoInteractions(patientStatsService);
+    }
+
+    @Test
+    void trackBatch_AllInvalid_ShouldNotTouchTheDatabase() {
+        // When
+        TrackActivityBatchResponse response = service.trackBatch(user,
+                List.of(pageView("", "s1")), CHROME, "10.0.0.1");
+
+        // Then
+        assertEquals(0, response.getAccepted());
+        verify(batchWriter).insertActivities(eq(7L), anyList(), any());
+        verifyNoInteractions(sessionCounterStore);
+        verifyNoInteractions(userCategoryProgressRepository, userModuleProgressRepository, patientStatsService);
+    }
+
+    private static TrackActivityEvent pageView(String pagePath, String sessionId) {
+        return TrackActivityEvent.builder()
+                .type(ActivityEventType.PAGE_VIEW)
+                .pagePath(pagePath)
+                .sessionId(sessionId)
+                .build();
+    }
+
+    private static TrackActivityEvent moduleView(Long moduleId, Long timeSpent, String sessionId) {
+        return TrackActivityEvent.builder()
+                .type(ActivityEventType.MODULE_VIEW)
+                .moduleId(moduleId)
+                .moduleTitle("Módulo " + moduleId)
+                .category("nutricao")
+                .timeSpent(timeSpent)
+                .sessionId(sessionId)
+                .build();
+    }
+}
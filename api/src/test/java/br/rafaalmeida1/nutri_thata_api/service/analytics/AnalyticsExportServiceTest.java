@@ -0,0 +1,119 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
+import br.rafaalmeida1.nutri_thata_api.enums.AnalyticsExportDataset;
+import br.rafaalmeida1.nutri_thata_api.enums.AnalyticsExportFormat;
+import br.rafaalmeida1.nutri_thata_api.repositories.ProfessionalProfileRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.LinkClickRepository;
+import br.rafaalmeida1.nutri_thata_api.repository.PageViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 10, 31, 23, 59);
+
+    @Mock
+    private PageViewRepository pageViewRepository;
+
+    @Mock
+    private LinkClickRepository linkClickRepository;
+
+    @Mock
+    private ProfessionalProfileRepository profileRepository;
+
+    private AnalyticsExportService service;
+    private ProfessionalProfile profile;
+
+    @BeforeEach
+    void setUp() {
+        service = new AnalyticsExportService(pageViewRepository, linkClickRepository, profileRepository, 2);
+        profile = ProfessionalProfile.builder().id(1L).build();
+    }
+
+    @Test
+    void write_ShouldPageByLastKeyUntilShortPage() throws IOException {
+        // Given
+        LocalDateTime first = START.plusHours(1);
+        LocalDateTime second = START.plusHours(2);
+        when(pageViewRepository.findExportPage(eq(profile), eq(START), eq(0L), eq(END), any(Pageable.class)))
+                .thenReturn(List.of(pageView(10L, first, "Chrome"), pageView(11L, second, "Firefox")));
+        when(pageViewRepository.findExportPage(eq(profile), eq(second), eq(11L), eq(END), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(pageView(12L, second, "Safari")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        long rows = service.write(profile, AnalyticsExportDataset.PAGE_VIEWS, AnalyticsExportFormat.CSV, START, END, false, output);
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, rows);
+        assertEquals(4, lines.length);
+        assertEquals(String.join(",", AnalyticsExportService.PAGE_VIEW_COLUMNS), lines[0]);
+        assertEquals("12,2026-10-01T02:00:00,,10.0.0.1,\"Mozilla/5.0 (X11, Linux)\",,BR,,Desktop,Safari,Linux,30", lines[3]);
+        verify(pageViewRepository, times(2)).findExportPage(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void write_Csv_ShouldNeutralizeFormulasAndEscapeQuotes() throws IOException {
+        // Given
+        Object[] row = pageView(10L, START.plusHours(1), "Chrome");
+        row[5] = "=HYPERLINK(\"http://evil\")";
+        when(pageViewRepository.findExportPage(any(), any(), any(), any(), any()))
+                .thenReturn(List.<Object[]>of(row));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        service.write(profile, AnalyticsExportDataset.PAGE_VIEWS, AnalyticsExportFormat.CSV, START, END, false, output);
+
+        // Then
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains(",\"'=HYPERLINK(\"\"http://evil\"\")\","));
+    }
+
+    @Test
+    void write_NdjsonGzip_ShouldWriteOneJsonObjectPerLine() throws IOException {
+        // Given
+        when(linkClickRepository.findExportPage(any(), any(), any(), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{
+                        5L, START.plusMinutes(5), 7L, "WhatsApp", 3L, "10.0.0.2", null, null, "BR", "SP", "Mobile", "Chrome", "Android"
+                }));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        long rows = service.write(profile, AnalyticsExportDataset.LINK_CLICKS, AnalyticsExportFormat.NDJSON, START, END, true, output);
+
+        // Then
+        String content = new String(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(1, rows);
+        assertEquals("{\"id\":5,\"clicked_at\":\"2026-10-01T00:05:00\",\"link_id\":7,\"link_title\":\"WhatsApp\",\"user_id\":3," +
+                "\"ip_address\":\"10.0.0.2\",\"user_agent\":null,\"referer\":null,\"country\":\"BR\",\"city\":\"SP\"," +
+                "\"device_type\":\"Mobile\",\"browser\":\"Chrome\",\"operating_system\":\"Android\"}\n", content);
+        verifyNoInteractions(pageViewRepository);
+    }
+
+    private static Object[] pageView(Long id, LocalDateTime viewedAt, String browser) {
+        return new Object[]{
+                id, viewedAt, null, "10.0.0.1", "Mozilla/5.0 (X11, Linux)", null, "BR", null, "Desktop", browser, "Linux", 30L
+        };
+    }
+}
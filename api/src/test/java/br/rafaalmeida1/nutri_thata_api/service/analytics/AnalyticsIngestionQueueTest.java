@@ -0,0 +1,123 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsIngestionQueueTest {
+
+    @Mock
+    private AnalyticsEventWriter writer;
+
+    @Test
+    void enqueue_DropsWhenQueueIsFull() {
+        // Given
+        AnalyticsIngestionQueue queue = new AnalyticsIngestionQueue(writer, 2, 10, 50, 0, 1, 1000);
+
+        // When
+        boolean first = queue.enqueue(pageView(1L));
+        boolean second = queue.enqueue(pageView(1L));
+        boolean third = queue.enqueue(pageView(1L));
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        AnalyticsIngestionQueue.IngestionStats stats = queue.getStats();
+        assertEquals(2, stats.getEnqueued());
+        assertEquals(1, stats.getDropped());
+        assertEquals(2, stats.getQueueSize());
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void worker_WritesEventsInBatches() {
+        // Given
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            return new AnalyticsEventWriter.WriteResult(batch.size(), 0);
+        });
+        AnalyticsIngestionQueue queue = new AnalyticsIngestionQueue(writer, 100, 5, 50, 0, 1, 1000);
+        for (int i = 0; i < 12; i++) {
+            queue.enqueue(linkClick(7L));
+        }
+
+        // When
+        queue.start();
+        queue.stop();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AnalyticsEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(writer, atLeast(3)).write(captor.capture());
+        assertTrue(captor.getAllValues().stream().allMatch(batch -> batch.size() <= 5));
+        assertEquals(12, captor.getAllValues().stream().mapToInt(List::size).sum());
+        assertEquals(12, queue.getStats().getWritten());
+        assertEquals(0, queue.getStats().getQueueSize());
+    }
+
+    @Test
+    void stop_FlushesPendingEvents() {
+        // Given
+        when(writer.write(anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            return new AnalyticsEventWriter.WriteResult(batch.size(), 0);
+        });
+        AnalyticsIngestionQueue queue = new AnalyticsIngestionQueue(writer, 100, 500, 60_000, 0, 1, 1000);
+        queue.start();
+        queue.enqueue(pageView(1L));
+        queue.enqueue(pageView(2L));
+
+        // When
+        queue.stop();
+
+        // Then
+        assertFalse(queue.isRunning());
+        assertEquals(2, queue.getStats().getWritten());
+        assertEquals(0, queue.getStats().getQueueSize());
+    }
+
+    @Test
+    void flush_CountsFailedBatch() {
+        // Given
+        when(writer.write(anyList())).thenThrow(new RuntimeException("db down"));
+        AnalyticsIngestionQueue queue = new AnalyticsIngestionQueue(writer, 100, 500, 50, 0, 1, 1000);
+        queue.enqueue(pageView(1L));
+        queue.enqueue(pageView(1L));
+
+        // When
+        queue.start();
+        queue.stop();
+
+        // Then
+        AnalyticsIngestionQueue.IngestionStats stats = queue.getStats();
+        assertEquals(0, stats.getWritten());
+        assertEquals(2, stats.getFailed());
+    }
+
+    private AnalyticsEvent pageView(Long profileId) {
+        return AnalyticsEvent.builder()
+                .type(AnalyticsEvent.Type.PAGE_VIEW)
+                .targetId(profileId)
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    private AnalyticsEvent linkClick(Long linkId) {
+        return AnalyticsEvent.builder()
+                .type(AnalyticsEvent.Type.LINK_CLICK)
+                .targetId(linkId)
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsPartitionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 17);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void applyRetention_Partitioned_ShouldDropOnlyPartitionsBeforeCutoff() {
+        // Given
+        AnalyticsPartitionService service = new AnalyticsPartitionService(jdbcTemplate, 3, 12);
+        givenDatabase(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("page_views")))
+                .thenReturn(List.of("page_views_default", "page_views_p202508", "page_views_p202509", "page_views_p202510", "page_views_p202611"));
+
+        // When
+        service.applyRetention("page_views", TODAY);
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE page_views DETACH PARTITION page_views_p202508");
+        verify(jdbcTemplate).execute("DROP TABLE page_views_p202508");
+        verify(jdbcTemplate).execute("ALTER TABLE page_views DETACH PARTITION page_views_p202509");
+        verify(jdbcTemplate).execute("DROP TABLE page_views_p202509");
+        verify(jdbcTemplate, times(4)).execute(anyString());
+        // Eventos antigos que caíram na partição DEFAULT saem por DELETE
+        verify(jdbcTemplate).update("DELETE FROM page_views_default WHERE viewed_at < ?",
+                Timestamp.valueOf(LocalDate.of(2025, 10, 1).atStartOfDay()));
+    }
+
+    @Test
+    void applyRetention_NotPartitioned_ShouldFallBackToDelete() {
+        // Given
+        AnalyticsPartitionService service = new AnalyticsPartitionService(jdbcTemplate, 3, 12);
+        givenDatabase(false);
+
+        // When
+        service.applyRetention("link_clicks", TODAY);
+
+        // Then
+        verify(jdbcTemplate).update("DELETE FROM link_clicks WHERE clicked_at < ?",
+                Timestamp.valueOf(LocalDate.of(2025, 10, 1).atStartOfDay()));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void applyRetention_Disabled_ShouldNotTouchDatabase() {
+        // Given
+        AnalyticsPartitionService service = new AnalyticsPartitionService(jdbcTemplate, 3, 0);
+
+        // When
+        service.applyRetention("user_activities", TODAY);
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenDatabase(boolean partitioned) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(partitioned);
+        if (partitioned) {
+            when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), anyString())).thenReturn(1);
+        }
+    }
+}
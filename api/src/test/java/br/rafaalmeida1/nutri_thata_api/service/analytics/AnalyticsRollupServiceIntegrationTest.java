@@ -0,0 +1,124 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalLink;
+import br.rafaalmeida1.nutri_thata_api.entities.ProfessionalProfile;
+import br.rafaalmeida1.nutri_thata_api.entities.User;
+import br.rafaalmeida1.nutri_thata_api.enums.LinkType;
+import br.rafaalmeida1.nutri_thata_api.enums.Role;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AnalyticsRollupServiceIntegrationTest {
+
+    private static final int DAYS = 4;
+
+    @Autowired
+    private AnalyticsRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ProfessionalProfile profile;
+    private ProfessionalLink link;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder()
+                .name("Nutri")
+                .email("nutri.rollup@exemplo.com." + UUID.randomUUID())
+                .password("senha")
+                .role(Role.PROFESSIONAL)
+                .isActive(true)
+                .build();
+        entityManager.persist(user);
+        profile = ProfessionalProfile.builder().user(user).name("Nutri").build();
+        entityManager.persist(profile);
+        link = ProfessionalLink.builder()
+                .professionalProfile(profile)
+                .title("Site")
+                .url("https://exemplo.com")
+                .linkType(LinkType.WEBSITE)
+                .build();
+        entityManager.persist(link);
+        entityManager.flush();
+
+        // Três visitas e três cliques por dia, de dois IPs, nos últimos DAYS dias (hoje incluso)
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < 3; i++) {
+                Timestamp at = Timestamp.valueOf(LocalDate.now().minusDays(day).atTime(1, i));
+                String ip = "10.0.0." + (i % 2);
+                jdbcTemplate.update("INSERT INTO page_views (professional_profile_id, ip_address, country, device_type, browser, session_duration, viewed_at) " +
+                        "VALUES (?, ?, ?, 'Mobile', 'Chrome', 10, ?)", profile.getId(), ip, i == 0 ? null : "BR", at);
+                jdbcTemplate.update("INSERT INTO link_clicks (professional_link_id, ip_address, device_type, browser, clicked_at) " +
+                        "VALUES (?, ?, 'Desktop', 'Firefox', ?)", link.getId(), ip, at);
+            }
+        }
+    }
+
+    @Test
+    void rollUp_ShouldConsolidateClosedDaysOnly() {
+        // When
+        rollupService.rollUp();
+
+        // Then: os dias fechados entram nos agregados; hoje continua só na tabela bruta
+        assertEquals(LocalDate.now().minusDays(1), rollupService.getRolledUpTo());
+        assertEquals(DAYS - 1, count("page_view_daily_totals"));
+        assertEquals(DAYS - 1, count("link_click_daily_totals"));
+
+        Map<String, Object> yesterday = jdbcTemplate.queryForMap(
+                "SELECT views, unique_visitors, session_duration_sum, session_duration_count FROM page_view_daily_totals " +
+                "WHERE professional_profile_id = ? AND stat_date = ?", profile.getId(), Date.valueOf(LocalDate.now().minusDays(1)));
+        assertEquals(3L, ((Number) yesterday.get("VIEWS")).longValue());
+        assertEquals(2L, ((Number) yesterday.get("UNIQUE_VISITORS")).longValue());
+        assertEquals(30L, ((Number) yesterday.get("SESSION_DURATION_SUM")).longValue());
+        assertEquals(3L, ((Number) yesterday.get("SESSION_DURATION_COUNT")).longValue());
+
+        // País ausente vira '' no detalhamento, sem perder a visita
+        assertEquals(3L * (DAYS - 1), jdbcTemplate.queryForObject(
+                "SELECT SUM(views) FROM page_view_daily_stats WHERE professional_profile_id = ?", Long.class, profile.getId()));
+        assertEquals(DAYS - 1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM page_view_daily_stats WHERE country = ''", Integer.class));
+        assertEquals(3L * (DAYS - 1), jdbcTemplate.queryForObject(
+                "SELECT SUM(clicks) FROM link_click_daily_stats WHERE professional_link_id = ?", Long.class, link.getId()));
+    }
+
+    @Test
+    void rollUp_WhenRepeated_ShouldNotDoubleCount() {
+        // Given
+        rollupService.rollUp();
+
+        // When
+        rollupService.rollUp();
+
+        // Then
+        assertEquals(DAYS - 1, count("page_view_daily_totals"));
+        assertEquals(3L * (DAYS - 1), jdbcTemplate.queryForObject(
+                "SELECT SUM(views) FROM page_view_daily_totals", Long.class));
+        assertEquals(3L * (DAYS - 1), jdbcTemplate.queryForObject(
+                "SELECT SUM(clicks) FROM link_click_daily_totals", Long.class));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,100 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsTrafficFilterTest {
+
+    private static final String CHROME = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
+    private static final String GOOGLEBOT = "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+    private static final long WINDOW_SECONDS = 60;
+
+    private final AtomicLong clock = new AtomicLong(1_790_000_000_000L);
+    private AnalyticsTrafficFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AnalyticsTrafficFilter(true, WINDOW_SECONDS, 1000, 0.001, clock::get);
+    }
+
+    @Test
+    void acceptPageView_ShouldSuppressBots() {
+        // When
+        boolean accepted = filter.acceptPageView(1L, "10.0.0.1", GOOGLEBOT, UserAgentClassifier.compute(GOOGLEBOT));
+
+        // Then
+        assertFalse(accepted);
+        assertEquals(1, filter.getStats().getSuppressedBots());
+        assertEquals(0, filter.getStats().getAccepted());
+    }
+
+    @Test
+    void acceptPageView_ShouldSuppressRepeatsWithinWindowOnly() {
+        // Given
+        UserAgentClassifier.Classification chrome = UserAgentClassifier.compute(CHROME);
+        assertTrue(filter.acceptPageView(1L, "10.0.0.1", CHROME, chrome));
+
+        // When
+        clock.addAndGet((WINDOW_SECONDS - 1) * 1000);
+        boolean repeat = filter.acceptPageView(1L, "10.0.0.1", CHROME, chrome);
+        boolean otherProfile = filter.acceptPageView(2L, "10.0.0.1", CHROME, chrome);
+        boolean otherVisitor = filter.acceptPageView(1L, "10.0.0.2", CHROME, chrome);
+        clock.addAndGet(2 * WINDOW_SECONDS * 1000 + 1);
+        boolean afterWindow = filter.acceptPageView(1L, "10.0.0.1", CHROME, chrome);
+
+        // Then
+        assertFalse(repeat);
+        assertTrue(otherProfile);
+        assertTrue(otherVisitor);
+        assertTrue(afterWindow);
+        AnalyticsTrafficFilter.TrafficFilterStats stats = filter.getStats();
+        assertEquals(4, stats.getAccepted());
+        assertEquals(1, stats.getSuppressedDuplicates());
+    }
+
+    @Test
+    void acceptLinkClick_ShouldKeepRepeatedClicksButDropBots() {
+        // Given
+        UserAgentClassifier.Classification chrome = UserAgentClassifier.compute(CHROME);
+
+        // When / Then
+        assertTrue(filter.acceptLinkClick(chrome));
+        assertTrue(filter.acceptLinkClick(chrome));
+        assertFalse(filter.acceptLinkClick(UserAgentClassifier.compute("curl/8.5.0")));
+    }
+
+    @Test
+    void acceptPageView_Disabled_ShouldAcceptEverything() {
+        // Given
+        AnalyticsTrafficFilter disabled = new AnalyticsTrafficFilter(false, WINDOW_SECONDS, 1000, 0.001, clock::get);
+
+        // When / Then
+        assertTrue(disabled.acceptPageView(1L, "10.0.0.1", GOOGLEBOT, UserAgentClassifier.compute(GOOGLEBOT)));
+        assertTrue(disabled.acceptPageView(1L, "10.0.0.1", GOOGLEBOT, UserAgentClassifier.compute(GOOGLEBOT)));
+    }
+
+    @Test
+    void bloomFilter_ShouldStayNearConfiguredFalsePositiveRate() {
+        // Given
+        TimeBucketedBloomFilter bloom = new TimeBucketedBloomFilter(60_000, 10_000, 0.01);
+        for (long visitor = 0; visitor < 10_000; visitor++) {
+            bloom.add(AnalyticsTrafficFilter.visitorHash(1L, "10.0." + visitor, CHROME), 0);
+        }
+
+        // When: cada consulta também insere, então poucas chaves novas para não encher o filtro
+        int falsePositives = 0;
+        for (long visitor = 10_000; visitor < 11_000; visitor++) {
+            if (!bloom.add(AnalyticsTrafficFilter.visitorHash(1L, "10.0." + visitor, CHROME), 0)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertEquals(7, bloom.hashCount());
+        assertTrue(falsePositives < 30, "falsos positivos: " + falsePositives);
+    }
+}
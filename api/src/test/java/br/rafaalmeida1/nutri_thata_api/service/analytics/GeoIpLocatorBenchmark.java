@@ -0,0 +1,103 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark da busca na base mapeada, com uma base sintética de 500 mil faixas IPv4
+ * (tamanho próximo ao dos dumps "lite" por cidade), direto e através do cache.
+ *
+ * Execução: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=br.rafaalmeida1.nutri_thata_api.service.analytics.GeoIpLocatorBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoIpLocatorBenchmark {
+
+    private static final int RANGES = 500_000;
+    private static final int ADDRESSES = 1024;
+
+    private Path database;
+    private GeoIpDatabase direct;
+    private GeoIpLocator cached;
+    private String[] addresses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path csv = Files.createTempFile("geoip-benchmark-", ".csv");
+        database = Files.createTempFile("geoip-benchmark-", ".bin");
+        long step = (1L << 32) / RANGES;
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            for (int i = 0; i < RANGES; i++) {
+                long start = i * step;
+                writer.write(toIpv4(start) + "," + toIpv4(start + step - 2) + ",C" + (i % 250) + ",City " + (i % 5000));
+                writer.newLine();
+            }
+        }
+        GeoIpDatabase.compile(csv, database);
+        Files.delete(csv);
+
+        direct = GeoIpDatabase.open(database);
+        cached = new GeoIpLocator(database.toString(), ADDRESSES);
+        Random random = new Random(42);
+        addresses = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            addresses[i] = toIpv4(random.nextLong(1L << 32));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(database);
+    }
+
+    @Benchmark
+    public GeoIpLocator.GeoLocation mapped() {
+        return direct.lookup(nextAddress());
+    }
+
+    @Benchmark
+    public GeoIpLocator.GeoLocation cached() {
+        return cached.locate(nextAddress());
+    }
+
+    private String nextAddress() {
+        String address = addresses[next];
+        next = (next + 1) % addresses.length;
+        return address;
+    }
+
+    private static String toIpv4(long address) {
+        return (address >>> 24 & 0xFF) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "." + (address & 0xFF);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoIpLocatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,180 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoIpLocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void locate_ShouldMatchIpv4RangesInclusively() throws IOException {
+        // Given
+        GeoIpLocator locator = new GeoIpLocator(copyRanges().toString(), 16);
+
+        // When / Then
+        assertEquals(new GeoIpLocator.GeoLocation("AU", "Sydney"), locator.locate("1.0.0.0"));
+        assertEquals(new GeoIpLocator.GeoLocation("AU", "Sydney"), locator.locate("1.0.0.255"));
+        assertNull(locator.locate("1.0.1.0"));
+        assertEquals(new GeoIpLocator.GeoLocation("BR", "São Paulo"), locator.locate("177.10.20.30"));
+        assertEquals(new GeoIpLocator.GeoLocation("BR", "Rio de Janeiro"), locator.locate("200.0.127.255"));
+        assertEquals(new GeoIpLocator.GeoLocation("AR", null), locator.locate("200.0.128.0"));
+        // Faixas acima de 128.0.0.0 dependem da comparação sem sinal
+        assertEquals("ZZ", locator.locate("255.255.255.255").country());
+        assertNull(locator.locate("0.0.0.1"));
+    }
+
+    @Test
+    void locate_ShouldHandleIpv6AndMappedIpv4() throws IOException {
+        // Given
+        GeoIpLocator locator = new GeoIpLocator(copyRanges().toString(), 16);
+
+        // When / Then
+        assertEquals("BR", locator.locate("2804:14c:1::42").country());
+        assertEquals("US", locator.locate("[2001:4860:4860::8888]").country());
+        assertEquals("US", locator.locate("2001:4860::1%eth0").country());
+        assertNull(locator.locate("2805::1"));
+        assertEquals("US", locator.locate("::ffff:8.8.8.8").country());
+        assertEquals("BR", locator.locate("0:0:0:0:0:ffff:b100:0001").country());
+    }
+
+    @Test
+    void locate_ConcurrentCallers_ShouldAgreeWithTheDatabase() throws Exception {
+        // Given: mais IPs distintos que o tamanho do cache, consultados por várias threads
+        GeoIpLocator locator = new GeoIpLocator(copyRanges().toString(), 16);
+        String[] ips = new String[64];
+        for (int i = 0; i < ips.length; i++) {
+            ips[i] = i % 2 == 0 ? "177.10.20." + i : "1.0.0." + i;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            results.add(executor.submit(() -> {
+                int mismatches = 0;
+                for (int round = 0; round < 200; round++) {
+                    for (int i = 0; i < ips.length; i++) {
+                        String expected = i % 2 == 0 ? "BR" : "AU";
+                        if (!expected.equals(locator.locate(ips[i]).country())) {
+                            mismatches++;
+                        }
+                    }
+                }
+                return mismatches;
+            }));
+        }
+        executor.shutdown();
+
+        // Then
+        for (Future<Integer> result : results) {
+            assertEquals(0, result.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void locate_ShouldReturnNullForInvalidAddresses() throws IOException {
+        // Given
+        GeoIpLocator locator = new GeoIpLocator(copyRanges().toString(), 16);
+
+        // When / Then
+        for (String invalid : new String[]{"", "unknown", "1.2.3", "1.2.3.4.5", "256.0.0.1", "1..2.3",
+                "1:2", "1:::2", "1::2::3", "1:2:3:4:5:6:7:8:9", "12345::1", ":1::", "g::1"}) {
+            assertNull(locator.locate(invalid), invalid);
+        }
+    }
+
+    @Test
+    void parseIpv6_ShouldMatchInetAddress() throws IOException {
+        for (String literal : new String[]{"::", "::1", "1::", "2001:db8::ff00:42:8329", "fe80::1:2:3:4",
+                "2001:0db8:85a3:0000:0000:8a2e:0370:7334", "::ffff:192.0.2.128", "1:2:3:4:5:6:7::"}) {
+            // Given
+            byte[] expected = InetAddress.getByName(literal).getAddress();
+
+            // When
+            long[] parsed = GeoIpDatabase.parseIpv6(literal);
+
+            // Then
+            byte[] actual = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                actual[i] = (byte) (parsed[0] >>> (56 - 8 * i));
+                actual[i + 8] = (byte) (parsed[1] >>> (56 - 8 * i));
+            }
+            if (expected.length == 4) {
+                // O JDK devolve IPv6 mapeado como IPv4
+                assertArrayEquals(expected, Arrays.copyOfRange(actual, 12, 16), literal);
+            } else {
+                assertArrayEquals(expected, actual, literal);
+            }
+        }
+    }
+
+    @Test
+    void reloadIfChanged_ShouldSwapToCompiledDatabaseAndDropCache() throws IOException {
+        // Given
+        Path database = tempDir.resolve("geoip.bin");
+        GeoIpDatabase.compile(copyRanges(), database);
+        GeoIpLocator locator = new GeoIpLocator(database.toString(), 16);
+        assertEquals("US", locator.locate("8.8.8.8").country());
+
+        Path staged = tempDir.resolve("staged.csv");
+        Files.writeString(staged, "8.8.8.0,8.8.8.255,CA,Toronto\n");
+        Path stagedBinary = tempDir.resolve("staged.bin");
+        GeoIpDatabase.compile(staged, stagedBinary);
+        Files.move(stagedBinary, database, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.setLastModifiedTime(database, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        // When
+        locator.reloadIfChanged();
+
+        // Then
+        assertEquals(new GeoIpLocator.GeoLocation("CA", "Toronto"), locator.locate("8.8.8.8"));
+        assertNull(locator.locate("1.0.0.1"));
+    }
+
+    @Test
+    void reload_InvalidFile_ShouldKeepPreviousDatabase() throws IOException {
+        // Given
+        Path ranges = copyRanges();
+        GeoIpLocator locator = new GeoIpLocator(ranges.toString(), 16);
+        Files.writeString(ranges, "1.0.0.0,1.0.0.255,AU,\n1.0.0.128,1.0.1.0,NZ,\n");
+
+        // When
+        boolean reloaded = locator.reload();
+
+        // Then
+        assertFalse(reloaded);
+        assertEquals("BR", locator.locate("177.1.1.1").country());
+    }
+
+    @Test
+    void locate_WithoutDatabase_ShouldReturnNull() {
+        assertNull(new GeoIpLocator("", 16).locate("8.8.8.8"));
+    }
+
+    private Path copyRanges() throws IOException {
+        Path target = tempDir.resolve("ranges.csv");
+        try (InputStream input = GeoIpLocatorTest.class.getResourceAsStream("/geoip/ranges.csv")) {
+            Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+}
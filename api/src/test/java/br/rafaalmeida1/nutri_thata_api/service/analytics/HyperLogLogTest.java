@@ -0,0 +1,134 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    // 4 erros padrão: a chance de um teste falhar por azar é desprezível
+    private static final double TOLERANCE = 4 * HyperLogLog.STANDARD_ERROR;
+
+    @Test
+    void cardinality_SmallSetsAreNearlyExact() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("10.0.0." + i);
+            sketch.offer("10.0.0." + i); // duplicado não deve contar
+        }
+
+        // Then
+        assertEquals(100, sketch.cardinality(), 2);
+    }
+
+    @Test
+    void cardinality_LargeSetWithinErrorBound() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+        int expected = 200_000;
+
+        // When
+        for (int i = 0; i < expected; i++) {
+            sketch.offer("visitor-" + i);
+        }
+
+        // Then
+        double relativeError = Math.abs(sketch.cardinality() - expected) / (double) expected;
+        assertTrue(relativeError < TOLERANCE, "erro relativo " + relativeError);
+    }
+
+    @Test
+    void merge_EqualsUnionOfSets() {
+        // Given
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        HyperLogLog both = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            monday.offer("ip-" + i);
+            both.offer("ip-" + i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            tuesday.offer("ip-" + i);
+            both.offer("ip-" + i);
+        }
+
+        // When
+        monday.merge(tuesday);
+
+        // Then
+        assertEquals(both, monday);
+        double relativeError = Math.abs(monday.cardinality() - 50_000) / 50_000.0;
+        assertTrue(relativeError < TOLERANCE, "erro relativo " + relativeError);
+    }
+
+    @Test
+    void toBytes_RoundTrip() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.offer("192.168.0.1");
+        sketch.offer("2001:db8::1");
+
+        // When
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        // Then: poucos registradores preenchidos são gravados no formato esparso
+        assertEquals(6, bytes.length);
+        assertEquals(sketch, restored);
+        assertEquals(sketch.cardinality(), restored.cardinality());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[10]));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{(byte) 0xff, 0, 1}));
+    }
+
+    @Test
+    void toBytes_SwitchesToDenseWhenMostRegistersAreSet() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            sketch.offer("visitor-" + i);
+        }
+
+        // When
+        byte[] bytes = sketch.toBytes();
+
+        // Then
+        assertEquals(HyperLogLog.SIZE_BYTES, bytes.length);
+        assertEquals(sketch, HyperLogLog.fromBytes(bytes));
+    }
+
+    @Test
+    void mergeBytes_EqualsMergingTheDeserializedSketch() {
+        // Given: um dia esparso e outro denso
+        HyperLogLog quietDay = new HyperLogLog();
+        HyperLogLog busyDay = new HyperLogLog();
+        for (int i = 0; i < 40; i++) {
+            quietDay.offer("ip-" + i);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            busyDay.offer("ip-" + i);
+        }
+        HyperLogLog expected = new HyperLogLog();
+        expected.merge(quietDay);
+        expected.merge(busyDay);
+
+        // When
+        HyperLogLog union = new HyperLogLog();
+        union.merge(quietDay.toBytes());
+        union.merge(busyDay.toBytes());
+
+        // Then
+        assertEquals(expected, union);
+    }
+
+    @Test
+    void cardinality_EmptySketchIsZero() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.offer(null);
+
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.cardinality());
+    }
+}
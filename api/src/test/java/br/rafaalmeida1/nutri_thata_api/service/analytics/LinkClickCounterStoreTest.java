@@ -0,0 +1,107 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkClickCounterStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LinkClickCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LinkClickCounterStore(jdbcTemplate);
+    }
+
+    @Test
+    void increment_ConcurrentUpdatesAreNotLost() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    store.increment(1L);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(8000, store.pending(1L));
+        assertEquals(8010, store.currentCount(1L, 10L));
+    }
+
+    @Test
+    void flush_SendsDeltasInSingleBatchAndClearsPending() {
+        // Given
+        store.add(1L, 3);
+        store.add(2L, 5);
+
+        // When
+        store.flush();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(0, store.pending(1L));
+        assertEquals(0, store.pending(2L));
+        assertEquals(0, store.cellCount());
+
+        // Sem novos cliques, o próximo flush não vai ao banco
+        store.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_ClickDuringTheWriteShouldKeepTheCell() {
+        // Given
+        store.add(1L, 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            store.increment(1L);
+            return new int[]{1};
+        });
+
+        // When
+        store.flush();
+
+        // Then: o clique que chegou durante o UPDATE fica para o próximo ciclo
+        assertEquals(1, store.pending(1L));
+        assertEquals(1, store.cellCount());
+    }
+
+    @Test
+    void flush_KeepsPendingDeltaWhenUpdateFails() {
+        // Given
+        store.add(1L, 4);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("db down"));
+
+        // When
+        store.flush();
+
+        // Then
+        assertEquals(4, store.pending(1L));
+    }
+}
@@ -0,0 +1,120 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveAnalyticsBroadcasterTest {
+
+    private static final long PROFILE_ID = 1L;
+    private static final long SEND_TIMEOUT_MS = 500;
+
+    @Mock
+    private LiveAnalyticsWindows windows;
+
+    private LiveAnalyticsBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new LiveAnalyticsBroadcaster(windows, null, new ObjectMapper(), 60_000, SEND_TIMEOUT_MS, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void tick_WithAStuckClient_ShouldKeepServingTheOthersAndDropIt() throws Exception {
+        // Given: um cliente que nunca termina de receber e outro normal
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger stuckAttempts = new AtomicInteger();
+        SseEmitter stuck = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                stuckAttempts.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        Semaphore delivered = new Semaphore(0);
+        SseEmitter healthy = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                delivered.release();
+            }
+        };
+        broadcaster.register(PROFILE_ID, stuck);
+        broadcaster.register(PROFILE_ID, healthy);
+
+        // When: dois ticks dentro do prazo de envio
+        assertTrue(tickUntilDelivered(delivered));
+        assertTrue(tickUntilDelivered(delivered));
+
+        // Then: o cliente travado tem um único envio em andamento e segue conectado
+        assertEquals(1, stuckAttempts.get());
+        assertEquals(2, broadcaster.connectionCount());
+
+        // When: o envio passa do prazo
+        Thread.sleep(SEND_TIMEOUT_MS + 50);
+        broadcaster.tick();
+
+        // Then
+        assertEquals(1, broadcaster.connectionCount());
+        assertTrue(tickUntilDelivered(delivered));
+    }
+
+    @Test
+    void tick_WhenSendFails_ShouldDropTheClient() throws Exception {
+        // Given
+        CountDownLatch failed = new CountDownLatch(1);
+        SseEmitter disconnected = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                failed.countDown();
+                throw new IOException("Broken pipe");
+            }
+        };
+        broadcaster.register(PROFILE_ID, disconnected);
+
+        // When
+        broadcaster.tick();
+
+        // Then
+        assertTrue(failed.await(1, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (broadcaster.connectionCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.connectionCount());
+    }
+
+    // O tick pula a conexão cujo envio anterior ainda não terminou; repete até entregar
+    private boolean tickUntilDelivered(Semaphore delivered) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (System.currentTimeMillis() < deadline) {
+            broadcaster.tick();
+            if (delivered.tryAcquire(20, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
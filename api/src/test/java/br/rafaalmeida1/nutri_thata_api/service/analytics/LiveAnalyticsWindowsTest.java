@@ -0,0 +1,146 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import br.rafaalmeida1.nutri_thata_api.dto.response.analytics.LiveAnalyticsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveAnalyticsWindowsTest {
+
+    // Início de um minuto, para que os limites das janelas fiquem previsíveis
+    private static final long NOW = 1_790_000_040L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private LiveAnalyticsWindows windows;
+
+    @BeforeEach
+    void setUp() {
+        windows = new LiveAnalyticsWindows(new LinkProfileResolver(jdbcTemplate, 16), clock::get);
+    }
+
+    @Test
+    void snapshot_ShouldReportLastSecondMinuteAndHourWithoutQueries() {
+        // Given
+        windows.record(pageView(1L, NOW - 1));
+        windows.record(pageView(1L, NOW - 1));
+        windows.record(pageView(1L, NOW - 30));
+        windows.record(pageView(1L, NOW - 600));
+        windows.record(pageView(2L, NOW - 1));
+
+        // When
+        LiveAnalyticsResponse response = windows.snapshot(1L, false);
+
+        // Then
+        assertEquals(NOW - 1, response.getEpochSecond());
+        assertEquals(2, response.getViewsLastSecond());
+        assertEquals(3, response.getViewsLastMinute());
+        assertEquals(4, response.getViewsLastHour());
+        assertEquals(0, response.getClicksLastHour());
+        assertNull(response.getViewsPerSecond());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void snapshot_ShouldDropSecondsThatLeftTheWindow() {
+        // Given
+        windows.record(pageView(1L, NOW - 1));
+        clock.addAndGet(LiveAnalyticsWindows.SECONDS + 1);
+
+        // When
+        LiveAnalyticsResponse response = windows.snapshot(1L, true);
+
+        // Then
+        assertEquals(0, response.getViewsLastMinute());
+        assertEquals(1, response.getViewsLastHour());
+        assertEquals(LiveAnalyticsWindows.SECONDS, response.getViewsPerSecond().size());
+        assertTrue(response.getViewsPerSecond().stream().allMatch(value -> value == 0L));
+        assertEquals(LiveAnalyticsWindows.MINUTES, response.getViewsPerMinute().size());
+        assertEquals(1L, response.getViewsPerMinute().get(LiveAnalyticsWindows.MINUTES - 3));
+    }
+
+    @Test
+    void record_LinkClick_ShouldResolveProfileOncePerLink() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(1L));
+
+        // When
+        windows.record(linkClick(7L, NOW - 1));
+        windows.record(linkClick(7L, NOW - 1));
+        LiveAnalyticsResponse response = windows.snapshot(1L, false);
+
+        // Then
+        assertEquals(2, response.getClicksLastSecond());
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), any(Object[].class));
+    }
+
+    @Test
+    void drainUnpublished_ShouldAggregatePerProfileAndSecondAndReset() {
+        // Given
+        windows.enablePublishing();
+        windows.record(pageView(1L, NOW - 1));
+        windows.record(pageView(1L, NOW - 1));
+        windows.record(pageView(1L, NOW - 2));
+
+        // When
+        Map<LiveAnalyticsWindows.DeltaKey, long[]> drained = windows.drainUnpublished();
+
+        // Then
+        assertEquals(2, drained.size());
+        assertArrayEquals(new long[]{2, 0}, drained.get(new LiveAnalyticsWindows.DeltaKey(1L, NOW - 1)));
+        assertTrue(windows.drainUnpublished().isEmpty());
+    }
+
+    @Test
+    void applyRemote_ShouldMergeIntoLocalWindows() {
+        // Given
+        windows.record(pageView(1L, NOW - 1));
+
+        // When
+        windows.applyRemote(1L, NOW - 1, 3, 2);
+        LiveAnalyticsResponse response = windows.snapshot(1L, false);
+
+        // Then
+        assertEquals(4, response.getViewsLastSecond());
+        assertEquals(2, response.getClicksLastSecond());
+    }
+
+    private static AnalyticsEvent pageView(Long profileId, long epochSecond) {
+        return AnalyticsEvent.builder()
+                .type(AnalyticsEvent.Type.PAGE_VIEW)
+                .targetId(profileId)
+                .occurredAt(at(epochSecond))
+                .build();
+    }
+
+    private static AnalyticsEvent linkClick(Long linkId, long epochSecond) {
+        return AnalyticsEvent.builder()
+                .type(AnalyticsEvent.Type.LINK_CLICK)
+                .targetId(linkId)
+                .occurredAt(at(epochSecond))
+                .build();
+    }
+
+    private static LocalDateTime at(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,100 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void offer_BelowCapacity_ShouldCountExactly() {
+        // Given
+        SpaceSaving summary = new SpaceSaving(4);
+
+        // When
+        summary.offer(1, 3);
+        summary.offer(2, 5);
+        summary.offer(1, 1);
+
+        // Then
+        assertEquals(List.of(new SpaceSaving.Entry(2, 5, 0), new SpaceSaving.Entry(1, 4, 0)), summary.top(10));
+    }
+
+    @Test
+    void offer_ZipfStream_ShouldKeepHeavyHittersWithinErrorBounds() {
+        // Given: 1000 links com frequências de Zipf e só 20 contadores
+        SpaceSaving summary = new SpaceSaving(20);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long link = zipf(random, 1000);
+            summary.offer(link, 1);
+            exact.merge(link, 1L, Long::sum);
+        }
+
+        // When
+        List<SpaceSaving.Entry> top = summary.top(20);
+
+        // Then: todo item acima de N/capacity está no resumo, e as contagens respeitam os limites
+        assertEquals(1L, top.get(0).item());
+        List<Long> items = top.stream().map(SpaceSaving.Entry::item).toList();
+        exact.forEach((link, count) -> {
+            if (count > 100_000 / 20) {
+                assertTrue(items.contains(link), "link frequente ausente: " + link);
+            }
+        });
+        for (SpaceSaving.Entry entry : top) {
+            long actual = exact.get(entry.item());
+            assertTrue(entry.count() >= actual && entry.count() - entry.error() <= actual, entry.toString());
+        }
+    }
+
+    @Test
+    void merge_ShouldAddCountsAndKeepUpperBounds() {
+        // Given
+        SpaceSaving first = new SpaceSaving(2);
+        first.offer(1, 10);
+        first.offer(2, 4);
+        SpaceSaving second = new SpaceSaving(2);
+        second.offer(1, 6);
+        second.offer(3, 5);
+
+        // When
+        first.merge(second);
+
+        // Then: o link 3 pode ter até 4 cliques no primeiro resumo e o 2 até 5 no segundo;
+        // empatados em 9, fica o de menor erro
+        assertEquals(List.of(new SpaceSaving.Entry(1, 16, 0), new SpaceSaving.Entry(3, 9, 4)), first.top(10));
+    }
+
+    @Test
+    void toBytes_ShouldRoundTrip() {
+        // Given
+        SpaceSaving summary = new SpaceSaving(3);
+        summary.offer(1, 2);
+        summary.offer(2, 1);
+        summary.offer(3, 1);
+        summary.offer(4, 1);
+
+        // When
+        SpaceSaving restored = SpaceSaving.fromBytes(summary.toBytes());
+
+        // Then
+        assertEquals(summary.top(3), restored.top(3));
+    }
+
+    private static long zipf(Random random, int items) {
+        // Amostragem por rejeição simples, suficiente para o teste
+        while (true) {
+            long candidate = 1 + random.nextInt(items);
+            if (random.nextDouble() < 1.0 / candidate) {
+                return candidate;
+            }
+        }
+    }
+}
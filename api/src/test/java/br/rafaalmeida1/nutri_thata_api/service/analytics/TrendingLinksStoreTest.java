@@ -0,0 +1,151 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingLinksStoreTest {
+
+    // Início de um dia (UTC), para que os limites dos intervalos fiquem previsíveis
+    private static final long NOW = 1_789_948_800L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LinkProfileResolver linkProfileResolver;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private TrendingLinksStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TrendingLinksStore(jdbcTemplate, linkProfileResolver, 10, clock::get);
+        lenient().when(linkProfileResolver.profileOf(anyLong())).thenReturn(1L);
+    }
+
+    @Test
+    void topLinks_ShouldRankClicksPerWindow() {
+        // Given: link 7 clicado há 2 dias, link 8 há 3 horas e link 9 agora
+        clicks(7L, NOW - 2 * 86_400, 5);
+        clicks(8L, NOW - 3 * 3_600, 3);
+        clicks(9L, NOW + 60, 2);
+        clock.set(NOW + 120);
+
+        // When / Then
+        assertEquals(List.of(new TrendingLinksStore.TrendingLink(9L, 2, 0)),
+                store.topLinks(1L, TrendingLinksStore.Window.LAST_HOUR, 10));
+        assertEquals(List.of(8L, 9L), linkIds(store.topLinks(1L, TrendingLinksStore.Window.LAST_DAY, 10)));
+        assertEquals(List.of(7L, 8L, 9L), linkIds(store.topLinks(1L, TrendingLinksStore.Window.LAST_WEEK, 10)));
+        assertEquals(List.of(7L), linkIds(store.topLinks(1L, TrendingLinksStore.Window.LAST_WEEK, 1)));
+        assertTrue(store.topLinks(2L, TrendingLinksStore.Window.LAST_WEEK, 10).isEmpty());
+    }
+
+    @Test
+    void record_ShouldIgnorePageViewsAndUnknownLinks() {
+        // Given
+        when(linkProfileResolver.profileOf(99L)).thenReturn(null);
+
+        // When
+        store.record(AnalyticsEvent.builder().type(AnalyticsEvent.Type.PAGE_VIEW).targetId(1L).occurredAt(at(NOW)).build());
+        clicks(99L, NOW, 1);
+
+        // Then
+        assertTrue(store.topLinks(1L, TrendingLinksStore.Window.LAST_HOUR, 10).isEmpty());
+        verify(linkProfileResolver, never()).profileOf(1L);
+    }
+
+    @Test
+    void topLinks_ShouldDropClicksOlderThanTheWindow() {
+        // Given
+        clicks(7L, NOW, 4);
+
+        // When
+        clock.set(NOW + 3_600 + 1);
+
+        // Then
+        assertTrue(store.topLinks(1L, TrendingLinksStore.Window.LAST_HOUR, 10).isEmpty());
+        assertEquals(List.of(7L), linkIds(store.topLinks(1L, TrendingLinksStore.Window.LAST_DAY, 10)));
+    }
+
+    @Test
+    void snapshot_ShouldLoadOnlyRowsChangedSinceThePreviousLoad() throws SQLException {
+        // Given: outra instância com 3 cliques no link 5, depois atualizados para 4
+        Timestamp firstWrite = Timestamp.valueOf(LocalDateTime.of(2026, 10, 15, 12, 0));
+        Timestamp secondWrite = new Timestamp(firstWrite.getTime() + 30_000);
+        List<ResultSet> rows = new ArrayList<>(List.of(
+                remoteRow("outra", 5L, 3, firstWrite),
+                remoteRow("outra", 5L, 4, secondWrite)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rows.remove(0));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        // When
+        store.snapshot();
+        store.snapshot();
+
+        // Then: a segunda carga filtra por updated_at e substitui o resumo em vez de somar
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).query(sql.capture(), any(RowCallbackHandler.class), args.capture());
+        assertFalse(sql.getAllValues().get(0).contains("updated_at >"));
+        assertTrue(sql.getAllValues().get(1).contains("updated_at > ?"));
+        assertEquals(new Timestamp(firstWrite.getTime() - 5_000), args.getAllValues().get(1)[1]);
+        assertEquals(List.of(new TrendingLinksStore.TrendingLink(5L, 4, 0)),
+                store.topLinks(1L, TrendingLinksStore.Window.LAST_HOUR, 10));
+    }
+
+    private static ResultSet remoteRow(String nodeId, long linkId, int clicks, Timestamp updatedAt) throws SQLException {
+        SpaceSaving summary = new SpaceSaving(10);
+        summary.offer(linkId, clicks);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L);
+        when(rs.getString(2)).thenReturn(TrendingLinksStore.Window.LAST_HOUR.name());
+        when(rs.getLong(3)).thenReturn(TrendingLinksStore.Window.LAST_HOUR.bucketStart(NOW));
+        when(rs.getString(4)).thenReturn(nodeId);
+        when(rs.getBytes(5)).thenReturn(summary.toBytes());
+        when(rs.getTimestamp(6)).thenReturn(updatedAt);
+        return rs;
+    }
+
+    private void clicks(Long linkId, long epochSecond, int count) {
+        for (int i = 0; i < count; i++) {
+            store.record(AnalyticsEvent.builder()
+                    .type(AnalyticsEvent.Type.LINK_CLICK)
+                    .targetId(linkId)
+                    .occurredAt(at(epochSecond))
+                    .build());
+        }
+    }
+
+    private static List<Long> linkIds(List<TrendingLinksStore.TrendingLink> links) {
+        return links.stream().map(TrendingLinksStore.TrendingLink::linkId).toList();
+    }
+
+    private static LocalDateTime at(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,126 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UniqueVisitorSketchStoreTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 15);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UniqueVisitorSketchStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new UniqueVisitorSketchStore(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void flush_ReadDuringTheWriteShouldStillCountPendingVisitors() {
+        // Given
+        store.record(pageView("10.0.0.1"));
+        store.record(pageView("10.0.0.2"));
+        List<Long> seenWhileWriting = new ArrayList<>();
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenAnswer(invocation -> {
+            seenWhileWriting.add(estimate().inRange());
+            return 1;
+        });
+
+        // When
+        store.flush();
+
+        // Then: enquanto o INSERT não termina, os IPs continuam na memória
+        assertEquals(List.of(2L, 2L), seenWhileWriting);
+        assertEquals(0, estimate().inRange());
+    }
+
+    @Test
+    void flush_WhenTheWriteFails_ShouldKeepTheSketchInMemory() {
+        // Given
+        store.record(pageView("10.0.0.1"));
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("banco indisponível"));
+
+        // When
+        store.flush();
+
+        // Then
+        assertEquals(1, estimate().inRange());
+        assertEquals(1, estimate().lifetime());
+    }
+
+    @Test
+    void estimateAll_ShouldMergeSparseDailySketchesFromTheDatabase() {
+        // Given: dois dias gravados no formato esparso, com um IP em comum
+        HyperLogLog monday = new HyperLogLog();
+        monday.offer("10.0.0.1");
+        monday.offer("10.0.0.2");
+        HyperLogLog tuesday = new HyperLogLog();
+        tuesday.offer("10.0.0.2");
+        tuesday.offer("10.0.0.3");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(TODAY.minusDays(1), monday.toBytes()));
+            handler.processRow(row(TODAY, tuesday.toBytes()));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        // When
+        UniqueVisitorSketchStore.UniqueCounts counts = estimate();
+
+        // Then
+        assertEquals(3, counts.inRange());
+    }
+
+    private UniqueVisitorSketchStore.UniqueCounts estimate() {
+        Map<Long, UniqueVisitorSketchStore.UniqueCounts> counts = store.estimateAll(UniqueVisitorSketchStore.PROFILE,
+                List.of(1L), TODAY.minusDays(30), TODAY);
+        return counts.get(1L);
+    }
+
+    private static AnalyticsEvent pageView(String ipAddress) {
+        return AnalyticsEvent.builder()
+                .type(AnalyticsEvent.Type.PAGE_VIEW)
+                .targetId(1L)
+                .ipAddress(ipAddress)
+                .occurredAt(LocalDateTime.of(TODAY, LocalTime.NOON))
+                .build();
+    }
+
+    private static ResultSet row(LocalDate statDate, byte[] sketch) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L);
+        when(rs.getDate(2)).thenReturn(Date.valueOf(statDate));
+        when(rs.getBytes(3)).thenReturn(sketch);
+        return rs;
+    }
+}
@@ -0,0 +1,67 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark do classificador sobre o corpus de referência, com e sem cache.
+ *
+ * Execução: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=br.rafaalmeida1.nutri_thata_api.service.analytics.UserAgentClassifierBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAgentClassifierBenchmark {
+
+    private String[] userAgents;
+    private UserAgentClassifier classifier;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String[]> corpus = UserAgentClassifierTest.loadGoldenCorpus();
+        userAgents = corpus.stream().map(entry -> entry[0]).toArray(String[]::new);
+        classifier = new UserAgentClassifier(1024);
+    }
+
+    @Benchmark
+    public UserAgentClassifier.Classification uncached() {
+        return UserAgentClassifier.compute(nextUserAgent());
+    }
+
+    @Benchmark
+    public UserAgentClassifier.Classification cached() {
+        return classifier.classify(nextUserAgent());
+    }
+
+    private String nextUserAgent() {
+        String userAgent = userAgents[next];
+        next = (next + 1) % userAgents.length;
+        return userAgent;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserAgentClassifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
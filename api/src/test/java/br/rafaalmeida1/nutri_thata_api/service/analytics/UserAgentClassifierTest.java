@@ -0,0 +1,126 @@
+package br.rafaalmeida1.nutri_thata_api.service.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAgentClassifierTest {
+
+    private UserAgentClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        classifier = new UserAgentClassifier(2);
+    }
+
+    @Test
+    void classify_ShouldMatchGoldenCorpus() throws IOException {
+        // Given
+        List<String[]> corpus = loadGoldenCorpus();
+        List<String> mismatches = new ArrayList<>();
+
+        // When
+        for (String[] entry : corpus) {
+            UserAgentClassifier.Classification classification = classifier.classify(entry[0]);
+            UserAgentClassifier.Classification expected = new UserAgentClassifier.Classification(entry[1], entry[2], entry[3],
+                    Boolean.parseBoolean(entry[4]));
+            if (!expected.equals(classification)) {
+                mismatches.add(entry[0] + " => " + classification + ", esperado " + expected);
+            }
+        }
+
+        // Then
+        assertFalse(corpus.isEmpty());
+        assertTrue(mismatches.isEmpty(), String.join("\n", mismatches));
+    }
+
+    @Test
+    void classify_NullUserAgent_ShouldReturnNull() {
+        assertNull(classifier.classify(null));
+    }
+
+    @Test
+    void classify_ShouldReuseCachedEntriesWithinTheConfiguredSize() {
+        // Given
+        String chrome = "Mozilla/5.0 (Windows NT 10.0) Chrome/124.0.0.0 Safari/537.36";
+        String firefox = "Mozilla/5.0 (X11; Linux x86_64; rv:125.0) Gecko/20100101 Firefox/125.0";
+        String safari = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) Version/17.4.1 Safari/605.1.15";
+        UserAgentClassifier.Classification first = classifier.classify(chrome);
+
+        // When
+        UserAgentClassifier.Classification again = classifier.classify(chrome);
+        classifier.classify(firefox);
+        classifier.classify(safari);
+
+        // Then
+        assertSame(first, again);
+        assertEquals(2, classifier.cacheSize());
+    }
+
+    @Test
+    void classify_ConcurrentCallers_ShouldAgreeWithTheUncachedResult() throws Exception {
+        // Given: mais user agents distintos que o tamanho do cache, lidos por várias threads
+        List<String[]> corpus = loadGoldenCorpus();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> results = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            results.add(executor.submit(() -> {
+                List<String> mismatches = new ArrayList<>();
+                for (int round = 0; round < 50; round++) {
+                    for (String[] entry : corpus) {
+                        if (!UserAgentClassifier.compute(entry[0]).equals(classifier.classify(entry[0]))) {
+                            mismatches.add(entry[0]);
+                        }
+                    }
+                }
+                return mismatches;
+            }));
+        }
+        executor.shutdown();
+
+        // Then
+        for (Future<List<String>> result : results) {
+            assertEquals(List.of(), result.get(10, TimeUnit.SECONDS));
+        }
+        assertTrue(classifier.cacheSize() <= 2);
+    }
+
+    @Test
+    void classify_VeryLongUserAgent_ShouldNotBeCached() {
+        // When
+        UserAgentClassifier.Classification classification = classifier.classify("Mozilla/5.0 (Windows NT 10.0) " + "x".repeat(1000));
+
+        // Then
+        assertEquals("Windows", classification.operatingSystem());
+        assertEquals(0, classifier.cacheSize());
+    }
+
+    static List<String[]> loadGoldenCorpus() throws IOException {
+        List<String[]> corpus = new ArrayList<>();
+        try (InputStream input = UserAgentClassifierTest.class.getResourceAsStream("/user-agents/golden.tsv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("#") && !line.isBlank()) {
+                    corpus.add(line.split("\t", -1));
+                }
+            }
+        }
+        return corpus;
+    }
+}
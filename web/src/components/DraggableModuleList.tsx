@@ -39,13 +39,14 @@ interface DraggableModuleListProps {
 
 interface SortableModuleCardProps {
   module: Module;
+  position: number;
   isProfessional?: boolean;
   onEdit?: (module: Module) => void;
   onDelete?: (moduleId: string) => void;
   isDeleting?: string | null;
 }
 
-function SortableModuleCard({ module, isProfessional, onEdit, onDelete, isDeleting }: SortableModuleCardProps) {
+function SortableModuleCard({ module, position, isProfessional, onEdit, onDelete, isDeleting }: SortableModuleCardProps) {
   const {
     attributes,
     listeners,
@@ -66,6 +67,7 @@ function SortableModuleCard({ module, isProfessional, onEdit, onDelete, isDeleti
     <div ref={setNodeRef} style={style} {...attributes} {...listeners}>
       <ModuleCard 
         module={module} 
+        position={position}
         isProfessional={isProfessional}
         isDraggable={true}
         onEdit={onEdit}
@@ -88,6 +90,12 @@ export function DraggableModuleList({
   const { toast } = useToast();
   const [originalOrder, setOriginalOrder] = useState<Module[]>(modules);
   const [hasChanges, setHasChanges] = useState(false);
+  // Cada arraste vira um "mover para entre estes vizinhos", que o backend grava numa linha só
+  const [pendingMoves, setPendingMoves] = useState<Array<{
+    moduleId: string;
+    previousModuleId?: string;
+    nextModuleId?: string;
+  }>>([]);
 
   const sensors = useSensors(
     useSensor(PointerSensor, {
@@ -116,20 +124,27 @@ export function DraggableModuleList({
       }));
 
       onModulesChange(updatedModules);
+      setPendingMoves(moves => [...moves, {
+        moduleId: String(active.id),
+        previousModuleId: newModules[newIndex - 1]?.id,
+        nextModuleId: newModules[newIndex + 1]?.id
+      }]);
       setHasChanges(true);
     }
   };
 
   const handleSaveOrder = async () => {
     try {
-      const reorderRequests = modules.map((module, index) => ({
-        moduleId: module.id,
-        newOrderIndex: index
-      }));
-
-      await apiService.reorderModules(reorderRequests);
+      // Em sequência: cada movimento usa os vizinhos da lista depois dos anteriores
+      for (const move of pendingMoves) {
+        await apiService.moveModule(move.moduleId, {
+          previousModuleId: move.previousModuleId,
+          nextModuleId: move.nextModuleId
+        });
+      }
       
       setOriginalOrder([...modules]);
+      setPendingMoves([]);
       setHasChanges(false);
       
       toast({
@@ -152,6 +167,7 @@ export function DraggableModuleList({
 
   const handleResetOrder = () => {
     onModulesChange([...originalOrder]);
+    setPendingMoves([]);
     setHasChanges(false);
   };
 
@@ -201,10 +217,11 @@ export function DraggableModuleList({
           strategy={rectSortingStrategy}
         >
           <div className="draggable-module-grid">
-            {modules.map((module) => (
+            {modules.map((module, index) => (
               <SortableModuleCard
                 key={module.id}
                 module={module}
+                position={index}
                 isProfessional={isProfessional}
                 onEdit={onEdit}
                 onDelete={onDelete}
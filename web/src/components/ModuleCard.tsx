@@ -12,6 +12,8 @@ interface ModuleCardProps {
   isProfessional?: boolean;
   isDraggable?: boolean;
   isDeleting?: boolean;
+  // Posição na lista exibida (0 = primeiro); orderIndex é só a chave de ordenação, com lacunas
+  position?: number;
 }
 
 export function ModuleCard({ 
@@ -21,7 +23,8 @@ export function ModuleCard({
   onDelete, 
   isProfessional = false, 
   isDraggable = false,
-  isDeleting = false 
+  isDeleting = false,
+  position
 }: ModuleCardProps) {
   const getContentTypeIcons = () => {
     // Para a listagem de módulos, usamos o contentCount para simular os tipos
@@ -128,9 +131,9 @@ export function ModuleCard({
             <Badge variant="secondary" className="text-xs bg-white/20 backdrop-blur-sm text-white border-white/30">
               {module.category}
             </Badge>
-            {isProfessional && (
+            {isProfessional && position !== undefined && (
               <Badge variant="outline" className="text-xs bg-white/20 backdrop-blur-sm text-white border-white/30">
-                Ordem: {module.orderIndex + 1}
+                Ordem: {position + 1}
               </Badge>
             )}
           </div>
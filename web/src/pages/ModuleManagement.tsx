@@ -18,6 +18,8 @@ import { useToast } from '@/hooks/use-toast';
 import { parseApiError } from '@/lib/utils';
 import { apiService, Module, ModuleDetail } from '@/services/api';
 
+const UUID_PATTERN = /^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$/i;
+
 interface AdminDashboardProps {
   professionalName?: string;
 }
@@ -188,6 +190,8 @@ export function ModuleManagement({ professionalName }: AdminDashboardProps) {
       const validContentBlocks = contentBlocks
         .filter(block => block.content.trim() !== '')
         .map((block, index) => ({
+          // Blocos novos têm id temporário; só os já salvos mandam o id, para o backend atualizar em vez de recriar
+          id: UUID_PATTERN.test(block.id) ? block.id : undefined,
           type: block.type,
           content: block.content.trim(),
           order: index + 1 // Garantir índices sequenciais
@@ -146,6 +146,13 @@ export interface PatientStats {
   progressPercentage: number;
 }
 
+export type PatientRosterSort = 'LAST_ACTIVITY' | 'PROGRESS';
+
+export interface PatientRosterPage {
+  patients: Patient[];
+  nextCursor?: string | null;
+}
+
 export interface UserStats {
   totalModulesViewed: number;
   totalTimeSpent: number;
@@ -349,6 +356,11 @@ class ApiService {
     return !!this.token;
   }
 
+  // Para requisições feitas fora do axios, como o envio com keepalive ao sair da página
+  getToken(): string | null {
+    return this.token;
+  }
+
   // =================== MODULES ENDPOINTS ===================
 
   async getModules(category?: string, page = 0, size = 20): Promise<{
@@ -447,6 +459,7 @@ class ApiService {
     coverImage?: string;
     category?: string;
     content?: Array<{
+      id?: string;
       type: 'TEXT' | 'VIDEO' | 'AUDIO' | 'PDF';
       content: string;
       order: number;
@@ -809,6 +822,34 @@ class ApiService {
     throw new Error(response.data.message || 'Erro ao buscar pacientes com estatísticas');
   }
 
+  async getPatientRoster(
+    sort: PatientRosterSort = 'LAST_ACTIVITY',
+    cursor?: string | null,
+    limit = 50
+  ): Promise<PatientRosterPage> {
+    const response: AxiosResponse<ApiResponse<PatientRosterPage>> = await this.api.get('/users/patients/roster', {
+      params: { sort, cursor: cursor || undefined, limit },
+    });
+
+    if (response.data.status === 'success' && response.data.data) {
+      return response.data.data;
+    }
+
+    throw new Error(response.data.message || 'Erro ao buscar pacientes');
+  }
+
+  async searchPatients(query: string, limit = 20): Promise<User[]> {
+    const response: AxiosResponse<ApiResponse<User[]>> = await this.api.get('/users/patients/search', {
+      params: { q: query, limit },
+    });
+
+    if (response.data.status === 'success' && response.data.data) {
+      return response.data.data;
+    }
+
+    throw new Error(response.data.message || 'Erro ao buscar pacientes');
+  }
+
   async updatePatient(patientId: number, data: Record<string, unknown>): Promise<User> {
     const response: AxiosResponse<ApiResponse<User>> = await this.api.patch(`/users/${patientId}`, data);
 
@@ -977,6 +1018,16 @@ class ApiService {
   }
 
   // Module Reorder Methods
+  async moveModule(id: string, neighbors: { previousModuleId?: string; nextModuleId?: string }): Promise<number> {
+    const response: AxiosResponse<ApiResponse<number>> = await this.api.patch(`/modules/${id}/move`, neighbors);
+
+    if (response.data.status === 'success' && response.data.data !== undefined) {
+      return response.data.data;
+    }
+
+    throw new Error(response.data.message || 'Erro ao mover módulo');
+  }
+
   async reorderModules(reorderRequests: Array<{ moduleId: string; newOrderIndex: number }>): Promise<Module[]> {
     const response: AxiosResponse<ApiResponse<Module[]>> = await this.api.patch('/modules/reorder', reorderRequests);
 
@@ -1,3 +1,4 @@
+import axios from 'axios';
 import { apiService } from './api';
 
 export interface TrackPageViewRequest {
@@ -27,11 +28,37 @@ export interface EndSessionRequest {
   totalTimeSpent: number; // em segundos
 }
 
+export type ActivityEvent =
+  | ({ type: 'PAGE_VIEW' } & TrackPageViewRequest)
+  | ({ type: 'MODULE_VIEW' } & TrackModuleViewRequest)
+  | ({ type: 'MODULE_COMPLETION' } & TrackModuleCompletionRequest);
+
+// Eventos ficam em memória e são enviados juntos para /track/batch
+const TRACK_BATCH_PATH = '/api/user-activity/track/batch';
+const FLUSH_INTERVAL_MS = 5000;
+const MAX_BATCH_SIZE = 100;
+// Lotes que falharam voltam para a fila até este limite; acima dele os mais antigos são descartados
+const MAX_PENDING_EVENTS = 500;
+
 class UserActivityService {
   private sessionId: string | null = null;
   private sessionStartTime: number | null = null;
   private pageViewStartTime: number | null = null;
   private currentPagePath: string | null = null;
+  private pendingEvents: ActivityEvent[] = [];
+  private flushTimer: ReturnType<typeof setTimeout> | null = null;
+
+  constructor() {
+    // Ao fechar a aba, trocar de app ou navegar para fora, o que estiver na fila sai na hora
+    if (typeof window !== 'undefined') {
+      window.addEventListener('pagehide', () => this.flushOnHide());
+      document.addEventListener('visibilitychange', () => {
+        if (document.visibilityState === 'hidden') {
+          this.flushOnHide();
+        }
+      });
+    }
+  }
 
   // Inicializar sessão
   async startSession(): Promise<string> {
@@ -52,6 +79,8 @@ class UserActivityService {
       return;
     }
 
+    await this.flush();
+
     try {
       const totalTimeSpent = Math.floor((Date.now() - this.sessionStartTime) / 1000);
       
@@ -87,14 +116,11 @@ class UserActivityService {
     this.currentPagePath = pagePath;
     this.pageViewStartTime = Date.now();
 
-    try {
-      await apiService.api.post('/api/user-activity/track/page-view', {
-        pagePath,
-        sessionId: this.sessionId
-      });
-    } catch (error) {
-      console.error('Erro ao rastrear visualização de página:', error);
-    }
+    this.enqueue({
+      type: 'PAGE_VIEW',
+      pagePath,
+      sessionId: this.sessionId!
+    });
   }
 
   // Rastrear tempo gasto em uma página
@@ -110,17 +136,14 @@ class UserActivityService {
       await this.startSession();
     }
 
-    try {
-      await apiService.api.post('/api/user-activity/track/module-view', {
-        moduleId,
-        moduleTitle,
-        category,
-        timeSpent,
-        sessionId: this.sessionId
-      });
-    } catch (error) {
-      console.error('Erro ao rastrear visualização de módulo:', error);
-    }
+    this.enqueue({
+      type: 'MODULE_VIEW',
+      moduleId,
+      moduleTitle,
+      category,
+      timeSpent,
+      sessionId: this.sessionId!
+    });
   }
 
   // Rastrear conclusão de módulo
@@ -129,17 +152,106 @@ class UserActivityService {
       await this.startSession();
     }
 
+    this.enqueue({
+      type: 'MODULE_COMPLETION',
+      moduleId,
+      moduleTitle,
+      category,
+      timeSpent,
+      completionPercentage,
+      sessionId: this.sessionId!
+    });
+  }
+
+  // Enviar os eventos pendentes em um único request
+  async flush(): Promise<void> {
+    if (this.flushTimer) {
+      clearTimeout(this.flushTimer);
+      this.flushTimer = null;
+    }
+    if (this.pendingEvents.length === 0) {
+      return;
+    }
+
+    const events = this.takeBatch();
+
     try {
-      await apiService.api.post('/api/user-activity/track/module-completion', {
-        moduleId,
-        moduleTitle,
-        category,
-        timeSpent,
-        completionPercentage,
-        sessionId: this.sessionId
-      });
+      const response = await apiService.api.post(TRACK_BATCH_PATH, { events });
+      const rejected = response.data.data?.rejected ?? 0;
+      if (rejected > 0) {
+        console.warn(`${rejected} evento(s) de atividade recusado(s):`, response.data.data.results);
+      }
     } catch (error) {
-      console.error('Erro ao rastrear conclusão de módulo:', error);
+      console.error('Erro ao enviar eventos de atividade:', error);
+      // Erros 4xx não se resolvem reenviando o mesmo lote
+      if (!axios.isAxiosError(error) || !error.response || error.response.status >= 500) {
+        this.requeue(events);
+      }
+    }
+  }
+
+  // Envio com keepalive: a requisição continua mesmo que a página seja descarregada.
+  // sendBeacon não serve aqui porque não envia o header Authorization.
+  private flushOnHide(): void {
+    if (this.flushTimer) {
+      clearTimeout(this.flushTimer);
+      this.flushTimer = null;
+    }
+    const token = apiService.getToken();
+    if (this.pendingEvents.length === 0 || !token) {
+      return;
+    }
+
+    const events = this.takeBatch();
+    fetch(apiService.api.getUri({ url: TRACK_BATCH_PATH }), {
+      method: 'POST',
+      keepalive: true,
+      headers: {
+        'Content-Type': 'application/json',
+        Authorization: `Bearer ${token}`,
+      },
+      body: JSON.stringify({ events }),
+    })
+      .then((response) => {
+        if (response.status >= 500) {
+          this.requeue(events);
+        }
+      })
+      .catch(() => this.requeue(events));
+  }
+
+  // Até MAX_BATCH_SIZE eventos; o restante fica para o próximo envio
+  private takeBatch(): ActivityEvent[] {
+    const events = this.pendingEvents.slice(0, MAX_BATCH_SIZE);
+    this.pendingEvents = this.pendingEvents.slice(MAX_BATCH_SIZE);
+    if (this.pendingEvents.length > 0) {
+      this.scheduleFlush();
+    }
+    return events;
+  }
+
+  private requeue(events: ActivityEvent[]): void {
+    const queue = [...events, ...this.pendingEvents];
+    const dropped = queue.length - MAX_PENDING_EVENTS;
+    if (dropped > 0) {
+      console.warn(`${dropped} evento(s) de atividade descartado(s): fila cheia`);
+    }
+    this.pendingEvents = dropped > 0 ? queue.slice(dropped) : queue;
+    this.scheduleFlush();
+  }
+
+  private scheduleFlush(): void {
+    if (!this.flushTimer) {
+      this.flushTimer = setTimeout(() => void this.flush(), FLUSH_INTERVAL_MS);
+    }
+  }
+
+  private enqueue(event: ActivityEvent): void {
+    this.pendingEvents.push(event);
+    if (this.pendingEvents.length >= MAX_BATCH_SIZE) {
+      void this.flush();
+    } else {
+      this.scheduleFlush();
     }
   }
 
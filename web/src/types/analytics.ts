@@ -15,6 +15,7 @@ export interface LinkAnalytics {
   linkTitle: string;
   totalClicks: number;
   uniqueClicks: number;
+  uniqueClicksInRange?: number;
   clicksByDate: ClicksByDate[];
   clicksByCountry: Record<string, number>;
   clicksByDevice: Record<string, number>;
@@ -35,6 +36,9 @@ export interface PageAnalytics {
   professionalId: number;
   totalViews: number;
   uniqueViews: number;
+  uniqueViewsInRange?: number;
+  uniqueCountsEstimated?: boolean;
+  uniqueCountStandardError?: number;
   totalClicks: number;
   averageSessionDuration: number;
   viewsByDate: ViewsByDate[];